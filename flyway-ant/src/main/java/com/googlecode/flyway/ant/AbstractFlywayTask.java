@@ -22,7 +22,9 @@ import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.tools.ant.AntClassLoader;
+import org.apache.tools.ant.BuildEvent;
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.Path;
 import org.apache.tools.ant.types.Reference;
@@ -39,6 +41,11 @@ public abstract class AbstractFlywayTask extends Task {
      */
     private static final Log LOG = LogFactory.getLog(AbstractFlywayTask.class);
 
+    /**
+     * The id of the project reference marking that the pooled datasources will be closed at the end of the build.
+     */
+    private static final String POOL_CLOSER_REFERENCE = "flyway.pooledDataSourceCloser";
+
     /**
      * The classpath used to load the JDBC driver and the migrations.
      */
@@ -81,6 +88,18 @@ public abstract class AbstractFlywayTask extends Task {
      */
     private String table;
 
+    /**
+     * The maximum number of schemas to clean concurrently, each on its own connection. (default: 1, sequential)<br/>Also
+     * configurable with Ant Property: ${flyway.cleanThreads}
+     */
+    private int cleanThreads = 1;
+
+    /**
+     * Whether to clean schemas by dropping and recreating them where possible, instead of dropping all their objects one
+     * by one. (default: false)<br/>Also configurable with Ant Property: ${flyway.fastClean}
+     */
+    private boolean fastClean;
+
     /**
      * @param classpath The classpath used to load the JDBC driver and the migrations.<br/>Also configurable with Ant
      *                  Property: ${flyway.classpath}
@@ -148,7 +167,25 @@ public abstract class AbstractFlywayTask extends Task {
     }
 
     /**
-     * Creates the datasource base on the provided parameters.
+     * @param cleanThreads The maximum number of schemas to clean concurrently, each on its own connection.
+     *                     (default: 1, sequential)<br/>Also configurable with Ant Property: ${flyway.cleanThreads}
+     */
+    public void setCleanThreads(int cleanThreads) {
+        this.cleanThreads = cleanThreads;
+    }
+
+    /**
+     * @param fastClean Whether to clean schemas by dropping and recreating them where possible, instead of dropping all
+     *                  their objects one by one. (default: false)<br/>Also configurable with Ant Property: ${flyway.fastClean}
+     */
+    public void setFastClean(boolean fastClean) {
+        this.fastClean = fastClean;
+    }
+
+    /**
+     * Creates the datasource base on the provided parameters. The datasource is pooled and shared with the other tasks
+     * using the same database, so running several tasks in one build reuses the same connections. The pools are
+     * closed once the build has finished.
      *
      * @return The fully configured datasource.
      * @throws Exception Thrown when the datasource could not be created.
@@ -162,7 +199,45 @@ public abstract class AbstractFlywayTask extends Task {
             passwordValue = "";
         }
 
-        return new DriverDataSource(driverValue, urlValue, userValue, passwordValue);
+        if (getProject().getReference(POOL_CLOSER_REFERENCE) == null) {
+            PooledDataSourceCloser pooledDataSourceCloser = new PooledDataSourceCloser();
+            getProject().addReference(POOL_CLOSER_REFERENCE, pooledDataSourceCloser);
+            getProject().addBuildListener(pooledDataSourceCloser);
+        }
+        return DriverDataSource.getPooledDataSource(driverValue, urlValue, userValue, passwordValue);
+    }
+
+    /**
+     * Closes the pooled datasources shared by the tasks once the build has finished.
+     */
+    private static class PooledDataSourceCloser implements BuildListener {
+        public void buildFinished(BuildEvent event) {
+            DriverDataSource.closePooledDataSources();
+        }
+
+        public void buildStarted(BuildEvent event) {
+            //Do nothing
+        }
+
+        public void targetStarted(BuildEvent event) {
+            //Do nothing
+        }
+
+        public void targetFinished(BuildEvent event) {
+            //Do nothing
+        }
+
+        public void taskStarted(BuildEvent event) {
+            //Do nothing
+        }
+
+        public void taskFinished(BuildEvent event) {
+            //Do nothing
+        }
+
+        public void messageLogged(BuildEvent event) {
+            //Do nothing
+        }
     }
 
     /**
@@ -210,7 +285,9 @@ public abstract class AbstractFlywayTask extends Task {
         try {
             Flyway flyway = new Flyway();
 
-            flyway.setDataSource(createDataSource());
+            if (isDataSourceRequired()) {
+                flyway.setDataSource(createDataSource());
+            }
             String schemasValue = useValueIfPropertyNotSet(schemas, "schemas");
             if (schemasValue != null) {
                 flyway.setSchemas(StringUtils.tokenizeToStringArray(schemasValue, ","));
@@ -219,6 +296,10 @@ public abstract class AbstractFlywayTask extends Task {
             if (tableValue != null) {
                 flyway.setTable(tableValue);
             }
+            int cleanThreadsValue = Integer.parseInt(useValueIfPropertyNotSet(Integer.toString(cleanThreads), "cleanThreads"));
+            flyway.setCleanThreads(cleanThreadsValue);
+            boolean fastCleanValue = Boolean.valueOf(useValueIfPropertyNotSet(Boolean.toString(fastClean), "fastClean"));
+            flyway.setFastClean(fastCleanValue);
 
             doExecute(flyway);
         } catch (Exception e) {
@@ -235,6 +316,13 @@ public abstract class AbstractFlywayTask extends Task {
         }
     }
 
+    /**
+     * @return Whether this task needs a connection to the database. (default: true)
+     */
+    protected boolean isDataSourceRequired() {
+        return true;
+    }
+
     /**
      * Executes this task.
      *
@@ -48,6 +48,18 @@ public abstract class AbstractMigrationLoadingTask extends AbstractFlywayTask {
      */
     private String sqlMigrationSuffix;
 
+    /**
+     * The file in which to persist the checksums of the Sql migrations, so unchanged scripts don't have to be read again
+     * on every run. (default: none)<br/>Also configurable with Ant Property: ${flyway.checksumIndexFile}
+     */
+    private String checksumIndexFile;
+
+    /**
+     * The maximum number of threads to use to scan the classpath for migrations in parallel.
+     * (default: 1, sequential)<br/>Also configurable with Ant Property: ${flyway.scanThreads}
+     */
+    private int scanThreads = 1;
+
     /**
      * The action to take when validation fails.<br/> <br/> Possible values are:<br/> <br/> <b>FAIL</b> (default)<br/>
      * Throw an exception and fail.<br/> <br/> <b>CLEAN (Warning ! Do not use in produktion !)</b><br/> Cleans the
@@ -94,6 +106,23 @@ public abstract class AbstractMigrationLoadingTask extends AbstractFlywayTask {
         this.sqlMigrationSuffix = sqlMigrationSuffix;
     }
 
+    /**
+     * @param checksumIndexFile The file in which to persist the checksums of the Sql migrations, so unchanged scripts
+     *                          don't have to be read again on every run. (default: none)<br/>Also configurable with Ant
+     *                          Property: ${flyway.checksumIndexFile}
+     */
+    public void setChecksumIndexFile(String checksumIndexFile) {
+        this.checksumIndexFile = checksumIndexFile;
+    }
+
+    /**
+     * @param scanThreads The maximum number of threads to use to scan the classpath for migrations in parallel.
+     *                    (default: 1, sequential)<br/>Also configurable with Ant Property: ${flyway.scanThreads}
+     */
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
     /**
      * @param validationErrorMode The action to take when validation fails.<br/> <br/> Possible values are:<br/> <br/> <b>FAIL</b> (default)<br/>
      *                            Throw an exception and fail.<br/> <br/> <b>CLEAN (Warning ! Do not use in produktion !)</b><br/> Cleans the
@@ -121,6 +150,12 @@ public abstract class AbstractMigrationLoadingTask extends AbstractFlywayTask {
         if (encodingValue != null) {
             flyway.setEncoding(encodingValue);
         }
+        String checksumIndexFileValue = useValueIfPropertyNotSet(checksumIndexFile, "checksumIndexFile");
+        if (checksumIndexFileValue != null) {
+            flyway.setChecksumIndexFile(checksumIndexFileValue);
+        }
+        int scanThreadsValue = Integer.parseInt(useValueIfPropertyNotSet(Integer.toString(scanThreads), "scanThreads"));
+        flyway.setScanThreads(scanThreadsValue);
         String sqlMigrationPrefixValue = useValueIfPropertyNotSet(sqlMigrationPrefix, "sqlMigrationPrefix");
         if (sqlMigrationPrefixValue != null) {
             flyway.setSqlMigrationPrefix(sqlMigrationPrefixValue);
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.ant;
+
+import com.googlecode.flyway.core.Flyway;
+import com.googlecode.flyway.core.exception.FlywayException;
+
+import java.io.File;
+
+/**
+ * Ant task to write an index of the available migrations to the build output, so Flyway doesn't have to scan the
+ * classpath for them at runtime. Doesn't need a connection to the database.
+ */
+@SuppressWarnings({"UnusedDeclaration", "JavaDoc"})
+public class IndexTask extends AbstractMigrationLoadingTask {
+    /**
+     * The root of the classpath directory to write the index to, usually the directory the classes are compiled to.
+     * <br/>Also configurable with Ant Property: ${flyway.outputDir}
+     */
+    private File outputDir;
+
+    /**
+     * @param outputDir The root of the classpath directory to write the index to, usually the directory the classes
+     *                  are compiled to.<br/>Also configurable with Ant Property: ${flyway.outputDir}
+     */
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @Override
+    protected boolean isDataSourceRequired() {
+        return false;
+    }
+
+    @Override
+    protected void doExecute(Flyway flyway) throws Exception {
+        super.doExecute(flyway);
+
+        String outputDirValue = useValueIfPropertyNotSet(outputDir == null ? null : outputDir.getPath(), "outputDir");
+        if (outputDirValue == null) {
+            throw new FlywayException("outputDir not set! Check your configuration!");
+        }
+        flyway.index(new File(outputDirValue));
+    }
+}
@@ -90,6 +90,50 @@ public class MigrateTask extends AbstractMigrationLoadingTask {
      */
     private boolean disableInitCheck;
 
+    /**
+     * Whether to group all pending migrations together in the same transaction when applying them. Only honored for
+     * databases that support ddl transactions. If any migration fails, all of them are rolled back. (default: false)<br/>Also configurable with Ant Property: ${flyway.group}
+     */
+    private boolean group;
+
+    /**
+     * The maximum number of consecutive DML statements of a sql migration to send to the database as a single JDBC
+     * batch. All other statements are always executed on their own. (default: 1, no batching)<br/>Also configurable with Ant Property: ${flyway.batchSize}
+     */
+    private int batchSize = 1;
+
+    /**
+     * The directory in which to store snapshots of the migrated schemas, restored instead of applying the same
+     * migrations to clean schemas again. Only supported for H2. (default: none)<br/>Also configurable with Ant Property:
+     * ${flyway.snapshotDir}
+     */
+    private String snapshotDir;
+
+    /**
+     * The file to which to write a JSON report of the time spent on each applied migration and of the slowest
+     * statements. (default: none)<br/>Also configurable with Ant Property: ${flyway.reportFile}
+     */
+    private String reportFile;
+
+    /**
+     * The maximum number of slowest statements to include in the migration report. (default: 10)<br/>Also configurable
+     * with Ant Property: ${flyway.reportSlowStatements}
+     */
+    private int reportSlowStatements = 10;
+
+    /**
+     * The maximum time to wait for the migration lock, in seconds. (default: 0, wait as long as necessary)<br/>Also
+     * configurable with Ant Property: ${flyway.lockTimeout}
+     */
+    private int lockTimeout;
+
+    /**
+     * The maximum number of migrations to apply concurrently. Migrations that don't declare their dependencies wait for
+     * all older migrations. (default: 1, one after the other)<br/>Also configurable with Ant Property:
+     * ${flyway.migrationThreads}
+     */
+    private int migrationThreads = 1;
+
     /**
      * @param target The target version up to which Flyway should run migrations. Migrations with a higher version number will not be
      *               applied. (default: the latest version)<br/>Also configurable with Ant Property: ${flyway.target}
@@ -144,6 +188,65 @@ public class MigrateTask extends AbstractMigrationLoadingTask {
         this.disableInitCheck = disableInitCheck;
     }
 
+    /**
+     * @param group Whether to group all pending migrations together in the same transaction when applying them. Only honored for
+     *              databases that support ddl transactions. If any migration fails, all of them are rolled back. (default: false)<br/>Also configurable with Ant Property: ${flyway.group}
+     */
+    public void setGroup(boolean group) {
+        this.group = group;
+    }
+
+    /**
+     * @param batchSize The maximum number of consecutive DML statements of a sql migration to send to the database as a single JDBC
+     *                  batch. All other statements are always executed on their own. (default: 1, no batching)<br/>Also configurable with Ant Property: ${flyway.batchSize}
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param snapshotDir The directory in which to store snapshots of the migrated schemas, restored instead of applying
+     *                    the same migrations to clean schemas again. Only supported for H2. (default: none)<br/>Also
+     *                    configurable with Ant Property: ${flyway.snapshotDir}
+     */
+    public void setSnapshotDir(String snapshotDir) {
+        this.snapshotDir = snapshotDir;
+    }
+
+    /**
+     * @param reportFile The file to which to write a JSON report of the time spent on each applied migration and of
+     *                   the slowest statements. (default: none)<br/>Also configurable with Ant Property:
+     *                   ${flyway.reportFile}
+     */
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * @param reportSlowStatements The maximum number of slowest statements to include in the migration report.
+     *                             (default: 10)<br/>Also configurable with Ant Property: ${flyway.reportSlowStatements}
+     */
+    public void setReportSlowStatements(int reportSlowStatements) {
+        this.reportSlowStatements = reportSlowStatements;
+    }
+
+    /**
+     * @param lockTimeout The maximum time to wait for the migration lock, in seconds. 0 or less to wait as long as
+     *                    necessary. (default: 0)<br/>Also configurable with Ant Property: ${flyway.lockTimeout}
+     */
+    public void setLockTimeout(int lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * @param migrationThreads The maximum number of migrations to apply concurrently. Migrations that don't declare
+     *                         their dependencies wait for all older migrations. (default: 1, one after the other)<br/>Also
+     *                         configurable with Ant Property: ${flyway.migrationThreads}
+     */
+    public void setMigrationThreads(int migrationThreads) {
+        this.migrationThreads = migrationThreads;
+    }
+
     /**
      * Adds a placeholder from a nested &lt;placeholder&gt; element. Called by Ant.
      *
@@ -188,6 +291,29 @@ public class MigrateTask extends AbstractMigrationLoadingTask {
                         useValueIfPropertyNotSet(
                                 Boolean.toString(disableInitCheck), "disableInitCheck"));
         flyway.setDisableInitCheck(disableInitCheckValue);
+        boolean groupValue = Boolean.valueOf(useValueIfPropertyNotSet(Boolean.toString(group), "group"));
+        flyway.setGroup(groupValue);
+
+        int batchSizeValue = Integer.parseInt(useValueIfPropertyNotSet(Integer.toString(batchSize), "batchSize"));
+        flyway.setBatchSize(batchSizeValue);
+
+        String snapshotDirValue = useValueIfPropertyNotSet(snapshotDir, "snapshotDir");
+        if (snapshotDirValue != null) {
+            flyway.setSnapshotDir(snapshotDirValue);
+        }
+
+        String reportFileValue = useValueIfPropertyNotSet(reportFile, "reportFile");
+        if (reportFileValue != null) {
+            flyway.setReportFile(reportFileValue);
+        }
+        int reportSlowStatementsValue = Integer.parseInt(
+                useValueIfPropertyNotSet(Integer.toString(reportSlowStatements), "reportSlowStatements"));
+        flyway.setReportSlowStatements(reportSlowStatementsValue);
+        int lockTimeoutValue = Integer.parseInt(useValueIfPropertyNotSet(Integer.toString(lockTimeout), "lockTimeout"));
+        flyway.setLockTimeout(lockTimeoutValue);
+        int migrationThreadsValue =
+                Integer.parseInt(useValueIfPropertyNotSet(Integer.toString(migrationThreads), "migrationThreads"));
+        flyway.setMigrationThreads(migrationThreadsValue);
 
         MigrationProvider migrationProvider =
                 new MigrationProvider(flyway.getBasePackage(), flyway.getBaseDir(), flyway.getEncoding(),
@@ -17,10 +17,12 @@ package com.googlecode.flyway.commandline;
 
 import com.googlecode.flyway.core.Flyway;
 import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.tenant.TenantMigrationResult;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import com.googlecode.flyway.core.util.ClassUtils;
 import com.googlecode.flyway.core.util.ExceptionUtils;
 import com.googlecode.flyway.core.util.MetaDataTableRowDumper;
+import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.config.PropertiesFactoryBean;
@@ -33,6 +35,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLDecoder;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -70,22 +73,32 @@ public class Main {
             loadConfigurationFile(properties, args);
             overrideConfiguration(properties, args);
             //adjustBaseDir(properties);
-            flyway.configure(properties);
-
-            if ("clean".equals(operation)) {
-                flyway.clean();
-            } else if ("init".equals(operation)) {
-                flyway.init();
-            } else if ("migrate".equals(operation)) {
-                flyway.migrate();
-            } else if ("validate".equals(operation)) {
-                flyway.validate();
-            } else if ("status".equals(operation)) {
-                MetaDataTableRowDumper.dumpMigration(flyway.status());
-            } else if ("history".equals(operation)) {
-                MetaDataTableRowDumper.dumpMigrations(flyway.history());
-            } else {
-                printUsage();
+            try {
+                flyway.configure(properties);
+
+                if ("clean".equals(operation)) {
+                    flyway.clean();
+                } else if ("init".equals(operation)) {
+                    flyway.init();
+                } else if ("migrate".equals(operation)) {
+                    flyway.migrate();
+                } else if ("rehearse".equals(operation)) {
+                    flyway.rehearse();
+                } else if ("migrateTenants".equals(operation)) {
+                    migrateTenants(flyway);
+                } else if ("await".equals(operation)) {
+                    MetaDataTableRowDumper.dumpMigration(flyway.await());
+                } else if ("validate".equals(operation)) {
+                    flyway.validate();
+                } else if ("status".equals(operation)) {
+                    MetaDataTableRowDumper.dumpMigration(flyway.status());
+                } else if ("history".equals(operation)) {
+                    MetaDataTableRowDumper.dumpMigrations(flyway.history());
+                } else {
+                    printUsage();
+                }
+            } finally {
+                DriverDataSource.closePooledDataSources();
             }
         } catch (Exception e) {
             if (debug) {
@@ -144,6 +157,26 @@ public class Main {
         properties.put("flyway.baseDir", "");
     }
 
+    /**
+     * Migrates all configured tenants.
+     *
+     * @param flyway The configured Flyway instance.
+     * @throws FlywayException when the migration failed for at least one tenant.
+     */
+    private static void migrateTenants(Flyway flyway) throws FlywayException {
+        List<TenantMigrationResult> results = flyway.migrateTenants();
+
+        int failureCount = 0;
+        for (TenantMigrationResult result : results) {
+            if (!result.isSuccess()) {
+                failureCount++;
+            }
+        }
+        if (failureCount > 0) {
+            throw new FlywayException("Migration failed for " + failureCount + " of " + results.size() + " tenants");
+        }
+    }
+
     /**
      * Prints the version number on the console.
      *
@@ -177,12 +210,15 @@ public class Main {
         LOG.info("");
         LOG.info("Commands");
         LOG.info("========");
-        LOG.info("clean    : Drops all objects in the schema without dropping the schema itself");
-        LOG.info("init     : Creates and initializes the metadata table in the schema");
-        LOG.info("migrate  : Migrates the schema to the latest version");
-        LOG.info("validate : Validates the applied migrations against the ones on the classpath");
-        LOG.info("status   : Prints the current version of the schema");
-        LOG.info("history  : Prints the full migration history of the schema");
+        LOG.info("clean          : Drops all objects in the schema without dropping the schema itself");
+        LOG.info("init           : Creates and initializes the metadata table in the schema");
+        LOG.info("migrate        : Migrates the schema to the latest version");
+        LOG.info("rehearse       : Applies the pending migrations in a transaction that is rolled back");
+        LOG.info("migrateTenants : Migrates all tenant schemas or databases to the latest version");
+        LOG.info("await          : Waits until the schema has been migrated to the latest version by someone else");
+        LOG.info("validate       : Validates the applied migrations against the ones on the classpath");
+        LOG.info("status         : Prints the current version of the schema");
+        LOG.info("history        : Prints the full migration history of the schema");
         LOG.info("");
         LOG.info("Options (Format: -key=value)");
         LOG.info("=======");
@@ -192,11 +228,15 @@ public class Main {
         LOG.info("password            : Password to use to connect to the database");
         LOG.info("schemas             : Comma-separated list of the schemas managed by Flyway");
         LOG.info("table               : Name of Flyway's metadata table");
+        LOG.info("cleanThreads        : Max number of schemas to clean concurrently");
+        LOG.info("fastClean           : Drop and recreate owned schemas instead of their objects");
         LOG.info("basePackage         : Package to scan for Java migrations");
         LOG.info("baseDir             : Directory on the classpath to scan for Sql migrations");
         LOG.info("sqlMigrationPrefix  : File name prefix for Sql migrations");
         LOG.info("sqlMigrationSuffix  : File name suffix for Sql migrations");
         LOG.info("encoding            : Encoding of Sql migrations");
+        LOG.info("checksumIndexFile   : File in which to persist the checksums of Sql migrations");
+        LOG.info("scanThreads         : Max number of threads to scan the classpath with");
         LOG.info("placeholders        : Placeholders to replace in Sql migrations");
         LOG.info("placeholderPrefix   : Prefix of every placeholder");
         LOG.info("placeholderSuffix   : Suffix of every placeholder");
@@ -206,6 +246,19 @@ public class Main {
         LOG.info("initialVersion      : Initial version to put in the database");
         LOG.info("initialDescription  : Description of the initial version");
         LOG.info("disableInitCheck    : Don't check that a non-empty schema has been initialized");
+        LOG.info("group               : Apply all pending migrations in a single transaction");
+        LOG.info("batchSize           : Max number of consecutive DML statements per JDBC batch");
+        LOG.info("snapshotDir         : Directory for snapshots restored instead of migrating clean schemas");
+        LOG.info("migrationListeners  : Comma-separated classes notified of command, migration and statement timings");
+        LOG.info("reportFile          : File to write a JSON report of migration and slowest statement timings to");
+        LOG.info("reportSlowStatements: Max number of slowest statements in the migration report");
+        LOG.info("tenantSchemas       : Comma-separated list of tenant schemas to migrate with migrateTenants");
+        LOG.info("tenantUrls          : Comma-separated list of jdbc urls of tenant databases to migrate");
+        LOG.info("tenantThreads       : Max number of tenants to migrate concurrently");
+        LOG.info("tenantRetries       : Number of times to retry a tenant whose migration failed");
+        LOG.info("lockTimeout         : Max number of seconds to wait for the migration lock");
+        LOG.info("migrationThreads    : Max number of independent migrations to apply concurrently");
+        LOG.info("awaitTimeout        : Max number of seconds to wait for the schema to be migrated with await");
         LOG.info("configFile          : Config file to use (default: conf/flyway.properties)");
         LOG.info("configFileEncoding  : Encoding of the config file (default: UTF-8)");
         LOG.info("");
@@ -22,13 +22,29 @@ import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.init.DbInit;
 import com.googlecode.flyway.core.metadatatable.MetaDataTable;
 import com.googlecode.flyway.core.metadatatable.MetaDataTableRow;
+import com.googlecode.flyway.core.metrics.CompositeMigrationListener;
+import com.googlecode.flyway.core.metrics.MigrationListener;
+import com.googlecode.flyway.core.metrics.MigrationReport;
 import com.googlecode.flyway.core.migration.DbMigrator;
 import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationIndex;
 import com.googlecode.flyway.core.migration.MigrationProvider;
+import com.googlecode.flyway.core.migration.MigrationSettings;
+import com.googlecode.flyway.core.migration.MigrationState;
 import com.googlecode.flyway.core.migration.SchemaVersion;
+import com.googlecode.flyway.core.migration.sql.ChecksumIndex;
+import com.googlecode.flyway.core.snapshot.DbSnapshot;
+import com.googlecode.flyway.core.tenant.Tenant;
+import com.googlecode.flyway.core.tenant.TenantMigrationResult;
+import com.googlecode.flyway.core.tenant.TenantMigrator;
+import com.googlecode.flyway.core.util.ClassUtils;
+import com.googlecode.flyway.core.util.StopWatch;
 import com.googlecode.flyway.core.util.StringUtils;
+import com.googlecode.flyway.core.util.TimeFormat;
 import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import com.googlecode.flyway.core.util.jdbc.JdbcUtils;
+import com.googlecode.flyway.core.util.jdbc.TransactionCallback;
+import com.googlecode.flyway.core.util.jdbc.TransactionException;
 import com.googlecode.flyway.core.util.jdbc.TransactionTemplate;
 import com.googlecode.flyway.core.validation.DbValidator;
 import com.googlecode.flyway.core.validation.ValidationErrorMode;
@@ -39,8 +55,10 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,6 +77,22 @@ public class Flyway {
      */
     private static final String PLACEHOLDERS_PROPERTY_PREFIX = "flyway.placeholders.";
 
+    /**
+     * The delay before retrying a failed tenant for the first time (in ms). It grows linearly with every attempt.
+     */
+    private static final long TENANT_RETRY_DELAY = 1000;
+
+    /**
+     * The delay before checking again whether the schema has reached the target version, when waiting for it (in ms).
+     * It doubles with every check, up to {@link #MAX_AWAIT_DELAY}.
+     */
+    private static final long INITIAL_AWAIT_DELAY = 100;
+
+    /**
+     * The maximum delay between two checks whether the schema has reached the target version (in ms).
+     */
+    private static final long MAX_AWAIT_DELAY = 5000;
+
     /**
      * The base package where the Java migrations are located. (default: db.migration)
      */
@@ -157,6 +191,113 @@ public class Flyway {
      */
     private boolean disableInitCheck;
 
+    /**
+     * Whether to group all pending migrations together in the same transaction when applying them. This drastically
+     * reduces the number of round trips to the database when many migrations are pending. Only honored for databases
+     * that support ddl transactions. If any migration fails, all of them are rolled back. (default: false)
+     */
+    private boolean group;
+
+    /**
+     * The maximum number of migrations to apply concurrently, each on its own connection obtained from the datasource.
+     * A migration is started as soon as the migrations it declares to depend on have been applied, which shortens
+     * migration runs consisting of many independent migrations. Migrations that don't declare their dependencies wait
+     * for all older migrations, and all newer migrations wait for them. Not used when migrations are grouped, nor on
+     * databases without ddl transactions. (default: 1, the migrations are applied one after the other)
+     */
+    private int migrationThreads = 1;
+
+    /**
+     * The maximum number of consecutive DML statements (insert, update, delete, merge) of a sql migration to send to
+     * the database as a single JDBC batch. Greatly reduces the number of round trips for migrations loading large
+     * amounts of data. All other statements are always executed on their own. (default: 1, no batching)
+     */
+    private int batchSize = 1;
+
+    /**
+     * The file in which to persist the checksums of the sql migrations on the classpath, so unchanged scripts don't
+     * have to be read again on every run just to calculate their checksum. Entries are invalidated as soon as the size,
+     * the modification time (or the crc of the jar entry) or the encoding of a script changes. (default: none, the
+     * checksums are calculated on every run)
+     */
+    private String checksumIndexFile;
+
+    /**
+     * The directory in which to store snapshots of the migrated schemas. When migrating clean schemas with a set of
+     * migrations for which a snapshot exists, the snapshot is restored instead of applying all migrations one by one.
+     * Meant for test suites that clean and migrate the database over and over. Only supported for H2. (default: none,
+     * no snapshots are used)
+     */
+    private String snapshotDir;
+
+    /**
+     * The maximum number of threads to use to scan the locations (directories and jar files) on the classpath for
+     * migrations in parallel. Speeds up startup when the migrations are spread across many jars. (default: 1, the
+     * locations are scanned one after the other)
+     */
+    private int scanThreads = 1;
+
+    /**
+     * The maximum number of schemas to clean concurrently, each on its own connection obtained from the datasource.
+     * Speeds up clean when many schemas are managed. (default: 1, the schemas are cleaned one after the other)
+     */
+    private int cleanThreads = 1;
+
+    /**
+     * Whether to clean schemas by dropping and recreating them instead of dropping all their objects one by one. This
+     * is only done for schemas owned by the current user on databases supporting it. All other schemas are still
+     * cleaned object by object. (default: false)
+     */
+    private boolean fastClean;
+
+    /**
+     * The listeners to notify before and after each command, each applied migration and each statement of a sql
+     * migration. (default: none)
+     */
+    private MigrationListener[] migrationListeners = new MigrationListener[0];
+
+    /**
+     * The file to which migrate writes a JSON report of the time spent on each applied migration and of the slowest
+     * statements across all of them. (default: none, no report is written)
+     */
+    private String reportFile;
+
+    /**
+     * The maximum number of slowest statements to include in the migration report. (default: 10)
+     */
+    private int reportSlowStatements = 10;
+
+    /**
+     * The tenants to migrate with migrateTenants. (default: none)
+     */
+    private List<Tenant> tenants = new ArrayList<Tenant>();
+
+    /**
+     * The maximum number of tenants to migrate at the same time. (default: 1)
+     */
+    private int tenantThreads = 1;
+
+    /**
+     * The number of times to retry the migration of a tenant after it failed. (default: 0)
+     */
+    private int tenantRetries;
+
+    /**
+     * The maximum time to wait for the migration lock, in seconds. (default: 0, wait as long as necessary)
+     */
+    private int lockTimeout;
+
+    /**
+     * The maximum time to wait for the schema to reach the target version with await, in seconds. (default: 0, wait as
+     * long as necessary)
+     */
+    private int awaitTimeout;
+
+    /**
+     * The checksum index, loaded lazily from the checksum index file. {@code null} if not loaded yet or not configured.
+     */
+    private ChecksumIndex checksumIndex;
+
     /**
      * The dataSource to use to access the database. Must have the necessary privileges to execute ddl.
      */
@@ -330,6 +471,157 @@ public class Flyway {
         return disableInitCheck;
     }
 
+    /**
+     * Checks whether to group all pending migrations together in the same transaction when applying them. Only honored
+     * for databases that support ddl transactions. If any migration fails, all of them are rolled back.
+     *
+     * @return {@code true} if migrations should be grouped. {@code false} if they should be applied individually
+     *         instead. (default: false)
+     */
+    public boolean isGroup() {
+        return group;
+    }
+
+    /**
+     * Retrieves the maximum number of migrations to apply concurrently.
+     *
+     * @return The number of migration threads. 1 or less means the migrations are applied one after the other.
+     *         (default: 1)
+     */
+    public int getMigrationThreads() {
+        return migrationThreads;
+    }
+
+    /**
+     * Retrieves the maximum number of consecutive DML statements (insert, update, delete, merge) of a sql migration to
+     * send to the database as a single JDBC batch.
+     *
+     * @return The batch size. 1 or less means statements are executed one at a time. (default: 1)
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Retrieves the file in which to persist the checksums of the sql migrations on the classpath.
+     *
+     * @return The checksum index file. {@code null} if the checksums are calculated on every run. (default: none)
+     */
+    public String getChecksumIndexFile() {
+        return checksumIndexFile;
+    }
+
+    /**
+     * Retrieves the directory in which to store snapshots of the migrated schemas.
+     *
+     * @return The snapshot directory. {@code null} if no snapshots are used. (default: none)
+     */
+    public String getSnapshotDir() {
+        return snapshotDir;
+    }
+
+    /**
+     * Retrieves the maximum number of threads to use to scan the locations on the classpath for migrations in parallel.
+     *
+     * @return The number of scan threads. 1 or less means the locations are scanned one after the other. (default: 1)
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    /**
+     * Retrieves the maximum number of schemas to clean concurrently.
+     *
+     * @return The number of clean threads. 1 or less means the schemas are cleaned one after the other. (default: 1)
+     */
+    public int getCleanThreads() {
+        return cleanThreads;
+    }
+
+    /**
+     * Checks whether schemas are cleaned by dropping and recreating them instead of dropping all their objects one by
+     * one.
+     *
+     * @return {@code true} if they are, where possible. {@code false} if they are always cleaned object by object.
+     *         (default: false)
+     */
+    public boolean isFastClean() {
+        return fastClean;
+    }
+
+    /**
+     * Retrieves the listeners to notify before and after each command, each applied migration and each statement of a
+     * sql migration.
+     *
+     * @return The migration listeners. (default: none)
+     */
+    public MigrationListener[] getMigrationListeners() {
+        return migrationListeners;
+    }
+
+    /**
+     * Retrieves the file to which migrate writes a JSON report of the applied migrations and their slowest statements.
+     *
+     * @return The report file. (default: none, no report is written)
+     */
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    /**
+     * Retrieves the maximum number of slowest statements to include in the migration report.
+     *
+     * @return The number of slowest statements. (default: 10)
+     */
+    public int getReportSlowStatements() {
+        return reportSlowStatements;
+    }
+
+    /**
+     * Retrieves the tenants to migrate with migrateTenants.
+     *
+     * @return The tenants. (default: none)
+     */
+    public List<Tenant> getTenants() {
+        return tenants;
+    }
+
+    /**
+     * Retrieves the maximum number of tenants to migrate at the same time.
+     *
+     * @return The number of tenant threads. (default: 1)
+     */
+    public int getTenantThreads() {
+        return tenantThreads;
+    }
+
+    /**
+     * Retrieves the number of times to retry the migration of a tenant after it failed.
+     *
+     * @return The number of tenant retries. (default: 0)
+     */
+    public int getTenantRetries() {
+        return tenantRetries;
+    }
+
+    /**
+     * Retrieves the maximum time to wait for the migration lock.
+     *
+     * @return The lock timeout, in seconds. 0 or less to wait as long as necessary. (default: 0)
+     */
+    public int getLockTimeout() {
+        return lockTimeout;
+    }
+
+    /**
+     * Retrieves the maximum time to wait for the schema to reach the target version with await.
+     *
+     * @return The await timeout, in seconds. 0 or less to wait as long as necessary. (default: 0)
+     */
+    public int getAwaitTimeout() {
+        return awaitTimeout;
+    }
+
     /**
      * Retrieves the dataSource to use to access the database. Must have the necessary privileges to execute ddl.
      *
@@ -542,6 +834,190 @@ public class Flyway {
         this.disableInitCheck = disableInitCheck;
     }
 
+    /**
+     * Whether to group all pending migrations together in the same transaction when applying them. This drastically
+     * reduces the number of round trips to the database when many migrations are pending. Only honored for databases
+     * that support ddl transactions. If any migration fails, all of them are rolled back.
+     *
+     * @param group {@code true} if migrations should be grouped. {@code false} if they should be applied individually
+     *              instead. (default: false)
+     */
+    public void setGroup(boolean group) {
+        this.group = group;
+    }
+
+    /**
+     * Sets the maximum number of migrations to apply concurrently, each on its own connection obtained from the
+     * datasource. A migration is started as soon as the migrations it declares to depend on have been applied: sql
+     * migrations declare them with a {@code -- flyway.dependsOn: 1.1, 2} comment at the start of the script and java
+     * migrations by implementing JavaMigrationDependencyProvider. Migrations that don't declare their dependencies
+     * wait for all older migrations, and all newer migrations wait for them. Not used when migrations are grouped.
+     * <p/>
+     * Each migration is committed together with its row in the metadata table, in version order. A migration that
+     * completes before an older one is therefore kept uncommitted until then, and rolled back if an older migration
+     * fails. As this requires ddl transactions, the migrations are applied one after the other on databases that don't
+     * support them.
+     *
+     * @param migrationThreads The number of migration threads. 1 or less means the migrations are applied one after
+     *                         the other. (default: 1)
+     */
+    public void setMigrationThreads(int migrationThreads) {
+        this.migrationThreads = migrationThreads;
+    }
+
+    /**
+     * Sets the maximum number of consecutive DML statements (insert, update, delete, merge) of a sql migration to send
+     * to the database as a single JDBC batch. Greatly reduces the number of round trips for migrations loading large
+     * amounts of data. All other statements are always executed on their own.
+     *
+     * @param batchSize The batch size. 1 or less means statements are executed one at a time. (default: 1)
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the file in which to persist the checksums of the sql migrations on the classpath, so unchanged scripts
+     * don't have to be read again on every run just to calculate their checksum. Entries are invalidated as soon as
+     * the size, the modification time (or the crc of the jar entry) or the encoding of a script changes.
+     *
+     * @param checksumIndexFile The checksum index file. {@code null} to calculate the checksums on every run.
+     *                          (default: none)
+     */
+    public void setChecksumIndexFile(String checksumIndexFile) {
+        this.checksumIndexFile = checksumIndexFile;
+        this.checksumIndex = null;
+    }
+
+    /**
+     * Sets the directory in which to store snapshots of the migrated schemas. After all migrations have been applied
+     * to clean schemas, a snapshot of the schemas is taken. The next time the same migrations (same versions, scripts
+     * and checksums, same target and placeholders) are applied to clean schemas, the snapshot is restored instead.
+     * Meant for test suites that clean and migrate the database over and over. Only supported for H2, other databases
+     * always apply the migrations.
+     *
+     * @param snapshotDir The snapshot directory. {@code null} to not use snapshots. (default: none)
+     */
+    public void setSnapshotDir(String snapshotDir) {
+        this.snapshotDir = snapshotDir;
+    }
+
+    /**
+     * Sets the maximum number of threads to use to scan the locations (directories and jar files) on the classpath for
+     * migrations in parallel. Speeds up startup when the migrations are spread across many jars.
+     *
+     * @param scanThreads The number of scan threads. 1 or less means the locations are scanned one after the other.
+     *                    (default: 1)
+     */
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    /**
+     * Sets the maximum number of schemas to clean concurrently, each on its own connection obtained from the
+     * datasource. Speeds up clean when many schemas are managed.
+     *
+     * @param cleanThreads The number of clean threads. 1 or less means the schemas are cleaned one after the other.
+     *                     (default: 1)
+     */
+    public void setCleanThreads(int cleanThreads) {
+        this.cleanThreads = cleanThreads;
+    }
+
+    /**
+     * Sets whether to clean schemas by dropping and recreating them instead of dropping all their objects one by one.
+     * This is only done for schemas owned by the current user on databases supporting it (PostgreSQL, H2, Hsql). All
+     * other schemas are still cleaned object by object.
+     *
+     * @param fastClean {@code true} to drop and recreate schemas where possible. {@code false} to always clean them
+     *                  object by object. (default: false)
+     */
+    public void setFastClean(boolean fastClean) {
+        this.fastClean = fastClean;
+    }
+
+    /**
+     * Sets the listeners to notify before and after each command, each applied migration and each statement of a sql
+     * migration. They receive high-resolution durations, row counts and statement line numbers, and can for example
+     * be used to export timings to a metrics system.
+     *
+     * @param migrationListeners The migration listeners. (default: none)
+     */
+    public void setMigrationListeners(MigrationListener... migrationListeners) {
+        this.migrationListeners = migrationListeners;
+    }
+
+    /**
+     * Sets the file to which migrate writes a JSON report of the time spent on each applied migration and of the
+     * slowest statements (script, line number, duration and affected rows) across all of them. The report is also
+     * written when the migration fails.
+     *
+     * @param reportFile The report file. (default: none, no report is written)
+     */
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Sets the maximum number of slowest statements to include in the migration report.
+     *
+     * @param reportSlowStatements The number of slowest statements. (default: 10)
+     */
+    public void setReportSlowStatements(int reportSlowStatements) {
+        this.reportSlowStatements = reportSlowStatements;
+    }
+
+    /**
+     * Sets the tenants to migrate with migrateTenants. Each tenant is a set of schemas with its own metadata table,
+     * either on the configured datasource or on a datasource of its own.
+     *
+     * @param tenants The tenants. (default: none)
+     */
+    public void setTenants(List<Tenant> tenants) {
+        this.tenants = tenants;
+    }
+
+    /**
+     * Sets the maximum number of tenants to migrate at the same time. Each tenant being migrated uses two connections.
+     *
+     * @param tenantThreads The number of tenant threads. (default: 1)
+     */
+    public void setTenantThreads(int tenantThreads) {
+        this.tenantThreads = tenantThreads;
+    }
+
+    /**
+     * Sets the number of times to retry the migration of a tenant after it failed, for example because its database
+     * was temporarily unavailable. The delay between attempts grows with every attempt.
+     *
+     * @param tenantRetries The number of tenant retries. (default: 0)
+     */
+    public void setTenantRetries(int tenantRetries) {
+        this.tenantRetries = tenantRetries;
+    }
+
+    /**
+     * Sets the maximum time to wait for the migration lock, held by whoever is migrating the same metadata table, for
+     * example another instance of the application starting at the same time. Migrate fails when the lock could not be
+     * acquired in time. On databases without advisory locks (H2, Hsql, Derby and DB2), the lock timeout of the
+     * database applies instead.
+     *
+     * @param lockTimeout The lock timeout, in seconds. 0 or less to wait as long as necessary. (default: 0)
+     */
+    public void setLockTimeout(int lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Sets the maximum time to wait for the schema to reach the target version with await. Await fails when the
+     * schema has not reached it in time.
+     *
+     * @param awaitTimeout The await timeout, in seconds. 0 or less to wait as long as necessary. (default: 0)
+     */
+    public void setAwaitTimeout(int awaitTimeout) {
+        this.awaitTimeout = awaitTimeout;
+    }
+
     /**
      * Starts the database migration. All pending migrations will be applied in order.
      *
@@ -549,38 +1025,510 @@ public class Flyway {
      * @throws FlywayException Thrown when the migration failed.
      */
     public int migrate() throws FlywayException {
-        return execute(new Command<Integer>() {
-            public Integer execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-                MigrationProvider migrationProvider =
-                        new MigrationProvider(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix, placeholders, placeholderPrefix, placeholderSuffix);
+        return execute("migrate", new Command<Integer>() {
+            public Integer execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                   DbSupport dbSupport, MigrationSettings migrationSettings) {
+                MigrationProvider migrationProvider = createMigrationProvider();
+                List<Migration> availableMigrations = migrationProvider.findAvailableMigrations();
+                if (availableMigrations.isEmpty()) {
+                    return 0;
+                }
+
+                MigrationReport migrationReport = createMigrationReport();
+                if (migrationReport != null) {
+                    migrationSettings = migrationSettings.withAdditionalListener(migrationReport);
+                }
+                try {
+                    return doMigrate(connectionMetaDataTable, connectionUserObjects, dbSupport, migrationSettings,
+                            dataSource, schemas, availableMigrations);
+                } finally {
+                    if (migrationReport != null) {
+                        migrationReport.write(new File(reportFile));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Migrates the configured tenants. See {@link #migrateTenants(List)}.
+     *
+     * @return The result of each tenant, in the same order as the tenants.
+     * @throws FlywayException when the available migrations could not be resolved.
+     */
+    public List<TenantMigrationResult> migrateTenants() throws FlywayException {
+        return migrateTenants(tenants);
+    }
+
+    /**
+     * Migrates many tenants (schemas or databases) to the same target, for example the schemas of all customers of a
+     * multi-tenant application. The available migrations are resolved only once and shared by all tenants. Up to
+     * {@link #setTenantThreads(int) tenantThreads} tenants are migrated at the same time, each on its own connections
+     * and with its own metadata table. A failed tenant is retried {@link #setTenantRetries(int) tenantRetries} times
+     * and does not affect the other tenants: check the results for failures.
+     *
+     * @param tenants The tenants to migrate.
+     * @return The result of each tenant, in the same order as the tenants.
+     * @throws FlywayException when the available migrations could not be resolved.
+     */
+    public List<TenantMigrationResult> migrateTenants(List<Tenant> tenants) throws FlywayException {
+        final MigrationListener migrationListener = new CompositeMigrationListener(migrationListeners);
+        migrationListener.beforeCommand("migrateTenants");
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        boolean success = false;
+        try {
+            final List<Migration> availableMigrations = createMigrationProvider().findAvailableMigrations();
+            for (Migration migration : availableMigrations) {
+                // Compute the checksums up front, so the tenant threads only ever read them
+                migration.getChecksum();
+            }
+            for (Tenant tenant : tenants) {
+                // Tenants may share the same datasource
+                ensurePoolSize(getDataSource(tenant), Math.max(tenantThreads, 1));
+            }
+
+            List<TenantMigrationResult> results =
+                    new TenantMigrator(tenantThreads, tenantRetries, TENANT_RETRY_DELAY).migrate(tenants,
+                            new TenantMigrator.TenantMigration() {
+                                public int migrate(Tenant tenant) {
+                                    return migrateTenant(tenant, availableMigrations, migrationListener);
+                                }
+                            });
+
+            success = true;
+            for (TenantMigrationResult result : results) {
+                success &= result.isSuccess();
+            }
+            return results;
+        } finally {
+            if (checksumIndex != null) {
+                checksumIndex.save();
+            }
+            stopWatch.stop();
+            migrationListener.afterCommand("migrateTenants", stopWatch.getTotalTimeNanos(), success);
+        }
+    }
+
+    /**
+     * Retrieves the datasource to migrate this tenant with.
+     *
+     * @param tenant The tenant.
+     * @return The datasource of the tenant, or the datasource of this Flyway instance if the tenant has none.
+     */
+    private DataSource getDataSource(Tenant tenant) {
+        if (tenant.getDataSource() != null) {
+            return tenant.getDataSource();
+        }
+        return dataSource;
+    }
+
+    /**
+     * Migrates this tenant on connections of its own. While migrating, the first schema of the tenant is the current
+     * schema of both connections, as grouped migrations are applied on the connection for the metadata table.
+     *
+     * @param tenant              The tenant to migrate.
+     * @param availableMigrations The available migrations, shared by all tenants.
+     * @param migrationListener   The listener to notify of the migrations applied and the statements executed.
+     * @return The number of successfully applied migrations.
+     * @throws FlywayException when the migration failed.
+     */
+    private int migrateTenant(Tenant tenant, List<Migration> availableMigrations, MigrationListener migrationListener)
+            throws FlywayException {
+        DataSource tenantDataSource = getDataSource(tenant);
+        if (tenantDataSource == null) {
+            throw new FlywayException("DataSource not set for tenant '" + tenant.getName() + "'!");
+        }
+        if (availableMigrations.isEmpty()) {
+            return 0;
+        }
+
+        Connection connectionMetaDataTable = null;
+        Connection connectionUserObjects = null;
+        try {
+            connectionMetaDataTable = JdbcUtils.openConnection(tenantDataSource);
+            connectionUserObjects = JdbcUtils.openConnection(tenantDataSource);
+
+            DbSupport dbSupport = DbSupportFactory.createDbSupport(connectionMetaDataTable);
+            MigrationSettings migrationSettings = createMigrationSettings(migrationListener);
+            String[] tenantSchemas = tenant.getSchemas();
+            if (tenantSchemas.length == 0) {
+                try {
+                    tenantSchemas = new String[]{dbSupport.getCurrentSchema()};
+                } catch (SQLException e) {
+                    throw new FlywayException("Error retrieving current schema", e);
+                }
+                return doMigrate(connectionMetaDataTable, connectionUserObjects, dbSupport, migrationSettings,
+                        tenant.getDataSource(), tenantSchemas, availableMigrations);
+            }
+
+            // Objects without explicit schema must end up in the schema of the tenant
+            DbSupport userObjectsDbSupport = DbSupportFactory.createDbSupport(connectionUserObjects);
+            String originalSchema;
+            try {
+                originalSchema = userObjectsDbSupport.getCurrentSchema();
+            } catch (SQLException e) {
+                throw new FlywayException("Error retrieving current schema", e);
+            }
+            try {
+                switchCurrentSchema(dbSupport, tenantSchemas[0]);
+                switchCurrentSchema(userObjectsDbSupport, tenantSchemas[0]);
+                return doMigrate(connectionMetaDataTable, connectionUserObjects, dbSupport, migrationSettings,
+                        tenant.getDataSource(), tenantSchemas, availableMigrations);
+            } finally {
+                restoreCurrentSchema(userObjectsDbSupport, originalSchema);
+                restoreCurrentSchema(dbSupport, originalSchema);
+            }
+        } finally {
+            JdbcUtils.closeConnection(connectionUserObjects);
+            JdbcUtils.closeConnection(connectionMetaDataTable);
+        }
+    }
+
+    /**
+     * Changes the current schema of the connection of this DbSupport.
+     *
+     * @param dbSupport The database-specific support for the connection.
+     * @param schema    The new current schema.
+     * @throws FlywayException when the current schema could not be changed.
+     */
+    private void switchCurrentSchema(DbSupport dbSupport, String schema) throws FlywayException {
+        try {
+            dbSupport.setCurrentSchema(schema);
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to change the current schema to '" + schema + "'", e);
+        }
+    }
+
+    /**
+     * Changes the current schema of the connection of this DbSupport back to what it was. Failures are only logged,
+     * so they don't hide the outcome of the migration.
+     *
+     * @param dbSupport      The database-specific support for the connection.
+     * @param originalSchema The original current schema.
+     */
+    private void restoreCurrentSchema(DbSupport dbSupport, String originalSchema) {
+        try {
+            dbSupport.setCurrentSchema(originalSchema);
+        } catch (SQLException e) {
+            LOG.warn("Unable to restore the current schema to '" + originalSchema + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Performs the actual migration of these schemas. All set up must have taken place beforehand.
+     *
+     * @param connectionMetaDataTable The database connection for the metadata table changes.
+     * @param connectionUserObjects   The database connection for user object changes.
+     * @param dbSupport               The database-specific support for these connections.
+     * @param migrationSettings       The settings of the current run.
+     * @param targetDataSource        The datasource these connections were obtained from.
+     * @param targetSchemas           The schemas to migrate. The first one contains the metadata table.
+     * @param availableMigrations     The available migrations.
+     * @return The number of successfully applied migrations.
+     */
+    private int doMigrate(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport,
+                          MigrationSettings migrationSettings, DataSource targetDataSource, String[] targetSchemas,
+                          List<Migration> availableMigrations) {
+        MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, targetSchemas);
+        // Validating the applied migrations needs the whole history, so only skip straight to the end without it
+        if (validationMode == ValidationMode.NONE) {
+            MetaDataTableRow latestAppliedMigration = metaDataTable.readLatestAppliedMigration();
+            if (isUpToDate(latestAppliedMigration, availableMigrations)) {
+                LOG.info("Schema is up to date at version " + latestAppliedMigration.getVersion()
+                        + ". No migration necessary.");
+                return 0;
+            }
+        }
+
+        metaDataTable.upgradeIfNecessary(migrationSettings);
+
+        doValidate(connectionUserObjects, dbSupport, targetDataSource, targetSchemas, metaDataTable, availableMigrations,
+                validationErrorMode);
+
+        if (isUpToDate(metaDataTable.latestAppliedMigration(), availableMigrations)) {
+            LOG.info("Schema is up to date at version " + metaDataTable.getCurrentSchemaVersion()
+                    + ". No migration necessary.");
+            return 0;
+        }
+
+        DbSnapshot dbSnapshot = null;
+        if ((snapshotDir != null) && areSchemasEmpty(dbSupport, targetSchemas)) {
+            dbSnapshot = new DbSnapshot(new File(snapshotDir),
+                    DbSnapshot.createKey(dbSupport, targetSchemas, table, target, availableMigrations, placeholders));
+        }
+
+        metaDataTable.createIfNotExists();
+
+        if (dbSnapshot != null) {
+            Integer restoredMigrationCount = restoreSnapshot(dbSnapshot, metaDataTable, connectionMetaDataTable,
+                    connectionUserObjects, dbSupport, migrationSettings);
+            if (restoredMigrationCount != null) {
+                return restoredMigrationCount;
+            }
+        }
+
+        DbMigrator dbMigrator =
+                new DbMigrator(connectionMetaDataTable, connectionUserObjects, dbSupport, metaDataTable, target,
+                        ignoreFailedFutureMigration, group, targetDataSource, migrationThreads, migrationSettings);
+        int migrationCount = dbMigrator.migrate(availableMigrations);
+
+        if ((dbSnapshot != null) && (migrationCount > 0)) {
+            dbSnapshot.take(dbSupport, targetSchemas, table, migrationCount);
+        }
+        return migrationCount;
+    }
+
+    /**
+     * Restores this snapshot while holding the migration lock. The schemas were found empty before the metadata table
+     * was created, as the lock needs the table to exist. Every migration and every restore inserts its rows into the
+     * metadata table while holding the lock, so an empty metadata table under the lock proves that nobody else has
+     * migrated or restored the schemas in the meantime.
+     *
+     * @param dbSnapshot              The snapshot to restore.
+     * @param metaDataTable           The metadata table, already created.
+     * @param connectionMetaDataTable The database connection for the metadata table changes.
+     * @param connectionUserObjects   The database connection for user object changes.
+     * @param dbSupport               The database-specific support for these connections.
+     * @param migrationSettings       The settings of the current run.
+     * @return The number of migrations contained in the restored snapshot. {@code null} if there is no usable snapshot
+     *         or if the schemas have been migrated by someone else in the meantime.
+     */
+    private Integer restoreSnapshot(final DbSnapshot dbSnapshot, final MetaDataTable metaDataTable,
+                                    Connection connectionMetaDataTable, final Connection connectionUserObjects,
+                                    final DbSupport dbSupport, final MigrationSettings migrationSettings) {
+        try {
+            return new TransactionTemplate(connectionMetaDataTable).execute(new TransactionCallback<Integer>() {
+                public Integer doInTransaction() {
+                    metaDataTable.lock(migrationSettings);
+
+                    if (metaDataTable.latestAppliedMigration() != null) {
+                        return null;
+                    }
+
+                    return dbSnapshot.restore(new TransactionTemplate(connectionUserObjects),
+                            DbSupportFactory.createDbSupport(connectionUserObjects).getJdbcTemplate(),
+                            dbSupport.getJdbcTemplate());
+                }
+            });
+        } catch (TransactionException e) {
+            throw new FlywayException("Unable to restore snapshot " + dbSnapshot.getSnapshotFile(), e);
+        } finally {
+            metaDataTable.unlock();
+            metaDataTable.clearCache();
+        }
+    }
+
+    /**
+     * Checks whether the schema has already been migrated successfully up to the newest available migration within the
+     * target. This only looks at the current row of the metadata table, read with a single query that doesn't lock
+     * anything, so many nodes starting at the same time can all find out in parallel that there is nothing to do. In
+     * every other case the metadata table is upgraded, validated and locked, and the migration checks again.
+     *
+     * @param latestAppliedMigration The current row of the metadata table. {@code null} if it couldn't be read.
+     * @param availableMigrations    The available migrations, newest first.
+     * @return {@code true} if there is nothing to migrate, {@code false} if there may be.
+     */
+    private boolean isUpToDate(MetaDataTableRow latestAppliedMigration, List<Migration> availableMigrations) {
+        if ((latestAppliedMigration == null) || (latestAppliedMigration.getState() != MigrationState.SUCCESS)) {
+            return false;
+        }
+
+        for (Migration migration : availableMigrations) {
+            if (migration.getVersion().compareTo(target) <= 0) {
+                return migration.getVersion().equals(latestAppliedMigration.getVersion());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until the schema has been migrated by someone else up to the newest available migration within the target,
+     * without migrating anything itself. This is meant for clusters where a single node migrates and all others only
+     * need to wait for it to be done. The metadata table is polled with an exponentially growing delay, outside of any
+     * transaction and without any lock, so the migrating node is never slowed down by the waiting ones.
+     *
+     * @return The latest applied migration once the target has been reached. {@code null} if there are no migrations.
+     * @throws FlywayException when the migration failed or the target was not reached within the await timeout.
+     */
+    public MetaDataTableRow await() throws FlywayException {
+        return execute("await", new Command<MetaDataTableRow>() {
+            public MetaDataTableRow execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                            DbSupport dbSupport, MigrationSettings migrationSettings) {
+                List<Migration> availableMigrations = createMigrationProvider().findAvailableMigrations();
+                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, schemas);
+                return doAwait(metaDataTable, availableMigrations);
+            }
+        });
+    }
+
+    /**
+     * Waits until the schema has reached the newest available migration within the target.
+     *
+     * @param metaDataTable       The metadata table of the schema.
+     * @param availableMigrations The available migrations, newest first.
+     * @return The latest applied migration once the target has been reached. {@code null} if there are no migrations.
+     * @throws FlywayException when the migration failed or the target was not reached within the await timeout.
+     */
+    private MetaDataTableRow doAwait(MetaDataTable metaDataTable, List<Migration> availableMigrations)
+            throws FlywayException {
+        SchemaVersion targetVersion = null;
+        for (Migration migration : availableMigrations) {
+            if (migration.getVersion().compareTo(target) <= 0) {
+                targetVersion = migration.getVersion();
+                break;
+            }
+        }
+        if (targetVersion == null) {
+            return metaDataTable.latestAppliedMigration();
+        }
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        long deadline = System.currentTimeMillis() + awaitTimeout * 1000L;
+        long delay = INITIAL_AWAIT_DELAY;
+        boolean waiting = false;
+        while (true) {
+            MetaDataTableRow latestAppliedMigration = metaDataTable.latestAppliedMigration();
+            SchemaVersion currentSchemaVersion = metaDataTable.getCurrentSchemaVersion();
+            if (metaDataTable.getCurrentSchemaState() == MigrationState.FAILED) {
+                throw new FlywayException("Migration to version " + currentSchemaVersion
+                        + " failed! Stopped waiting for version " + targetVersion + ".");
+            }
+            if (currentSchemaVersion.compareTo(targetVersion) >= 0) {
+                stopWatch.stop();
+                if (waiting) {
+                    LOG.info("Schema reached version " + currentSchemaVersion + " (waited "
+                            + TimeFormat.format(stopWatch.getTotalTimeMillis()) + ")");
+                }
+                return latestAppliedMigration;
+            }
+
+            if (!waiting) {
+                LOG.info("Waiting for schema to reach version " + targetVersion + " (current version: "
+                        + currentSchemaVersion + ")");
+                waiting = true;
+            }
+            long sleepTime = delay;
+            if (awaitTimeout > 0) {
+                long remainingTime = deadline - System.currentTimeMillis();
+                if (remainingTime <= 0) {
+                    throw new FlywayException("Schema did not reach version " + targetVersion + " within "
+                            + awaitTimeout + " seconds (current version: " + currentSchemaVersion + ")");
+                }
+                sleepTime = Math.min(delay, remainingTime);
+            }
+            try {
+                Thread.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlywayException("Interrupted while waiting for schema to reach version " + targetVersion, e);
+            }
+            delay = Math.min(delay * 2, MAX_AWAIT_DELAY);
+            metaDataTable.clearCache();
+        }
+    }
+
+    /**
+     * Rehearses the database migration: all pending migrations are applied in order within a single transaction, which
+     * is then always rolled back. This measures how long the migrations take (see {@link #setReportFile(String)} and
+     * {@link #setMigrationListeners(MigrationListener...)}), for example against a copy of the production database,
+     * without committing anything. Only supported for databases with ddl transactions (PostgreSQL, Derby, DB2 and
+     * SQL Server).
+     *
+     * @return The number of successfully rehearsed migrations.
+     * @throws FlywayException Thrown when the database doesn't support ddl transactions or the rehearsal failed.
+     */
+    public int rehearse() throws FlywayException {
+        return execute("rehearse", new Command<Integer>() {
+            public Integer execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                   DbSupport dbSupport, MigrationSettings migrationSettings) {
+                MigrationProvider migrationProvider = createMigrationProvider();
                 List<Migration> availableMigrations = migrationProvider.findAvailableMigrations();
                 if (availableMigrations.isEmpty()) {
                     return 0;
                 }
 
-                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport);
+                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, schemas);
+
+                // No row could be inserted, and a rehearsal must never upgrade the table, as that would be committed
+                if (metaDataTable.isUpgradeNecessary()) {
+                    throw new FlywayException("Unable to rehearse migrations: metadata table '" + table
+                            + "' in schema '" + schemas[0] + "' still has the format of a previous Flyway version."
+                            + " Run migrate or init first to upgrade it.");
+                }
 
-                doValidate(connectionMetaDataTable, connectionUserObjects, dbSupport);
+                // A rehearsal must never clean the schema, as that would be committed
+                doValidate(connectionUserObjects, dbSupport, dataSource, schemas, metaDataTable, availableMigrations,
+                        ValidationErrorMode.FAIL);
 
-                metaDataTable.createIfNotExists();
+                MigrationReport migrationReport = createMigrationReport();
+                if (migrationReport != null) {
+                    migrationSettings = migrationSettings.withAdditionalListener(migrationReport);
+                }
 
                 DbMigrator dbMigrator =
-                        new DbMigrator(connectionMetaDataTable, connectionUserObjects, dbSupport, metaDataTable, target, ignoreFailedFutureMigration);
-                return dbMigrator.migrate(availableMigrations);
+                        new DbMigrator(connectionMetaDataTable, connectionUserObjects, dbSupport, metaDataTable, target,
+                                ignoreFailedFutureMigration, true, null, 1, migrationSettings);
+                try {
+                    return dbMigrator.rehearse(availableMigrations);
+                } finally {
+                    if (migrationReport != null) {
+                        migrationReport.write(new File(reportFile));
+                    }
+                }
             }
         });
     }
 
+    /**
+     * Creates a migration report, to be notified of the run as an additional migration listener, if a report file is
+     * configured.
+     *
+     * @return The migration report. {@code null} if no report file is configured.
+     */
+    private MigrationReport createMigrationReport() {
+        if (reportFile == null) {
+            return null;
+        }
+
+        return new MigrationReport(reportSlowStatements);
+    }
+
+    /**
+     * Checks whether all these schemas are empty.
+     *
+     * @param dbSupport     The database-specific support.
+     * @param targetSchemas The schemas to check.
+     * @return {@code true} if they are, {@code false} if at least one of them is not.
+     */
+    private boolean areSchemasEmpty(DbSupport dbSupport, String[] targetSchemas) {
+        for (String schema : targetSchemas) {
+            try {
+                if (!dbSupport.isSchemaEmpty(schema)) {
+                    return false;
+                }
+            } catch (SQLException e) {
+                throw new FlywayException("Error while checking whether schema '" + schema + "' is empty", e);
+            }
+        }
+        return true;
+    }
+
     /**
      * Validate applied migration with classpath migrations to detect accidental changes.
      *
      * @throws FlywayException thrown when the validation failed.
      */
     public void validate() throws FlywayException {
-        execute(new Command<Void>() {
-            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
+        execute("validate", new Command<Void>() {
+            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                DbSupport dbSupport, MigrationSettings migrationSettings) {
                 validationMode = ValidationMode.ALL;
-                doValidate(connectionMetaDataTable, connectionUserObjects, dbSupport);
+                doValidate(connectionUserObjects, dbSupport, dataSource, schemas,
+                        createMetaDataTable(connectionMetaDataTable, dbSupport, schemas),
+                        createMigrationProvider().findAvailableMigrations(), validationErrorMode);
                 return null;
             }
         });
@@ -589,18 +1537,19 @@ public class Flyway {
     /**
      * Performs the actual validation. All set up must have taken place beforehand.
      *
-     * @param connectionMetaDataTable The database connection for the metadata table changes.
-     * @param connectionUserObjects   The database connection for user object changes.
-     * @param dbSupport               The database-specific support for these connections.
-     */
-    private void doValidate(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-        MigrationProvider migrationProvider =
-                new MigrationProvider(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix, placeholders, placeholderPrefix, placeholderSuffix);
-        List<Migration> availableMigrations = migrationProvider.findAvailableMigrations();
-
-        MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport);
+     * @param connectionUserObjects The database connection for user object changes.
+     * @param dbSupport             The database-specific support for these connections.
+     * @param targetDataSource      The datasource these connections were obtained from.
+     * @param targetSchemas         The schemas to validate. The first one contains the metadata table.
+     * @param metaDataTable         The metadata table to validate against.
+     * @param availableMigrations   The available migrations.
+     * @param errorMode             What to do when the validation fails.
+     */
+    private void doValidate(Connection connectionUserObjects, DbSupport dbSupport, DataSource targetDataSource,
+                            String[] targetSchemas, MetaDataTable metaDataTable, List<Migration> availableMigrations,
+                            ValidationErrorMode errorMode) {
         if (SchemaVersion.EMPTY.equals(metaDataTable.getCurrentSchemaVersion()) && !disableInitCheck) {
-            for (String schema : schemas) {
+            for (String schema : targetSchemas) {
                 try {
                     if (!dbSupport.isSchemaEmpty(schema)) {
                         throw new ValidationException("Found non-empty schema '" + schema
@@ -617,9 +1566,10 @@ public class Flyway {
 
         if (validationError != null) {
             final String msg = "Validate failed. Found differences between applied migrations and available migrations: " + validationError;
-            if (ValidationErrorMode.CLEAN.equals(validationErrorMode)) {
+            if (ValidationErrorMode.CLEAN.equals(errorMode)) {
                 LOG.warn(msg + " running clean and migrate again.");
-                doClean(connectionUserObjects, dbSupport);
+                doClean(connectionUserObjects, dbSupport, targetDataSource, targetSchemas);
+                metaDataTable.clearCache();
             } else {
                 throw new ValidationException(msg);
             }
@@ -630,23 +1580,27 @@ public class Flyway {
      * Drops all objects (tables, views, procedures, triggers, ...) in the configured schemas.
      */
     public void clean() {
-        execute(new Command<Void>() {
-            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-                doClean(connectionUserObjects, dbSupport);
+        execute("clean", new Command<Void>() {
+            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                DbSupport dbSupport, MigrationSettings migrationSettings) {
+                doClean(connectionUserObjects, dbSupport, dataSource, schemas);
                 return null;
             }
         });
     }
 
     /**
-     * Cleans the configured schemas.
+     * Cleans these schemas.
      *
      * @param connectionUserObjects The database connection for user object changes.
      * @param dbSupport             The database-specific support for these connections.
+     * @param targetDataSource      The datasource these connections were obtained from.
+     * @param targetSchemas         The schemas to clean.
      */
-    private void doClean(Connection connectionUserObjects, DbSupport dbSupport) {
+    private void doClean(Connection connectionUserObjects, DbSupport dbSupport, DataSource targetDataSource,
+                         String[] targetSchemas) {
         new DbCleaner(new TransactionTemplate(connectionUserObjects),
-                dbSupport.getJdbcTemplate(), dbSupport, schemas).clean();
+                dbSupport.getJdbcTemplate(), dbSupport, targetSchemas, targetDataSource, cleanThreads, fastClean).clean();
     }
 
     /**
@@ -655,9 +1609,10 @@ public class Flyway {
      * @return The latest applied migration, or {@code null} if no migration has been applied yet.
      */
     public MetaDataTableRow status() {
-        return execute(new Command<MetaDataTableRow>() {
-            public MetaDataTableRow execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport);
+        return execute("status", new Command<MetaDataTableRow>() {
+            public MetaDataTableRow execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                            DbSupport dbSupport, MigrationSettings migrationSettings) {
+                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, schemas);
                 return metaDataTable.latestAppliedMigration();
             }
         });
@@ -669,9 +1624,10 @@ public class Flyway {
      * @return All migrations applied to the database, sorted, oldest first. An empty list if none.
      */
     public List<MetaDataTableRow> history() {
-        return execute(new Command<List<MetaDataTableRow>>() {
-            public List<MetaDataTableRow> execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport);
+        return execute("history", new Command<List<MetaDataTableRow>>() {
+            public List<MetaDataTableRow> execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                                  DbSupport dbSupport, MigrationSettings migrationSettings) {
+                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, schemas);
                 return metaDataTable.allAppliedMigrations();
             }
         });
@@ -683,9 +1639,11 @@ public class Flyway {
      * @throws FlywayException when the schema initialization failed.
      */
     public void init() throws FlywayException {
-        execute(new Command<Void>() {
-            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
-                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport);
+        execute("init", new Command<Void>() {
+            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                DbSupport dbSupport, MigrationSettings migrationSettings) {
+                MetaDataTable metaDataTable = createMetaDataTable(connectionMetaDataTable, dbSupport, schemas);
+                metaDataTable.upgradeIfNecessary(migrationSettings);
                 new DbInit(new TransactionTemplate(connectionMetaDataTable), metaDataTable).init(initialVersion, initialDescription);
                 return null;
             }
@@ -693,10 +1651,40 @@ public class Flyway {
     }
 
     /**
-     * @return A new, fully configured, MetaDataTable instance.
+     * Writes an index of all available migrations (locations, versions and checksums) to this directory. This is meant
+     * to be run at build time: once the index is packaged with the migrations, Flyway reads it instead of scanning the
+     * classpath. No connection to the database is needed.
+     *
+     * @param outputDirectory The root of the classpath directory (e.g. target/classes) to write the index to. The
+     *                        index is written to {@link MigrationIndex#LOCATION} below it.
+     * @return The number of migrations that were indexed.
+     * @throws FlywayException when the index could not be written.
+     */
+    public int index(File outputDirectory) throws FlywayException {
+        if (baseDir.startsWith("file:")) {
+            throw new FlywayException("Unable to index sql migrations on the filesystem: " + baseDir);
+        }
+
+        List<Migration> migrations = createMigrationProvider().scanAvailableMigrations();
+
+        MigrationIndex migrationIndex =
+                new MigrationIndex(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix);
+        for (Migration migration : migrations) {
+            migrationIndex.addMigration(migration);
+        }
+
+        File indexFile = new File(outputDirectory, MigrationIndex.LOCATION);
+        migrationIndex.store(indexFile);
+        LOG.info("Indexed " + migrations.size() + " migration(s) in " + indexFile);
+        return migrations.size();
+    }
+
+    /**
+     * @return A new, fully configured, MetaDataTable instance in the first of these schemas.
      */
-    private MetaDataTable createMetaDataTable(Connection connectionMetaDataTable, DbSupport dbSupport) {
-        return new MetaDataTable(connectionMetaDataTable, dbSupport, schemas[0], table);
+    private MetaDataTable createMetaDataTable(Connection connectionMetaDataTable, DbSupport dbSupport,
+                                              String[] targetSchemas) {
+        return new MetaDataTable(connectionMetaDataTable, dbSupport, targetSchemas[0], table);
     }
 
     /**
@@ -715,7 +1703,7 @@ public class Flyway {
         if (StringUtils.hasText(driverProp) && StringUtils.hasText(urlProp) && StringUtils.hasText(userProp)
                 && (passwordProp != null)) {
             // All datasource properties set
-            setDataSource(new DriverDataSource(driverProp, urlProp, userProp, passwordProp));
+            setDataSource(DriverDataSource.getPooledDataSource(driverProp, urlProp, userProp, passwordProp));
         } else if (StringUtils.hasText(driverProp) || StringUtils.hasText(urlProp) || StringUtils.hasText(userProp)
                 || (passwordProp != null)) {
             // Some, but not all datasource properties set
@@ -784,6 +1772,96 @@ public class Flyway {
         if (targetProp != null) {
             setTarget(new SchemaVersion(targetProp));
         }
+        String groupProp = properties.getProperty("flyway.group");
+        if (groupProp != null) {
+            setGroup(Boolean.parseBoolean(groupProp));
+        }
+        String migrationThreadsProp = properties.getProperty("flyway.migrationThreads");
+        if (migrationThreadsProp != null) {
+            setMigrationThreads(Integer.parseInt(migrationThreadsProp));
+        }
+        String batchSizeProp = properties.getProperty("flyway.batchSize");
+        if (batchSizeProp != null) {
+            setBatchSize(Integer.parseInt(batchSizeProp));
+        }
+        String checksumIndexFileProp = properties.getProperty("flyway.checksumIndexFile");
+        if (checksumIndexFileProp != null) {
+            setChecksumIndexFile(checksumIndexFileProp);
+        }
+        String snapshotDirProp = properties.getProperty("flyway.snapshotDir");
+        if (snapshotDirProp != null) {
+            setSnapshotDir(snapshotDirProp);
+        }
+        String scanThreadsProp = properties.getProperty("flyway.scanThreads");
+        if (scanThreadsProp != null) {
+            setScanThreads(Integer.parseInt(scanThreadsProp));
+        }
+        String cleanThreadsProp = properties.getProperty("flyway.cleanThreads");
+        if (cleanThreadsProp != null) {
+            setCleanThreads(Integer.parseInt(cleanThreadsProp));
+        }
+        String fastCleanProp = properties.getProperty("flyway.fastClean");
+        if (fastCleanProp != null) {
+            setFastClean(Boolean.parseBoolean(fastCleanProp));
+        }
+        String migrationListenersProp = properties.getProperty("flyway.migrationListeners");
+        if (migrationListenersProp != null) {
+            String[] classNames = StringUtils.tokenizeToStringArray(migrationListenersProp, ",");
+            MigrationListener[] listeners = new MigrationListener[classNames.length];
+            for (int i = 0; i < classNames.length; i++) {
+                try {
+                    listeners[i] = ClassUtils.instantiate(classNames[i]);
+                } catch (Exception e) {
+                    throw new FlywayException("Unable to instantiate migration listener: " + classNames[i], e);
+                }
+            }
+            setMigrationListeners(listeners);
+        }
+        String reportFileProp = properties.getProperty("flyway.reportFile");
+        if (reportFileProp != null) {
+            setReportFile(reportFileProp);
+        }
+        String reportSlowStatementsProp = properties.getProperty("flyway.reportSlowStatements");
+        if (reportSlowStatementsProp != null) {
+            setReportSlowStatements(Integer.parseInt(reportSlowStatementsProp));
+        }
+        List<Tenant> tenantsFromProps = new ArrayList<Tenant>();
+        String tenantSchemasProp = properties.getProperty("flyway.tenantSchemas");
+        if (tenantSchemasProp != null) {
+            for (String tenantSchema : StringUtils.tokenizeToStringArray(tenantSchemasProp, ",")) {
+                // Migrated with the datasource set when migrateTenants runs
+                tenantsFromProps.add(new Tenant(tenantSchema, null, tenantSchema));
+            }
+        }
+        String tenantUrlsProp = properties.getProperty("flyway.tenantUrls");
+        if (tenantUrlsProp != null) {
+            if (!StringUtils.hasText(driverProp)) {
+                throw new FlywayException("Unable to configure the tenants of flyway.tenantUrls: flyway.driver is not set");
+            }
+            for (String tenantUrl : StringUtils.tokenizeToStringArray(tenantUrlsProp, ",")) {
+                tenantsFromProps.add(new Tenant(tenantUrl,
+                        DriverDataSource.getPooledDataSource(driverProp, tenantUrl, userProp, passwordProp), schemas));
+            }
+        }
+        if (!tenantsFromProps.isEmpty()) {
+            setTenants(tenantsFromProps);
+        }
+        String tenantThreadsProp = properties.getProperty("flyway.tenantThreads");
+        if (tenantThreadsProp != null) {
+            setTenantThreads(Integer.parseInt(tenantThreadsProp));
+        }
+        String tenantRetriesProp = properties.getProperty("flyway.tenantRetries");
+        if (tenantRetriesProp != null) {
+            setTenantRetries(Integer.parseInt(tenantRetriesProp));
+        }
+        String lockTimeoutProp = properties.getProperty("flyway.lockTimeout");
+        if (lockTimeoutProp != null) {
+            setLockTimeout(Integer.parseInt(lockTimeoutProp));
+        }
+        String awaitTimeoutProp = properties.getProperty("flyway.awaitTimeout");
+        if (awaitTimeoutProp != null) {
+            setAwaitTimeout(Integer.parseInt(awaitTimeoutProp));
+        }
 
         Map<String, String> placeholdersFromProps = new HashMap<String, String>();
         for (Object property : properties.keySet()) {
@@ -798,14 +1876,41 @@ public class Flyway {
         setPlaceholders(placeholdersFromProps);
     }
 
+    /**
+     * Executes this command with proper resource handling and cleanup. The migration listeners are notified before and
+     * after the command.
+     *
+     * @param commandName The name of the command, as reported to the migration listeners.
+     * @param command     The command to execute.
+     * @param <T>         The type of the result.
+     * @return The result of the command.
+     */
+    /*private -> testing*/ <T> T execute(String commandName, Command<T> command) {
+        MigrationListener migrationListener = new CompositeMigrationListener(migrationListeners);
+        migrationListener.beforeCommand(commandName);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        boolean success = false;
+        try {
+            T result = execute(command, migrationListener);
+            success = true;
+            return result;
+        } finally {
+            stopWatch.stop();
+            migrationListener.afterCommand(commandName, stopWatch.getTotalTimeNanos(), success);
+        }
+    }
+
     /**
      * Executes this command with proper resource handling and cleanup.
      *
-     * @param command The command to execute.
-     * @param <T>     The type of the result.
+     * @param command           The command to execute.
+     * @param migrationListener The listener to notify of the migrations applied and the statements executed.
+     * @param <T>               The type of the result.
      * @return The result of the command.
      */
-    /*private -> testing*/ <T> T execute(Command<T> command) {
+    private <T> T execute(Command<T> command, MigrationListener migrationListener) {
         T result;
 
         Connection connectionMetaDataTable = null;
@@ -815,6 +1920,7 @@ public class Flyway {
             if (dataSource == null) {
                 throw new FlywayException("DataSource not set! Check your configuration!");
             }
+            ensurePoolSize(dataSource, 1);
 
             connectionMetaDataTable = JdbcUtils.openConnection(dataSource);
             connectionUserObjects = JdbcUtils.openConnection(dataSource);
@@ -834,14 +1940,57 @@ public class Flyway {
                 LOG.debug("Schemas: " + StringUtils.arrayToCommaDelimitedString(schemas));
             }
 
-            result = command.execute(connectionMetaDataTable, connectionUserObjects, dbSupport);
+            result = command.execute(connectionMetaDataTable, connectionUserObjects, dbSupport,
+                    createMigrationSettings(migrationListener));
         } finally {
             JdbcUtils.closeConnection(connectionUserObjects);
             JdbcUtils.closeConnection(connectionMetaDataTable);
+            if (checksumIndex != null) {
+                checksumIndex.save();
+            }
         }
         return result;
     }
 
+    /**
+     * Makes sure the connection pool of this datasource, if it has one, can hand out all connections that are held at
+     * the same time with the configured threads. Otherwise threads holding a connection could all be waiting for
+     * their next one until they time out.
+     *
+     * @param targetDataSource The datasource. Only a pooled DriverDataSource is affected.
+     * @param commandCount     The number of commands running on it at the same time.
+     */
+    private void ensurePoolSize(DataSource targetDataSource, int commandCount) {
+        if (targetDataSource instanceof DriverDataSource) {
+            // The connections for the metadata table and the user objects, plus those of the migration or clean threads
+            int connectionsPerCommand = 2 + Math.max(Math.max(migrationThreads, cleanThreads), 0);
+            ((DriverDataSource) targetDataSource).ensureMaxPoolSize(commandCount * connectionsPerCommand);
+        }
+    }
+
+    /**
+     * Creates the settings of a run with the current configuration.
+     *
+     * @param migrationListener The listener to notify of the migrations applied and the statements executed.
+     * @return The settings.
+     */
+    private MigrationSettings createMigrationSettings(MigrationListener migrationListener) {
+        return new MigrationSettings(batchSize, migrationListener, lockTimeout);
+    }
+
+    /**
+     * Creates the provider for the available migrations.
+     *
+     * @return The migration provider.
+     */
+    private MigrationProvider createMigrationProvider() {
+        if ((checksumIndex == null) && (checksumIndexFile != null)) {
+            checksumIndex = new ChecksumIndex(new File(checksumIndexFile));
+        }
+        return new MigrationProvider(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix,
+                placeholders, placeholderPrefix, placeholderSuffix, checksumIndex, scanThreads);
+    }
+
     /**
      * A Flyway command that can be executed.
      *
@@ -854,8 +2003,10 @@ public class Flyway {
          * @param connectionMetaDataTable The database connection for the metadata table changes.
          * @param connectionUserObjects   The database connection for user object changes.
          * @param dbSupport               The database-specific support for these connections.
+         * @param migrationSettings       The settings of this run.
          * @return The result of the operation.
          */
-        T execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport);
+        T execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport,
+                  MigrationSettings migrationSettings);
     }
 }
@@ -16,18 +16,32 @@
 package com.googlecode.flyway.core.clean;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.dbsupport.DbSupportFactory;
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.util.StopWatch;
 import com.googlecode.flyway.core.util.TimeFormat;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import com.googlecode.flyway.core.util.jdbc.JdbcUtils;
 import com.googlecode.flyway.core.util.jdbc.TransactionCallback;
 import com.googlecode.flyway.core.util.jdbc.TransactionException;
 import com.googlecode.flyway.core.util.jdbc.TransactionTemplate;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Main workflow for cleaning the database.
@@ -59,7 +73,25 @@ public class DbCleaner {
     private final String[] schemas;
 
     /**
-     * Creates a new database cleaner.
+     * The datasource to obtain one connection per schema from when cleaning in parallel. {@code null} to always clean
+     * the schemas one after the other.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The maximum number of schemas to clean concurrently. 1 or less means the schemas are cleaned one after the
+     * other.
+     */
+    private final int cleanThreads;
+
+    /**
+     * Whether to clean schemas by dropping and recreating them, where the database and the ownership of the schema
+     * allow it.
+     */
+    private final boolean fastClean;
+
+    /**
+     * Creates a new database cleaner that cleans the schemas one after the other.
      *
      * @param transactionTemplate The transaction template to use.
      * @param jdbcTemplate        JdbcTemplate with ddl manipulation access to the database.
@@ -67,10 +99,33 @@ public class DbCleaner {
      * @param schemas             The schemas to clean.
      */
     public DbCleaner(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate, DbSupport dbSupport, String[] schemas) {
+        this(transactionTemplate, jdbcTemplate, dbSupport, schemas, null, 1, false);
+    }
+
+    /**
+     * Creates a new database cleaner.
+     *
+     * @param transactionTemplate The transaction template to use.
+     * @param jdbcTemplate        JdbcTemplate with ddl manipulation access to the database.
+     * @param dbSupport           Database-specific functionality.
+     * @param schemas             The schemas to clean.
+     * @param dataSource          The datasource to obtain one connection per schema from when cleaning in parallel.
+     *                            {@code null} to always clean the schemas one after the other.
+     * @param cleanThreads        The maximum number of schemas to clean concurrently. 1 or less means the schemas are
+     *                            cleaned one after the other.
+     * @param fastClean           Whether to clean schemas by dropping and recreating them, where the database and the
+     *                            ownership of the schema allow it. Other schemas are cleaned by dropping all objects
+     *                            one by one.
+     */
+    public DbCleaner(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate, DbSupport dbSupport, String[] schemas,
+                     DataSource dataSource, int cleanThreads, boolean fastClean) {
         this.transactionTemplate = transactionTemplate;
         this.jdbcTemplate = jdbcTemplate;
         this.dbSupport = dbSupport;
         this.schemas = schemas;
+        this.dataSource = dataSource;
+        this.cleanThreads = cleanThreads;
+        this.fastClean = fastClean;
     }
 
     /**
@@ -79,24 +134,99 @@ public class DbCleaner {
      * @throws FlywayException when clean failed.
      */
     public void clean() throws FlywayException {
+        if ((dataSource != null) && (cleanThreads > 1) && (schemas.length > 1)) {
+            cleanInParallel();
+            return;
+        }
+
         for (String schema : schemas) {
-            cleanSchema(schema);
+            cleanSchema(schema, transactionTemplate, jdbcTemplate, dbSupport);
         }
     }
 
     /**
-     * Cleans this schema of all objects.
+     * Cleans the schemas concurrently, each on its own connection obtained from the datasource. All schemas are
+     * processed, even if cleaning some of them fails.
+     *
+     * @throws FlywayException when clean failed for at least one schema. The message lists the error of every schema
+     *                         that failed.
+     */
+    private void cleanInParallel() throws FlywayException {
+        LOG.debug("Cleaning " + schemas.length + " schemas using " + Math.min(cleanThreads, schemas.length) + " threads");
+
+        ExecutorService executorService =
+                Executors.newFixedThreadPool(Math.min(cleanThreads, schemas.length), new CleanThreadFactory());
+        Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (final String schema : schemas) {
+                futures.add(executorService.submit(new Callable<Void>() {
+                    public Void call() {
+                        cleanSchemaOnNewConnection(schema);
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < schemas.length; i++) {
+                try {
+                    futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FlywayException("Interrupted while cleaning schema '" + schemas[i] + "'", e);
+                } catch (ExecutionException e) {
+                    failures.put(schemas[i], e.getCause());
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder("Clean failed for ");
+        message.append(failures.size()).append(" of ").append(schemas.length).append(" schemas!");
+        for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+            message.append("\n").append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+        }
+        throw new FlywayException(message.toString(), failures.values().iterator().next());
+    }
+
+    /**
+     * Cleans this schema on a new connection obtained from the datasource.
      *
      * @param schema The schema to clean.
+     * @throws FlywayException when clean failed.
+     */
+    private void cleanSchemaOnNewConnection(String schema) throws FlywayException {
+        Connection connection = JdbcUtils.openConnection(dataSource);
+        try {
+            DbSupport schemaDbSupport = DbSupportFactory.createDbSupport(connection);
+            cleanSchema(schema, new TransactionTemplate(connection), schemaDbSupport.getJdbcTemplate(), schemaDbSupport);
+        } finally {
+            JdbcUtils.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Cleans this schema of all objects.
+     *
+     * @param schema              The schema to clean.
+     * @param transactionTemplate The transaction template to use.
+     * @param jdbcTemplate        JdbcTemplate with ddl manipulation access to the database.
+     * @param dbSupport           Database-specific functionality.
      *
      * @throws FlywayException when clean failed.
      */
-    private void cleanSchema(String schema) {
+    private void cleanSchema(String schema, TransactionTemplate transactionTemplate, final JdbcTemplate jdbcTemplate,
+                             DbSupport dbSupport) {
         LOG.debug("Starting to drop all database objects in schema '" + schema + "' ...");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         try {
-            final SqlScript cleanScript = dbSupport.createCleanScript(schema);
+            final SqlScript cleanScript = createCleanScript(schema, dbSupport);
             try {
                 transactionTemplate.execute(new TransactionCallback<Void>() {
                     public Void doInTransaction() {
@@ -114,4 +244,36 @@ public class DbCleaner {
         LOG.info(String.format("Cleaned database schema '%s' (execution time %s)",
                 schema, TimeFormat.format(stopWatch.getTotalTimeMillis())));
     }
+
+    /**
+     * Creates the script for cleaning this schema.
+     *
+     * @param schema    The schema to clean.
+     * @param dbSupport Database-specific functionality.
+     * @return The clean script.
+     * @throws SQLException when the clean script could not be generated.
+     */
+    private SqlScript createCleanScript(String schema, DbSupport dbSupport) throws SQLException {
+        if (fastClean) {
+            SqlScript fastCleanScript = dbSupport.createFastCleanScript(schema);
+            if (fastCleanScript != null) {
+                LOG.debug("Dropping and recreating schema '" + schema + "'");
+                return fastCleanScript;
+            }
+            LOG.debug("Unable to drop and recreate schema '" + schema + "'. Dropping its objects one by one instead.");
+        }
+        return dbSupport.createCleanScript(schema);
+    }
+
+    /**
+     * Creates the daemon threads used to clean schemas in parallel, so a clean can never prevent the JVM from
+     * exiting.
+     */
+    private static class CleanThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "flyway-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -15,11 +15,16 @@
  */
 package com.googlecode.flyway.core.dbsupport;
 
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
 
+import java.io.Reader;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Abstraction for database-specific functionality.
@@ -56,6 +61,24 @@ public abstract class DbSupport {
      */
     public abstract SqlScript createSqlScript(String sqlScriptSource, PlaceholderReplacer placeholderReplacer);
 
+    /**
+     * Executes the sql script provided by this reader. The script is parsed with the rules of this database and each
+     * statement is executed as soon as it has been read, so the script is never held in memory as a whole. Consecutive
+     * DML statements are executed in JDBC batches if the settings have a batch size greater than 1. The migration
+     * listener of the settings is notified before and after each statement.
+     *
+     * @param jdbcTemplate        The jdbc template to use to execute the script.
+     * @param reader              The reader for the sql script with all placeholders still present.
+     * @param placeholderReplacer The placeholder replacer to apply to sql migration scripts.
+     * @param migrationSettings   The settings of the current run.
+     * @throws IllegalStateException Thrown when the script could not be read from this reader.
+     */
+    public void executeSqlScript(JdbcTemplate jdbcTemplate, Reader reader, PlaceholderReplacer placeholderReplacer,
+                                 MigrationSettings migrationSettings) {
+        SqlScript sqlScript = createSqlScript("", placeholderReplacer);
+        sqlScript.execute(jdbcTemplate, reader, placeholderReplacer, migrationSettings);
+    }
+
     /**
      * Creates a new sql script which clean this schema, by dropping all objects.
      *
@@ -65,6 +88,64 @@ public abstract class DbSupport {
      */
     public abstract SqlScript createCleanScript(String schema) throws SQLException;
 
+    /**
+     * Creates a new sql script which cleans this schema by dropping and recreating the schema itself. For schemas with
+     * many objects this is much faster than dropping all objects one by one.
+     *
+     * @param schema The schema to clean.
+     * @return A new sql script, dropping and recreating the schema. {@code null} if the schema can not be cleaned this
+     *         way (not supported by this database, or the current user doesn't own the schema), in which case the
+     *         script returned by {@link #createCleanScript(String)} must be used instead.
+     * @throws SQLException when querying the database for generating the clean script failed.
+     */
+    public SqlScript createFastCleanScript(String schema) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Captures the objects and data in these schemas as statements which recreate them when executed against the same
+     * schemas after they have been cleaned. Objects outside of these schemas are not captured, as clean doesn't drop
+     * them either. Neither is the metadata table, as it already exists by the time a snapshot is restored. Its rows are
+     * captured separately by {@link #createMetaDataTableSnapshotStatements(String, String)}.
+     *
+     * @param schemas The schemas to capture. The first one contains the metadata table.
+     * @param table   The metadata table.
+     * @return The statements, in execution order. {@code null} if snapshots are not supported by this database, or not
+     *         for these schemas.
+     * @throws SQLException when the schemas could not be captured.
+     */
+    public List<String> createSnapshotStatements(String[] schemas, String table) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Captures the rows of this metadata table as statements which insert them again into the empty metadata table.
+     *
+     * @param schema The schema containing the metadata table.
+     * @param table  The metadata table.
+     * @return The statements, in execution order. {@code null} if snapshots are not supported by this database.
+     * @throws SQLException when the rows could not be captured.
+     */
+    public List<String> createMetaDataTableSnapshotStatements(String schema, String table) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Creates a new sql script containing these statements.
+     *
+     * @param statements The statements, in execution order.
+     * @return The sql script.
+     */
+    protected SqlScript toSqlScript(List<String> statements) {
+        List<SqlStatement> sqlStatements = new ArrayList<SqlStatement>();
+        int lineNumber = 1;
+        for (String statement : statements) {
+            sqlStatements.add(new SqlStatement(lineNumber, statement));
+            lineNumber++;
+        }
+        return new SqlScript(sqlStatements);
+    }
+
     /**
      * Returns the location on the classpath where the scripts for this database reside.
      *
@@ -99,6 +180,14 @@ public abstract class DbSupport {
      */
     public abstract String getCurrentSchema() throws SQLException;
 
+    /**
+     * Changes the current schema, in which objects without explicit schema are created.
+     *
+     * @param schema The new current schema for this connection.
+     * @throws SQLException when the current schema could not be changed.
+     */
+    public abstract void setCurrentSchema(String schema) throws SQLException;
+
     /**
      * @return The database function that returns the current user.
      */
@@ -112,13 +201,41 @@ public abstract class DbSupport {
     public abstract boolean supportsDdlTransactions();
 
     /**
-     * Locks this table in this schema using a read/write pessimistic lock until the end of the current transaction.
+     * Acquires the exclusive migration lock of this metadata table until the end of the current transaction. Databases
+     * with advisory locks use them, so the rows of the metadata table are neither read nor locked. The others fall
+     * back to locking the metadata table itself, waiting as long as their own lock timeout allows.
      *
-     * @param schema The schema of the table to lock.
-     * @param table  The table to lock.
-     * @throws SQLException when this table in this schema could not be locked.
+     * @param schema  The schema of the metadata table.
+     * @param table   The metadata table.
+     * @param timeout The maximum time to wait for the lock, in seconds. 0 or less to wait as long as necessary.
+     * @return {@code true} if the lock was acquired, {@code false} if it could not be acquired within the timeout.
+     * @throws SQLException when the lock could not be acquired.
      */
-    public abstract void lockTable(String schema, String table) throws SQLException;
+    public abstract boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException;
+
+    /**
+     * Releases the migration lock of this metadata table. Must be called once the transaction in which it was acquired
+     * has ended. Only databases whose locks outlive transactions need to do anything here.
+     *
+     * @param schema The schema of the metadata table.
+     * @param table  The metadata table.
+     * @throws SQLException when the lock could not be released.
+     */
+    public void releaseMigrationLock(String schema, String table) throws SQLException {
+        //No implementation needed
+    }
+
+    /**
+     * Builds the name of the migration lock of this metadata table. It is shared by everything migrating this metadata
+     * table, whatever the connection.
+     *
+     * @param schema The schema of the metadata table.
+     * @param table  The metadata table.
+     * @return The name of the lock.
+     */
+    protected String getMigrationLockName(String schema, String table) {
+        return "flyway." + schema + "." + table;
+    }
 
     /**
      * @return The representation of the value {@code true} in a boolean column.
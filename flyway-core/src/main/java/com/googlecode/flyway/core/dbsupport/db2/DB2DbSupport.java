@@ -117,6 +117,10 @@ public class DB2DbSupport extends DbSupport {
         return jdbcTemplate.queryForString("select current_schema from sysibm.sysdummy1").trim();
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("SET SCHEMA " + schema);
+    }
+
     public String getCurrentUserFunction() {
         return "CURRENT_USER";
     }
@@ -125,8 +129,9 @@ public class DB2DbSupport extends DbSupport {
         return true;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
         jdbcTemplate.update("lock table " + schema + "." + table + " in exclusive mode");
+        return true;
     }
 
     public String getBooleanTrue() {
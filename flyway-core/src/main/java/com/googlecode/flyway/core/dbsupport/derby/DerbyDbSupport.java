@@ -52,6 +52,10 @@ public class DerbyDbSupport extends DbSupport {
         return jdbcTemplate.queryForString("SELECT CURRENT SCHEMA FROM SYSIBM.SYSDUMMY1");
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("SET SCHEMA " + schema);
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         return !jdbcTemplate.hasTables(null, schema.toUpperCase(), null);
     }
@@ -64,8 +68,9 @@ public class DerbyDbSupport extends DbSupport {
         return true;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
         jdbcTemplate.execute("LOCK TABLE " + schema + "." + table + " IN EXCLUSIVE MODE");
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -28,6 +28,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -74,6 +75,10 @@ public class H2DbSupport extends DbSupport {
         return schema;
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("SET SCHEMA " + schema);
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         List<String> tables = jdbcTemplate.queryForStringList("SHOW TABLES FROM " + schema);
         return tables.isEmpty();
@@ -87,8 +92,9 @@ public class H2DbSupport extends DbSupport {
         return false;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
         jdbcTemplate.execute("select * from " + schema + "." + table + " for update");
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -103,6 +109,217 @@ public class H2DbSupport extends DbSupport {
         return new H2SqlScript(sqlScriptSource, placeholderReplacer);
     }
 
+    /**
+     * Drops and recreates the schema if it is owned by the current user. The default schema (PUBLIC) can not be
+     * dropped and the current schema of the connection is never dropped, so these are always cleaned object by object.
+     */
+    @Override
+    public SqlScript createFastCleanScript(String schema) throws SQLException {
+        if (schema.equals(getCurrentSchema())) {
+            return null;
+        }
+
+        int ownedSchemaCount = jdbcTemplate.queryForInt("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA"
+                + " WHERE SCHEMA_NAME = ? AND SCHEMA_OWNER = USER() AND IS_DEFAULT = FALSE", schema);
+        if (ownedSchemaCount == 0) {
+            return null;
+        }
+
+        List<String> statements = new ArrayList<String>();
+        statements.add("DROP SCHEMA \"" + schema + "\"");
+        statements.add("CREATE SCHEMA \"" + schema + "\"");
+        return toSqlScript(statements);
+    }
+
+    /**
+     * Captures the schemas using H2's SCRIPT command. See {@link #scriptSchemas(String[], String, boolean)}.
+     */
+    @Override
+    public List<String> createSnapshotStatements(String[] schemas, String table) throws SQLException {
+        return scriptSchemas(schemas, table, false);
+    }
+
+    /**
+     * Captures the rows of the metadata table using H2's SCRIPT command. See
+     * {@link #scriptSchemas(String[], String, boolean)}.
+     */
+    @Override
+    public List<String> createMetaDataTableSnapshotStatements(String schema, String table) throws SQLException {
+        return scriptSchemas(new String[]{schema}, table, true);
+    }
+
+    /**
+     * Captures the schemas using H2's SCRIPT command. As SCRIPT always covers the whole database, each statement is
+     * assigned to the schema qualifying the first object name in its head, as SCRIPT writes it. Users, roles and the
+     * schemas themselves are left out.
+     *
+     * @param schemas       The schemas to capture. The first one contains the metadata table.
+     * @param table         The metadata table.
+     * @param metaDataTable {@code true} to only capture the rows of the metadata table, {@code false} to capture
+     *                      everything except the metadata table.
+     * @return The statements, in execution order. {@code null} if SCRIPT produced a statement that doesn't belong to
+     *         any schema and thus can't be captured, such as the creation of a domain.
+     * @throws SQLException when the schemas could not be captured.
+     */
+    private List<String> scriptSchemas(String[] schemas, String table, boolean metaDataTable) throws SQLException {
+        List<String> allSchemas = jdbcTemplate.queryForStringList("SELECT SCHEMA_NAME FROM INFORMATION_SCHEMA.SCHEMATA");
+        List<String> capturedSchemas = Arrays.asList(schemas);
+        // The metadata table is created with unquoted names, which H2 converts to upper case
+        String metaDataTableSchema = schemas[0].toUpperCase();
+        String metaDataTableName = table.toUpperCase();
+
+        List<String> statements = new ArrayList<String>();
+        for (String statement : jdbcTemplate.queryForStringList("SCRIPT NOPASSWORDS NOSETTINGS")) {
+            String sql = statement.trim();
+            if (sql.endsWith(";")) {
+                sql = sql.substring(0, sql.length() - 1);
+            }
+            if (sql.startsWith("--") || sql.startsWith("CREATE SCHEMA ")) {
+                continue;
+            }
+
+            String schema = getQualifyingSchema(sql, allSchemas);
+            if (schema == null) {
+                if (sql.startsWith("CREATE USER ") || sql.startsWith("ALTER USER ") || sql.startsWith("CREATE ROLE ")
+                        || sql.startsWith("GRANT ")) {
+                    continue;
+                }
+                LOG.warn("Unable to snapshot database-wide object: " + sql);
+                return null;
+            }
+            if (!capturedSchemas.contains(schema)) {
+                continue;
+            }
+
+            boolean metaDataTableStatement = indexOfName(getHead(sql), metaDataTableSchema, metaDataTableName) >= 0;
+            if (metaDataTable) {
+                if (metaDataTableStatement && sql.startsWith("INSERT INTO ")) {
+                    statements.add(sql);
+                }
+            } else if (!metaDataTableStatement) {
+                statements.add(sql);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Retrieves the schema qualifying the first object name in the head of this statement (see {@link #getHead}).
+     *
+     * @param sql     The statement, as written by SCRIPT.
+     * @param schemas All schemas of the database.
+     * @return The schema. {@code null} if the statement doesn't contain an object name qualified by any of them.
+     */
+    /* private -> for testing */
+    static String getQualifyingSchema(String sql, List<String> schemas) {
+        String head = getHead(sql);
+
+        String qualifyingSchema = null;
+        int qualifyingIndex = head.length();
+        for (String schema : schemas) {
+            int index = indexOfName(head, schema, null);
+            if ((index >= 0) && (index < qualifyingIndex)) {
+                qualifyingSchema = schema;
+                qualifyingIndex = index;
+            }
+        }
+        return qualifyingSchema;
+    }
+
+    /**
+     * Retrieves the head of this statement: everything up to its first parenthesis or string literal. For the
+     * statements written by SCRIPT, it contains the qualified name of the object created, altered or filled, and
+     * possibly of its table, but never names of other schemas, default values or view queries.
+     *
+     * @param sql The statement.
+     * @return The head of the statement.
+     */
+    private static String getHead(String sql) {
+        boolean inQuotes = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && ((c == '(') || (c == '\''))) {
+                return sql.substring(0, i);
+            }
+        }
+        return sql;
+    }
+
+    /**
+     * Finds this schema qualifier, or this qualified object name, in this statement head. SCRIPT only writes names
+     * without quotes when they consist of upper case letters, digits and underscores, so both forms are looked for.
+     *
+     * @param head   The statement head.
+     * @param schema The schema.
+     * @param object The object within the schema. {@code null} to find any name qualified by the schema.
+     * @return The index of the first occurrence. -1 if there is none.
+     */
+    private static int indexOfName(String head, String schema, String object) {
+        int firstIndex = -1;
+        for (String scriptSchema : toScriptNames(schema)) {
+            List<String> names = new ArrayList<String>();
+            if (object == null) {
+                names.add(scriptSchema + ".");
+            } else {
+                for (String scriptObject : toScriptNames(object)) {
+                    names.add(scriptSchema + "." + scriptObject);
+                }
+            }
+
+            for (String name : names) {
+                int index = head.indexOf(name);
+                while ((index >= 0) && !isWholeName(head, index, name)) {
+                    index = head.indexOf(name, index + 1);
+                }
+                if ((index >= 0) && ((firstIndex < 0) || (index < firstIndex))) {
+                    firstIndex = index;
+                }
+            }
+        }
+        return firstIndex;
+    }
+
+    /**
+     * Checks whether this occurrence of a name in a statement head is not just part of a longer name.
+     *
+     * @param head  The statement head.
+     * @param index The index of the occurrence.
+     * @param name  The name.
+     * @return {@code true} if it is the whole name, {@code false} if it is only part of it.
+     */
+    private static boolean isWholeName(String head, int index, String name) {
+        if ((index > 0) && isNamePart(head.charAt(index - 1))) {
+            return false;
+        }
+        int end = index + name.length();
+        return name.endsWith(".") || (end >= head.length()) || !isNamePart(head.charAt(end));
+    }
+
+    /**
+     * @param c The character to check.
+     * @return {@code true} if this character can be part of a name as written by SCRIPT, {@code false} if not.
+     */
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || (c == '_') || (c == '$') || (c == '"') || (c == '.');
+    }
+
+    /**
+     * Lists the forms in which SCRIPT may write this name.
+     *
+     * @param name The name.
+     * @return The quoted name, and the name itself if it doesn't need quotes.
+     */
+    private static List<String> toScriptNames(String name) {
+        List<String> scriptNames = new ArrayList<String>();
+        scriptNames.add("\"" + StringUtils.replaceAll(name, "\"", "\"\"") + "\"");
+        if (name.matches("[A-Z_][A-Z0-9_]*")) {
+            scriptNames.add(name);
+        }
+        return scriptNames;
+    }
+
     public SqlScript createCleanScript(String schema) throws SQLException {
         List<String> tableNames = listObjectNames("TABLE", "TABLE_TYPE = 'TABLE'", schema);
         List<String> statements = generateDropStatements("TABLE", tableNames, "CASCADE", schema);
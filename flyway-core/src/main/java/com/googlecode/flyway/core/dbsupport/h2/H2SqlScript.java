@@ -22,6 +22,7 @@ import java.util.Set;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.StringUtils;
 
 /**
@@ -48,48 +49,59 @@ public class H2SqlScript extends SqlScript {
     }
 
     @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        return DEFAULT_STATEMENT_DELIMITER;
+    protected SqlStatementScanner createStatementScanner() {
+        return new H2StatementScanner();
     }
 
     /**
-     * Checks whether the statement we have assembled so far ends with an open multi-line string literal (which will be
-     * continued on the next line).
-     *
-     * @param statement The current statement, assembled from the lines we have parsed so far. May not yet be complete.
-     *
-     * @return {@code true} if the statement is unfinished and the end is currently in the middle of a multi-line string
-     *         literal. {@code false} if not.
+     * Scanner following the H2 string literals of a statement.
      */
-    @Override
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
-		String[] tokens = StringUtils.tokenizeToStringArray(statement, " ;=|(),");
+    private class H2StatementScanner extends SqlStatementScanner {
+        /**
+         * Whether the lines scanned so far end inside a ' string literal.
+         */
+        private boolean insideQuoteStringLiteral;
 
-        List<Set<TokenType>> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+        /**
+         * Whether the lines scanned so far end inside a $$ string literal.
+         */
+        private boolean insideDollarStringLiteral;
 
-        boolean insideQuoteStringLiteral = false;
-        boolean insideDollarStringLiteral = false;
+        @Override
+        public void scanLine(String line) {
+            //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
+            String[] tokens = StringUtils.tokenizeToStringArray(line, " ;=|(),");
 
-        for (Set<TokenType> delimitingToken : delimitingTokens) {
-            if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_OPEN)) {
-                insideQuoteStringLiteral = true;
-                continue;
-            }
-            if (insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_CLOSE)) {
-                insideQuoteStringLiteral = false;
-                continue;
-            }
-            if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.DOLLAR_OPEN)) {
-                insideDollarStringLiteral = true;
-                continue;
-            }
-            if (insideDollarStringLiteral && delimitingToken.contains(TokenType.DOLLAR_CLOSE)) {
-                insideDollarStringLiteral = false;
+            List<Set<TokenType>> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+
+            for (Set<TokenType> delimitingToken : delimitingTokens) {
+                if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_OPEN)) {
+                    insideQuoteStringLiteral = true;
+                    continue;
+                }
+                if (insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_CLOSE)) {
+                    insideQuoteStringLiteral = false;
+                    continue;
+                }
+                if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.DOLLAR_OPEN)) {
+                    insideDollarStringLiteral = true;
+                    continue;
+                }
+                if (insideDollarStringLiteral && delimitingToken.contains(TokenType.DOLLAR_CLOSE)) {
+                    insideDollarStringLiteral = false;
+                }
             }
         }
 
-        return insideQuoteStringLiteral || insideDollarStringLiteral;
+        @Override
+        public boolean endsWithOpenMultilineStringLiteral() {
+            return insideQuoteStringLiteral || insideDollarStringLiteral;
+        }
+
+        @Override
+        public String changeDelimiterIfNecessary(String line, String delimiter) {
+            return DEFAULT_STATEMENT_DELIMITER;
+        }
     }
 
     /**
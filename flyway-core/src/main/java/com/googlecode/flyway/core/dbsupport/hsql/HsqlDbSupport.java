@@ -75,6 +75,10 @@ public class HsqlDbSupport extends DbSupport {
         return schema;
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("SET SCHEMA " + schema);
+    }
+
     public boolean isSchemaEmpty(final String schema) throws SQLException {
         return !jdbcTemplate.hasTables(null, schema.toUpperCase(), null);
     }
@@ -87,8 +91,9 @@ public class HsqlDbSupport extends DbSupport {
         return false;
     }
 
-    public void lockTable(String schema, String table) {
+    public boolean acquireMigrationLock(String schema, String table, int timeout) {
         //Locking is not supported by Hsql
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -103,6 +108,30 @@ public class HsqlDbSupport extends DbSupport {
         return new HsqlSqlScript(sqlScriptSource, placeholderReplacer);
     }
 
+    /**
+     * Drops and recreates the schema if the current user is an administrator, as Hsql only lets administrators create
+     * schemas. The current schema of the connection is never dropped, so it is always cleaned object by object.
+     */
+    @Override
+    public SqlScript createFastCleanScript(String schema) throws SQLException {
+        if (schema.equals(getCurrentSchema())) {
+            return null;
+        }
+
+        int adminCount = jdbcTemplate.queryForInt(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_USERS WHERE \"USER\" = USER() AND ADMIN = TRUE");
+        int schemaCount = jdbcTemplate.queryForInt(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_SCHEMAS WHERE TABLE_SCHEM = ?", schema);
+        if ((adminCount == 0) || (schemaCount == 0)) {
+            return null;
+        }
+
+        List<String> statements = new ArrayList<String>();
+        statements.add("DROP SCHEMA \"" + schema + "\" CASCADE");
+        statements.add("CREATE SCHEMA \"" + schema + "\" AUTHORIZATION DBA");
+        return toSqlScript(statements);
+    }
+
     public SqlScript createCleanScript(final String schema) throws SQLException {
         final List<String> statements = generateDropStatementsForTables(schema);
         statements.addAll(generateDropStatementsForSequences(schema));
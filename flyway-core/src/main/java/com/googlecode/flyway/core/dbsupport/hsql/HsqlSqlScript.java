@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.hsql;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.StringUtils;
 
 /**
@@ -35,17 +36,31 @@ public class HsqlSqlScript extends SqlScript {
     }
 
     @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        return DEFAULT_STATEMENT_DELIMITER;
-    }
+    protected SqlStatementScanner createStatementScanner() {
+        return new SqlStatementScanner() {
+            /**
+             * The number of single quotes in the lines scanned so far.
+             */
+            private int numQuotes;
 
-    @Override
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        // Hsql only supports single quotes (') as delimiters
-        // A single quote inside a string literal is represented as two single quotes ('')
-        // An even number of single quotes thus means the string literal is closed.
-        // An uneven number means we are still waiting for the closing delimiter on a following line
-        int numQuotes = StringUtils.countOccurrencesOf(statement, "'");
-        return (numQuotes % 2) != 0;
+            @Override
+            public void scanLine(String line) {
+                numQuotes += StringUtils.countOccurrencesOf(line, "'");
+            }
+
+            @Override
+            public boolean endsWithOpenMultilineStringLiteral() {
+                // Hsql only supports single quotes (') as delimiters
+                // A single quote inside a string literal is represented as two single quotes ('')
+                // An even number of single quotes thus means the string literal is closed.
+                // An uneven number means we are still waiting for the closing delimiter on a following line
+                return (numQuotes % 2) != 0;
+            }
+
+            @Override
+            public String changeDelimiterIfNecessary(String line, String delimiter) {
+                return DEFAULT_STATEMENT_DELIMITER;
+            }
+        };
     }
 }
@@ -30,6 +30,11 @@ import java.util.Map;
  * Mysql-specific support.
  */
 public class MySQLDbSupport extends DbSupport {
+    /**
+     * The longest time to wait for a named lock, in seconds. Older MySQL versions don't support waiting forever.
+     */
+    private static final int MAX_LOCK_TIMEOUT = 365 * 24 * 60 * 60;
+
     /**
      * Creates a new instance.
      *
@@ -51,6 +56,10 @@ public class MySQLDbSupport extends DbSupport {
         return jdbcTemplate.getConnection().getCatalog();
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("USE " + schema);
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         int objectCount = jdbcTemplate.queryForInt("Select count(*) FROM " +
                 "( " +
@@ -74,8 +83,16 @@ public class MySQLDbSupport extends DbSupport {
         return false;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
-        jdbcTemplate.execute("select * from " + schema + "." + table + " for update");
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
+        // Named locks belong to the session, not the transaction: they must be released explicitly
+        int timeoutSeconds = (timeout > 0) ? timeout : MAX_LOCK_TIMEOUT;
+        return jdbcTemplate.queryForInt("SELECT GET_LOCK(?, " + timeoutSeconds + ")",
+                getMigrationLockName(schema, table)) == 1;
+    }
+
+    @Override
+    public void releaseMigrationLock(String schema, String table) throws SQLException {
+        jdbcTemplate.execute("SELECT RELEASE_LOCK(?)", getMigrationLockName(schema, table));
     }
 
     public String getBooleanTrue() {
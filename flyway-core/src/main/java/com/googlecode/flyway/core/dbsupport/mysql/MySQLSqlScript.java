@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.mysql;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.StringUtils;
 
 import java.util.ArrayList;
@@ -43,15 +44,6 @@ public class MySQLSqlScript extends SqlScript {
         super(sqlScriptSource, placeholderReplacer);
     }
 
-    @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        if (line.toUpperCase().startsWith(DELIMITER_KEYWORD)) {
-            return line.substring(DELIMITER_KEYWORD.length()).trim();
-        }
-
-        return delimiter;
-    }
-
     @Override
     protected boolean isDelimiterChangeExplicit() {
         return true;
@@ -63,46 +55,75 @@ public class MySQLSqlScript extends SqlScript {
     }
 
     @Override
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
-        String[] tokens = StringUtils.tokenizeToStringArray(statement, " ;=|(),");
+    protected SqlStatementScanner createStatementScanner() {
+        return new MySQLStatementScanner();
+    }
+
+    /**
+     * Scanner following the MySQL string literals and delimiter changes of a statement.
+     */
+    private class MySQLStatementScanner extends SqlStatementScanner {
+        /**
+         * Whether the lines scanned so far end inside a ' string literal.
+         */
+        private boolean insideQuoteStringLiteral;
 
-        List<Token> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+        /**
+         * Whether the lines scanned so far end inside a " string literal.
+         */
+        private boolean insideQStringLiteral;
 
-        boolean insideQuoteStringLiteral = false;
-        boolean insideQStringLiteral = false;
+        @Override
+        public void scanLine(String line) {
+            //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
+            String[] tokens = StringUtils.tokenizeToStringArray(line, " ;=|(),");
 
-        for (Token delimitingToken : delimitingTokens) {
-            boolean moreTokensApplicable = true;
-            for (TokenType tokenType : delimitingToken.tokenTypes) {
-                if (!moreTokensApplicable) {
-                    continue;
-                }
+            List<Token> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
 
-                if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.SINGLE_OPEN)) {
-                    insideQuoteStringLiteral = true;
-                    if (delimitingToken.singleTypeApplicable) {
+            for (Token delimitingToken : delimitingTokens) {
+                boolean moreTokensApplicable = true;
+                for (TokenType tokenType : delimitingToken.tokenTypes) {
+                    if (!moreTokensApplicable) {
+                        continue;
+                    }
+
+                    if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.SINGLE_OPEN)) {
+                        insideQuoteStringLiteral = true;
+                        if (delimitingToken.singleTypeApplicable) {
+                            moreTokensApplicable = false;
+                        }
+                        continue;
+                    }
+                    if (insideQuoteStringLiteral && (tokenType == TokenType.SINGLE_CLOSE)) {
+                        insideQuoteStringLiteral = false;
+                        moreTokensApplicable = false;
+                        continue;
+                    }
+                    if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.DOUBLE_OPEN)) {
+                        insideQStringLiteral = true;
+                        continue;
+                    }
+                    if (insideQStringLiteral && (tokenType == TokenType.DOUBLE_CLOSE)) {
+                        insideQStringLiteral = false;
                         moreTokensApplicable = false;
                     }
-                    continue;
-                }
-                if (insideQuoteStringLiteral && (tokenType == TokenType.SINGLE_CLOSE)) {
-                    insideQuoteStringLiteral = false;
-                    moreTokensApplicable = false;
-                    continue;
-                }
-                if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.DOUBLE_OPEN)) {
-                    insideQStringLiteral = true;
-                    continue;
-                }
-                if (insideQStringLiteral && (tokenType == TokenType.DOUBLE_CLOSE)) {
-                    insideQStringLiteral = false;
-                    moreTokensApplicable = false;
                 }
             }
         }
 
-        return insideQuoteStringLiteral || insideQStringLiteral;
+        @Override
+        public boolean endsWithOpenMultilineStringLiteral() {
+            return insideQuoteStringLiteral || insideQStringLiteral;
+        }
+
+        @Override
+        public String changeDelimiterIfNecessary(String line, String delimiter) {
+            if (line.toUpperCase().startsWith(DELIMITER_KEYWORD)) {
+                return line.substring(DELIMITER_KEYWORD.length()).trim();
+            }
+
+            return delimiter;
+        }
     }
 
     /**
@@ -20,11 +20,14 @@ import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.migration.sql.SqlStatement;
+import com.googlecode.flyway.core.util.jdbc.JdbcUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,6 +40,17 @@ public class OracleDbSupport extends DbSupport {
      */
     private static final Log LOG = LogFactory.getLog(OracleDbSupport.class);
 
+    /**
+     * The longest time DBMS_LOCK can wait for a lock (DBMS_LOCK.MAXWAIT), in seconds.
+     */
+    private static final int MAX_LOCK_TIMEOUT = 32767;
+
+    /**
+     * Whether DBMS_LOCK turned out not to be usable with this connection, in which case the metadata table is locked
+     * instead.
+     */
+    private boolean dbmsLockUnavailable;
+
     /**
      * Creates a new instance.
      *
@@ -59,6 +73,10 @@ public class OracleDbSupport extends DbSupport {
         return jdbcTemplate.queryForString("SELECT USER FROM dual");
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("ALTER SESSION SET CURRENT_SCHEMA = " + schema);
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         int objectCount = jdbcTemplate.queryForInt("SELECT count(*) FROM all_objects WHERE owner = ?", schema);
         return objectCount == 0;
@@ -72,8 +90,44 @@ public class OracleDbSupport extends DbSupport {
         return false;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
-        jdbcTemplate.update("select * from " + schema + "." + table + " for update");
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
+        if (dbmsLockUnavailable) {
+            jdbcTemplate.execute("LOCK TABLE " + schema + "." + table + " IN EXCLUSIVE MODE");
+            return true;
+        }
+
+        // User lock ids range from 0 to 1073741823
+        int lockId = getMigrationLockName(schema, table).hashCode() & 0x3fffffff;
+        int timeoutSeconds = (timeout > 0) ? timeout : MAX_LOCK_TIMEOUT;
+
+        int result;
+        CallableStatement statement = null;
+        try {
+            statement = jdbcTemplate.getConnection().prepareCall(
+                    "BEGIN ? := DBMS_LOCK.REQUEST(?, DBMS_LOCK.X_MODE, ?, TRUE); END;");
+            statement.registerOutParameter(1, Types.INTEGER);
+            statement.setInt(2, lockId);
+            statement.setInt(3, timeoutSeconds);
+            statement.execute();
+            result = statement.getInt(1);
+        } catch (SQLException e) {
+            LOG.warn("Unable to use DBMS_LOCK (is EXECUTE granted on it?): " + e.getMessage()
+                    + ". Locking the metadata table instead.");
+            dbmsLockUnavailable = true;
+            jdbcTemplate.execute("LOCK TABLE " + schema + "." + table + " IN EXCLUSIVE MODE");
+            return true;
+        } finally {
+            JdbcUtils.closeStatement(statement);
+        }
+
+        // 0: granted, 1: timeout, 4: already held by this session
+        if (result == 1) {
+            return false;
+        }
+        if ((result != 0) && (result != 4)) {
+            throw new SQLException("DBMS_LOCK.REQUEST failed with status " + result);
+        }
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.oracle;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.StringUtils;
 
 import java.util.ArrayList;
@@ -43,118 +44,163 @@ public class OracleSqlScript extends SqlScript {
     }
 
     @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        String upperCaseLine = line.toUpperCase();
-        if (upperCaseLine.matches("DECLARE|DECLARE\\s.*") || upperCaseLine.matches("BEGIN|BEGIN\\s.*")) {
-            return PLSQL_DELIMITER;
-        }
+    protected SqlStatementScanner createStatementScanner() {
+        return new OracleStatementScanner();
+    }
 
-        String upperCaseStatement = statement.toUpperCase();
-        if (upperCaseStatement.matches("CREATE\\W*FUNCTION.*")
-                || upperCaseStatement.matches("CREATE\\W+PROCEDURE.*")
-                || upperCaseStatement.matches("CREATE\\W+PACKAGE.*")
-                || upperCaseStatement.matches("CREATE\\W+OR\\W+REPLACE\\W+FUNCTION.*")
-                || upperCaseStatement.matches("CREATE\\W+OR\\W+REPLACE\\W+PROCEDURE.*")
-                || upperCaseStatement.matches("CREATE\\W+OR\\W+REPLACE\\W+PACKAGE.*")) {
-            return PLSQL_DELIMITER;
-        }
+    /**
+     * Scanner following the Oracle string literals and PL/SQL constructs of a statement.
+     */
+    private class OracleStatementScanner extends SqlStatementScanner {
+        /**
+         * Whether the lines scanned so far end inside a ' string literal.
+         */
+        private boolean insideQuoteStringLiteral;
 
-        return delimiter;
-    }
+        /**
+         * Whether the lines scanned so far end inside a q' string literal.
+         */
+        private boolean insideQStringLiteral;
 
-    @Override
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        String filteredStatementForParensQQuotes =
-                com.googlecode.flyway.core.util.StringUtils.replaceAll(statement, "q'(", "q'[");
-        filteredStatementForParensQQuotes =
-                com.googlecode.flyway.core.util.StringUtils.replaceAll(filteredStatementForParensQQuotes, ")'", "]'");
+        /**
+         * The closing token of the q' string literal opened last.
+         */
+        private String qCloseToken = "]'";
 
-        //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
-        String[] tokens = StringUtils.tokenizeToStringArray(filteredStatementForParensQQuotes, " ;=|(),");
+        /**
+         * The first words of the statement, in upper case, which decide whether it is a PL/SQL statement.
+         */
+        private final StringBuilder statementStart = new StringBuilder();
 
-        List<Token> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+        /**
+         * The number of words in the statement start.
+         */
+        private int statementStartWords;
 
-        boolean insideQuoteStringLiteral = false;
-        boolean insideQStringLiteral = false;
+        /**
+         * Whether the statement start is the start of a function, procedure or package definition.
+         */
+        private boolean plsqlStatement;
 
-        for (Token delimitingToken : delimitingTokens) {
-            boolean moreTokensApplicable = true;
-            for (TokenType tokenType : delimitingToken.tokenTypes) {
-                if (!moreTokensApplicable) {
-                    continue;
-                }
+        @Override
+        public void scanLine(String line) {
+            if (statementStartWords < 4) {
+                statementStart.append(line.toUpperCase()).append(" ");
+                statementStartWords += StringUtils.tokenizeToStringArray(line, " \t").length;
+
+                String upperCaseStatementStart = statementStart.toString();
+                plsqlStatement = upperCaseStatementStart.matches("CREATE\\W*FUNCTION.*")
+                        || upperCaseStatementStart.matches("CREATE\\W+PROCEDURE.*")
+                        || upperCaseStatementStart.matches("CREATE\\W+PACKAGE.*")
+                        || upperCaseStatementStart.matches("CREATE\\W+OR\\W+REPLACE\\W+FUNCTION.*")
+                        || upperCaseStatementStart.matches("CREATE\\W+OR\\W+REPLACE\\W+PROCEDURE.*")
+                        || upperCaseStatementStart.matches("CREATE\\W+OR\\W+REPLACE\\W+PACKAGE.*");
+            }
 
-                if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.QUOTE_OPEN)) {
-                    insideQuoteStringLiteral = true;
-                    if (delimitingToken.singleTypeApplicable) {
+            String filteredStatementForParensQQuotes =
+                    com.googlecode.flyway.core.util.StringUtils.replaceAll(line, "q'(", "q'[");
+            filteredStatementForParensQQuotes =
+                    com.googlecode.flyway.core.util.StringUtils.replaceAll(filteredStatementForParensQQuotes, ")'", "]'");
+
+            //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
+            String[] tokens = StringUtils.tokenizeToStringArray(filteredStatementForParensQQuotes, " ;=|(),");
+
+            List<Token> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+
+            for (Token delimitingToken : delimitingTokens) {
+                boolean moreTokensApplicable = true;
+                for (TokenType tokenType : delimitingToken.tokenTypes) {
+                    if (!moreTokensApplicable) {
+                        continue;
+                    }
+
+                    if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.QUOTE_OPEN)) {
+                        insideQuoteStringLiteral = true;
+                        if (delimitingToken.singleTypeApplicable) {
+                            moreTokensApplicable = false;
+                        }
+                        continue;
+                    }
+                    if (insideQuoteStringLiteral && (tokenType == TokenType.QUOTE_CLOSE)) {
+                        insideQuoteStringLiteral = false;
+                        moreTokensApplicable = false;
+                        continue;
+                    }
+                    if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.Q_OPEN)) {
+                        insideQStringLiteral = true;
+                        continue;
+                    }
+                    if (insideQStringLiteral && (tokenType == TokenType.Q_CLOSE)) {
+                        insideQStringLiteral = false;
                         moreTokensApplicable = false;
                     }
-                    continue;
-                }
-                if (insideQuoteStringLiteral && (tokenType == TokenType.QUOTE_CLOSE)) {
-                    insideQuoteStringLiteral = false;
-                    moreTokensApplicable = false;
-                    continue;
-                }
-                if (!insideQStringLiteral && !insideQuoteStringLiteral && (tokenType == TokenType.Q_OPEN)) {
-                    insideQStringLiteral = true;
-                    continue;
-                }
-                if (insideQStringLiteral && (tokenType == TokenType.Q_CLOSE)) {
-                    insideQStringLiteral = false;
-                    moreTokensApplicable = false;
                 }
             }
         }
 
-        return insideQuoteStringLiteral || insideQStringLiteral;
-    }
+        @Override
+        public boolean endsWithOpenMultilineStringLiteral() {
+            return insideQuoteStringLiteral || insideQStringLiteral;
+        }
 
-    /**
-     * Extract the type of all tokens that potentially delimit string literals.
-     *
-     * @param tokens The tokens to analyse.
-     * @return The list of potentially delimiting string literals token types per token. Tokens that do not have any
-     *         impact on string delimiting are discarded.
-     */
-    private List<Token> extractStringLiteralDelimitingTokens(String[] tokens) {
-        String qCloseToken = "]'";
+        @Override
+        public String changeDelimiterIfNecessary(String line, String delimiter) {
+            String upperCaseLine = line.toUpperCase();
+            if (upperCaseLine.matches("DECLARE|DECLARE\\s.*") || upperCaseLine.matches("BEGIN|BEGIN\\s.*")) {
+                return PLSQL_DELIMITER;
+            }
 
-        List<Token> delimitingTokens = new ArrayList<Token>();
-        for (String token : tokens) {
-            //Remove escaped quotes as they do not form a string literal delimiter
-            String cleanToken = StringUtils.replace(token, "''", "");
+            if (plsqlStatement) {
+                return PLSQL_DELIMITER;
+            }
 
-            List<TokenType> tokenTypes = new ArrayList<TokenType>();
+            return delimiter;
+        }
 
-            if (cleanToken.startsWith("'")) {
-                tokenTypes.add(TokenType.QUOTE_OPEN);
-            }
+        /**
+         * Extract the type of all tokens that potentially delimit string literals.
+         *
+         * @param tokens The tokens to analyse.
+         * @return The list of potentially delimiting string literals token types per token. Tokens that do not have any
+         *         impact on string delimiting are discarded.
+         */
+        private List<Token> extractStringLiteralDelimitingTokens(String[] tokens) {
+            List<Token> delimitingTokens = new ArrayList<Token>();
+            for (String token : tokens) {
+                //Remove escaped quotes as they do not form a string literal delimiter
+                String cleanToken = StringUtils.replace(token, "''", "");
 
-            if (cleanToken.endsWith("'")) {
-                tokenTypes.add(TokenType.QUOTE_CLOSE);
-            }
+                List<TokenType> tokenTypes = new ArrayList<TokenType>();
 
-            if (cleanToken.startsWith("q'") && (cleanToken.length() >= 3)) {
-                String qOpenToken = cleanToken.substring(0, 3);
-                qCloseToken = computeQCloseToken(qOpenToken);
+                if (cleanToken.startsWith("'")) {
+                    tokenTypes.add(TokenType.QUOTE_OPEN);
+                }
 
-                tokenTypes.add(TokenType.Q_OPEN);
-            }
+                if (cleanToken.endsWith("'")) {
+                    tokenTypes.add(TokenType.QUOTE_CLOSE);
+                }
 
-            if (cleanToken.endsWith(qCloseToken)) {
-                tokenTypes.add(TokenType.Q_CLOSE);
-            }
+                if (cleanToken.startsWith("q'") && (cleanToken.length() >= 3)) {
+                    String qOpenToken = cleanToken.substring(0, 3);
+                    qCloseToken = computeQCloseToken(qOpenToken);
 
-            if (!tokenTypes.isEmpty()) {
-                Token parsedToken = new Token();
-                parsedToken.tokenTypes = tokenTypes;
-                parsedToken.singleTypeApplicable = token.length() == 1;
-                delimitingTokens.add(parsedToken);
+                    tokenTypes.add(TokenType.Q_OPEN);
+                }
+
+                if (cleanToken.endsWith(qCloseToken)) {
+                    tokenTypes.add(TokenType.Q_CLOSE);
+                }
+
+                if (!tokenTypes.isEmpty()) {
+                    Token parsedToken = new Token();
+                    parsedToken.tokenTypes = tokenTypes;
+                    parsedToken.singleTypeApplicable = token.length() == 1;
+                    delimitingTokens.add(parsedToken);
+                }
             }
-        }
 
-        return delimitingTokens;
+            return delimitingTokens;
+        }
     }
 
     /**
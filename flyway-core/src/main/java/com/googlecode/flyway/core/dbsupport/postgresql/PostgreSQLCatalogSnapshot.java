@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.dbsupport.postgresql;
+
+import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the objects in a PostgreSQL schema that must be dropped to clean it. The snapshot is read from the
+ * system catalog with a single query, instead of one query per object type.
+ */
+class PostgreSQLCatalogSnapshot {
+    /**
+     * Object kind of tables that are not child tables.
+     */
+    static final String TABLE = "table";
+
+    /**
+     * Object kind of sequences.
+     */
+    static final String SEQUENCE = "sequence";
+
+    /**
+     * Object kind of base and pseudo types.
+     */
+    static final String BASE_TYPE = "base_type";
+
+    /**
+     * Object kind of functions.
+     */
+    static final String ROUTINE = "routine";
+
+    /**
+     * Object kind of enums.
+     */
+    static final String ENUM = "enum";
+
+    /**
+     * Object kind of domains.
+     */
+    static final String DOMAIN = "domain";
+
+    /**
+     * The query reading the snapshot. Every branch restricts its catalog to the schema through the namespace oid, so
+     * the schema name must be bound once per branch.
+     */
+    private static final String QUERY =
+            //Tables (as opposed to views) that are not child tables (= do not inherit from another table).
+            //Views and child tables are dropped with the parent table when using cascade.
+            "SELECT '" + TABLE + "' AS kind, c.relname::text AS name, NULL::text AS args FROM pg_catalog.pg_class c"
+                    + " WHERE c.relnamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " AND c.relkind IN ('r', 'p')"
+                    + " AND NOT EXISTS (SELECT 1 FROM pg_catalog.pg_inherits i WHERE i.inhrelid = c.oid)"
+                    + " UNION ALL"
+                    + " SELECT '" + SEQUENCE + "', c.relname::text, NULL::text FROM pg_catalog.pg_class c"
+                    + " WHERE c.relnamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " AND c.relkind = 'S'"
+                    + " UNION ALL"
+                    + " SELECT '" + BASE_TYPE + "', t.typname::text, NULL::text FROM pg_catalog.pg_type t"
+                    + " WHERE t.typnamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " AND t.typcategory IN ('P', 'U')"
+                    + " UNION ALL"
+                    + " SELECT '" + ROUTINE + "', p.proname::text, pg_catalog.oidvectortypes(p.proargtypes) FROM pg_catalog.pg_proc p"
+                    + " WHERE p.pronamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " UNION ALL"
+                    + " SELECT '" + ENUM + "', t.typname::text, NULL::text FROM pg_catalog.pg_type t"
+                    + " WHERE t.typnamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " AND t.typtype = 'e'"
+                    + " UNION ALL"
+                    + " SELECT '" + DOMAIN + "', t.typname::text, NULL::text FROM pg_catalog.pg_type t"
+                    + " WHERE t.typnamespace = (SELECT oid FROM pg_catalog.pg_namespace WHERE nspname = ?)"
+                    + " AND t.typtype = 'd'";
+
+    /**
+     * The names of the objects in the schema. Key: object kind. Value: the names of the objects of this kind.
+     */
+    private final Map<String, List<String>> names = new HashMap<String, List<String>>();
+
+    /**
+     * The argument types of the functions in the schema, in the same order as their names.
+     */
+    private final List<String> routineArgs = new ArrayList<String>();
+
+    /**
+     * Reads the snapshot of this schema.
+     *
+     * @param jdbcTemplate The jdbc template to query the catalog with.
+     * @param schema       The schema to read.
+     * @return The snapshot.
+     * @throws SQLException when the catalog could not be queried.
+     */
+    static PostgreSQLCatalogSnapshot read(JdbcTemplate jdbcTemplate, String schema) throws SQLException {
+        List<Map<String, String>> rows =
+                jdbcTemplate.queryForList(QUERY, schema, schema, schema, schema, schema, schema);
+
+        PostgreSQLCatalogSnapshot snapshot = new PostgreSQLCatalogSnapshot();
+        for (Map<String, String> row : rows) {
+            snapshot.add(row.get("kind"), row.get("name"), row.get("args"));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Adds this object to the snapshot.
+     *
+     * @param kind The kind of object.
+     * @param name The name of the object.
+     * @param args The argument types of the object if it is a function. {@code null} otherwise.
+     */
+    void add(String kind, String name, String args) {
+        List<String> kindNames = names.get(kind);
+        if (kindNames == null) {
+            kindNames = new ArrayList<String>();
+            names.put(kind, kindNames);
+        }
+        kindNames.add(name);
+
+        if (ROUTINE.equals(kind)) {
+            routineArgs.add(args);
+        }
+    }
+
+    /**
+     * Retrieves the names of the objects of this kind.
+     *
+     * @param kind The kind of object.
+     * @return The names. An empty list if there are none.
+     */
+    List<String> getNames(String kind) {
+        List<String> kindNames = names.get(kind);
+        if (kindNames == null) {
+            return new ArrayList<String>();
+        }
+        return kindNames;
+    }
+
+    /**
+     * @return The argument types of the functions, in the same order as their names.
+     */
+    List<String> getRoutineArgs() {
+        return routineArgs;
+    }
+}
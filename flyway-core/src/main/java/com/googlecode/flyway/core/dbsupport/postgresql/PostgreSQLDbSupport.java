@@ -21,6 +21,7 @@ import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.migration.sql.SqlStatement;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +31,16 @@ import java.util.Map;
  * PostgreSQL-specific support.
  */
 public class PostgreSQLDbSupport extends DbSupport {
+    /**
+     * The upper half of the keys of Flyway's advisory locks ("Flyw").
+     */
+    private static final long LOCK_KEY_PREFIX = 0x466c7977L;
+
+    /**
+     * The time to wait between two attempts to acquire an advisory lock with a timeout, in ms.
+     */
+    private static final long LOCK_RETRY_INTERVAL = 100;
+
     /**
      * Creates a new instance.
      *
@@ -52,6 +63,10 @@ public class PostgreSQLDbSupport extends DbSupport {
         return jdbcTemplate.queryForString("SELECT current_schema()");
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        jdbcTemplate.execute("SET search_path = " + schema);
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         int objectCount = jdbcTemplate.queryForInt(
                 "SELECT count(*) FROM information_schema.tables WHERE table_schema=? AND table_type='BASE TABLE'",
@@ -67,8 +82,29 @@ public class PostgreSQLDbSupport extends DbSupport {
         return true;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
-        jdbcTemplate.execute("select * from " + schema + "." + table + " for update");
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
+        // Advisory lock keys are 64 bit integers: the upper half identifies Flyway, the lower half the metadata table
+        long lockKey = (LOCK_KEY_PREFIX << 32) + (getMigrationLockName(schema, table).hashCode() & 0xffffffffL);
+
+        if (timeout <= 0) {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + lockKey + ")");
+            return true;
+        }
+
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        while (jdbcTemplate.queryForInt(
+                "SELECT CASE WHEN pg_try_advisory_xact_lock(" + lockKey + ") THEN 1 ELSE 0 END") == 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -84,14 +120,195 @@ public class PostgreSQLDbSupport extends DbSupport {
     }
 
     public SqlScript createCleanScript(String schema) throws SQLException {
+        return createCleanScript(schema, PostgreSQLCatalogSnapshot.read(jdbcTemplate, schema));
+    }
+
+    /**
+     * Drops and recreates the schema if it is owned by the current user. The privileges granted on the schema itself
+     * and its comment are restored. Default privileges defined for the schema are lost. Schemas containing extensions
+     * are always cleaned object by object, as dropping the schema would drop the extensions as well.
+     */
+    @Override
+    public SqlScript createFastCleanScript(String schema) throws SQLException {
+        List<Map<String, String>> rows = jdbcTemplate.queryForList(
+                "SELECT pg_catalog.pg_get_userbyid(nspowner) AS owner, current_user AS current_user_name, nspacl::text AS acl,"
+                        + " pg_catalog.quote_literal(pg_catalog.obj_description(oid, 'pg_namespace')) AS comment"
+                        + " FROM pg_catalog.pg_namespace WHERE nspname = ?", schema);
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> row = rows.get(0);
+        String owner = row.get("owner");
+        if (!owner.equals(row.get("current_user_name"))) {
+            return null;
+        }
+
+        if (hasExtensions(schema)) {
+            return null;
+        }
+
+        List<String> statements = new ArrayList<String>();
+        statements.add("DROP SCHEMA \"" + schema + "\" CASCADE");
+        statements.add("CREATE SCHEMA \"" + schema + "\"");
+        statements.addAll(generateGrantStatements(schema, owner, row.get("acl")));
+        String comment = row.get("comment");
+        if (comment != null) {
+            statements.add("COMMENT ON SCHEMA \"" + schema + "\" IS " + comment);
+        }
+        return toSqlScript(statements);
+    }
+
+    /**
+     * Checks whether this schema contains extensions. Extensions only exist since PostgreSQL 9.1.
+     *
+     * @param schema The schema to check.
+     * @return {@code true} if it does, {@code false} if not.
+     * @throws SQLException when the check failed.
+     */
+    private boolean hasExtensions(String schema) throws SQLException {
+        DatabaseMetaData databaseMetaData = jdbcTemplate.getConnection().getMetaData();
+        int majorVersion = databaseMetaData.getDatabaseMajorVersion();
+        if ((majorVersion < 9) || ((majorVersion == 9) && (databaseMetaData.getDatabaseMinorVersion() < 1))) {
+            return false;
+        }
+
+        int extensionCount = jdbcTemplate.queryForInt("SELECT COUNT(*) FROM pg_catalog.pg_extension e"
+                + " JOIN pg_catalog.pg_namespace n ON e.extnamespace = n.oid WHERE n.nspname = ?", schema);
+        return extensionCount > 0;
+    }
+
+    /**
+     * Generates the statements for granting the privileges in this access control list on this schema again.
+     *
+     * @param schema The schema whose privileges to grant.
+     * @param owner  The owner of the schema. Its privileges are implicit and are not granted.
+     * @param acl    The access control list of the schema, as text (Ex.: {@code {owner=UC/owner,=U/owner}}).
+     *               {@code null} if the schema has the default privileges.
+     * @return The grant statements.
+     */
+    /* private -> for testing */
+    static List<String> generateGrantStatements(String schema, String owner, String acl) {
+        List<String> statements = new ArrayList<String>();
+        if (acl == null) {
+            return statements;
+        }
+
+        for (String aclItem : splitArray(acl)) {
+            int separatorPos = findUnquoted(aclItem, '=');
+            int grantorPos = aclItem.lastIndexOf('/');
+            if ((separatorPos < 0) || (grantorPos < separatorPos)) {
+                continue;
+            }
+
+            String grantee = unquoteIdentifier(aclItem.substring(0, separatorPos));
+            if (grantee.equals(owner)) {
+                continue;
+            }
+            String granteeSql = (grantee.length() == 0) ? "PUBLIC" : "\"" + grantee.replace("\"", "\"\"") + "\"";
+
+            String privileges = aclItem.substring(separatorPos + 1, grantorPos);
+            for (int i = 0; i < privileges.length(); i++) {
+                String privilege;
+                switch (privileges.charAt(i)) {
+                    case 'U':
+                        privilege = "USAGE";
+                        break;
+                    case 'C':
+                        privilege = "CREATE";
+                        break;
+                    default:
+                        continue;
+                }
+                boolean grantOption = (i + 1 < privileges.length()) && (privileges.charAt(i + 1) == '*');
+                statements.add("GRANT " + privilege + " ON SCHEMA \"" + schema + "\" TO " + granteeSql
+                        + (grantOption ? " WITH GRANT OPTION" : ""));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Splits the text representation of a PostgreSQL array into its elements.
+     *
+     * @param array The array (Ex.: {@code {a,"b c"}}).
+     * @return The elements, with array quoting removed.
+     */
+    private static List<String> splitArray(String array) {
+        List<String> elements = new ArrayList<String>();
+        String content = array.substring(array.indexOf('{') + 1, array.lastIndexOf('}'));
+
+        StringBuilder element = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted && (c == '\\') && (i + 1 < content.length())) {
+                element.append(content.charAt(++i));
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if ((c == ',') && !quoted) {
+                elements.add(element.toString());
+                element.setLength(0);
+            } else {
+                element.append(c);
+            }
+        }
+        if (element.length() > 0) {
+            elements.add(element.toString());
+        }
+        return elements;
+    }
+
+    /**
+     * Finds the first occurrence of this character outside of a double-quoted identifier.
+     *
+     * @param text The text to search.
+     * @param c    The character to find.
+     * @return The position of the character. -1 if it could not be found.
+     */
+    private static int findUnquoted(String text, char c) {
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char current = text.charAt(i);
+            if (current == '"') {
+                quoted = !quoted;
+            } else if ((current == c) && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the double quotes around this identifier, if any.
+     *
+     * @param identifier The identifier (Ex.: {@code "my user"}).
+     * @return The unquoted identifier.
+     */
+    private static String unquoteIdentifier(String identifier) {
+        if ((identifier.length() >= 2) && identifier.startsWith("\"") && identifier.endsWith("\"")) {
+            return identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"");
+        }
+        return identifier;
+    }
+
+    /**
+     * Creates the script for cleaning this schema from this snapshot of its objects.
+     *
+     * @param schema   The schema to clean.
+     * @param snapshot The snapshot of the objects in the schema.
+     * @return The clean script.
+     */
+    /* private -> for testing */
+    SqlScript createCleanScript(String schema, PostgreSQLCatalogSnapshot snapshot) {
         final List<String> allDropStatements = new ArrayList<String>();
-        allDropStatements.addAll(generateDropStatementsForTables(schema));
-        allDropStatements.addAll(generateDropStatementsForSequences(schema));
-        allDropStatements.addAll(generateDropStatementsForBaseTypes(schema, true));
-        allDropStatements.addAll(generateDropStatementsForRoutines(schema));
-        allDropStatements.addAll(generateDropStatementsForEnums(schema));
-        allDropStatements.addAll(generateDropStatementsForDomains(schema));
-        allDropStatements.addAll(generateDropStatementsForBaseTypes(schema, false));
+        allDropStatements.addAll(generateDropStatementsForTables(schema, snapshot));
+        allDropStatements.addAll(generateDropStatementsForSequences(schema, snapshot));
+        allDropStatements.addAll(generateDropStatementsForBaseTypes(schema, snapshot, true));
+        allDropStatements.addAll(generateDropStatementsForRoutines(schema, snapshot));
+        allDropStatements.addAll(generateDropStatementsForEnums(schema, snapshot));
+        allDropStatements.addAll(generateDropStatementsForDomains(schema, snapshot));
+        allDropStatements.addAll(generateDropStatementsForBaseTypes(schema, snapshot, false));
 
         List<SqlStatement> sqlStatements = new ArrayList<SqlStatement>();
         int lineNumber = 1;
@@ -104,29 +321,16 @@ public class PostgreSQLDbSupport extends DbSupport {
     }
 
     /**
-     * Generates the statements for dropping the tables in this schema.
+     * Generates the statements for dropping the tables in this schema. Views and child tables are not part of the
+     * snapshot, as they are dropped with the parent table when using cascade.
      *
-     * @param schema The schema for which to generate the statements.
+     * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
-     */
-    private List<String> generateDropStatementsForTables(String schema) throws SQLException {
-        List<String> tableNames =
-                jdbcTemplate.queryForStringList(
-                        //Search for all the table names
-                        "SELECT t.table_name FROM information_schema.tables t" +
-                                //in this schema
-                                " WHERE table_schema=?" +
-                                //that are real tables (as opposed to views)
-                                " AND table_type='BASE TABLE'" +
-                                //and are not child tables (= do not inherit from another table).
-                                " AND NOT (SELECT EXISTS (SELECT inhrelid FROM pg_catalog.pg_inherits" +
-                                " WHERE inhrelid = (t.table_schema||'.'||t.table_name)::regclass::oid))",
-                        schema);
-        //Views and child tables are excluded as they are dropped with the parent table when using cascade.
-
+     */
+    private List<String> generateDropStatementsForTables(String schema, PostgreSQLCatalogSnapshot snapshot) {
         List<String> statements = new ArrayList<String>();
-        for (String tableName : tableNames) {
+        for (String tableName : snapshot.getNames(PostgreSQLCatalogSnapshot.TABLE)) {
             statements.add("DROP TABLE \"" + schema + "\".\"" + tableName + "\" CASCADE");
         }
         return statements;
@@ -135,17 +339,13 @@ public class PostgreSQLDbSupport extends DbSupport {
     /**
      * Generates the statements for dropping the sequences in this schema.
      *
-     * @param schema The schema for which to generate the statements.
+     * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
      */
-    private List<String> generateDropStatementsForSequences(String schema) throws SQLException {
-        List<String> sequenceNames =
-                jdbcTemplate.queryForStringList(
-                        "SELECT sequence_name FROM information_schema.sequences WHERE sequence_schema=?", schema);
-
+    private List<String> generateDropStatementsForSequences(String schema, PostgreSQLCatalogSnapshot snapshot) {
         List<String> statements = new ArrayList<String>();
-        for (String sequenceName : sequenceNames) {
+        for (String sequenceName : snapshot.getNames(PostgreSQLCatalogSnapshot.SEQUENCE)) {
             statements.add("DROP SEQUENCE IF EXISTS \"" + schema + "\".\"" + sequenceName + "\"");
         }
 
@@ -156,15 +356,12 @@ public class PostgreSQLDbSupport extends DbSupport {
      * Generates the statements for dropping the types in this schema.
      *
      * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @param recreate Flag indicating whether the types should be recreated. Necessary for type-function chicken and egg problem.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
      */
-    private List<String> generateDropStatementsForBaseTypes(String schema, boolean recreate) throws SQLException {
-        List<String> typeNames =
-                jdbcTemplate.queryForStringList(
-                        "select typname from pg_catalog.pg_type where typcategory in ('P', 'U') and typnamespace in (select oid from pg_catalog.pg_namespace where nspname = ?)",
-                        schema);
+    private List<String> generateDropStatementsForBaseTypes(String schema, PostgreSQLCatalogSnapshot snapshot, boolean recreate) {
+        List<String> typeNames = snapshot.getNames(PostgreSQLCatalogSnapshot.BASE_TYPE);
 
         List<String> statements = new ArrayList<String>();
         for (String typeName : typeNames) {
@@ -183,20 +380,17 @@ public class PostgreSQLDbSupport extends DbSupport {
     /**
      * Generates the statements for dropping the routines in this schema.
      *
-     * @param schema The schema for which to generate the statements.
+     * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
      */
-    private List<String> generateDropStatementsForRoutines(String schema) throws SQLException {
-        List<Map<String, String>> rows =
-                jdbcTemplate.queryForList(
-                        "SELECT proname, oidvectortypes(proargtypes) AS args "
-                                + "FROM pg_proc INNER JOIN pg_namespace ns ON (pg_proc.pronamespace = ns.oid) WHERE ns.nspname = ?",
-                        schema);
+    private List<String> generateDropStatementsForRoutines(String schema, PostgreSQLCatalogSnapshot snapshot) {
+        List<String> routineNames = snapshot.getNames(PostgreSQLCatalogSnapshot.ROUTINE);
+        List<String> routineArgs = snapshot.getRoutineArgs();
 
         List<String> statements = new ArrayList<String>();
-        for (Map<String, String> row : rows) {
-            statements.add("DROP FUNCTION IF EXISTS \"" + schema + "\".\"" + row.get("proname") + "\"(" + row.get("args") + ") CASCADE");
+        for (int i = 0; i < routineNames.size(); i++) {
+            statements.add("DROP FUNCTION IF EXISTS \"" + schema + "\".\"" + routineNames.get(i) + "\"(" + routineArgs.get(i) + ") CASCADE");
         }
         return statements;
     }
@@ -204,17 +398,13 @@ public class PostgreSQLDbSupport extends DbSupport {
     /**
      * Generates the statements for dropping the enums in this schema.
      *
-     * @param schema The schema for which to generate the statements.
+     * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
      */
-    private List<String> generateDropStatementsForEnums(String schema) throws SQLException {
-        List<String> enumNames =
-                jdbcTemplate.queryForStringList(
-                        "SELECT t.typname FROM pg_catalog.pg_type t INNER JOIN pg_catalog.pg_namespace n ON n.oid = t.typnamespace WHERE n.nspname = ? and t.typtype = 'e'", schema);
-
+    private List<String> generateDropStatementsForEnums(String schema, PostgreSQLCatalogSnapshot snapshot) {
         List<String> statements = new ArrayList<String>();
-        for (String enumName : enumNames) {
+        for (String enumName : snapshot.getNames(PostgreSQLCatalogSnapshot.ENUM)) {
             statements.add("DROP TYPE \"" + schema + "\".\"" + enumName + "\"");
         }
 
@@ -224,17 +414,13 @@ public class PostgreSQLDbSupport extends DbSupport {
     /**
      * Generates the statements for dropping the domains in this schema.
      *
-     * @param schema The schema for which to generate the statements.
+     * @param schema   The schema for which to generate the statements.
+     * @param snapshot The snapshot of the objects in the schema.
      * @return The drop statements.
-     * @throws SQLException when the clean statements could not be generated.
      */
-    private List<String> generateDropStatementsForDomains(String schema) throws SQLException {
-        List<String> domainNames =
-                jdbcTemplate.queryForStringList(
-                        "SELECT domain_name FROM information_schema.domains WHERE domain_schema=?", schema);
-
+    private List<String> generateDropStatementsForDomains(String schema, PostgreSQLCatalogSnapshot snapshot) {
         List<String> statements = new ArrayList<String>();
-        for (String domainName : domainNames) {
+        for (String domainName : snapshot.getNames(PostgreSQLCatalogSnapshot.DOMAIN)) {
             statements.add("DROP DOMAIN \"" + schema + "\".\"" + domainName + "\"");
         }
 
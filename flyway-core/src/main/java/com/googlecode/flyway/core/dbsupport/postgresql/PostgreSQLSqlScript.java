@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.postgresql;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.StringUtils;
 
 import java.util.ArrayList;
@@ -46,99 +47,114 @@ public class PostgreSQLSqlScript extends SqlScript {
     }
 
     @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        return DEFAULT_STATEMENT_DELIMITER;
+    protected SqlStatementScanner createStatementScanner() {
+        return new PostgreSQLStatementScanner();
     }
 
     /**
-     * Checks whether the statement we have assembled so far ends with an open multi-line string literal (which will be
-     * continued on the next line).
-     *
-     * @param statement The current statement, assembled from the lines we have parsed so far. May not yet be complete.
-     * @return {@code true} if the statement is unfinished and the end is currently in the middle of a multi-line string
-     *         literal. {@code false} if not.
+     * Scanner following the PostgreSQL string literals of a statement.
      */
-    @Override
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
-        String[] tokens = StringUtils.tokenizeToStringArray(statement, " ;=|(),");
+    private class PostgreSQLStatementScanner extends SqlStatementScanner {
+        /**
+         * Whether the lines scanned so far end inside a ' string literal.
+         */
+        private boolean insideQuoteStringLiteral;
 
-        List<Set<TokenType>> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+        /**
+         * Whether the lines scanned so far end inside a $$ string literal.
+         */
+        private boolean insideDollarStringLiteral;
 
-        boolean insideQuoteStringLiteral = false;
-        boolean insideDollarStringLiteral = false;
+        /**
+         * The dollar quote of the $ string literal the lines scanned so far end inside, if any.
+         */
+        private String dollarQuote;
 
-        for (Set<TokenType> delimitingToken : delimitingTokens) {
-            if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_OPEN)) {
-                insideQuoteStringLiteral = true;
-                continue;
-            }
-            if (insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_CLOSE)) {
-                insideQuoteStringLiteral = false;
-                continue;
-            }
-            if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.DOLLAR_OPEN)) {
-                insideDollarStringLiteral = true;
-                continue;
-            }
-            if (insideDollarStringLiteral && delimitingToken.contains(TokenType.DOLLAR_CLOSE)) {
-                insideDollarStringLiteral = false;
+        @Override
+        public void scanLine(String line) {
+            //Ignore all special characters that naturally occur in SQL, but are not opening or closing string literals
+            String[] tokens = StringUtils.tokenizeToStringArray(line, " ;=|(),");
+
+            List<Set<TokenType>> delimitingTokens = extractStringLiteralDelimitingTokens(tokens);
+
+            for (Set<TokenType> delimitingToken : delimitingTokens) {
+                if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_OPEN)) {
+                    insideQuoteStringLiteral = true;
+                    continue;
+                }
+                if (insideQuoteStringLiteral && delimitingToken.contains(TokenType.QUOTE_CLOSE)) {
+                    insideQuoteStringLiteral = false;
+                    continue;
+                }
+                if (!insideDollarStringLiteral && !insideQuoteStringLiteral && delimitingToken.contains(TokenType.DOLLAR_OPEN)) {
+                    insideDollarStringLiteral = true;
+                    continue;
+                }
+                if (insideDollarStringLiteral && delimitingToken.contains(TokenType.DOLLAR_CLOSE)) {
+                    insideDollarStringLiteral = false;
+                }
             }
         }
 
-        return insideQuoteStringLiteral || insideDollarStringLiteral;
-    }
-
-    /**
-     * Extract the type of all tokens that potentially delimit string literals.
-     *
-     * @param tokens The tokens to analyse.
-     * @return The list of potentially delimiting string literals token types per token. Tokens that do not have any
-     *         impact on string delimiting are discarded.
-     */
-    private List<Set<TokenType>> extractStringLiteralDelimitingTokens(String[] tokens) {
-        String dollarQuote = null;
+        @Override
+        public boolean endsWithOpenMultilineStringLiteral() {
+            return insideQuoteStringLiteral || insideDollarStringLiteral;
+        }
 
-        List<Set<TokenType>> delimitingTokens = new ArrayList<Set<TokenType>>();
-        for (String token : tokens) {
-            //Remove escaped quotes as they do not form a string literal delimiter
-            String cleanToken = StringUtils.replace(token, "''", "");
+        @Override
+        public String changeDelimiterIfNecessary(String line, String delimiter) {
+            return DEFAULT_STATEMENT_DELIMITER;
+        }
 
-            Set<TokenType> tokenTypes = new HashSet<TokenType>();
+        /**
+         * Extract the type of all tokens that potentially delimit string literals.
+         *
+         * @param tokens The tokens to analyse.
+         * @return The list of potentially delimiting string literals token types per token. Tokens that do not have any
+         *         impact on string delimiting are discarded.
+         */
+        private List<Set<TokenType>> extractStringLiteralDelimitingTokens(String[] tokens) {
+            List<Set<TokenType>> delimitingTokens = new ArrayList<Set<TokenType>>();
+            for (String token : tokens) {
+                //Remove escaped quotes as they do not form a string literal delimiter
+                String cleanToken = StringUtils.replace(token, "''", "");
+
+                Set<TokenType> tokenTypes = new HashSet<TokenType>();
+
+                if (cleanToken.startsWith("'")) {
+                    if ((cleanToken.length() > 1) && cleanToken.endsWith("'")) {
+                        // Ignore. ' string literal is opened and closed inside the same token.
+                        continue;
+                    }
+                    tokenTypes.add(TokenType.QUOTE_OPEN);
+                }
 
-            if (cleanToken.startsWith("'")) {
-                if ((cleanToken.length() > 1) && cleanToken.endsWith("'")) {
-                    // Ignore. ' string literal is opened and closed inside the same token.
-                    continue;
+                if (cleanToken.endsWith("'")) {
+                    tokenTypes.add(TokenType.QUOTE_CLOSE);
                 }
-                tokenTypes.add(TokenType.QUOTE_OPEN);
-            }
 
-            if (cleanToken.endsWith("'")) {
-                tokenTypes.add(TokenType.QUOTE_CLOSE);
-            }
+                if ((dollarQuote == null) && cleanToken.matches(DOLLAR_QUOTE_REGEX)) {
+                    dollarQuote = cleanToken.substring(0, cleanToken.substring(1).indexOf("$") + 2);
+                    if ((cleanToken.length() > dollarQuote.length()) && cleanToken.endsWith(dollarQuote)) {
+                        // Ignore. $$ string literal is opened and closed inside the same token.
+                        dollarQuote = null;
+                        continue;
+                    }
+                    tokenTypes.add(TokenType.DOLLAR_OPEN);
+                }
 
-            if ((dollarQuote == null) && cleanToken.matches(DOLLAR_QUOTE_REGEX)) {
-                dollarQuote = cleanToken.substring(0, cleanToken.substring(1).indexOf("$") + 2);
-                if ((cleanToken.length() > dollarQuote.length()) && cleanToken.endsWith(dollarQuote)) {
-                    // Ignore. $$ string literal is opened and closed inside the same token.
+                if ((dollarQuote != null) && !cleanToken.startsWith(dollarQuote) && cleanToken.endsWith(dollarQuote)) {
+                    tokenTypes.add(TokenType.DOLLAR_CLOSE);
                     dollarQuote = null;
-                    continue;
                 }
-                tokenTypes.add(TokenType.DOLLAR_OPEN);
-            }
 
-            if ((dollarQuote != null) && !cleanToken.startsWith(dollarQuote) && cleanToken.endsWith(dollarQuote)) {
-                tokenTypes.add(TokenType.DOLLAR_CLOSE);
-                dollarQuote = null;
+                if (!tokenTypes.isEmpty()) {
+                    delimitingTokens.add(tokenTypes);
+                }
             }
 
-            if (!tokenTypes.isEmpty()) {
-                delimitingTokens.add(tokenTypes);
-            }
+            return delimitingTokens;
         }
-
-        return delimitingTokens;
     }
 
     /**
@@ -16,6 +16,7 @@
 package com.googlecode.flyway.core.dbsupport.sqlserver;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.migration.sql.SqlStatement;
@@ -51,6 +52,11 @@ public class SQLServerDbSupport extends DbSupport {
         return jdbcTemplate.queryForString("SELECT SCHEMA_NAME()");
     }
 
+    public void setCurrentSchema(String schema) throws SQLException {
+        throw new FlywayException("Unable to change the current schema to '" + schema
+                + "': SQL Server always uses the default schema of the user");
+    }
+
     public boolean isSchemaEmpty(String schema) throws SQLException {
         int objectCount = jdbcTemplate.queryForInt("Select count(*) FROM " +
                 "( " +
@@ -73,8 +79,20 @@ public class SQLServerDbSupport extends DbSupport {
         return true;
     }
 
-    public void lockTable(String schema, String table) throws SQLException {
-        jdbcTemplate.execute("select * from " + schema + "." + table + " WITH (TABLOCKX)");
+    public boolean acquireMigrationLock(String schema, String table, int timeout) throws SQLException {
+        int timeoutMillis = (timeout > 0) ? timeout * 1000 : -1;
+        int result = jdbcTemplate.queryForInt("SET NOCOUNT ON; DECLARE @result INT;"
+                + " EXEC @result = sp_getapplock @Resource = ?, @LockMode = 'Exclusive', @LockOwner = 'Transaction',"
+                + " @LockTimeout = " + timeoutMillis + "; SELECT @result", getMigrationLockName(schema, table));
+
+        // 0 or 1: granted, -1: timeout, anything lower: error
+        if (result == -1) {
+            return false;
+        }
+        if (result < -1) {
+            throw new SQLException("sp_getapplock failed with status " + result);
+        }
+        return true;
     }
 
     public String getBooleanTrue() {
@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.sqlserver;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 
 /**
  * SqlScript supporting MSSQL-specific delimiter changes.
@@ -37,7 +38,12 @@ public class SQLServerSqlScript extends SqlScript {
     }
 
     @Override
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        return DELIMITER;
+    protected SqlStatementScanner createStatementScanner() {
+        return new SqlStatementScanner() {
+            @Override
+            public String changeDelimiterIfNecessary(String line, String delimiter) {
+                return DELIMITER;
+            }
+        };
     }
 }
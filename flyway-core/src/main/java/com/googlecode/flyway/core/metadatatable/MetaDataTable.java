@@ -17,13 +17,17 @@ package com.googlecode.flyway.core.metadatatable;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
 import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.migration.MigrationState;
 import com.googlecode.flyway.core.migration.MigrationType;
 import com.googlecode.flyway.core.migration.SchemaVersion;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.util.ClassPathResource;
+import com.googlecode.flyway.core.util.StopWatch;
+import com.googlecode.flyway.core.util.TimeFormat;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import com.googlecode.flyway.core.util.jdbc.JdbcUtils;
 import com.googlecode.flyway.core.util.jdbc.RowMapper;
 import com.googlecode.flyway.core.util.jdbc.TransactionCallback;
 import com.googlecode.flyway.core.util.jdbc.TransactionTemplate;
@@ -32,9 +36,12 @@ import org.apache.commons.logging.LogFactory;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -42,6 +49,14 @@ import java.util.Map;
 
 /**
  * Supports reading and writing to the metadata table.
+ * <p/>
+ * The rows read from the metadata table are kept in an in-memory snapshot for the lifetime of this instance (normally a
+ * single Flyway command), so repeated queries for the current version, state or history do not hit the database again.
+ * Rows written by {@link #insert(MetaDataTableRow)} are added to the snapshot in place. The snapshot is refreshed after
+ * each {@link #lock(MigrationSettings)}, as the table may have been changed by someone else while it was not locked.
+ * <p/>
+ * Rows are only ever appended. Each row gets an installed rank one higher than the previous one, and the row with the
+ * highest installed rank holds the current version of the schema.
  */
 public class MetaDataTable {
     /**
@@ -74,6 +89,38 @@ public class MetaDataTable {
      */
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Whether the metadata table exists. {@code null} if this hasn't been checked yet.
+     */
+    private Boolean tableExists;
+
+    /**
+     * Whether the metadata table still has to be upgraded from the format of a previous Flyway version. {@code null} if
+     * this hasn't been checked yet. Checked only once per run, as an upgraded table never goes back to the old format.
+     */
+    private Boolean upgradeNecessary;
+
+    /**
+     * Snapshot of all rows of the metadata table (oldest first). {@code null} if not loaded yet.
+     */
+    private List<MetaDataTableRow> appliedMigrations;
+
+    /**
+     * Snapshot of the row marked as current. Only valid if {@code latestAppliedMigrationLoaded} is {@code true}.
+     */
+    private MetaDataTableRow latestAppliedMigration;
+
+    /**
+     * Snapshot of the highest installed rank, 0 if the table is empty. Only valid if {@code latestAppliedMigrationLoaded}
+     * is {@code true}.
+     */
+    private int latestInstalledRank;
+
+    /**
+     * Whether {@code latestAppliedMigration} and {@code latestInstalledRank} have been loaded.
+     */
+    private boolean latestAppliedMigrationLoaded;
+
     /**
      * Creates a new instance of the metadata table support.
      *
@@ -96,8 +143,13 @@ public class MetaDataTable {
      * @return {@code true} if the table exists, {@code false} if it doesn't.
      */
     private boolean exists() {
+        if (tableExists != null) {
+            return tableExists;
+        }
+
         try {
-            return dbSupport.tableExists(schema, table);
+            tableExists = dbSupport.tableExists(schema, table);
+            return tableExists;
         } catch (SQLException e) {
             throw new FlywayException("Error checking whether table '" + table + "' exists in schema '" + schema + "'",
                     e);
@@ -108,25 +160,172 @@ public class MetaDataTable {
      * Creates Flyway's metadata table.
      */
     private void create() {
-        final String createMetaDataTableScriptSource =
-                new ClassPathResource(dbSupport.getScriptLocation() + "createMetaDataTable.sql").loadAsString("UTF-8");
-
-        Map<String, String> placeholders = new HashMap<String, String>();
-        placeholders.put("schema", schema);
-        placeholders.put("table", table);
-        final PlaceholderReplacer placeholderReplacer = new PlaceholderReplacer(placeholders, "${", "}");
-
         new TransactionTemplate(connection).execute(new TransactionCallback<Void>() {
             public Void doInTransaction() {
-                SqlScript sqlScript = new SqlScript(createMetaDataTableScriptSource, placeholderReplacer);
-                sqlScript.execute(jdbcTemplate);
+                createInCurrentTransaction();
                 return null;
             }
         });
+    }
+
+    /**
+     * Creates Flyway's metadata table within the current transaction, without committing.
+     */
+    private void createInCurrentTransaction() {
+        executeScript("createMetaDataTable.sql");
+
+        tableExists = true;
+        upgradeNecessary = false;
+        appliedMigrations = new ArrayList<MetaDataTableRow>();
+        latestAppliedMigration = null;
+        latestInstalledRank = 0;
+        latestAppliedMigrationLoaded = true;
 
         LOG.info("Metadata table created: " + table + " (Schema: " + schema + ")");
     }
 
+    /**
+     * Executes this database-specific script against the metadata table.
+     *
+     * @param scriptName The name of the script, relative to the script location of the DbSupport.
+     */
+    private void executeScript(String scriptName) {
+        String scriptSource = new ClassPathResource(dbSupport.getScriptLocation() + scriptName).loadAsString("UTF-8");
+
+        Map<String, String> placeholders = new HashMap<String, String>();
+        placeholders.put("schema", schema);
+        placeholders.put("table", table);
+        PlaceholderReplacer placeholderReplacer = new PlaceholderReplacer(placeholders, "${", "}");
+
+        SqlScript sqlScript = new SqlScript(scriptSource, placeholderReplacer);
+        sqlScript.execute(jdbcTemplate);
+    }
+
+    /**
+     * Upgrades the metadata table if it still has the format of a previous Flyway version, in which the current
+     * version was flagged on its row and the flag had to be cleared on all other rows for every migration applied.
+     * The flag is replaced by the installed rank, which is filled in following the order of the versions, as a schema
+     * could only be migrated to newer versions. This writes to the database and must therefore only be called by
+     * commands that change the schema.
+     *
+     * @param migrationSettings The settings of the current run.
+     * @throws FlywayException when the metadata table could not be upgraded.
+     */
+    public void upgradeIfNecessary(final MigrationSettings migrationSettings) throws FlywayException {
+        if (!isUpgradeNecessary()) {
+            return;
+        }
+
+        try {
+            new TransactionTemplate(connection).execute(new TransactionCallback<Void>() {
+                public Void doInTransaction() {
+                    lock(migrationSettings);
+                    // Another Flyway instance may have upgraded it while we were waiting for the lock
+                    upgradeNecessary = null;
+                    if (isUpgradeNecessary()) {
+                        upgrade();
+                    }
+                    return null;
+                }
+            });
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Checks whether the metadata table still has to be upgraded from the format of a previous Flyway version. Until
+     * it is, the rows are read in the order of their versions and no row can be inserted.
+     *
+     * @return {@code true} if it has to, {@code false} if it has the current format or doesn't exist.
+     */
+    public boolean isUpgradeNecessary() {
+        if (upgradeNecessary != null) {
+            return upgradeNecessary;
+        }
+
+        if (!exists()) {
+            return false;
+        }
+
+        List<String> columnNames = getColumnNames();
+        if (!columnNames.contains("INSTALLED_RANK") || columnNames.contains("CURRENT_VERSION")) {
+            upgradeNecessary = true;
+        } else {
+            // An interrupted upgrade may have left rows without installed rank
+            try {
+                upgradeNecessary = jdbcTemplate.queryForInt(
+                        "SELECT COUNT(*) FROM " + schema + "." + table + " WHERE installed_rank=0") > 0;
+            } catch (SQLException e) {
+                throw new FlywayException("Unable to check the installed ranks of metadata table '" + table
+                        + "' in schema '" + schema + "'", e);
+            }
+        }
+        return upgradeNecessary;
+    }
+
+    /**
+     * @return The names of the columns of the metadata table, in upper case.
+     */
+    private List<String> getColumnNames() {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery("SELECT * FROM " + schema + "." + table + " WHERE 1=0");
+            ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+            List<String> columnNames = new ArrayList<String>();
+            for (int i = 1; i <= resultSetMetaData.getColumnCount(); i++) {
+                columnNames.add(resultSetMetaData.getColumnName(i).toUpperCase());
+            }
+            return columnNames;
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to check the format of metadata table '" + table + "' in schema '"
+                    + schema + "'", e);
+        } finally {
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(statement);
+        }
+    }
+
+    /**
+     * Upgrades the metadata table from the format of a previous Flyway version within the current transaction.
+     * <p/>
+     * On databases without ddl transactions every ddl statement commits, so the upgrade can be interrupted half-way.
+     * The current version flag is therefore only dropped once all installed ranks have been filled in, and every step
+     * is skipped when it has already been done. An interrupted upgrade simply resumes the next time, as long as the
+     * flag or rows without installed rank are left.
+     */
+    private void upgrade() {
+        List<String> columnNames = getColumnNames();
+        if (!columnNames.contains("INSTALLED_RANK")) {
+            executeScript("addInstalledRank.sql");
+        }
+
+        try {
+            List<String> versions = jdbcTemplate.queryForStringList("SELECT version FROM " + schema + "." + table);
+            Collections.sort(versions, new Comparator<String>() {
+                public int compare(String version1, String version2) {
+                    return new SchemaVersion(version1).compareTo(new SchemaVersion(version2));
+                }
+            });
+            for (int i = 0; i < versions.size(); i++) {
+                jdbcTemplate.update("UPDATE " + schema + "." + table + " SET installed_rank=? WHERE version=?",
+                        i + 1, versions.get(i));
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to fill in the installed ranks of metadata table '" + table
+                    + "' in schema '" + schema + "'", e);
+        }
+
+        if (columnNames.contains("CURRENT_VERSION")) {
+            executeScript("dropCurrentVersion.sql");
+        }
+        upgradeNecessary = false;
+
+        LOG.info("Metadata table upgraded to the new format: " + table + " (Schema: " + schema + ")");
+    }
+
     /**
      * Creates the metadata table if it doesn't already exist.
      */
@@ -137,24 +336,91 @@ public class MetaDataTable {
     }
 
     /**
-     * Acquires an exclusive read-write lock on the metadata table. This lock will be released automatically on commit.
+     * Creates the metadata table if it doesn't already exist, within the current transaction and without committing.
+     * Only meant for databases supporting ddl transactions. {@link #clearCache()} must be called if the transaction is
+     * rolled back.
+     */
+    public void createIfNotExistsInCurrentTransaction() {
+        if (!exists()) {
+            createInCurrentTransaction();
+        }
+    }
+
+    /**
+     * Acquires the exclusive migration lock of the metadata table, waiting at most the lock timeout of these settings.
+     * This lock lasts until the end of the current transaction, after which {@link #unlock()} must be called.
+     * <p/>
+     * The snapshot of the rows is discarded, as the table may have been changed while it was not locked.
+     *
+     * @param migrationSettings The settings of the current run.
+     * @throws FlywayException when the lock could not be acquired within the lock timeout.
      */
-    public void lock() {
+    public void lock(MigrationSettings migrationSettings) throws FlywayException {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+        boolean locked;
         try {
-            dbSupport.lockTable(schema, table);
+            locked = dbSupport.acquireMigrationLock(schema, table, migrationSettings.getLockTimeout());
         } catch (SQLException e) {
             throw new FlywayException("Unable to lock metadata table '" + table + "' in schema '" + schema + "'", e);
         }
+        stopWatch.stop();
+
+        if (!locked) {
+            throw new FlywayException("Unable to lock metadata table '" + table + "' in schema '" + schema
+                    + "' within " + migrationSettings.getLockTimeout() + " seconds. Another migration is still running.");
+        }
+        LOG.debug("Locked metadata table " + table + " (Schema: " + schema + ") after waiting "
+                + TimeFormat.format(stopWatch.getTotalTimeMillis()));
+        migrationSettings.getMigrationListener().afterLock(schema + "." + table, stopWatch.getTotalTimeNanos());
+
+        appliedMigrations = null;
+        latestAppliedMigrationLoaded = false;
+    }
+
+    /**
+     * Releases the migration lock of the metadata table, once the transaction in which it was acquired has ended.
+     * Failures are only logged, so they don't hide the outcome of the transaction.
+     */
+    public void unlock() {
+        try {
+            dbSupport.releaseMigrationLock(schema, table);
+        } catch (SQLException e) {
+            LOG.warn("Unable to unlock metadata table '" + table + "' in schema '" + schema + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Discards everything known about the metadata table, forcing it to be read again from the database. Must be
+     * called after the table has been modified or dropped by other means than this class.
+     */
+    public void clearCache() {
+        tableExists = null;
+        upgradeNecessary = null;
+        appliedMigrations = null;
+        latestAppliedMigrationLoaded = false;
     }
 
     /**
-     * Adds this row to the metadata table and mark it as current.
+     * Appends this row to the metadata table, with an installed rank that makes it the current one. Existing rows are
+     * left untouched. As this must be called while the metadata table is locked, the installed rank is taken from the
+     * snapshot rather than queried again.
      *
      * @param metaDataTableRow The metaDataTableRow to add.
+     * @throws FlywayException when the metadata table still has the format of a previous Flyway version.
      */
-    public void insert(final MetaDataTableRow metaDataTableRow) {
+    public void insert(final MetaDataTableRow metaDataTableRow) throws FlywayException {
+        if (isUpgradeNecessary()) {
+            throw new FlywayException("Metadata table '" + table + "' in schema '" + schema
+                    + "' still has the format of a previous Flyway version. Run migrate or init to upgrade it.");
+        }
+
+        if (!latestAppliedMigrationLoaded) {
+            latestAppliedMigration();
+        }
+
         try {
-            jdbcTemplate.update("UPDATE " + schema + "." + table + " SET current_version=" + dbSupport.getBooleanFalse());
+            final int installedRank = latestInstalledRank + 1;
             final String version = metaDataTableRow.getVersion().toString();
             final String description = metaDataTableRow.getDescription();
             final String state = metaDataTableRow.getState().name();
@@ -163,10 +429,18 @@ public class MetaDataTable {
             final String scriptName = metaDataTableRow.getScript();
             final Integer executionTime = metaDataTableRow.getExecutionTime();
             jdbcTemplate.update("INSERT INTO " + schema + "." + table
-                    + " (version, description, type, script, checksum, installed_by, execution_time, state, current_version)"
-                    + " VALUES (?, ?, ?, ?, ?, " + dbSupport.getCurrentUserFunction() + ", ?, ?, "
-                    + dbSupport.getBooleanTrue() + ")",
-                    version, description, migrationType, scriptName, checksum, executionTime, state);
+                    + " (installed_rank, version, description, type, script, checksum, installed_by, execution_time, state)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, " + dbSupport.getCurrentUserFunction() + ", ?, ?)",
+                    installedRank, version, description, migrationType, scriptName, checksum, executionTime, state);
+
+            if (appliedMigrations != null) {
+                // Rows are normally appended in version order, making this an append to the end of the snapshot
+                int position = Collections.binarySearch(appliedMigrations, metaDataTableRow);
+                appliedMigrations.add(position < 0 ? -position - 1 : position, metaDataTableRow);
+            }
+            latestAppliedMigration = metaDataTableRow;
+            latestInstalledRank = installedRank;
+            latestAppliedMigrationLoaded = true;
         } catch (SQLException e) {
             throw new FlywayException(
                     "Unable to insert metadata table row for version " + metaDataTableRow.getVersion().toString(), e);
@@ -174,40 +448,65 @@ public class MetaDataTable {
     }
 
     /**
-     * Checks whether the metadata table contains at least one row.
-     *
-     * @return {@code true} if the metadata table has at least one row. {@code false} if it is empty or it doesn't exist
-     *         yet.
+     * @return The latest migration applied on the schema. {@code null} if no migration has been applied so far.
      */
-    private boolean hasRows() {
+    public MetaDataTableRow latestAppliedMigration() {
+        if (latestAppliedMigrationLoaded) {
+            return latestAppliedMigration;
+        }
+
         if (!exists()) {
-            return false;
+            return null;
+        }
+
+        if (isUpgradeNecessary()) {
+            loadAppliedMigrations();
+            return latestAppliedMigration;
         }
 
+        String query = getSelectStatement(", installed_rank as INSTALLED_RANK") + " order by installed_rank desc";
         try {
-            return jdbcTemplate.queryForInt("SELECT COUNT(*) FROM " + schema + "." + table) > 0;
+            final MetaDataTableRowMapper metaDataTableRowMapper = new MetaDataTableRowMapper();
+            final int[] installedRank = {0};
+            latestAppliedMigration = jdbcTemplate.queryForFirst(query, new RowMapper<MetaDataTableRow>() {
+                public MetaDataTableRow mapRow(ResultSet rs) throws SQLException {
+                    installedRank[0] = rs.getInt("INSTALLED_RANK");
+                    return metaDataTableRowMapper.mapRow(rs);
+                }
+            });
+            latestInstalledRank = installedRank[0];
+            latestAppliedMigrationLoaded = true;
+            return latestAppliedMigration;
         } catch (SQLException e) {
-            throw new FlywayException("Error checking if the metadata table has at least one row", e);
+            throw new FlywayException("Error determining latest applied migration", e);
         }
     }
 
     /**
-     * @return The latest migration applied on the schema. {@code null} if no migration has been applied so far.
+     * Reads the row with the highest installed rank with a single query, without checking first whether the metadata
+     * table exists or still has the format of a previous Flyway version, and without locking anything. Meant for a
+     * cheap check before anything else is done, the row is therefore not added to the snapshot.
+     *
+     * @return The row with the highest installed rank. {@code null} if the table is empty, doesn't exist or still has
+     *         the format of a previous Flyway version.
      */
-    public MetaDataTableRow latestAppliedMigration() {
-        if (!hasRows()) {
-            return null;
-        }
-
-        String query = getSelectStatement() + " where current_version=" + dbSupport.getBooleanTrue();
+    public MetaDataTableRow readLatestAppliedMigration() {
+        String query = getSelectStatement() + " order by installed_rank desc";
         try {
-            final List<MetaDataTableRow> metaDataTableRows = jdbcTemplate.query(query, new MetaDataTableRowMapper());
-            if (metaDataTableRows.isEmpty()) {
-                throw new FlywayException("Cannot determine latest applied migration. Was the metadata table manually modified?");
-            }
-            return metaDataTableRows.get(0);
+            return jdbcTemplate.queryForFirst(query, new MetaDataTableRowMapper());
         } catch (SQLException e) {
-            throw new FlywayException("Error determining latest applied migration", e);
+            LOG.debug("Unable to read the latest row of metadata table '" + table + "' in schema '" + schema + "': "
+                    + e.getMessage());
+            try {
+                // Some databases refuse any further statement once one failed within a transaction
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            } catch (SQLException se) {
+                throw new FlywayException("Unable to roll back after failing to read metadata table '" + table
+                        + "' in schema '" + schema + "'", se);
+            }
+            return null;
         }
     }
 
@@ -216,16 +515,66 @@ public class MetaDataTable {
      *         applied so far.
      */
     public List<MetaDataTableRow> allAppliedMigrations() {
+        if (appliedMigrations == null) {
+            loadAppliedMigrations();
+        }
+
+        return new ArrayList<MetaDataTableRow>(appliedMigrations);
+    }
+
+    /**
+     * Loads the snapshot of all rows of the metadata table, including the one with the highest installed rank, with a
+     * single query.
+     */
+    private void loadAppliedMigrations() {
         if (!exists()) {
-            return new ArrayList<MetaDataTableRow>();
+            appliedMigrations = new ArrayList<MetaDataTableRow>();
+            latestAppliedMigration = null;
+            latestInstalledRank = 0;
+            latestAppliedMigrationLoaded = true;
+            return;
         }
 
-        String query = getSelectStatement();
+        if (isUpgradeNecessary()) {
+            // Previous Flyway versions could only migrate to newer versions: the newest one is the current one
+            try {
+                List<MetaDataTableRow> metaDataTableRows =
+                        jdbcTemplate.query(getSelectStatement(), new MetaDataTableRowMapper());
+                Collections.sort(metaDataTableRows);
+                appliedMigrations = metaDataTableRows;
+                latestAppliedMigration =
+                        metaDataTableRows.isEmpty() ? null : metaDataTableRows.get(metaDataTableRows.size() - 1);
+                latestInstalledRank = metaDataTableRows.size();
+                latestAppliedMigrationLoaded = true;
+                return;
+            } catch (SQLException e) {
+                throw new FlywayException("Error while retrieving the list of applied migrations", e);
+            }
+        }
+
+        String query = getSelectStatement(", installed_rank as INSTALLED_RANK");
 
         try {
-            final List<MetaDataTableRow> metaDataTableRows = jdbcTemplate.query(query, new MetaDataTableRowMapper());
+            final MetaDataTableRowMapper metaDataTableRowMapper = new MetaDataTableRowMapper();
+            final MetaDataTableRow[] currentRow = new MetaDataTableRow[1];
+            final int[] currentRank = {0};
+            final List<MetaDataTableRow> metaDataTableRows = jdbcTemplate.query(query, new RowMapper<MetaDataTableRow>() {
+                public MetaDataTableRow mapRow(ResultSet rs) throws SQLException {
+                    MetaDataTableRow metaDataTableRow = metaDataTableRowMapper.mapRow(rs);
+                    int installedRank = rs.getInt("INSTALLED_RANK");
+                    if (installedRank > currentRank[0]) {
+                        currentRank[0] = installedRank;
+                        currentRow[0] = metaDataTableRow;
+                    }
+                    return metaDataTableRow;
+                }
+            });
+
             Collections.sort(metaDataTableRows);
-            return metaDataTableRows;
+            appliedMigrations = metaDataTableRows;
+            latestAppliedMigration = currentRow[0];
+            latestInstalledRank = currentRank[0];
+            latestAppliedMigrationLoaded = true;
         } catch (SQLException e) {
             throw new FlywayException("Error while retrieving the list of applied migrations", e);
         }
@@ -235,7 +584,15 @@ public class MetaDataTable {
      * @return The select statement for reading the metadata table.
      */
     private String getSelectStatement() {
-        return "select version as VERSION, description as DESCRIPTION, type as TYPE, script as SCRIPT, checksum as CHECKSUM, installed_on as INSTALLED_ON, execution_time as EXECUTION_TIME, state as STATE from " + schema + "." + table;
+        return getSelectStatement("");
+    }
+
+    /**
+     * @param additionalColumns Additional columns to select, including the leading comma. Empty string for none.
+     * @return The select statement for reading the metadata table.
+     */
+    private String getSelectStatement(String additionalColumns) {
+        return "select version as VERSION, description as DESCRIPTION, type as TYPE, script as SCRIPT, checksum as CHECKSUM, installed_on as INSTALLED_ON, execution_time as EXECUTION_TIME, state as STATE" + additionalColumns + " from " + schema + "." + table;
     }
 
     /**
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.metrics;
+
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationState;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+
+/**
+ * Migration listener with empty hooks. Extend this class to only implement the hooks you are interested in.
+ */
+public abstract class BaseMigrationListener implements MigrationListener {
+    public void beforeCommand(String command) {
+        //No implementation needed
+    }
+
+    public void afterCommand(String command, long durationNanos, boolean success) {
+        //No implementation needed
+    }
+
+    public void afterLock(String table, long waitNanos) {
+        //No implementation needed
+    }
+
+    public void beforeMigration(Migration migration) {
+        //No implementation needed
+    }
+
+    public void afterMigration(Migration migration, long durationNanos, MigrationState state) {
+        //No implementation needed
+    }
+
+    public void beforeStatement(SqlStatement statement) {
+        //No implementation needed
+    }
+
+    public void afterStatement(SqlStatement statement, long durationNanos, int rowCount) {
+        //No implementation needed
+    }
+
+    public void afterStatementFailed(SqlStatement statement, long durationNanos) {
+        //No implementation needed
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.metrics;
+
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationState;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Migration listener forwarding all notifications to a list of listeners, in order. Without listeners, all hooks are
+ * no-ops.
+ */
+public class CompositeMigrationListener implements MigrationListener {
+    /**
+     * The listeners to notify.
+     */
+    private final List<MigrationListener> listeners;
+
+    /**
+     * Creates a new composite listener.
+     *
+     * @param listeners The listeners to notify.
+     */
+    public CompositeMigrationListener(MigrationListener... listeners) {
+        this.listeners = new ArrayList<MigrationListener>(Arrays.asList(listeners));
+    }
+
+    /**
+     * @return The listeners to notify.
+     */
+    public List<MigrationListener> getListeners() {
+        return listeners;
+    }
+
+    public void beforeCommand(String command) {
+        for (MigrationListener listener : listeners) {
+            listener.beforeCommand(command);
+        }
+    }
+
+    public void afterCommand(String command, long durationNanos, boolean success) {
+        for (MigrationListener listener : listeners) {
+            listener.afterCommand(command, durationNanos, success);
+        }
+    }
+
+    public void afterLock(String table, long waitNanos) {
+        for (MigrationListener listener : listeners) {
+            listener.afterLock(table, waitNanos);
+        }
+    }
+
+    public void beforeMigration(Migration migration) {
+        for (MigrationListener listener : listeners) {
+            listener.beforeMigration(migration);
+        }
+    }
+
+    public void afterMigration(Migration migration, long durationNanos, MigrationState state) {
+        for (MigrationListener listener : listeners) {
+            listener.afterMigration(migration, durationNanos, state);
+        }
+    }
+
+    public void beforeStatement(SqlStatement statement) {
+        for (MigrationListener listener : listeners) {
+            listener.beforeStatement(statement);
+        }
+    }
+
+    public void afterStatement(SqlStatement statement, long durationNanos, int rowCount) {
+        for (MigrationListener listener : listeners) {
+            listener.afterStatement(statement, durationNanos, rowCount);
+        }
+    }
+
+    public void afterStatementFailed(SqlStatement statement, long durationNanos) {
+        for (MigrationListener listener : listeners) {
+            listener.afterStatementFailed(statement, durationNanos);
+        }
+    }
+}
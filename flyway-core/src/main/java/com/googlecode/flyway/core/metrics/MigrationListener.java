@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.metrics;
+
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationState;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+
+/**
+ * Listener notified before and after each Flyway command, each applied migration and each sql statement of a sql
+ * migration, as well as every time the migration lock has been acquired. All durations are measured with {@link System#nanoTime()}.
+ * <p/>
+ * The hooks are called on the thread executing the command, while it is running. They should therefore return
+ * quickly and must not throw exceptions. Statements executed by Java migrations are not reported, as they bypass the
+ * sql script parser. When migrating tenants or applying migrations with several threads, the migration and statement
+ * hooks are called concurrently from all of them, each thread reporting the statements of its own migration between
+ * its beforeMigration and afterMigration calls.
+ */
+public interface MigrationListener {
+    /**
+     * Called before a command is executed.
+     *
+     * @param command The name of the command (migrate, migrateTenants, await, rehearse, clean, init, validate, status
+     *                or history).
+     */
+    void beforeCommand(String command);
+
+    /**
+     * Called after a command has been executed, whether it succeeded or not.
+     *
+     * @param command       The name of the command (migrate, migrateTenants, await, rehearse, clean, init, validate,
+     *                      status or history).
+     * @param durationNanos The time it took to execute the command, in nanoseconds.
+     * @param success       {@code true} if the command completed successfully, {@code false} if it failed.
+     */
+    void afterCommand(String command, long durationNanos, boolean success);
+
+    /**
+     * Called after the migration lock of a metadata table has been acquired. It is acquired before every migration (or
+     * once for all migrations when they are grouped), and once more to check whether all migrations have been applied.
+     *
+     * @param table     The qualified name of the metadata table (schema.table).
+     * @param waitNanos The time spent waiting for the lock, for example while another migration held it, in
+     *                  nanoseconds.
+     */
+    void afterLock(String table, long waitNanos);
+
+    /**
+     * Called before a migration is applied.
+     *
+     * @param migration The migration about to be applied.
+     */
+    void beforeMigration(Migration migration);
+
+    /**
+     * Called after a migration has been applied, whether it succeeded or not.
+     *
+     * @param migration     The migration that was applied.
+     * @param durationNanos The time it took to apply the migration, in nanoseconds.
+     * @param state         The resulting state of the migration (SUCCESS or FAILED).
+     */
+    void afterMigration(Migration migration, long durationNanos, MigrationState state);
+
+    /**
+     * Called before a statement of a sql migration is executed.
+     *
+     * @param statement The statement about to be executed, including its line number in the script.
+     */
+    void beforeStatement(SqlStatement statement);
+
+    /**
+     * Called after a statement of a sql migration has been executed successfully. Statements executed together as
+     * part of a JDBC batch are each reported after the batch completed, with an equal share of the duration of the
+     * whole batch, so the durations of all statements still add up to the time spent executing them.
+     *
+     * @param statement     The statement that was executed, including its line number in the script.
+     * @param durationNanos The time it took to execute the statement, in nanoseconds.
+     * @param rowCount      The number of rows affected by the statement, as reported by the driver. -1 if unknown
+     *                      (ddl statements, queries or drivers not reporting it).
+     */
+    void afterStatement(SqlStatement statement, long durationNanos, int rowCount);
+
+    /**
+     * Called instead of {@link #afterStatement} when a statement of a sql migration failed. Within a failed JDBC batch,
+     * this is also called for the statements that were not executed because of the failure, so every call to
+     * {@link #beforeStatement} is followed by exactly one call to either of them.
+     *
+     * @param statement     The statement that failed, including its line number in the script.
+     * @param durationNanos The time spent executing the statement until it failed, in nanoseconds. Within a batch, an
+     *                      equal share of the duration of the whole batch.
+     */
+    void afterStatementFailed(SqlStatement statement, long durationNanos);
+}
@@ -0,0 +1,378 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.metrics;
+
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationState;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Migration listener collecting a report of a migration run: the time spent on each applied migration and the slowest
+ * statements across all of them. The report is written as JSON, for example to find out which migrations drive
+ * deployments over their window.
+ * <p/>
+ * Only the configured number of slowest statements is retained, so memory usage doesn't grow with the number of
+ * statements executed.
+ * <p/>
+ * The report is thread-safe: when migrations are applied by several threads, the statements are attributed to the
+ * migration being applied by the same thread.
+ */
+public class MigrationReport extends BaseMigrationListener {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(MigrationReport.class);
+
+    /**
+     * Orders statements by duration, shortest first.
+     */
+    private static final Comparator<StatementTiming> BY_DURATION = new Comparator<StatementTiming>() {
+        public int compare(StatementTiming o1, StatementTiming o2) {
+            if (o1.durationNanos < o2.durationNanos) {
+                return -1;
+            }
+            if (o1.durationNanos > o2.durationNanos) {
+                return 1;
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * The maximum number of slowest statements to report.
+     */
+    private final int slowStatementCount;
+
+    /**
+     * The timings of the applied migrations, in the order they were applied. Guarded by this report.
+     */
+    private final List<MigrationTiming> migrationTimings = new ArrayList<MigrationTiming>();
+
+    /**
+     * The slowest statements seen so far. The fastest of them is at the head, ready to be evicted. Guarded by this
+     * report.
+     */
+    private final PriorityQueue<StatementTiming> slowestStatements;
+
+    /**
+     * The timing of the migration currently being applied by each thread. Only modified by the thread applying the
+     * migration, until it is added to the applied ones.
+     */
+    private final ThreadLocal<MigrationTiming> currentMigration = new ThreadLocal<MigrationTiming>();
+
+    /**
+     * Creates a new report.
+     *
+     * @param slowStatementCount The maximum number of slowest statements to report.
+     */
+    public MigrationReport(int slowStatementCount) {
+        this.slowStatementCount = slowStatementCount;
+        slowestStatements = new PriorityQueue<StatementTiming>(Math.max(1, slowStatementCount + 1), BY_DURATION);
+    }
+
+    @Override
+    public void beforeMigration(Migration migration) {
+        currentMigration.set(new MigrationTiming(migration));
+    }
+
+    @Override
+    public void afterMigration(Migration migration, long durationNanos, MigrationState state) {
+        MigrationTiming migrationTiming = currentMigration.get();
+        currentMigration.remove();
+        if (migrationTiming == null) {
+            migrationTiming = new MigrationTiming(migration);
+        }
+        migrationTiming.durationNanos = durationNanos;
+        migrationTiming.state = state;
+        synchronized (this) {
+            migrationTimings.add(migrationTiming);
+        }
+    }
+
+    @Override
+    public void afterStatement(SqlStatement statement, long durationNanos, int rowCount) {
+        MigrationTiming migrationTiming = currentMigration.get();
+        if (migrationTiming == null) {
+            return;
+        }
+        migrationTiming.statementCount++;
+        migrationTiming.statementDurationNanos += durationNanos;
+
+        if (slowStatementCount <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if ((slowestStatements.size() >= slowStatementCount)
+                    && (slowestStatements.peek().durationNanos >= durationNanos)) {
+                return;
+            }
+            slowestStatements.add(new StatementTiming(migrationTiming, statement.getLineNumber(), durationNanos, rowCount));
+            if (slowestStatements.size() > slowStatementCount) {
+                slowestStatements.poll();
+            }
+        }
+    }
+
+    /**
+     * @return The slowest statements, slowest first.
+     */
+    private List<StatementTiming> getSlowestStatements() {
+        List<StatementTiming> statements = new ArrayList<StatementTiming>(slowestStatements);
+        Collections.sort(statements, Collections.reverseOrder(BY_DURATION));
+        return statements;
+    }
+
+    /**
+     * Renders this report as JSON.
+     *
+     * @return The JSON document.
+     */
+    public synchronized String toJson() {
+        long totalDurationNanos = 0;
+        for (MigrationTiming migrationTiming : migrationTimings) {
+            totalDurationNanos += migrationTiming.durationNanos;
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"migrationCount\": ").append(migrationTimings.size()).append(",\n");
+        json.append("  \"durationNanos\": ").append(totalDurationNanos).append(",\n");
+        json.append("  \"migrations\": [");
+        for (int i = 0; i < migrationTimings.size(); i++) {
+            MigrationTiming migrationTiming = migrationTimings.get(i);
+            json.append((i == 0) ? "\n" : ",\n");
+            json.append("    {\"version\": ").append(quote(migrationTiming.version));
+            json.append(", \"description\": ").append(quote(migrationTiming.description));
+            json.append(", \"script\": ").append(quote(migrationTiming.script));
+            json.append(", \"state\": ").append(quote(String.valueOf(migrationTiming.state)));
+            json.append(", \"durationNanos\": ").append(migrationTiming.durationNanos);
+            json.append(", \"percentOfTotal\": ").append(percent(migrationTiming.durationNanos, totalDurationNanos));
+            json.append(", \"statementCount\": ").append(migrationTiming.statementCount);
+            json.append(", \"statementDurationNanos\": ").append(migrationTiming.statementDurationNanos);
+            json.append("}");
+        }
+        json.append(migrationTimings.isEmpty() ? "],\n" : "\n  ],\n");
+
+        List<StatementTiming> statements = getSlowestStatements();
+        json.append("  \"slowestStatements\": [");
+        for (int i = 0; i < statements.size(); i++) {
+            StatementTiming statementTiming = statements.get(i);
+            json.append((i == 0) ? "\n" : ",\n");
+            json.append("    {\"version\": ").append(quote(statementTiming.migration.version));
+            json.append(", \"script\": ").append(quote(statementTiming.migration.script));
+            json.append(", \"lineNumber\": ").append(statementTiming.lineNumber);
+            json.append(", \"durationNanos\": ").append(statementTiming.durationNanos);
+            json.append(", \"rowCount\": ").append(statementTiming.rowCount);
+            json.append("}");
+        }
+        json.append(statements.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes this report as JSON to this file. Failures are logged, as the report must not fail the migration.
+     *
+     * @param reportFile The file to write the report to. The parent directories are created if necessary.
+     */
+    public void write(File reportFile) {
+        File parentDir = reportFile.getAbsoluteFile().getParentFile();
+        if ((parentDir != null) && !parentDir.isDirectory() && !parentDir.mkdirs()) {
+            LOG.warn("Unable to create directory for migration report: " + parentDir);
+            return;
+        }
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8");
+            writer.write(toJson());
+            LOG.debug("Migration report written to " + reportFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to write migration report: " + reportFile + " (" + e.getMessage() + ")");
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    //Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the share of this duration in the total, rounded to one decimal.
+     *
+     * @param durationNanos      The duration.
+     * @param totalDurationNanos The total duration.
+     * @return The percentage.
+     */
+    private static String percent(long durationNanos, long totalDurationNanos) {
+        if (totalDurationNanos <= 0) {
+            return "0.0";
+        }
+        long permille = Math.round(durationNanos * 1000.0 / totalDurationNanos);
+        return (permille / 10) + "." + (permille % 10);
+    }
+
+    /**
+     * Quotes this value as a JSON string.
+     *
+     * @param value The value to quote. May be {@code null}.
+     * @return The JSON string literal, or {@code null} if the value is {@code null}.
+     */
+    /* private -> for testing */
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        quoted.append('"');
+        return quoted.toString();
+    }
+
+    /**
+     * The timing of an applied migration.
+     */
+    private static class MigrationTiming {
+        /**
+         * The version of the migration.
+         */
+        private final String version;
+
+        /**
+         * The description of the migration.
+         */
+        private final String description;
+
+        /**
+         * The script of the migration.
+         */
+        private final String script;
+
+        /**
+         * The resulting state of the migration.
+         */
+        private MigrationState state;
+
+        /**
+         * The time it took to apply the migration, in nanoseconds.
+         */
+        private long durationNanos;
+
+        /**
+         * The number of statements executed by the migration.
+         */
+        private int statementCount;
+
+        /**
+         * The time spent executing the statements of the migration, in nanoseconds.
+         */
+        private long statementDurationNanos;
+
+        /**
+         * Creates a new migration timing.
+         *
+         * @param migration The migration.
+         */
+        private MigrationTiming(Migration migration) {
+            version = migration.getVersion().toString();
+            description = migration.getDescription();
+            script = migration.getScript();
+        }
+    }
+
+    /**
+     * The timing of an executed statement.
+     */
+    private static class StatementTiming {
+        /**
+         * The migration the statement belongs to.
+         */
+        private final MigrationTiming migration;
+
+        /**
+         * The line number of the statement in the script.
+         */
+        private final int lineNumber;
+
+        /**
+         * The time it took to execute the statement, in nanoseconds.
+         */
+        private final long durationNanos;
+
+        /**
+         * The number of rows affected by the statement. -1 if unknown.
+         */
+        private final int rowCount;
+
+        /**
+         * Creates a new statement timing.
+         *
+         * @param migration     The migration the statement belongs to.
+         * @param lineNumber    The line number of the statement in the script.
+         * @param durationNanos The time it took to execute the statement, in nanoseconds.
+         * @param rowCount      The number of rows affected by the statement. -1 if unknown.
+         */
+        private StatementTiming(MigrationTiming migration, int lineNumber, long durationNanos, int rowCount) {
+            this.migration = migration;
+            this.lineNumber = lineNumber;
+            this.durationNanos = durationNanos;
+            this.rowCount = rowCount;
+        }
+    }
+}
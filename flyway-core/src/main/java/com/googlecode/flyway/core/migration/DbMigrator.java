@@ -16,6 +16,7 @@
 package com.googlecode.flyway.core.migration;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.dbsupport.DbSupportFactory;
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.metadatatable.MetaDataTable;
 import com.googlecode.flyway.core.metadatatable.MetaDataTableRow;
@@ -23,16 +24,28 @@ import com.googlecode.flyway.core.util.ExceptionUtils;
 import com.googlecode.flyway.core.util.StopWatch;
 import com.googlecode.flyway.core.util.TimeFormat;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import com.googlecode.flyway.core.util.jdbc.JdbcUtils;
 import com.googlecode.flyway.core.util.jdbc.TransactionCallback;
 import com.googlecode.flyway.core.util.jdbc.TransactionException;
 import com.googlecode.flyway.core.util.jdbc.TransactionTemplate;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Main workflow for migrating the database.
@@ -75,6 +88,28 @@ public class DbMigrator {
      */
     private final boolean ignoreFailedFutureMigration;
 
+    /**
+     * Flag whether to apply all pending migrations together in a single transaction or not.
+     */
+    private final boolean group;
+
+    /**
+     * The datasource to obtain the connections from when applying migrations in parallel. {@code null} to always apply
+     * them one after the other.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The maximum number of migrations to apply concurrently. 1 or less means the migrations are applied one after the
+     * other. Only honored for databases supporting ddl transactions.
+     */
+    private final int migrationThreads;
+
+    /**
+     * The settings of the current run.
+     */
+    private final MigrationSettings migrationSettings;
+
     /**
      * Creates a new database migrator.
      *
@@ -87,12 +122,59 @@ public class DbMigrator {
      */
     public DbMigrator(Connection connection, Connection connectionForMigrations, DbSupport dbSupport,
                       MetaDataTable metaDataTable, SchemaVersion target, boolean ignoreFailedFutureMigration) {
+        this(connection, connectionForMigrations, dbSupport, metaDataTable, target, ignoreFailedFutureMigration, false);
+    }
+
+    /**
+     * Creates a new database migrator.
+     *
+     * @param connection                  The connection to use.
+     * @param connectionForMigrations     The connection to use to perform the actual database migrations.
+     * @param dbSupport                   Database-specific functionality.
+     * @param metaDataTable               The database metadata table.
+     * @param target                      The target version of the migration.
+     * @param ignoreFailedFutureMigration Flag whether to ignore failed future migrations or not.
+     * @param group                       Flag whether to apply all pending migrations together in a single
+     *                                    transaction or not. Only honored for databases supporting ddl transactions.
+     */
+    public DbMigrator(Connection connection, Connection connectionForMigrations, DbSupport dbSupport,
+                      MetaDataTable metaDataTable, SchemaVersion target, boolean ignoreFailedFutureMigration,
+                      boolean group) {
+        this(connection, connectionForMigrations, dbSupport, metaDataTable, target, ignoreFailedFutureMigration, group,
+                null, 1, new MigrationSettings());
+    }
+
+    /**
+     * Creates a new database migrator.
+     *
+     * @param connection                  The connection to use.
+     * @param connectionForMigrations     The connection to use to perform the actual database migrations.
+     * @param dbSupport                   Database-specific functionality.
+     * @param metaDataTable               The database metadata table.
+     * @param target                      The target version of the migration.
+     * @param ignoreFailedFutureMigration Flag whether to ignore failed future migrations or not.
+     * @param group                       Flag whether to apply all pending migrations together in a single
+     *                                    transaction or not. Only honored for databases supporting ddl transactions.
+     * @param dataSource                  The datasource to obtain the connections from when applying migrations in
+     *                                    parallel. {@code null} to always apply them one after the other.
+     * @param migrationThreads            The maximum number of migrations to apply concurrently. 1 or less means the
+     *                                    migrations are applied one after the other. Only honored for databases
+     *                                    supporting ddl transactions.
+     * @param migrationSettings           The settings of the current run.
+     */
+    public DbMigrator(Connection connection, Connection connectionForMigrations, DbSupport dbSupport,
+                      MetaDataTable metaDataTable, SchemaVersion target, boolean ignoreFailedFutureMigration,
+                      boolean group, DataSource dataSource, int migrationThreads, MigrationSettings migrationSettings) {
         this.connection = connection;
         this.connectionForMigrations = connectionForMigrations;
         this.dbSupport = dbSupport;
         this.metaDataTable = metaDataTable;
         this.target = target;
         this.ignoreFailedFutureMigration = ignoreFailedFutureMigration;
+        this.group = group;
+        this.dataSource = dataSource;
+        this.migrationThreads = migrationThreads;
+        this.migrationSettings = migrationSettings;
     }
 
     /**
@@ -106,49 +188,66 @@ public class DbMigrator {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
+        int migrationSuccessCount;
+        if (group && dbSupport.supportsDdlTransactions()) {
+            if ((migrationThreads > 1) && (dataSource != null)) {
+                LOG.warn("Unable to apply migrations in parallel when grouping them in a single transaction. Applying them one by one instead.");
+            }
+            migrationSuccessCount = migrateGroup(migrations);
+        } else if ((migrationThreads > 1) && (dataSource != null) && dbSupport.supportsDdlTransactions()) {
+            migrationSuccessCount = migrateInParallel(migrations);
+        } else {
+            if (group) {
+                LOG.warn("Unable to group migrations in a single transaction: ddl transactions are not supported by this database. Applying them one by one instead.");
+            } else if ((migrationThreads > 1) && (dataSource != null)) {
+                LOG.warn("Unable to apply migrations in parallel: ddl transactions are not supported by this database. Applying them one by one instead.");
+            }
+            migrationSuccessCount = migrateOneByOne(migrations);
+        }
+
+        stopWatch.stop();
+
+        logSummary(migrationSuccessCount, stopWatch.getTotalTimeMillis());
+        return migrationSuccessCount;
+    }
+
+    /**
+     * Applies the pending migrations one by one, each in its own transaction.
+     *
+     * @param migrations The available migrations.
+     * @return The number of successfully applied migrations.
+     * @throws FlywayException when migration failed.
+     */
+    private int migrateOneByOne(final List<Migration> migrations) throws FlywayException {
+        final PendingMigrationCursor pendingMigrationCursor = new PendingMigrationCursor(migrations);
+
         int migrationSuccessCount = 0;
         try {
             while (true) {
                 final boolean firstRun = migrationSuccessCount == 0;
-                MetaDataTableRow metaDataTableRow =
-                        new TransactionTemplate(connection).execute(new TransactionCallback<MetaDataTableRow>() {
-                            public MetaDataTableRow doInTransaction() {
-                                metaDataTable.lock();
-
-                                SchemaVersion currentSchemaVersion = metaDataTable.getCurrentSchemaVersion();
-                                if (firstRun) {
-                                    LOG.info("Current schema version: " + currentSchemaVersion);
-                                }
-
-                                SchemaVersion latestAvailableMigrationVersion = migrations.get(0).getVersion();
-                                boolean isFutureMigration = latestAvailableMigrationVersion.compareTo(currentSchemaVersion) < 0;
-                                if (isFutureMigration) {
-                                    LOG.warn("Database version (" + currentSchemaVersion + ") is newer than the latest available migration ("
-                                            + latestAvailableMigrationVersion + ") !");
-                                }
-
-                                MigrationState currentSchemaState = metaDataTable.getCurrentSchemaState();
-                                if (currentSchemaState == MigrationState.FAILED) {
-                                    if (isFutureMigration && ignoreFailedFutureMigration) {
-                                        LOG.warn("Detected failed migration to version " + currentSchemaVersion + " !");
-                                    } else {
-                                        throw new MigrationException(currentSchemaVersion, false);
-                                    }
-                                }
-
-                                if (isFutureMigration) {
-                                    return null;
-                                }
-
-                                Migration migration = getNextMigration(migrations, currentSchemaVersion);
-                                if (migration == null) {
-                                    // No further migrations available
-                                    return null;
-                                }
-
-                                return applyMigration(migration);
+                MetaDataTableRow metaDataTableRow;
+                try {
+                    metaDataTableRow = new TransactionTemplate(connection).execute(new TransactionCallback<MetaDataTableRow>() {
+                        public MetaDataTableRow doInTransaction() {
+                            metaDataTable.lock(migrationSettings);
+
+                            SchemaVersion currentSchemaVersion = checkCurrentSchemaVersion(migrations, firstRun);
+                            if (currentSchemaVersion == null) {
+                                return null;
                             }
-                        });
+
+                            Migration migration = getNextMigration(pendingMigrationCursor, currentSchemaVersion);
+                            if (migration == null) {
+                                // No further migrations available
+                                return null;
+                            }
+
+                            return applyMigration(migration);
+                        }
+                    });
+                } finally {
+                    metaDataTable.unlock();
+                }
 
                 if (metaDataTableRow == null) {
                     // No further migrations available
@@ -165,12 +264,395 @@ public class DbMigrator {
             throw new FlywayException("Migration failed !", e);
         }
 
+        return migrationSuccessCount;
+    }
+
+    /**
+     * Applies all pending migrations together in a single transaction. The metadata table is locked only once and all
+     * migrations as well as their metadata table rows are committed at the end. If any migration fails, all changes
+     * are rolled back.
+     *
+     * @param migrations The available migrations.
+     * @return The number of successfully applied migrations.
+     * @throws FlywayException when migration failed.
+     */
+    private int migrateGroup(final List<Migration> migrations) throws FlywayException {
+        try {
+            return new TransactionTemplate(connection).execute(new TransactionCallback<Integer>() {
+                public Integer doInTransaction() {
+                    return applyPendingMigrationsInCurrentTransaction(migrations);
+                }
+            });
+        } catch (TransactionException e) {
+            throw new FlywayException("Migration failed !", e);
+        } finally {
+            metaDataTable.unlock();
+        }
+    }
+
+    /**
+     * Applies the pending migrations in parallel, each in its own transaction on one of a bounded number of
+     * connections. A migration is started as soon as all pending migrations it depends on (see
+     * {@link Migration#getDependencies()}) have been committed.
+     * <p/>
+     * The transaction of a migration is only committed once all older migrations have been committed, immediately
+     * followed by its row in the metadata table, in a transaction of its own. The rows are therefore inserted in
+     * version order, as the row with the highest installed rank holds the current version, and a failure never leaves
+     * a committed migration without its row: the newer migrations that have already been executed are rolled back
+     * instead. This is why migrations are only applied in parallel on databases supporting ddl transactions.
+     * <p/>
+     * The metadata table stays locked for the whole run. As the lock ends with the transaction committing a row, it is
+     * taken again right away, and the row must then still be the current one.
+     *
+     * @param migrations The available migrations.
+     * @return The number of successfully applied migrations.
+     * @throws FlywayException when migration failed.
+     */
+    private int migrateInParallel(final List<Migration> migrations) throws FlywayException {
+        try {
+            return new TransactionTemplate(connection).execute(new TransactionCallback<Integer>() {
+                public Integer doInTransaction() {
+                    metaDataTable.lock(migrationSettings);
+
+                    SchemaVersion currentSchemaVersion = checkCurrentSchemaVersion(migrations, true);
+                    if (currentSchemaVersion == null) {
+                        return 0;
+                    }
+
+                    MigrationGraph migrationGraph =
+                            new MigrationGraph(getPendingMigrations(migrations, currentSchemaVersion), currentSchemaVersion);
+                    return applyMigrationsInParallel(migrationGraph);
+                }
+            });
+        } catch (TransactionException e) {
+            throw new FlywayException("Migration failed !", e);
+        } finally {
+            metaDataTable.unlock();
+        }
+    }
+
+    /**
+     * Applies the migrations of this graph in parallel, committing them and recording their rows in the metadata table
+     * in version order. This must be called while the metadata table is locked.
+     * <p/>
+     * A migration that has been executed keeps its connection until it can be committed. The last free connection is
+     * therefore kept for the oldest migration that has not been committed yet, which never has to wait for any other
+     * migration, so that the run can always make progress.
+     *
+     * @param migrationGraph The graph of the pending migrations.
+     * @return The number of successfully applied migrations.
+     * @throws FlywayException when the connections could not be obtained or applying the migrations was interrupted.
+     * @throws MigrationException when a migration failed. All migrations that have been committed are recorded.
+     */
+    private int applyMigrationsInParallel(MigrationGraph migrationGraph) throws FlywayException {
+        int size = migrationGraph.size();
+        if (size == 0) {
+            return 0;
+        }
+
+        int threadCount = Math.min(migrationThreads, size);
+        LOG.debug("Applying " + size + " migrations using " + threadCount + " threads");
+
+        // The connection of each migration that has been started, until it has been committed or rolled back
+        Connection[] migrationConnections = new Connection[size];
+        MetaDataTableRow[] metaDataTableRows = new MetaDataTableRow[size];
+        List<Connection> freeConnections = new ArrayList<Connection>();
+        List<Integer> ready = new ArrayList<Integer>(migrationGraph.getRoots());
+        int running = 0;
+        int committed = 0;
+        SchemaVersion failedVersion = null;
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, new MigrationThreadFactory());
+        try {
+            String currentSchema = DbSupportFactory.createDbSupport(connectionForMigrations).getCurrentSchema();
+            for (int i = 0; i < threadCount; i++) {
+                freeConnections.add(openMigrationConnection(currentSchema));
+            }
+
+            CompletionService<AppliedMigration> completionService =
+                    new ExecutorCompletionService<AppliedMigration>(executorService);
+            boolean stopped = false;
+            while ((running > 0) || (!stopped && (committed < size))) {
+                if (!stopped) {
+                    Collections.sort(ready);
+                    Iterator<Integer> readyIterator = ready.iterator();
+                    while (readyIterator.hasNext() && !freeConnections.isEmpty()) {
+                        int position = readyIterator.next();
+                        if ((freeConnections.size() == 1) && (position != committed)
+                                && (migrationConnections[committed] == null)) {
+                            // Kept for the oldest migration that has not been committed yet
+                            continue;
+                        }
+                        readyIterator.remove();
+                        migrationConnections[position] = freeConnections.remove(freeConnections.size() - 1);
+                        submitMigration(completionService, migrationGraph, position, migrationConnections[position]);
+                        running++;
+                    }
+                    if (running == 0) {
+                        throw new FlywayException("Unable to start any of the remaining parallel migrations");
+                    }
+                }
+
+                // Only this thread commits and records the migrations, once they have been handed back by the service
+                AppliedMigration appliedMigration = completionService.take().get();
+                running--;
+                int position = appliedMigration.position;
+                metaDataTableRows[position] = appliedMigration.metaDataTableRow;
+                if (MigrationState.FAILED == metaDataTableRows[position].getState()) {
+                    // Already rolled back: no further migration is started
+                    freeConnections.add(migrationConnections[position]);
+                    migrationConnections[position] = null;
+                    stopped = true;
+                }
+
+                while ((failedVersion == null) && (committed < size) && (metaDataTableRows[committed] != null)) {
+                    MetaDataTableRow metaDataTableRow = metaDataTableRows[committed];
+                    if (MigrationState.FAILED == metaDataTableRow.getState()) {
+                        failedVersion = metaDataTableRow.getVersion();
+                        break;
+                    }
+                    commitAndRecord(migrationConnections[committed], metaDataTableRow);
+                    freeConnections.add(migrationConnections[committed]);
+                    migrationConnections[committed] = null;
+                    ready.addAll(migrationGraph.complete(committed));
+                    committed++;
+                }
+                if (failedVersion != null) {
+                    stopped = true;
+                }
+            }
+
+            if (committed < size) {
+                if (failedVersion == null) {
+                    // A newer migration failed while the older ones were still running
+                    for (int i = committed; i < size; i++) {
+                        if ((metaDataTableRows[i] != null) && (MigrationState.FAILED == metaDataTableRows[i].getState())) {
+                            failedVersion = metaDataTableRows[i].getVersion();
+                            break;
+                        }
+                    }
+                }
+                throw new MigrationException(failedVersion, true);
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to determine the current schema of the migrations", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlywayException("Interrupted while applying migrations in parallel", e);
+        } catch (ExecutionException e) {
+            throw new FlywayException("Error while applying migrations in parallel", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+            // Migrations that have been executed, but not committed, must never be left behind without their row
+            for (Connection migrationConnection : migrationConnections) {
+                if (migrationConnection != null) {
+                    rollbackAndClose(migrationConnection);
+                }
+            }
+            for (Connection migrationConnection : freeConnections) {
+                JdbcUtils.closeConnection(migrationConnection);
+            }
+        }
+
+        return committed;
+    }
+
+    /**
+     * Commits the transaction of this migration and records its row in the metadata table in a transaction of its
+     * own. The migration lock, which ends with this transaction, is then taken again.
+     *
+     * @param migrationConnection The connection holding the uncommitted transaction of the migration.
+     * @param metaDataTableRow    The row of the migration.
+     * @throws FlywayException when the migration could not be committed or recorded, or when another migration run
+     *                         changed the metadata table in the meantime.
+     */
+    private void commitAndRecord(Connection migrationConnection, MetaDataTableRow metaDataTableRow)
+            throws FlywayException {
+        SchemaVersion version = metaDataTableRow.getVersion();
+        try {
+            migrationConnection.commit();
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to commit migration to version " + version, e);
+        }
+        LOG.debug("Successfully committed DB migration to version " + version);
+
+        metaDataTable.insert(metaDataTableRow);
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to record migration to version " + version + " in the metadata table", e);
+        }
+
+        metaDataTable.lock(migrationSettings);
+        if (!version.equals(metaDataTable.getCurrentSchemaVersion())) {
+            throw new FlywayException("The metadata table has been changed by another migration run while applying"
+                    + " migrations in parallel. The current version is no longer " + version);
+        }
+    }
+
+    /**
+     * Rolls back the current transaction of this connection and closes it. This method never fails.
+     *
+     * @param migrationConnection The connection to roll back and close.
+     */
+    private void rollbackAndClose(Connection migrationConnection) {
+        try {
+            migrationConnection.rollback();
+        } catch (SQLException e) {
+            LOG.error("Unable to roll back parallel migration: " + e.getMessage());
+        }
+        JdbcUtils.closeConnection(migrationConnection);
+    }
+
+    /**
+     * Opens a new connection to apply migrations on, using the same current schema as the connection for migrations.
+     *
+     * @param currentSchema The current schema of the connection for migrations.
+     * @return The new connection.
+     * @throws SQLException when the current schema of the new connection could not be set.
+     */
+    private Connection openMigrationConnection(String currentSchema) throws SQLException {
+        Connection migrationConnection = JdbcUtils.openConnection(dataSource);
+        try {
+            DbSupport migrationDbSupport = DbSupportFactory.createDbSupport(migrationConnection);
+            if (!currentSchema.equals(migrationDbSupport.getCurrentSchema())) {
+                migrationDbSupport.setCurrentSchema(currentSchema);
+            }
+        } catch (SQLException e) {
+            JdbcUtils.closeConnection(migrationConnection);
+            throw e;
+        }
+        return migrationConnection;
+    }
+
+    /**
+     * Submits the migration at this position for execution on this connection, without committing it. Its row,
+     * holding the migration state and the execution time, is handed back together with its position.
+     *
+     * @param completionService   The service executing the migrations.
+     * @param migrationGraph      The graph of the pending migrations.
+     * @param position            The position of the migration to apply.
+     * @param migrationConnection The connection to execute the migration on.
+     */
+    private void submitMigration(CompletionService<AppliedMigration> completionService, MigrationGraph migrationGraph,
+                                 final int position, final Connection migrationConnection) {
+        final Migration migration = migrationGraph.getMigration(position);
+        completionService.submit(new Callable<AppliedMigration>() {
+            public AppliedMigration call() {
+                DbSupport migrationDbSupport = DbSupportFactory.createDbSupport(migrationConnection);
+                return new AppliedMigration(position,
+                        executeMigration(migration, migrationConnection, migrationDbSupport, false));
+            }
+        });
+    }
+
+    /**
+     * Rehearses the migration: applies all pending migrations together in a single transaction, exactly like a grouped
+     * migration, but always rolls this transaction back at the end. The metadata table is created within the same
+     * transaction if necessary. Combined with a migration listener, this measures how long the migrations take without
+     * changing the database.
+     *
+     * @param migrations The available migrations.
+     * @return The number of successfully rehearsed migrations.
+     * @throws FlywayException when the database doesn't support ddl transactions or a migration failed.
+     */
+    public int rehearse(final List<Migration> migrations) throws FlywayException {
+        if (!dbSupport.supportsDdlTransactions()) {
+            throw new FlywayException("Unable to rehearse migrations: ddl transactions are not supported by this database."
+                    + " The changes could not be rolled back.");
+        }
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        int migrationSuccessCount;
+        try {
+            migrationSuccessCount = new TransactionTemplate(connection, true).execute(new TransactionCallback<Integer>() {
+                public Integer doInTransaction() {
+                    metaDataTable.createIfNotExistsInCurrentTransaction();
+                    return applyPendingMigrationsInCurrentTransaction(migrations);
+                }
+            });
+        } catch (TransactionException e) {
+            throw new FlywayException("Rehearsal failed !", e);
+        } finally {
+            metaDataTable.unlock();
+            metaDataTable.clearCache();
+        }
+
         stopWatch.stop();
 
-        logSummary(migrationSuccessCount, stopWatch.getTotalTimeMillis());
+        LOG.info("Rehearsed " + migrationSuccessCount + " migration(s) (execution time "
+                + TimeFormat.format(stopWatch.getTotalTimeMillis()) + "). All changes have been rolled back.");
         return migrationSuccessCount;
     }
 
+    /**
+     * Applies all pending migrations within the current transaction, without committing. The metadata table is locked
+     * first, and must be unlocked once the transaction has ended.
+     *
+     * @param migrations The available migrations.
+     * @return The number of successfully applied migrations.
+     * @throws MigrationException when a migration failed. All changes must then be rolled back.
+     */
+    private int applyPendingMigrationsInCurrentTransaction(List<Migration> migrations) throws MigrationException {
+        metaDataTable.lock(migrationSettings);
+
+        SchemaVersion currentSchemaVersion = checkCurrentSchemaVersion(migrations, true);
+        if (currentSchemaVersion == null) {
+            return 0;
+        }
+
+        List<Migration> pendingMigrations = getPendingMigrations(migrations, currentSchemaVersion);
+
+        // The migrations must run on the same connection as the metadata table changes,
+        // as they all have to be part of the same transaction.
+        JdbcTemplate jdbcTemplate = createMigrationJdbcTemplate(connection);
+        for (Migration migration : pendingMigrations) {
+            applyMigrationInCurrentTransaction(migration, jdbcTemplate);
+        }
+        return pendingMigrations.size();
+    }
+
+    /**
+     * Determines the current version of the schema and checks whether it can be migrated. This must be called while
+     * the metadata table is locked.
+     *
+     * @param migrations The available migrations.
+     * @param firstRun   Whether this is the first check of this migration run.
+     * @return The current schema version. {@code null} if the schema has a newer version than the latest available
+     *         migration and should therefore not be migrated.
+     * @throws MigrationException when the current version of the schema is in a failed state.
+     */
+    private SchemaVersion checkCurrentSchemaVersion(List<Migration> migrations, boolean firstRun) {
+        SchemaVersion currentSchemaVersion = metaDataTable.getCurrentSchemaVersion();
+        if (firstRun) {
+            LOG.info("Current schema version: " + currentSchemaVersion);
+        }
+
+        SchemaVersion latestAvailableMigrationVersion = migrations.get(0).getVersion();
+        boolean isFutureMigration = latestAvailableMigrationVersion.compareTo(currentSchemaVersion) < 0;
+        if (isFutureMigration) {
+            LOG.warn("Database version (" + currentSchemaVersion + ") is newer than the latest available migration ("
+                    + latestAvailableMigrationVersion + ") !");
+        }
+
+        MigrationState currentSchemaState = metaDataTable.getCurrentSchemaState();
+        if (currentSchemaState == MigrationState.FAILED) {
+            if (isFutureMigration && ignoreFailedFutureMigration) {
+                LOG.warn("Detected failed migration to version " + currentSchemaVersion + " !");
+            } else {
+                throw new MigrationException(currentSchemaVersion, false);
+            }
+        }
+
+        if (isFutureMigration) {
+            return null;
+        }
+
+        return currentSchemaVersion;
+    }
+
     /**
      * Logs the summary of this migration run.
      *
@@ -200,32 +682,77 @@ public class DbMigrator {
      * @throws MigrationException when the migration failed.
      */
     private MetaDataTableRow applyMigration(final Migration migration) throws MigrationException {
+        MetaDataTableRow metaDataTableRow = executeMigration(migration, connectionForMigrations, dbSupport);
+
+        if (MigrationState.FAILED.equals(metaDataTableRow.getState()) && dbSupport.supportsDdlTransactions()) {
+            throw new MigrationException(migration.getVersion(), true);
+        }
+
+        metaDataTable.insert(metaDataTableRow);
+        LOG.debug("MetaData table successfully updated to reflect changes");
+
+        return metaDataTableRow;
+    }
+
+    /**
+     * Executes this migration in its own transaction on this connection, without recording it in the metadata table.
+     *
+     * @param migration           The migration to execute.
+     * @param migrationConnection The connection to execute the migration on.
+     * @param migrationDbSupport  The database-specific functionality for this connection.
+     * @return The row to add to the metadata table, holding the migration state and the execution time.
+     */
+    private MetaDataTableRow executeMigration(Migration migration, Connection migrationConnection,
+                                              DbSupport migrationDbSupport) {
+        return executeMigration(migration, migrationConnection, migrationDbSupport, true);
+    }
+
+    /**
+     * Executes this migration in its own transaction on this connection, without recording it in the metadata table.
+     *
+     * @param migration           The migration to execute.
+     * @param migrationConnection The connection to execute the migration on.
+     * @param migrationDbSupport  The database-specific functionality for this connection.
+     * @param commit              Whether to commit the transaction once the migration succeeded. If not, it is left
+     *                            open for the caller to commit or roll back. A failed migration is always rolled back.
+     * @return The row to add to the metadata table, holding the migration state and the execution time.
+     */
+    private MetaDataTableRow executeMigration(final Migration migration, Connection migrationConnection,
+                                              final DbSupport migrationDbSupport, boolean commit) {
         MetaDataTableRow metaDataTableRow = new MetaDataTableRow(migration);
 
         LOG.info("Migrating to version " + migration.getVersion());
 
+        migrationSettings.getMigrationListener().beforeMigration(migration);
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
 
         MigrationState state;
         try {
-            final JdbcTemplate jdbcTemplate = new JdbcTemplate(connectionForMigrations) {
-                @Override
-                protected void setNull(PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
-                    //No implementation needed
-                }
-            };
-            new TransactionTemplate(connectionForMigrations).execute(new TransactionCallback<Void>() {
+            final JdbcTemplate jdbcTemplate = createMigrationJdbcTemplate(migrationConnection);
+            TransactionCallback<Void> transactionCallback = new TransactionCallback<Void>() {
                 public Void doInTransaction() {
                     try {
-                        migration.migrate(jdbcTemplate, dbSupport);
+                        migration.migrate(jdbcTemplate, migrationDbSupport, migrationSettings);
                     } catch (SQLException e) {
                         throw new FlywayException("Migration failed!", e);
                     }
                     return null;
                 }
-            });
-            LOG.debug("Successfully completed and committed DB migration to version " + migration.getVersion().toString());
+            };
+            if (commit) {
+                new TransactionTemplate(migrationConnection).execute(transactionCallback);
+                LOG.debug("Successfully completed and committed DB migration to version " + migration.getVersion().toString());
+            } else {
+                migrationConnection.setAutoCommit(false);
+                try {
+                    transactionCallback.doInTransaction();
+                } catch (RuntimeException e) {
+                    migrationConnection.rollback();
+                    throw e;
+                }
+                LOG.debug("Successfully completed DB migration to version " + migration.getVersion().toString());
+            }
             state = MigrationState.SUCCESS;
         } catch (Exception e) {
             LOG.error(e.toString());
@@ -240,51 +767,154 @@ public class DbMigrator {
 
         stopWatch.stop();
         int executionTime = (int) stopWatch.getTotalTimeMillis();
+        migrationSettings.getMigrationListener().afterMigration(migration, stopWatch.getTotalTimeNanos(), state);
+        LOG.debug(String.format("Finished migrating to version %s (execution time %s)",
+                migration.getVersion(), TimeFormat.format(executionTime)));
 
-        if (MigrationState.FAILED.equals(state) && dbSupport.supportsDdlTransactions()) {
+        metaDataTableRow.update(executionTime, state);
+        return metaDataTableRow;
+    }
+
+    /**
+     * Applies this migration to the database within the current transaction, without committing. The migration state
+     * and the execution time are recorded in the metadata table as part of the same transaction.
+     *
+     * @param migration    The migration to apply.
+     * @param jdbcTemplate The jdbc template bound to the connection of the current transaction.
+     * @throws MigrationException when the migration failed. All changes must then be rolled back.
+     */
+    private void applyMigrationInCurrentTransaction(Migration migration, JdbcTemplate jdbcTemplate)
+            throws MigrationException {
+        MetaDataTableRow metaDataTableRow = new MetaDataTableRow(migration);
+
+        LOG.info("Migrating to version " + migration.getVersion());
+
+        migrationSettings.getMigrationListener().beforeMigration(migration);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        try {
+            migration.migrate(jdbcTemplate, dbSupport, migrationSettings);
+        } catch (Exception e) {
+            stopWatch.stop();
+            migrationSettings.getMigrationListener().afterMigration(migration, stopWatch.getTotalTimeNanos(), MigrationState.FAILED);
+            LOG.error(e.toString());
+
+            @SuppressWarnings({"ThrowableResultOfMethodCallIgnored"})
+            Throwable rootCause = ExceptionUtils.getRootCause(e);
+            if (rootCause != null) {
+                LOG.error("Caused by " + rootCause.toString());
+            }
             throw new MigrationException(migration.getVersion(), true);
         }
+
+        stopWatch.stop();
+        int executionTime = (int) stopWatch.getTotalTimeMillis();
+        migrationSettings.getMigrationListener().afterMigration(migration, stopWatch.getTotalTimeNanos(), MigrationState.SUCCESS);
         LOG.debug(String.format("Finished migrating to version %s (execution time %s)",
                 migration.getVersion(), TimeFormat.format(executionTime)));
 
-        metaDataTableRow.update(executionTime, state);
+        metaDataTableRow.update(executionTime, MigrationState.SUCCESS);
         metaDataTable.insert(metaDataTableRow);
-        LOG.debug("MetaData table successfully updated to reflect changes");
+    }
 
-        return metaDataTableRow;
+    /**
+     * Creates the jdbc template used to execute the migrations on this connection.
+     *
+     * @param migrationConnection The connection to execute the migrations on.
+     * @return The jdbc template.
+     */
+    private JdbcTemplate createMigrationJdbcTemplate(Connection migrationConnection) {
+        return new JdbcTemplate(migrationConnection) {
+            @Override
+            protected void setNull(PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+                //No implementation needed
+            }
+        };
     }
 
     /**
-     * Returns the next migration to apply.
+     * Returns all migrations that still need to be applied, in the order in which they must be applied.
      *
-     * @param currentVersion The current version of the schema.
      * @param allMigrations  All available migrations, sorted by version, newest first.
-     * @return The next migration to apply.
+     * @param currentVersion The current version of the schema.
+     * @return The pending migrations, oldest first. An empty list if there are none.
      */
-    private Migration getNextMigration(List<Migration> allMigrations, SchemaVersion currentVersion) {
+    /* private -> for testing */
+    List<Migration> getPendingMigrations(List<Migration> allMigrations, SchemaVersion currentVersion) {
+        List<Migration> pendingMigrations = new ArrayList<Migration>();
+
         if (target.compareTo(currentVersion) < 0) {
             LOG.warn("Database version (" + currentVersion + ") is newer than the target version ("
                     + target + ") !");
-            return null;
+            return pendingMigrations;
         }
 
-        Migration nextMigration = null;
         for (Migration migration : allMigrations) {
-            if ((migration.getVersion().compareTo(currentVersion) > 0)) {
-                nextMigration = migration;
-            } else {
+            if (migration.getVersion().compareTo(currentVersion) <= 0) {
                 break;
             }
+            if (target.compareTo(migration.getVersion()) >= 0) {
+                pendingMigrations.add(migration);
+            }
         }
 
-        if (nextMigration == null) {
+        Collections.reverse(pendingMigrations);
+        return pendingMigrations;
+    }
+
+    /**
+     * Returns the next migration to apply.
+     *
+     * @param currentVersion         The current version of the schema.
+     * @param pendingMigrationCursor The cursor over all available migrations for this migration run.
+     * @return The next migration to apply.
+     */
+    private Migration getNextMigration(PendingMigrationCursor pendingMigrationCursor, SchemaVersion currentVersion) {
+        if (target.compareTo(currentVersion) < 0) {
+            LOG.warn("Database version (" + currentVersion + ") is newer than the target version ("
+                    + target + ") !");
             return null;
         }
 
-        if (target.compareTo(nextMigration.getVersion()) < 0) {
-            return null;
+        return pendingMigrationCursor.next(currentVersion, target);
+    }
+
+    /**
+     * A migration applied by one of the threads of a parallel migration run.
+     */
+    private static class AppliedMigration {
+        /**
+         * The position of the migration in the migration graph.
+         */
+        private final int position;
+
+        /**
+         * The row of the migration, holding its state and execution time.
+         */
+        private final MetaDataTableRow metaDataTableRow;
+
+        /**
+         * Creates a new applied migration.
+         *
+         * @param position         The position of the migration in the migration graph.
+         * @param metaDataTableRow The row of the migration, holding its state and execution time.
+         */
+        private AppliedMigration(int position, MetaDataTableRow metaDataTableRow) {
+            this.position = position;
+            this.metaDataTableRow = metaDataTableRow;
         }
+    }
 
-        return nextMigration;
+    /**
+     * Creates the daemon threads used to apply migrations in parallel, so a migration run can never prevent the JVM
+     * from exiting.
+     */
+    private static class MigrationThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "flyway-migrator");
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
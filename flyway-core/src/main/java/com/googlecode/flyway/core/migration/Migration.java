@@ -80,6 +80,17 @@ public abstract class Migration implements Comparable<Migration> {
         return script;
     }
 
+    /**
+     * Retrieves the versions this migration depends on. When migrations are applied in parallel, a migration only
+     * waits for the pending migrations among these versions instead of all older ones.
+     *
+     * @return The versions this migration depends on, all older than its own. {@code null} if the migration doesn't
+     *         declare its dependencies, in which case it depends on all older migrations.
+     */
+    public SchemaVersion[] getDependencies() {
+        return null;
+    }
+
     public int compareTo(Migration o) {
         return getVersion().compareTo(o.getVersion());
     }
@@ -92,10 +103,14 @@ public abstract class Migration implements Comparable<Migration> {
 
         Migration migration = (Migration) o;
 
-        if (checksum != null ? !checksum.equals(migration.checksum) : migration.checksum != null) return false;
         if (description != null ? !description.equals(migration.description) : migration.description != null)
             return false;
-        return !(schemaVersion != null ? !schemaVersion.equals(migration.schemaVersion) : migration.schemaVersion != null) && !(script != null ? !script.equals(migration.script) : migration.script != null);
+        if (schemaVersion != null ? !schemaVersion.equals(migration.schemaVersion) : migration.schemaVersion != null)
+            return false;
+        if (script != null ? !script.equals(migration.script) : migration.script != null)
+            return false;
+        // Compared last, as it may have to be calculated first
+        return getChecksum() != null ? getChecksum().equals(migration.getChecksum()) : migration.getChecksum() == null;
     }
 
     @Override
@@ -103,7 +118,7 @@ public abstract class Migration implements Comparable<Migration> {
         int result = schemaVersion != null ? schemaVersion.hashCode() : 0;
         result = 31 * result + (description != null ? description.hashCode() : 0);
         result = 31 * result + (script != null ? script.hashCode() : 0);
-        result = 31 * result + (checksum != null ? checksum.hashCode() : 0);
+        // The checksum is deliberately left out, as it may be expensive to calculate
         return result;
     }
 
@@ -116,6 +131,20 @@ public abstract class Migration implements Comparable<Migration> {
      */
     public abstract void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) throws SQLException;
 
+    /**
+     * Performs the migration with these settings of the current run. Only migrations that make use of the settings
+     * need to override this, by default the settings are ignored.
+     *
+     * @param jdbcTemplate      To execute the migration statements.
+     * @param dbSupport         The support for database-specific extensions.
+     * @param migrationSettings The settings of the current run.
+     * @throws SQLException Thrown when the migration failed.
+     */
+    public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport, MigrationSettings migrationSettings)
+            throws SQLException {
+        migrate(jdbcTemplate, dbSupport);
+    }
+
     /**
      * retrieves the location of the migration
      * @return source of this migration
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.exception.FlywayException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Graph of the dependencies between the pending migrations of a migration run, used to apply independent migrations in
+ * parallel. A migration declaring its dependencies (see {@link Migration#getDependencies()}) only has to wait for the
+ * pending migrations among them. A migration without declaration has to wait for all older pending migrations, exactly
+ * like when migrations are applied one by one, and is therefore a barrier all newer migrations have to wait for.
+ * <p/>
+ * The graph also tracks which migrations have completed and is therefore meant to be used by a single thread.
+ */
+class MigrationGraph {
+    /**
+     * The pending migrations, oldest first.
+     */
+    private final List<Migration> migrations;
+
+    /**
+     * The positions of the migrations that have to wait for each migration. Indexed by position of the migration.
+     */
+    private final List<List<Integer>> successors = new ArrayList<List<Integer>>();
+
+    /**
+     * The number of migrations each migration still has to wait for. Indexed by position of the migration.
+     */
+    private final int[] predecessorCounts;
+
+    /**
+     * Builds the graph of these pending migrations.
+     *
+     * @param pendingMigrations The pending migrations, oldest first.
+     * @param currentVersion    The current version of the schema. Dependencies on versions up to this one are
+     *                          considered to be satisfied.
+     * @throws FlywayException when a migration depends on a version that is not older than itself, or on a version
+     *                         that is neither applied nor pending.
+     */
+    MigrationGraph(List<Migration> pendingMigrations, SchemaVersion currentVersion) throws FlywayException {
+        migrations = pendingMigrations;
+        predecessorCounts = new int[migrations.size()];
+
+        Map<SchemaVersion, Integer> positions = new HashMap<SchemaVersion, Integer>();
+        for (int i = 0; i < migrations.size(); i++) {
+            successors.add(new ArrayList<Integer>());
+            positions.put(migrations.get(i).getVersion(), i);
+        }
+
+        // Position of the latest migration without declaration, which already waits for everything before it
+        int lastUndeclared = -1;
+        for (int i = 0; i < migrations.size(); i++) {
+            Migration migration = migrations.get(i);
+            SchemaVersion[] dependencies = migration.getDependencies();
+            if (dependencies == null) {
+                for (int j = Math.max(lastUndeclared, 0); j < i; j++) {
+                    addDependency(j, i);
+                }
+                lastUndeclared = i;
+                continue;
+            }
+
+            if (lastUndeclared >= 0) {
+                addDependency(lastUndeclared, i);
+            }
+
+            for (SchemaVersion dependency : dependencies) {
+                if (dependency.compareTo(migration.getVersion()) >= 0) {
+                    throw new FlywayException("Migration to version " + migration.getVersion()
+                            + " can not depend on version " + dependency + ", as it is not older");
+                }
+                Integer position = positions.get(dependency);
+                if (position != null) {
+                    addDependency(position, i);
+                } else if (dependency.compareTo(currentVersion) > 0) {
+                    throw new FlywayException("Migration to version " + migration.getVersion()
+                            + " depends on version " + dependency + ", which is neither applied nor available");
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the migration at this position has to wait for the one at that position.
+     *
+     * @param predecessor The position of the migration to wait for.
+     * @param successor   The position of the waiting migration.
+     */
+    private void addDependency(int predecessor, int successor) {
+        List<Integer> predecessorSuccessors = successors.get(predecessor);
+        if (!predecessorSuccessors.contains(successor)) {
+            predecessorSuccessors.add(successor);
+            predecessorCounts[successor]++;
+        }
+    }
+
+    /**
+     * @return The number of migrations in the graph.
+     */
+    int size() {
+        return migrations.size();
+    }
+
+    /**
+     * @param position The position of the migration, oldest first.
+     * @return The migration at this position.
+     */
+    Migration getMigration(int position) {
+        return migrations.get(position);
+    }
+
+    /**
+     * @return The positions of the migrations that don't have to wait for any other pending migration, oldest first.
+     */
+    List<Integer> getRoots() {
+        List<Integer> roots = new ArrayList<Integer>();
+        for (int i = 0; i < predecessorCounts.length; i++) {
+            if (predecessorCounts[i] == 0) {
+                roots.add(i);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Marks the migration at this position as completed.
+     *
+     * @param position The position of the completed migration.
+     * @return The positions of the migrations that no longer have to wait for any other migration as a result.
+     */
+    List<Integer> complete(int position) {
+        List<Integer> ready = new ArrayList<Integer>();
+        for (int successor : successors.get(position)) {
+            predecessorCounts[successor]--;
+            if (predecessorCounts[successor] == 0) {
+                ready.add(successor);
+            }
+        }
+        return ready;
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.migration.java.JavaMigrationExecutor;
+import com.googlecode.flyway.core.migration.sql.SqlMigration;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Index of the migrations available on the classpath, generated at build time and packaged with the migrations. When
+ * a matching index is present, the resolvers use it instead of scanning the classpath.
+ * <p/>
+ * The index is stored as a properties file at {@link #LOCATION}. Besides the configuration it was generated with, it
+ * contains one entry per migration: {@code sql.<location on the classpath>} or {@code java.<class name>}, with the
+ * version and the checksum of the migration as value. An index is only used when it was generated with the same
+ * configuration as the one currently in use. Several indexes (for example one per jar) are merged.
+ */
+public class MigrationIndex {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(MigrationIndex.class);
+
+    /**
+     * The location of the index on the classpath.
+     */
+    public static final String LOCATION = "META-INF/flyway/migrations.index";
+
+    /**
+     * The prefix of the keys of sql migrations.
+     */
+    private static final String SQL_PREFIX = "sql.";
+
+    /**
+     * The prefix of the keys of java migrations.
+     */
+    private static final String JAVA_PREFIX = "java.";
+
+    /**
+     * The separator between the version and the checksum in the values of the index.
+     */
+    private static final char SEPARATOR = '|';
+
+    /**
+     * The configuration the index is generated with. Key: configuration property. Value: its value.
+     */
+    private final Map<String, String> configuration = new HashMap<String, String>();
+
+    /**
+     * The locations on the classpath of the indexed sql migrations.
+     */
+    private final List<String> sqlLocations = new ArrayList<String>();
+
+    /**
+     * The class names of the indexed java migrations.
+     */
+    private final List<String> javaClassNames = new ArrayList<String>();
+
+    /**
+     * The versions of the indexed migrations. Key: location or class name. Value: version.
+     */
+    private final Map<String, String> versions = new HashMap<String, String>();
+
+    /**
+     * The checksums of the indexed migrations. Key: location or class name. Value: checksum.
+     */
+    private final Map<String, Integer> checksums = new HashMap<String, Integer>();
+
+    /**
+     * Creates a new empty index for this configuration.
+     *
+     * @param basePackage        The base package where the Java migrations are located.
+     * @param baseDir            The base directory on the classpath where the Sql migrations are located.
+     * @param encoding           The encoding of Sql migrations.
+     * @param sqlMigrationPrefix The file name prefix for sql migrations.
+     * @param sqlMigrationSuffix The file name suffix for sql migrations.
+     */
+    public MigrationIndex(String basePackage, String baseDir, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix) {
+        configuration.put("basePackage", basePackage);
+        configuration.put("baseDir", normalizeBaseDir(baseDir));
+        configuration.put("encoding", encoding);
+        configuration.put("sqlMigrationPrefix", sqlMigrationPrefix);
+        configuration.put("sqlMigrationSuffix", sqlMigrationSuffix);
+    }
+
+    /**
+     * Normalizes this base dir by eliminating leading and trailing slashes.
+     *
+     * @param baseDir The base dir to normalize.
+     * @return The normalized base dir.
+     */
+    private static String normalizeBaseDir(String baseDir) {
+        String normalizedBaseDir = baseDir;
+        if (normalizedBaseDir.startsWith("/")) {
+            normalizedBaseDir = normalizedBaseDir.substring(1);
+        }
+        if (normalizedBaseDir.endsWith("/")) {
+            normalizedBaseDir = normalizedBaseDir.substring(0, normalizedBaseDir.length() - 1);
+        }
+        return normalizedBaseDir;
+    }
+
+    /**
+     * Adds this migration to the index.
+     *
+     * @param migration The migration to add. Only classpath sql migrations and java migrations can be indexed.
+     * @throws FlywayException when this type of migration can not be indexed.
+     */
+    public void addMigration(Migration migration) throws FlywayException {
+        String location;
+        if (migration instanceof SqlMigration) {
+            location = ((SqlMigration) migration).getResourceLocation();
+            sqlLocations.add(location);
+        } else if (migration instanceof JavaMigrationExecutor) {
+            location = migration.getLocation();
+            javaClassNames.add(location);
+        } else {
+            throw new FlywayException("Unable to index migration: " + migration.getLocation()
+                    + " (only sql migrations on the classpath and java migrations can be indexed)");
+        }
+
+        versions.put(location, migration.getVersion().toString());
+        checksums.put(location, migration.getChecksum());
+    }
+
+    /**
+     * @return The locations on the classpath of the indexed sql migrations.
+     */
+    public List<String> getSqlLocations() {
+        return sqlLocations;
+    }
+
+    /**
+     * @return The class names of the indexed java migrations.
+     */
+    public List<String> getJavaClassNames() {
+        return javaClassNames;
+    }
+
+    /**
+     * Retrieves the version of this indexed migration.
+     *
+     * @param location The location on the classpath of the sql migration or the class name of the java migration.
+     * @return The version. {@code null} if this migration is not indexed.
+     */
+    public SchemaVersion getVersion(String location) {
+        String version = versions.get(location);
+        if (version == null) {
+            return null;
+        }
+        return new SchemaVersion(version);
+    }
+
+    /**
+     * Retrieves the checksum of this indexed migration.
+     *
+     * @param location The location on the classpath of the sql migration or the class name of the java migration.
+     * @return The checksum. {@code null} if this migration is not indexed or doesn't have a checksum.
+     */
+    public Integer getChecksum(String location) {
+        return checksums.get(location);
+    }
+
+    /**
+     * Stores this index in this file.
+     *
+     * @param indexFile The file to store the index in. The parent directories are created if necessary.
+     * @throws FlywayException when the index could not be written.
+     */
+    public void store(File indexFile) throws FlywayException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, String> entry : configuration.entrySet()) {
+            properties.setProperty(entry.getKey(), entry.getValue());
+        }
+        for (String location : sqlLocations) {
+            properties.setProperty(SQL_PREFIX + location, toValue(location));
+        }
+        for (String className : javaClassNames) {
+            properties.setProperty(JAVA_PREFIX + className, toValue(className));
+        }
+
+        File parentDir = indexFile.getAbsoluteFile().getParentFile();
+        if ((parentDir != null) && !parentDir.isDirectory() && !parentDir.mkdirs()) {
+            throw new FlywayException("Unable to create directory for migration index: " + parentDir);
+        }
+
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(indexFile);
+            properties.store(outputStream, "Flyway migration index. Generated at build time, do not edit.");
+        } catch (IOException e) {
+            throw new FlywayException("Unable to write migration index: " + indexFile, e);
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    //Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the value of the index entry for this migration.
+     *
+     * @param location The location on the classpath of the sql migration or the class name of the java migration.
+     * @return The value.
+     */
+    private String toValue(String location) {
+        Integer checksum = checksums.get(location);
+        return versions.get(location) + SEPARATOR + ((checksum == null) ? "" : checksum.toString());
+    }
+
+    /**
+     * Loads the indexes present on the classpath that were generated with this configuration and merges them.
+     *
+     * @param basePackage        The base package where the Java migrations are located.
+     * @param baseDir            The base directory on the classpath where the Sql migrations are located.
+     * @param encoding           The encoding of Sql migrations.
+     * @param sqlMigrationPrefix The file name prefix for sql migrations.
+     * @param sqlMigrationSuffix The file name suffix for sql migrations.
+     * @return The index or {@code null} if no matching index could be found on the classpath.
+     * @throws FlywayException when an index could not be read.
+     */
+    public static MigrationIndex load(String basePackage, String baseDir, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix) throws FlywayException {
+        MigrationIndex migrationIndex = new MigrationIndex(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix);
+
+        List<URL> indexUrls;
+        try {
+            indexUrls = Collections.list(Thread.currentThread().getContextClassLoader().getResources(LOCATION));
+        } catch (IOException e) {
+            throw new FlywayException("Unable to look up migration indexes on the classpath", e);
+        }
+
+        boolean found = false;
+        for (URL indexUrl : indexUrls) {
+            Properties properties = loadProperties(indexUrl);
+            if (migrationIndex.matches(properties)) {
+                LOG.debug("Using migration index: " + indexUrl);
+                migrationIndex.addEntries(properties);
+                found = true;
+            } else {
+                LOG.debug("Ignoring migration index generated with a different configuration: " + indexUrl);
+            }
+        }
+
+        if (!found) {
+            return null;
+        }
+        Collections.sort(migrationIndex.sqlLocations);
+        Collections.sort(migrationIndex.javaClassNames);
+        return migrationIndex;
+    }
+
+    /**
+     * Loads the index at this url.
+     *
+     * @param indexUrl The url of the index.
+     * @return The contents of the index.
+     * @throws FlywayException when the index could not be read.
+     */
+    private static Properties loadProperties(URL indexUrl) throws FlywayException {
+        Properties properties = new Properties();
+        InputStream inputStream = null;
+        try {
+            inputStream = indexUrl.openStream();
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new FlywayException("Unable to read migration index: " + indexUrl, e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    //Ignore
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Checks whether an index with these contents was generated with the configuration of this index.
+     *
+     * @param properties The contents of the index.
+     * @return {@code true} if it was, {@code false} if not.
+     */
+    private boolean matches(Properties properties) {
+        for (Map.Entry<String, String> entry : configuration.entrySet()) {
+            if (!entry.getValue().equals(properties.getProperty(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the migrations contained in an index with these contents to this index.
+     *
+     * @param properties The contents of the index.
+     */
+    private void addEntries(Properties properties) {
+        Enumeration<?> keys = properties.propertyNames();
+        while (keys.hasMoreElements()) {
+            String key = (String) keys.nextElement();
+
+            String location;
+            if (key.startsWith(SQL_PREFIX)) {
+                location = key.substring(SQL_PREFIX.length());
+                if (!versions.containsKey(location)) {
+                    sqlLocations.add(location);
+                }
+            } else if (key.startsWith(JAVA_PREFIX)) {
+                location = key.substring(JAVA_PREFIX.length());
+                if (!versions.containsKey(location)) {
+                    javaClassNames.add(location);
+                }
+            } else {
+                continue;
+            }
+
+            String value = properties.getProperty(key);
+            int separatorPos = value.lastIndexOf(SEPARATOR);
+            String checksum = value.substring(separatorPos + 1);
+            versions.put(location, value.substring(0, separatorPos));
+            checksums.put(location, (checksum.length() == 0) ? null : Integer.valueOf(checksum));
+        }
+    }
+}
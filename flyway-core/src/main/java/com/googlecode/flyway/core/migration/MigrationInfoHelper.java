@@ -17,11 +17,22 @@ package com.googlecode.flyway.core.migration;
 
 import com.googlecode.flyway.core.exception.FlywayException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Parsing support for migrations that use the standard Flyway version + description embedding in their name. These
  * migrations have names like 1_2__Description .
  */
 public class MigrationInfoHelper {
+    /**
+     * The keyword of the comment in the header of sql migrations declaring the versions they depend on.
+     */
+    private static final String DEPENDS_ON_KEYWORD = "flyway.dependsOn:";
+
     /**
      * Prevents instantiation.
      */
@@ -73,4 +84,42 @@ public class MigrationInfoHelper {
 
         return null;
     }
+
+    /**
+     * Extracts the versions a sql migration depends on from the comments at the start of its script, formatted as
+     * {@code -- flyway.dependsOn: 1.1, 2}. Only the comments before the first statement are read.
+     *
+     * @param reader The reader for the sql script. It is not closed.
+     * @return The versions the migration depends on. {@code null} if the script doesn't declare them.
+     * @throws FlywayException when the script could not be read.
+     */
+    public static SchemaVersion[] extractDependencies(Reader reader) throws FlywayException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        try {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                if (!line.startsWith("--")) {
+                    return null;
+                }
+
+                String comment = line.substring(2).trim();
+                if (comment.startsWith(DEPENDS_ON_KEYWORD)) {
+                    List<SchemaVersion> dependencies = new ArrayList<SchemaVersion>();
+                    for (String dependency : comment.substring(DEPENDS_ON_KEYWORD.length()).split(",")) {
+                        if (dependency.trim().length() > 0) {
+                            dependencies.add(extractSchemaVersion(dependency.trim()));
+                        }
+                    }
+                    return dependencies.toArray(new SchemaVersion[dependencies.size()]);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new FlywayException("Unable to read the dependencies of sql migration", e);
+        }
+    }
 }
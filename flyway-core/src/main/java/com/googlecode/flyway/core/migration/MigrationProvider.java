@@ -19,6 +19,7 @@ import java.util.*;
 
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.java.JavaMigrationResolver;
+import com.googlecode.flyway.core.migration.sql.ChecksumIndex;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlMigrationResolver;
 import com.googlecode.flyway.core.migration.sqlfs.SqlfsMigrationResolver;
@@ -69,6 +70,16 @@ public class MigrationProvider {
      */
     private final String placeholderSuffix;
 
+    /**
+     * The index used to avoid recalculating the checksum of unchanged sql scripts. {@code null} for none.
+     */
+    private final ChecksumIndex checksumIndex;
+
+    /**
+     * The maximum number of threads to use to scan the classpath for migrations.
+     */
+    private final int scanThreads;
+
     /**
      * The available migrations, sorted by version, newest first. An empty list is returned when no migrations can be
      * found.
@@ -88,6 +99,26 @@ public class MigrationProvider {
      * @param placeholderSuffix  The suffix of every placeholder.
      */
     public MigrationProvider(String basePackage, String baseDir, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix, Map<String, String> placeholders, String placeholderPrefix, String placeholderSuffix) {
+        this(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix, placeholders, placeholderPrefix, placeholderSuffix, null, 1);
+    }
+
+    /**
+     * Creates a new MigrationProvider.
+     *
+     * @param basePackage        The base package where the Java migrations are located.
+     * @param baseDir            The base directory on the classpath where the Sql migrations are located.
+     * @param encoding           The encoding of Sql migrations.
+     * @param sqlMigrationPrefix The file name prefix for sql migrations.
+     * @param sqlMigrationSuffix The file name suffix for sql migrations.
+     * @param placeholders       A map of <placeholder, replacementValue> to apply to sql migration scripts.
+     * @param placeholderPrefix  The prefix of every placeholder.
+     * @param placeholderSuffix  The suffix of every placeholder.
+     * @param checksumIndex      The index used to avoid recalculating the checksum of unchanged sql scripts.
+     *                           {@code null} for none.
+     * @param scanThreads        The maximum number of threads to use to scan the classpath for migrations. 1 or less
+     *                           for sequential scanning.
+     */
+    public MigrationProvider(String basePackage, String baseDir, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix, Map<String, String> placeholders, String placeholderPrefix, String placeholderSuffix, ChecksumIndex checksumIndex, int scanThreads) {
         this.basePackage = basePackage;
         this.baseDir = baseDir;
         this.encoding = encoding;
@@ -96,6 +127,8 @@ public class MigrationProvider {
         this.placeholders = placeholders;
         this.placeholderPrefix = placeholderPrefix;
         this.placeholderSuffix = placeholderSuffix;
+        this.checksumIndex = checksumIndex;
+        this.scanThreads = scanThreads;
     }
 
     /**
@@ -108,30 +141,46 @@ public class MigrationProvider {
      */
     public List<Migration> findAvailableMigrations() throws FlywayException {
         if (availableMigrations == null) {
-            availableMigrations = doFindAvailableMigrations();
+            MigrationIndex migrationIndex =
+                    MigrationIndex.load(basePackage, baseDir, encoding, sqlMigrationPrefix, sqlMigrationSuffix);
+            availableMigrations = doFindAvailableMigrations(migrationIndex);
         }
 
         return availableMigrations;
     }
 
+    /**
+     * Finds all available migrations by scanning the classpath, ignoring any migration index.
+     *
+     * @return The available migrations, sorted by version, newest first. An empty list is returned when no migrations
+     *         can be found.
+     * @throws com.googlecode.flyway.core.exception.FlywayException
+     *          when the available migrations have overlapping versions.
+     */
+    public List<Migration> scanAvailableMigrations() throws FlywayException {
+        return doFindAvailableMigrations(null);
+    }
+
     /**
      * Finds all available migrations using all migration resolvers (sql, java, ...).
      *
+     * @param migrationIndex The build-time index of the available migrations to use instead of scanning the
+     *                       classpath. {@code null} for none.
      * @return The available migrations, sorted by version, newest first. An empty list is returned when no migrations
      *         can be found.
      * @throws com.googlecode.flyway.core.exception.FlywayException
      *          when the available migrations have overlapping versions.
      */
-    private List<Migration> doFindAvailableMigrations() throws FlywayException {
+    private List<Migration> doFindAvailableMigrations(MigrationIndex migrationIndex) throws FlywayException {
         PlaceholderReplacer placeholderReplacer = new PlaceholderReplacer(placeholders, placeholderPrefix, placeholderSuffix);
 
         Collection<MigrationResolver> migrationResolvers = new ArrayList<MigrationResolver>();
-        migrationResolvers.add(new JavaMigrationResolver(basePackage));
+        migrationResolvers.add(new JavaMigrationResolver(basePackage, scanThreads, migrationIndex));
 
         if (baseDir.startsWith("file:")) {
             migrationResolvers.add(new SqlfsMigrationResolver(baseDir, placeholderReplacer, encoding, sqlMigrationPrefix, sqlMigrationSuffix));
         } else {
-            migrationResolvers.add(new SqlMigrationResolver(baseDir, placeholderReplacer, encoding, sqlMigrationPrefix, sqlMigrationSuffix));
+            migrationResolvers.add(new SqlMigrationResolver(baseDir, placeholderReplacer, encoding, sqlMigrationPrefix, sqlMigrationSuffix, checksumIndex, scanThreads, migrationIndex));
         }
 
         List<Migration> migrations = new ArrayList<Migration>(collectMigrations(migrationResolvers));
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.metrics.CompositeMigrationListener;
+import com.googlecode.flyway.core.metrics.MigrationListener;
+
+/**
+ * The settings of a single run of a Flyway command, shared by everything executing migrations or taking the migration
+ * lock during that run, whatever connection or DbSupport they use.
+ */
+public class MigrationSettings {
+    /**
+     * The maximum number of consecutive DML statements to send to the database as a single JDBC batch when executing
+     * sql scripts. 1 or less disables batching.
+     */
+    private final int batchSize;
+
+    /**
+     * The listener to notify of the migrations applied and the statements executed.
+     */
+    private final MigrationListener migrationListener;
+
+    /**
+     * The maximum time to wait for the migration lock, in seconds. 0 or less to wait as long as necessary.
+     */
+    private final int lockTimeout;
+
+    /**
+     * Creates new settings with the defaults: no batching, no listener and waiting for the migration lock as long as
+     * necessary.
+     */
+    public MigrationSettings() {
+        this(1, new CompositeMigrationListener(), 0);
+    }
+
+    /**
+     * Creates new settings.
+     *
+     * @param batchSize         The maximum number of consecutive DML statements to send to the database as a single
+     *                          JDBC batch when executing sql scripts. 1 or less disables batching.
+     * @param migrationListener The listener to notify of the migrations applied and the statements executed.
+     * @param lockTimeout       The maximum time to wait for the migration lock, in seconds. 0 or less to wait as long
+     *                          as necessary.
+     */
+    public MigrationSettings(int batchSize, MigrationListener migrationListener, int lockTimeout) {
+        this.batchSize = batchSize;
+        this.migrationListener = migrationListener;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * @return The maximum number of consecutive DML statements to send to the database as a single JDBC batch when
+     *         executing sql scripts. 1 or less disables batching.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return The listener to notify of the migrations applied and the statements executed.
+     */
+    public MigrationListener getMigrationListener() {
+        return migrationListener;
+    }
+
+    /**
+     * @return The maximum time to wait for the migration lock, in seconds. 0 or less to wait as long as necessary.
+     */
+    public int getLockTimeout() {
+        return lockTimeout;
+    }
+
+    /**
+     * Creates a copy of these settings also notifying this listener, after the current one.
+     *
+     * @param additionalListener The listener to notify as well.
+     * @return The new settings.
+     */
+    public MigrationSettings withAdditionalListener(MigrationListener additionalListener) {
+        return new MigrationSettings(batchSize,
+                new CompositeMigrationListener(migrationListener, additionalListener), lockTimeout);
+    }
+}
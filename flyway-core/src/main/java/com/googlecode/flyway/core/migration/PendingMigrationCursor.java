@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cursor over the available migrations, oldest first, used to look up the next migration to apply during a migration
+ * run. It is built once per run and only moves forward as the schema version increases, so resolving all pending
+ * migrations of a run takes linear time in total instead of rescanning the list for every migration.
+ */
+class PendingMigrationCursor {
+    /**
+     * The available migrations, sorted by version, oldest first.
+     */
+    private final List<Migration> migrations;
+
+    /**
+     * The position of the first migration newer than the schema version seen at the last lookup.
+     */
+    private int position;
+
+    /**
+     * Creates a new cursor positioned before the oldest migration.
+     *
+     * @param allMigrations All available migrations, sorted by version, newest first.
+     */
+    PendingMigrationCursor(List<Migration> allMigrations) {
+        migrations = new ArrayList<Migration>(allMigrations);
+        Collections.reverse(migrations);
+    }
+
+    /**
+     * Returns the next migration to apply. The cursor does not move past this migration until the schema version has
+     * reached its version.
+     *
+     * @param currentVersion The current version of the schema.
+     * @param target         The target version up to which migrations should be applied.
+     * @return The next migration to apply. {@code null} if there is none.
+     */
+    Migration next(SchemaVersion currentVersion, SchemaVersion target) {
+        if ((position > 0) && (migrations.get(position - 1).getVersion().compareTo(currentVersion) > 0)) {
+            // The schema version went backwards (it was changed externally): look up the position again.
+            position = 0;
+        }
+        if ((position == 0) && !migrations.isEmpty() && (migrations.get(0).getVersion().compareTo(currentVersion) <= 0)) {
+            position = findFirstNewerThan(currentVersion);
+        }
+        while ((position < migrations.size()) && (migrations.get(position).getVersion().compareTo(currentVersion) <= 0)) {
+            position++;
+        }
+
+        if (position == migrations.size()) {
+            return null;
+        }
+
+        Migration nextMigration = migrations.get(position);
+        if (target.compareTo(nextMigration.getVersion()) < 0) {
+            return null;
+        }
+        return nextMigration;
+    }
+
+    /**
+     * Searches the position of the first migration with a version newer than this one.
+     *
+     * @param version The version to compare against.
+     * @return The position of the first newer migration. The number of migrations if there is none.
+     */
+    private int findFirstNewerThan(SchemaVersion version) {
+        int low = 0;
+        int high = migrations.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (migrations.get(middle).getVersion().compareTo(version) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
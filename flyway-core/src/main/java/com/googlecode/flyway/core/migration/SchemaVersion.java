@@ -38,6 +38,23 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
      */
     private final String version;
 
+    /**
+     * The numeric value of the individual elements of this version. Ex. 1.2.3.4.0 -> [1, 2, 3, 4, 0]. Elements that
+     * aren't numeric are 0 here and can be found in textElements.
+     */
+    private final long[] numericElements;
+
+    /**
+     * The individual elements of this version as strings, only for versions that contain elements that aren't numeric.
+     * The entries of the numeric elements are {@code null}. {@code null} if all elements are numeric.
+     */
+    private final String[] textElements;
+
+    /**
+     * The hash code of this version, consistent with compareTo.
+     */
+    private final int hashCode;
+
     /**
      * Creates a SchemaVersion using this version string.
      *
@@ -46,6 +63,69 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
      */
     public SchemaVersion(String version) {
         this.version = version;
+
+        String[] elements = getElements();
+        if (elements == null) {
+            elements = new String[0];
+        }
+
+        numericElements = new long[elements.length];
+        String[] texts = null;
+        for (int i = 0; i < elements.length; i++) {
+            Long numericElement = parseNumericElement(elements[i]);
+            if (numericElement == null) {
+                if (texts == null) {
+                    texts = new String[elements.length];
+                }
+                texts[i] = elements[i];
+            } else {
+                numericElements[i] = numericElement;
+            }
+        }
+        textElements = texts;
+
+        hashCode = calculateHashCode();
+    }
+
+    /**
+     * Parses this version element as a number.
+     *
+     * @param element The element to parse.
+     * @return The number or {@code null} if it isn't numeric (or too large to be handled as a number).
+     */
+    private static Long parseNumericElement(String element) {
+        if (!StringUtils.isNumeric(element)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(element);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calculates the hash code of this version. Trailing zero elements are ignored, as 1.1 and 1.1.0 are equal.
+     *
+     * @return The hash code.
+     */
+    private int calculateHashCode() {
+        int length = numericElements.length;
+        while ((length > 0) && isZero(length - 1)) {
+            length--;
+        }
+
+        int result = 1;
+        for (int i = 0; i < length; i++) {
+            int elementHashCode;
+            if (isNumeric(i)) {
+                elementHashCode = (int) (numericElements[i] ^ (numericElements[i] >>> 32));
+            } else {
+                elementHashCode = textElements[i].hashCode();
+            }
+            result = 31 * result + elementHashCode;
+        }
+        return result;
     }
 
     /**
@@ -55,6 +135,35 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
         return StringUtils.tokenizeToStringArray(version, ".-");
     }
 
+    /**
+     * @param index The index of the element.
+     * @return Whether the element at this index is numeric.
+     */
+    private boolean isNumeric(int index) {
+        return (textElements == null) || (textElements[index] == null);
+    }
+
+    /**
+     * @param index The index of the element.
+     * @return Whether the element at this index is numeric and zero.
+     */
+    private boolean isZero(int index) {
+        return isNumeric(index) && (numericElements[index] == 0);
+    }
+
+    /**
+     * Retrieves the element at this index as a string. Only used when comparing numeric with non-numeric elements.
+     *
+     * @param index The index of the element.
+     * @return The element.
+     */
+    private String getTextElement(int index) {
+        if (isNumeric(index)) {
+            return getElements()[index];
+        }
+        return textElements[index];
+    }
+
     /**
      * @return The version string
      */
@@ -74,7 +183,7 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
 
     @Override
     public int hashCode() {
-        return version.hashCode();
+        return hashCode;
     }
 
     public int compareTo(SchemaVersion o) {
@@ -97,17 +206,15 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
         if (o == LATEST) {
             return Integer.MIN_VALUE;
         }
-        final String[] elements1 = getElements();
-        final String[] elements2 = o.getElements();
+        final long[] elements1 = numericElements;
+        final long[] elements2 = o.numericElements;
         int smallestNumberOfElements = Math.min(elements1.length, elements2.length);
         for (int i = 0; i < smallestNumberOfElements; i++) {
-            String element1 = elements1[i];
-            String element2 = elements2[i];
             final int compared;
-            if (StringUtils.isNumeric(element1) && StringUtils.isNumeric(element2)) {
-                compared = Long.valueOf(element1).compareTo(Long.valueOf(element2));
+            if (isNumeric(i) && o.isNumeric(i)) {
+                compared = (elements1[i] < elements2[i]) ? -1 : ((elements1[i] == elements2[i]) ? 0 : 1);
             } else {
-                compared = element1.compareTo(element2);
+                compared = getTextElement(i).compareTo(o.getTextElement(i));
             }
             if (compared != 0) {
                 return compared;
@@ -115,10 +222,10 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
         }
 
         final int lengthDifference = elements1.length - elements2.length;
-        if (lengthDifference > 0 && onlyTrailingZeroes(elements1, smallestNumberOfElements)) {
+        if (lengthDifference > 0 && onlyTrailingZeroes(smallestNumberOfElements)) {
             return 0;
         }
-        if (lengthDifference < 0 && onlyTrailingZeroes(elements2, smallestNumberOfElements)) {
+        if (lengthDifference < 0 && o.onlyTrailingZeroes(smallestNumberOfElements)) {
             return 0;
         }
         return lengthDifference;
@@ -127,15 +234,13 @@ public final class SchemaVersion implements Comparable<SchemaVersion> {
     /**
      * Checks whether the elements at this position and beyond are only zeroes or not.
      *
-     * @param elements The elements to check.
      * @param position The position where to start checking.
      *
      * @return {@code true} if they are all zeroes, {@code false} if not.
      */
-    private boolean onlyTrailingZeroes(String[] elements, int position) {
-        for (int i = position; i < elements.length; i++) {
-            String element = elements[i];
-            if (!StringUtils.isNumeric(element) || !Long.valueOf(element).equals(0L)) {
+    private boolean onlyTrailingZeroes(int position) {
+        for (int i = position; i < numericElements.length; i++) {
+            if (!isZero(i)) {
                 return false;
             }
         }
@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.java;
+
+import com.googlecode.flyway.core.migration.SchemaVersion;
+
+/**
+ * JavaMigration implementors that also implement this interface will be able to declare the versions they depend on,
+ * so they can be applied in parallel with the migrations they are independent of, instead of having to wait for all
+ * older migrations.
+ */
+public interface JavaMigrationDependencyProvider {
+    /**
+     * @return The versions the migration depends on, all older than its own. An empty array if it only depends on
+     *         migrations that have already been applied.
+     */
+    SchemaVersion[] getDependencies();
+}
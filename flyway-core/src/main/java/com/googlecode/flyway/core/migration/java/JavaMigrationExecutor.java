@@ -20,6 +20,8 @@ import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.Migration;
 import com.googlecode.flyway.core.migration.MigrationInfoHelper;
 import com.googlecode.flyway.core.migration.MigrationType;
+import com.googlecode.flyway.core.migration.SchemaVersion;
+import com.googlecode.flyway.core.util.ClassUtils;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 
@@ -28,9 +30,19 @@ import org.springframework.jdbc.datasource.SingleConnectionDataSource;
  */
 public class JavaMigrationExecutor extends Migration {
     /**
-     * The JavaMigration to execute.
+     * The class of the JavaMigration to execute.
      */
-    private final JavaMigration javaMigration;
+    private final Class<?> migrationClass;
+
+    /**
+     * The JavaMigration to execute. Only instantiated when first needed.
+     */
+    private JavaMigration javaMigration;
+
+    /**
+     * Whether the checksum of the migration has been retrieved yet.
+     */
+    private boolean checksumRetrieved;
 
     /**
      * Creates a new JavaMigrationExecutor.
@@ -39,25 +51,90 @@ public class JavaMigrationExecutor extends Migration {
      */
     public JavaMigrationExecutor(JavaMigration javaMigration) {
         this.javaMigration = javaMigration;
+        this.migrationClass = javaMigration.getClass();
+        initVersionAndDescription();
+    }
 
-        if (javaMigration instanceof JavaMigrationChecksumProvider) {
-            JavaMigrationChecksumProvider checksumProvider = (JavaMigrationChecksumProvider) javaMigration;
-            checksum = checksumProvider.getChecksum();
+    /**
+     * Creates a new JavaMigrationExecutor for this JavaMigration class. The class is loaded, but neither initialized
+     * nor instantiated until the migration is actually executed or its checksum is needed. Only migrations that
+     * implement JavaMigrationInfoProvider must be instantiated straight away to determine their version.
+     *
+     * @param className The fully qualified name of the JavaMigration class.
+     * @throws FlywayException when the class could not be loaded.
+     */
+    public JavaMigrationExecutor(String className) throws FlywayException {
+        try {
+            this.migrationClass = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new FlywayException("Unable to load Java migration: " + className, e);
         }
+        initVersionAndDescription();
+    }
 
-        if (javaMigration instanceof JavaMigrationInfoProvider) {
-            JavaMigrationInfoProvider infoProvider = (JavaMigrationInfoProvider) javaMigration;
+    /**
+     * Initializes the version, description and script name of this migration.
+     */
+    private void initVersionAndDescription() {
+        if (JavaMigrationInfoProvider.class.isAssignableFrom(migrationClass)) {
+            JavaMigrationInfoProvider infoProvider = (JavaMigrationInfoProvider) getJavaMigration();
             schemaVersion = infoProvider.getVersion();
             description = infoProvider.getDescription();
         } else {
-            String className = javaMigration.getClass().getName();
+            String className = migrationClass.getName();
             String classShortName = className.substring(className.lastIndexOf(".") + 1);
             String nameWithoutV = classShortName.substring(1);
             schemaVersion = MigrationInfoHelper.extractSchemaVersion(nameWithoutV);
             description = MigrationInfoHelper.extractDescription(nameWithoutV);
         }
 
-        script = javaMigration.getClass().getName();
+        script = migrationClass.getName();
+    }
+
+    /**
+     * @return The JavaMigration to execute, instantiated if necessary.
+     * @throws FlywayException when the migration could not be instantiated.
+     */
+    private JavaMigration getJavaMigration() throws FlywayException {
+        if (javaMigration == null) {
+            try {
+                javaMigration = (JavaMigration) ClassUtils.instantiate(migrationClass.getName());
+            } catch (Exception e) {
+                throw new FlywayException("Unable to instantiate Java migration: " + migrationClass.getName(), e);
+            }
+        }
+        return javaMigration;
+    }
+
+    /**
+     * Retrieves the checksum of this migration. Migrations implementing JavaMigrationChecksumProvider are only
+     * instantiated the first time it is needed.
+     *
+     * @return The checksum of the migration. {@code null} if it doesn't provide one.
+     */
+    @Override
+    public Integer getChecksum() {
+        if (!checksumRetrieved) {
+            if (JavaMigrationChecksumProvider.class.isAssignableFrom(migrationClass)) {
+                checksum = ((JavaMigrationChecksumProvider) getJavaMigration()).getChecksum();
+            }
+            checksumRetrieved = true;
+        }
+        return checksum;
+    }
+
+    /**
+     * Retrieves the versions this migration depends on. Migrations implementing JavaMigrationDependencyProvider are
+     * only instantiated the first time they are needed.
+     *
+     * @return The versions this migration depends on. {@code null} if it doesn't declare them.
+     */
+    @Override
+    public SchemaVersion[] getDependencies() {
+        if (JavaMigrationDependencyProvider.class.isAssignableFrom(migrationClass)) {
+            return ((JavaMigrationDependencyProvider) getJavaMigration()).getDependencies();
+        }
+        return null;
     }
 
     @Override
@@ -72,8 +149,9 @@ public class JavaMigrationExecutor extends Migration {
 
     @Override
     public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
+        JavaMigration migration = getJavaMigration();
         try {
-            javaMigration.migrate(new org.springframework.jdbc.core.JdbcTemplate(
+            migration.migrate(new org.springframework.jdbc.core.JdbcTemplate(
                     new SingleConnectionDataSource(jdbcTemplate.getConnection(), true)));
         } catch (Exception e) {
             throw new FlywayException("Migration failed !", e);
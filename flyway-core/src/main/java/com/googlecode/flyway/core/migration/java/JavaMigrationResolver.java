@@ -17,12 +17,13 @@ package com.googlecode.flyway.core.migration.java;
 
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationIndex;
 import com.googlecode.flyway.core.migration.MigrationResolver;
 import com.googlecode.flyway.core.util.scanner.ClassPathScanner;
-import com.googlecode.flyway.core.util.ClassUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Migration resolver for java class based migrations. The classes must have a name like V1 or V1_1_3 or V1__Description
@@ -34,23 +35,54 @@ public class JavaMigrationResolver implements MigrationResolver {
      */
     private final String basePackage;
 
+    /**
+     * The maximum number of threads to use to scan the classpath.
+     */
+    private final int scanThreads;
+
+    /**
+     * The build-time index of the available migrations to use instead of scanning the classpath. {@code null} for none.
+     */
+    private final MigrationIndex migrationIndex;
+
     /**
      * Creates a new instance.
      *
      * @param basePackage The base package on the classpath where to migrations are located.
      */
     public JavaMigrationResolver(String basePackage) {
+        this(basePackage, 1, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param basePackage The base package on the classpath where to migrations are located.
+     * @param scanThreads    The maximum number of threads to use to scan the classpath. 1 or less for sequential
+     *                       scanning.
+     * @param migrationIndex The build-time index of the available migrations to use instead of scanning the
+     *                       classpath. {@code null} for none.
+     */
+    public JavaMigrationResolver(String basePackage, int scanThreads, MigrationIndex migrationIndex) {
         this.basePackage = basePackage;
+        this.scanThreads = scanThreads;
+        this.migrationIndex = migrationIndex;
     }
 
     public Collection<Migration> resolveMigrations() {
         Collection<Migration> migrations = new ArrayList<Migration>();
 
         try {
-            Class<?>[] classes = new ClassPathScanner().scanForClasses(basePackage, JavaMigration.class);
-            for (Class<?> clazz : classes) {
-                JavaMigration javaMigration = (JavaMigration) ClassUtils.instantiate(clazz.getName());
-                migrations.add(new JavaMigrationExecutor(javaMigration));
+            String[] classNames;
+            if (migrationIndex != null) {
+                List<String> indexedClassNames = migrationIndex.getJavaClassNames();
+                classNames = indexedClassNames.toArray(new String[indexedClassNames.size()]);
+            } else {
+                classNames = new ClassPathScanner(scanThreads).scanForClassNames(basePackage, JavaMigration.class);
+            }
+
+            for (String className : classNames) {
+                migrations.add(new JavaMigrationExecutor(className));
             }
         } catch (Exception e) {
             throw new FlywayException("Unable to resolve Java migrations in location: " + basePackage, e);
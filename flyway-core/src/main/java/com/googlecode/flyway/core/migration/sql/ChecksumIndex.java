@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.sql;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+
+/**
+ * Persistent index of the checksums of sql migration scripts, stored in a properties file.
+ * <p/>
+ * Each entry is keyed by the location of the script and only used as long as the fingerprint of the script is
+ * unchanged. The fingerprint is made of the size and last modification time for files on disk, or the CRC and size
+ * recorded in the jar directory for jar entries, plus the encodings used to calculate the checksum. This means unchanged
+ * scripts never have to be read to obtain their checksum.
+ * <p/>
+ * The index is purely an optimization: when it can not be read or written, a warning is logged and checksums are simply
+ * calculated from the scripts.
+ */
+public class ChecksumIndex {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(ChecksumIndex.class);
+
+    /**
+     * The separator between the fingerprint and the checksum in the values of the index.
+     */
+    private static final char SEPARATOR = '|';
+
+    /**
+     * The file in which the index is stored.
+     */
+    private final File indexFile;
+
+    /**
+     * The entries of the index. Key: location of the script. Value: fingerprint|checksum.
+     */
+    private final Properties entries = new Properties();
+
+    /**
+     * Whether the index has been modified since it was last loaded or saved.
+     */
+    private boolean modified;
+
+    /**
+     * Creates a new checksum index stored in this file. The existing entries are loaded if the file exists.
+     *
+     * @param indexFile The file in which the index is stored.
+     */
+    public ChecksumIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    /**
+     * Loads the entries from the index file, if it exists.
+     */
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+
+        InputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(indexFile);
+            entries.load(inputStream);
+        } catch (IOException e) {
+            LOG.warn("Unable to read checksum index " + indexFile + ": " + e.getMessage());
+            entries.clear();
+        } finally {
+            close(inputStream);
+        }
+    }
+
+    /**
+     * Retrieves the indexed checksum of the script at this location.
+     *
+     * @param location    The location of the script.
+     * @param fingerprint The current fingerprint of the script.
+     * @return The checksum or {@code null} if the script isn't indexed or has changed since.
+     */
+    public synchronized Integer getChecksum(String location, String fingerprint) {
+        String entry = entries.getProperty(location);
+        if (entry == null) {
+            return null;
+        }
+
+        int separatorPos = entry.lastIndexOf(SEPARATOR);
+        if ((separatorPos < 0) || !entry.substring(0, separatorPos).equals(fingerprint)) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(entry.substring(separatorPos + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the checksum of the script at this location.
+     *
+     * @param location    The location of the script.
+     * @param fingerprint The current fingerprint of the script.
+     * @param checksum    The checksum of the script.
+     */
+    public synchronized void putChecksum(String location, String fingerprint, int checksum) {
+        entries.setProperty(location, fingerprint + SEPARATOR + checksum);
+        modified = true;
+    }
+
+    /**
+     * Saves the index to its file, if it has been modified. The file is written to a temporary file first and then
+     * renamed, so that concurrent readers never see a partially written index.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+
+        File parentDir = indexFile.getAbsoluteFile().getParentFile();
+        if ((parentDir != null) && !parentDir.isDirectory() && !parentDir.mkdirs()) {
+            LOG.warn("Unable to create directory for checksum index " + indexFile);
+            return;
+        }
+
+        File tempFile = new File(parentDir, indexFile.getName() + ".tmp");
+        OutputStream outputStream = null;
+        try {
+            outputStream = new FileOutputStream(tempFile);
+            entries.store(outputStream, "Flyway sql migration checksum index");
+        } catch (IOException e) {
+            LOG.warn("Unable to write checksum index " + indexFile + ": " + e.getMessage());
+            return;
+        } finally {
+            close(outputStream);
+        }
+
+        if (indexFile.exists() && !indexFile.delete()) {
+            LOG.warn("Unable to replace checksum index " + indexFile);
+            return;
+        }
+        if (!tempFile.renameTo(indexFile)) {
+            LOG.warn("Unable to replace checksum index " + indexFile);
+            return;
+        }
+
+        modified = false;
+    }
+
+    /**
+     * Calculates the fingerprint of the script at this url, without reading its contents.
+     *
+     * @param url      The url of the script.
+     * @param encoding The encoding of the script.
+     * @return The fingerprint or {@code null} if none can be calculated cheaply for this kind of url.
+     */
+    public static String fingerprint(URL url, String encoding) {
+        String encodings = encoding + ";" + Charset.defaultCharset().name();
+
+        if ("file".equals(url.getProtocol())) {
+            File file;
+            try {
+                file = new File(url.toURI());
+            } catch (URISyntaxException e) {
+                file = new File(url.getPath());
+            }
+            if (!file.isFile()) {
+                return null;
+            }
+            return "file;" + file.length() + ";" + file.lastModified() + ";" + encodings;
+        }
+
+        if ("jar".equals(url.getProtocol())) {
+            try {
+                JarEntry jarEntry = ((JarURLConnection) url.openConnection()).getJarEntry();
+                if ((jarEntry == null) || (jarEntry.getCrc() < 0)) {
+                    return null;
+                }
+                return "jar;" + jarEntry.getSize() + ";" + jarEntry.getCrc() + ";" + encodings;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Safely closes this stream. This method never fails.
+     *
+     * @param closeable The stream to close. May be {@code null}.
+     */
+    private static void close(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            //Ignore
+        }
+    }
+}
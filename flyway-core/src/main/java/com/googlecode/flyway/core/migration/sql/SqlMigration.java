@@ -16,12 +16,21 @@
 package com.googlecode.flyway.core.migration.sql;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.Migration;
 import com.googlecode.flyway.core.migration.MigrationInfoHelper;
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.migration.MigrationType;
+import com.googlecode.flyway.core.migration.SchemaVersion;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
 import java.util.zip.CRC32;
 
 /**
@@ -45,6 +54,21 @@ public class SqlMigration extends Migration {
      */
     private final String encoding;
 
+    /**
+     * The index used to avoid recalculating the checksum of unchanged scripts. {@code null} for none.
+     */
+    private final ChecksumIndex checksumIndex;
+
+    /**
+     * The versions this migration depends on. Only valid if {@code dependenciesRead} is {@code true}.
+     */
+    private SchemaVersion[] dependencies;
+
+    /**
+     * Whether the dependencies have been read from the script yet.
+     */
+    private boolean dependenciesRead;
+
     /**
      * Creates a new sql script migration based on this sql script.
      *
@@ -58,40 +82,194 @@ public class SqlMigration extends Migration {
      */
     public SqlMigration(ClassPathResource sqlScriptResource, PlaceholderReplacer placeholderReplacer, String encoding,
                         String versionString, String scriptName) {
+        this(sqlScriptResource, placeholderReplacer, encoding, versionString, scriptName, null, null);
+    }
+
+    /**
+     * Creates a new sql script migration based on this sql script.
+     *
+     * @param sqlScriptResource   The resource containing the sql script.
+     * @param placeholderReplacer The placeholder replacer to apply to sql migration scripts.
+     * @param encoding            The encoding of this Sql migration.
+     * @param versionString       The migration name in standard Flyway format '<VERSION>__<DESCRIPTION>, e.g.
+     *                            1_2__Description
+     * @param scriptName          The filename of this sql script, including the relative path from the root of
+     *                            baseDir.
+     * @param checksumIndex       The index used to avoid recalculating the checksum of unchanged scripts.
+     *                            {@code null} for none.
+     */
+    public SqlMigration(ClassPathResource sqlScriptResource, PlaceholderReplacer placeholderReplacer, String encoding,
+                        String versionString, String scriptName, ChecksumIndex checksumIndex) {
+        this(sqlScriptResource, placeholderReplacer, encoding, versionString, scriptName, checksumIndex, null);
+    }
+
+    /**
+     * Creates a new sql script migration based on this sql script.
+     *
+     * @param sqlScriptResource   The resource containing the sql script.
+     * @param placeholderReplacer The placeholder replacer to apply to sql migration scripts.
+     * @param encoding            The encoding of this Sql migration.
+     * @param versionString       The migration name in standard Flyway format '<VERSION>__<DESCRIPTION>, e.g.
+     *                            1_2__Description
+     * @param scriptName          The filename of this sql script, including the relative path from the root of
+     *                            baseDir.
+     * @param checksumIndex       The index used to avoid recalculating the checksum of unchanged scripts.
+     *                            {@code null} for none.
+     * @param checksum            The checksum of the script, if it is already known (from a migration index).
+     *                            {@code null} to calculate it when it is first needed.
+     */
+    public SqlMigration(ClassPathResource sqlScriptResource, PlaceholderReplacer placeholderReplacer, String encoding,
+                        String versionString, String scriptName, ChecksumIndex checksumIndex, Integer checksum) {
         this.sqlScriptResource = sqlScriptResource;
         this.encoding = encoding;
+        this.checksumIndex = checksumIndex;
+        this.checksum = checksum;
 
         schemaVersion = MigrationInfoHelper.extractSchemaVersion(versionString);
         description = MigrationInfoHelper.extractDescription(versionString);
 
-        String sqlScriptSource = sqlScriptResource.loadAsString(encoding);
-        checksum = calculateChecksum(sqlScriptSource);
-
         this.script = scriptName;
         this.placeholderReplacer = placeholderReplacer;
     }
 
+    /**
+     * Retrieves the checksum of this sql script. It is calculated the first time it is needed, so that scripts of
+     * migrations whose checksum is never used (like migrations that are neither applied nor pending) are never read.
+     * If a checksum index is available, the script is not read either as long as it is unchanged since it was indexed.
+     *
+     * @return The crc-32 checksum of the script.
+     */
+    @Override
+    public Integer getChecksum() {
+        if (checksum == null) {
+            if (checksumIndex == null) {
+                checksum = calculateChecksum();
+            } else {
+                checksum = getIndexedChecksum();
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * Retrieves the checksum of this sql script from the checksum index, calculating and indexing it if necessary.
+     *
+     * @return The crc-32 checksum of the script.
+     */
+    private int getIndexedChecksum() {
+        URL url = sqlScriptResource.getUrl();
+        String fingerprint = (url == null) ? null : ChecksumIndex.fingerprint(url, encoding);
+        if (fingerprint == null) {
+            return calculateChecksum();
+        }
+
+        String location = sqlScriptResource.getLocation();
+        Integer indexedChecksum = checksumIndex.getChecksum(location, fingerprint);
+        if (indexedChecksum != null) {
+            return indexedChecksum;
+        }
+
+        int calculatedChecksum = calculateChecksum();
+        checksumIndex.putChecksum(location, fingerprint, calculatedChecksum);
+        return calculatedChecksum;
+    }
+
+    /**
+     * Retrieves the versions this migration depends on, as declared in the header of its script. They are read the
+     * first time they are needed, as they are only used when applying migrations in parallel.
+     *
+     * @return The versions this migration depends on. {@code null} if the script doesn't declare them.
+     */
+    @Override
+    public SchemaVersion[] getDependencies() {
+        if (!dependenciesRead) {
+            Reader reader = sqlScriptResource.loadAsReader(encoding);
+            try {
+                dependencies = MigrationInfoHelper.extractDependencies(reader);
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    //Ignore
+                }
+            }
+            dependenciesRead = true;
+        }
+        return dependencies;
+    }
+
     @Override
     public String getLocation() {
         return sqlScriptResource.getLocationOnDisk();
     }
 
+    /**
+     * @return The location of the sql script on the classpath.
+     */
+    public String getResourceLocation() {
+        return sqlScriptResource.getLocation();
+    }
+
     @Override
     public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
-        String sqlScriptSource = sqlScriptResource.loadAsString(encoding);
-        SqlScript sqlScript = dbSupport.createSqlScript(sqlScriptSource, placeholderReplacer);
-        sqlScript.execute(jdbcTemplate);
+        migrate(jdbcTemplate, dbSupport, new MigrationSettings());
+    }
+
+    @Override
+    public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport, MigrationSettings migrationSettings) {
+        Reader reader = sqlScriptResource.loadAsReader(encoding);
+        try {
+            dbSupport.executeSqlScript(jdbcTemplate, reader, placeholderReplacer, migrationSettings);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                //Ignore
+            }
+        }
     }
 
     /**
-     * Calculates the checksum of this sql script.
+     * Calculates the checksum of this sql script by streaming it through a CRC32, without ever holding the script in
+     * memory. The script is decoded using its encoding and re-encoded using the platform default encoding before being
+     * checksummed, exactly like {@code String.getBytes()} does, so checksums stay compatible with the ones already
+     * stored in the metadata table.
      *
-     * @param sql The sql to calculate the checksum for.
      * @return The crc-32 checksum of the script.
      */
-    private int calculateChecksum(String sql) {
+    private int calculateChecksum() {
         final CRC32 crc32 = new CRC32();
-        crc32.update(sql.getBytes());
+        Writer writer = new OutputStreamWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+                crc32.update(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                crc32.update(b, off, len);
+            }
+        });
+
+        Reader reader = sqlScriptResource.loadAsReader(encoding);
+        try {
+            char[] buffer = new char[4096];
+            int charsRead;
+            while ((charsRead = reader.read(buffer)) != -1) {
+                writer.write(buffer, 0, charsRead);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new FlywayException("Unable to calculate checksum of " + sqlScriptResource.getLocation()
+                    + " (encoding: " + encoding + ")", e);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                //Ignore
+            }
+        }
+
         return (int) crc32.getValue();
     }
 
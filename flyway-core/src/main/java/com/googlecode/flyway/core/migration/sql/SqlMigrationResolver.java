@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.migration.sql;
 
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationIndex;
 import com.googlecode.flyway.core.migration.MigrationResolver;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import com.googlecode.flyway.core.util.scanner.ClassPathScanner;
@@ -63,6 +64,21 @@ public class SqlMigrationResolver implements MigrationResolver {
      */
     private final String sqlMigrationSuffix;
 
+    /**
+     * The index used to avoid recalculating the checksum of unchanged scripts. {@code null} for none.
+     */
+    private final ChecksumIndex checksumIndex;
+
+    /**
+     * The maximum number of threads to use to scan the classpath.
+     */
+    private final int scanThreads;
+
+    /**
+     * The build-time index of the available migrations to use instead of scanning the classpath. {@code null} for none.
+     */
+    private final MigrationIndex migrationIndex;
+
     /**
      * Creates a new instance.
      *
@@ -73,11 +89,33 @@ public class SqlMigrationResolver implements MigrationResolver {
      * @param sqlMigrationSuffix  The suffix for sql migrations
      */
     public SqlMigrationResolver(String baseDir, PlaceholderReplacer placeholderReplacer, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix) {
+        this(baseDir, placeholderReplacer, encoding, sqlMigrationPrefix, sqlMigrationSuffix, null, 1, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param baseDir             The base directory on the classpath where to migrations are located.
+     * @param placeholderReplacer The placeholder replacer to apply to sql migration scripts.
+     * @param encoding            The encoding of Sql migrations.
+     * @param sqlMigrationPrefix  The prefix for sql migrations
+     * @param sqlMigrationSuffix  The suffix for sql migrations
+     * @param checksumIndex       The index used to avoid recalculating the checksum of unchanged scripts.
+     *                            {@code null} for none.
+     * @param scanThreads         The maximum number of threads to use to scan the classpath. 1 or less for
+     *                            sequential scanning.
+     * @param migrationIndex      The build-time index of the available migrations to use instead of scanning the
+     *                            classpath. {@code null} for none.
+     */
+    public SqlMigrationResolver(String baseDir, PlaceholderReplacer placeholderReplacer, String encoding, String sqlMigrationPrefix, String sqlMigrationSuffix, ChecksumIndex checksumIndex, int scanThreads, MigrationIndex migrationIndex) {
         this.baseDir = baseDir;
         this.placeholderReplacer = placeholderReplacer;
         this.encoding = encoding;
         this.sqlMigrationPrefix = sqlMigrationPrefix;
         this.sqlMigrationSuffix = sqlMigrationSuffix;
+        this.checksumIndex = checksumIndex;
+        this.scanThreads = scanThreads;
+        this.migrationIndex = migrationIndex;
     }
 
 
@@ -89,6 +127,15 @@ public class SqlMigrationResolver implements MigrationResolver {
             normalizedBaseDir = normalizedBaseDir.substring(1);
         }
 
+        String searchRoot = normalizedBaseDir + "/";
+
+        if (migrationIndex != null) {
+            for (String location : migrationIndex.getSqlLocations()) {
+                migrations.add(createSqlMigration(new ClassPathResource(location), searchRoot, migrationIndex.getChecksum(location)));
+            }
+            return migrations;
+        }
+
         if (StringUtils.hasText(normalizedBaseDir) && !new ClassPathResource(normalizedBaseDir + "/").exists()) {
             LOG.warn("Unable to find path for sql migrations: " + baseDir);
             return migrations;
@@ -96,15 +143,10 @@ public class SqlMigrationResolver implements MigrationResolver {
 
         try {
             ClassPathResource[] resources =
-                    new ClassPathScanner().scanForResources(normalizedBaseDir, sqlMigrationPrefix, sqlMigrationSuffix);
+                    new ClassPathScanner(scanThreads).scanForResources(normalizedBaseDir, sqlMigrationPrefix, sqlMigrationSuffix);
 
-            String searchRoot = normalizedBaseDir + "/";
             for (ClassPathResource resource : resources) {
-                final String versionString =
-                        extractVersionStringFromFileName(resource.getFilename(), sqlMigrationPrefix, sqlMigrationSuffix);
-                String location = resource.getLocation();
-                String scriptName = location.substring(location.indexOf(searchRoot) + searchRoot.length());
-                migrations.add(new SqlMigration(resource, placeholderReplacer, encoding, versionString, scriptName));
+                migrations.add(createSqlMigration(resource, searchRoot, null));
             }
         } catch (IOException e) {
             throw new FlywayException("Unable to scan for SQL migrations in location: " + baseDir);
@@ -113,6 +155,22 @@ public class SqlMigrationResolver implements MigrationResolver {
         return migrations;
     }
 
+    /**
+     * Creates the migration for this sql script.
+     *
+     * @param resource   The resource containing the sql script.
+     * @param searchRoot The root location of the sql migrations on the classpath, with a trailing slash.
+     * @param checksum   The checksum of the script, if it is already known. {@code null} to calculate it when needed.
+     * @return The migration.
+     */
+    private SqlMigration createSqlMigration(ClassPathResource resource, String searchRoot, Integer checksum) {
+        String versionString =
+                extractVersionStringFromFileName(resource.getFilename(), sqlMigrationPrefix, sqlMigrationSuffix);
+        String location = resource.getLocation();
+        String scriptName = location.substring(location.indexOf(searchRoot) + searchRoot.length());
+        return new SqlMigration(resource, placeholderReplacer, encoding, versionString, scriptName, checksumIndex, checksum);
+    }
+
     /**
      * Extracts the sql file version string from this file name.
      *
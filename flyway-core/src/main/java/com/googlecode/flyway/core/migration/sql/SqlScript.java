@@ -15,6 +15,10 @@
  */
 package com.googlecode.flyway.core.migration.sql;
 
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.metrics.CompositeMigrationListener;
+import com.googlecode.flyway.core.metrics.MigrationListener;
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.util.ObjectUtils;
 import com.googlecode.flyway.core.util.StringUtils;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
@@ -25,12 +29,16 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Sql script containing a series of statements terminated by semi-columns (;). Single-line (--) and multi-line (/* * /)
- * comments are stripped and ignored.
+ * comments are stripped and ignored. Scripts can also be parsed and executed straight from a Reader, one statement at
+ * a time, which keeps memory usage bounded by the largest statement rather than the size of the script.
  */
 public class SqlScript {
     /**
@@ -43,6 +51,11 @@ public class SqlScript {
      */
     protected static final String DEFAULT_STATEMENT_DELIMITER = ";";
 
+    /**
+     * The keywords starting the plain DML statements that can be executed as part of a JDBC batch.
+     */
+    private static final String[] BATCHABLE_KEYWORDS = {"INSERT", "UPDATE", "DELETE", "MERGE"};
+
     /**
      * The sql statements contained in this script.
      */
@@ -92,6 +105,94 @@ public class SqlScript {
         }
     }
 
+    /**
+     * Executes the script provided by this reader against the database. The script is parsed one line at a time and
+     * each statement is executed as soon as it is complete, so only the statement currently being assembled is held in
+     * memory. The reader is not closed by this method.
+     *
+     * @param jdbcTemplate        The jdbc template to use to execute this script.
+     * @param reader              The reader for the sql script with all placeholders still present.
+     * @param placeholderReplacer The placeholder replacer to use.
+     */
+    public void execute(JdbcTemplate jdbcTemplate, Reader reader, PlaceholderReplacer placeholderReplacer) {
+        execute(jdbcTemplate, reader, placeholderReplacer, 1);
+    }
+
+    /**
+     * Executes the script provided by this reader against the database, like
+     * {@link #execute(JdbcTemplate, Reader, PlaceholderReplacer)}. Runs of consecutive plain DML statements (see
+     * {@link #isBatchable(SqlStatement)}) are sent to the database as JDBC batches of up to this many statements,
+     * instead of one round trip per statement. All other statements are still executed on their own.
+     *
+     * @param jdbcTemplate        The jdbc template to use to execute this script.
+     * @param reader              The reader for the sql script with all placeholders still present.
+     * @param placeholderReplacer The placeholder replacer to use.
+     * @param batchSize           The maximum number of statements per batch. 1 or less disables batching.
+     */
+    public void execute(JdbcTemplate jdbcTemplate, Reader reader, PlaceholderReplacer placeholderReplacer,
+                        int batchSize) {
+        execute(jdbcTemplate, reader, placeholderReplacer,
+                new MigrationSettings(batchSize, new CompositeMigrationListener(), 0));
+    }
+
+    /**
+     * Executes the script provided by this reader against the database, like
+     * {@link #execute(JdbcTemplate, Reader, PlaceholderReplacer, int)}, with the batch size of these settings and
+     * notifying their migration listener before and after each statement.
+     *
+     * @param jdbcTemplate        The jdbc template to use to execute this script.
+     * @param reader              The reader for the sql script with all placeholders still present.
+     * @param placeholderReplacer The placeholder replacer to use.
+     * @param migrationSettings   The settings of the current run.
+     */
+    public void execute(JdbcTemplate jdbcTemplate, Reader reader, PlaceholderReplacer placeholderReplacer,
+                        MigrationSettings migrationSettings) {
+        int batchSize = migrationSettings.getBatchSize();
+        if ((batchSize > 1) && !supportsBatchUpdates(jdbcTemplate)) {
+            LOG.warn("JDBC driver does not support batch updates. Executing statements one at a time.");
+            batchSize = 1;
+        }
+
+        SqlStatementExecutor executor =
+                new SqlStatementExecutor(jdbcTemplate, batchSize, migrationSettings.getMigrationListener());
+        parse(reader, placeholderReplacer, executor);
+        executor.flush();
+    }
+
+    /**
+     * Checks whether the JDBC driver behind this jdbc template supports batch updates.
+     *
+     * @param jdbcTemplate The jdbc template to check.
+     *
+     * @return {@code true} if it does, {@code false} if not.
+     */
+    private static boolean supportsBatchUpdates(JdbcTemplate jdbcTemplate) {
+        try {
+            return jdbcTemplate.getMetaData().supportsBatchUpdates();
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to check whether the JDBC driver supports batch updates", e);
+        }
+    }
+
+    /**
+     * Checks whether this statement is a plain DML statement that can safely be executed as part of a JDBC batch.
+     *
+     * @param sqlStatement The statement to check.
+     *
+     * @return {@code true} if it can be batched, {@code false} if it must be executed on its own.
+     */
+    protected boolean isBatchable(SqlStatement sqlStatement) {
+        String sql = sqlStatement.getSql();
+        for (String keyword : BATCHABLE_KEYWORDS) {
+            if ((sql.length() > keyword.length())
+                    && sql.regionMatches(true, 0, keyword, 0, keyword.length())
+                    && Character.isWhitespace(sql.charAt(keyword.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Parses this script source into statements.
      *
@@ -101,15 +202,45 @@ public class SqlScript {
      */
     /* private -> for testing */
     List<SqlStatement> parse(String sqlScriptSource, PlaceholderReplacer placeholderReplacer) {
-        Reader reader = new StringReader(sqlScriptSource);
-        List<String> rawLines = readLines(reader);
-        List<String> noPlaceholderLines = replacePlaceholders(rawLines, placeholderReplacer);
-
-        List<String> trimmedLines = trimLines(noPlaceholderLines);
-        List<String> noCommentLines = stripSqlComments(trimmedLines);
-        return linesToStatements(noCommentLines);
+        final List<SqlStatement> statements = new ArrayList<SqlStatement>();
+        parse(new StringReader(sqlScriptSource), placeholderReplacer, new SqlStatementCallback() {
+            public void doWithStatement(SqlStatement sqlStatement) {
+                statements.add(sqlStatement);
+            }
+        });
+        return statements;
     }
 
+    /**
+     * Parses the script provided by this reader into statements in a single pass. Placeholders are replaced, lines are
+     * trimmed and comments are stripped as each line is read, and every statement is handed to the callback as soon as
+     * its delimiter has been found. The reader is not closed by this method.
+     *
+     * @param reader              The reader for the sql script with all placeholders still present.
+     * @param placeholderReplacer The placeholder replacer to use.
+     * @param callback            The callback to notify of each statement found (in order).
+     *
+     * @throws IllegalStateException Thrown when the textual data parsing failed.
+     */
+    public void parse(Reader reader, PlaceholderReplacer placeholderReplacer, SqlStatementCallback callback) {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        SqlCommentStripper commentStripper = new SqlCommentStripper();
+        SqlStatementBuilder statementBuilder = new SqlStatementBuilder(callback);
+
+        try {
+            int lineNumber = 0;
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                lineNumber++;
+                String noPlaceholderLine = placeholderReplacer.replacePlaceholders(line);
+                statementBuilder.addLine(lineNumber, commentStripper.strip(noPlaceholderLine));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot parse lines", e);
+        }
+
+        statementBuilder.finish();
+    }
 
     /**
      * Turns these lines in a series of statements.
@@ -120,75 +251,29 @@ public class SqlScript {
      */
     /* private -> for testing */
     List<SqlStatement> linesToStatements(List<String> lines) {
-        List<SqlStatement> statements = new ArrayList<SqlStatement>();
-
-        int statementLineNumber = 0;
-        String statementSql = "";
-
-        String delimiter = DEFAULT_STATEMENT_DELIMITER;
-
-        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
-            String line = lines.get(lineNumber - 1);
-
-            if (!StringUtils.hasText(line)) {
-                continue;
-            }
-
-            if (!StringUtils.hasText(statementSql)) {
-                statementLineNumber = lineNumber;
-            } else {
-                statementSql += "\n";
-            }
-            statementSql += line;
-
-            String statementSqlWithoutLineBreaks = statementSql.replaceAll("\n", " ").replaceAll("\r", " ");
-            if (endsWithOpenMultilineStringLiteral(statementSqlWithoutLineBreaks)) {
-                continue;
-            }
-
-            String oldDelimiter = delimiter;
-            delimiter = changeDelimiterIfNecessary(statementSqlWithoutLineBreaks, line, delimiter);
-            if (!ObjectUtils.nullSafeEquals(delimiter, oldDelimiter)) {
-                if (isDelimiterChangeExplicit()) {
-                    statementSql = "";
-                    continue;
-                }
-            }
-
-            if ((delimiter != null) && line.toUpperCase().endsWith(delimiter.toUpperCase())) {
-                String noDelimiterStatementSql = stripDelimiter(statementSql, delimiter);
-                statements.add(new SqlStatement(statementLineNumber, noDelimiterStatementSql));
-                LOG.debug("Found statement at line " + statementLineNumber + ": " + statementSql);
+        final List<SqlStatement> statements = new ArrayList<SqlStatement>();
 
-                if (!isDelimiterChangeExplicit()) {
-                    delimiter = DEFAULT_STATEMENT_DELIMITER;
-                }
-                statementSql = "";
+        SqlStatementBuilder statementBuilder = new SqlStatementBuilder(new SqlStatementCallback() {
+            public void doWithStatement(SqlStatement sqlStatement) {
+                statements.add(sqlStatement);
             }
+        });
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            statementBuilder.addLine(lineNumber, lines.get(lineNumber - 1));
         }
-
-        // Catch any statements not followed by delimiter.
-        if (StringUtils.hasText(statementSql)) {
-            statements.add(new SqlStatement(statementLineNumber, statementSql));
-        }
+        statementBuilder.finish();
 
         return statements;
     }
 
     /**
-     * Checks whether this line in the sql script indicates that the statement delimiter will be different from the
-     * current one. Useful for database-specific stored procedures and block constructs.
+     * Creates a new scanner to follow the string literals and delimiter changes of the next statement, one line at a
+     * time.
      *
-     * @param statement The statement assembled so far, reduced to a single line with all linebreaks replaced by
-     *                  spaces.
-     * @param line      The line to analyse.
-     * @param delimiter The current delimiter.
-     *
-     * @return The new delimiter to use (can be the same as the current one) or {@code null} for no delimiter.
+     * @return The new scanner.
      */
-    @SuppressWarnings({"UnusedDeclaration"})
-    protected String changeDelimiterIfNecessary(String statement, String line, String delimiter) {
-        return delimiter;
+    protected SqlStatementScanner createStatementScanner() {
+        return new SqlStatementScanner();
     }
 
     /**
@@ -199,18 +284,6 @@ public class SqlScript {
         return false;
     }
 
-    /**
-     * Strips this delimiter from this sql statement.
-     *
-     * @param sql       The statement to parse.
-     * @param delimiter The delimiter to strip.
-     *
-     * @return The sql statement without delimiter.
-     */
-    private static String stripDelimiter(String sql, String delimiter) {
-        return sql.substring(0, sql.length() - delimiter.length());
-    }
-
     /**
      * Strip single line (--) and multi-line (/* * /) comments from these lines.
      *
@@ -222,14 +295,47 @@ public class SqlScript {
     List<String> stripSqlComments(List<String> lines) {
         List<String> noCommentLines = new ArrayList<String>(lines.size());
 
-        boolean inMultilineComment = false;
+        SqlCommentStripper commentStripper = new SqlCommentStripper();
         for (String line : lines) {
+            noCommentLines.add(commentStripper.strip(line));
+        }
+
+        return noCommentLines;
+    }
+
+    /**
+     * Checks whether this line is in fact a directive disguised as a comment.
+     *
+     * @param line The line to analyse.
+     *
+     * @return {@code true} if it is a directive that should be processed by the database, {@code false} if not.
+     */
+    protected boolean isCommentDirective(String line) {
+        return false;
+    }
+
+    /**
+     * Strips single line (--) and multi-line (/* * /) comments from the lines of a script, one line at a time.
+     */
+    private class SqlCommentStripper {
+        /**
+         * Whether the lines seen so far have left us inside a multi-line comment.
+         */
+        private boolean inMultilineComment;
+
+        /**
+         * Strips the comments from this line.
+         *
+         * @param line The line to analyse.
+         *
+         * @return The line, trimmed of leading and trailing whitespace, or an empty string if it is a comment line.
+         */
+        public String strip(String line) {
             String trimmedLine = line.trim();
 
             if (!isCommentDirective(trimmedLine)) {
                 if (trimmedLine.startsWith("--")) {
-                    noCommentLines.add("");
-                    continue;
+                    return "";
                 }
 
                 if (trimmedLine.startsWith("/*")) {
@@ -240,100 +346,293 @@ public class SqlScript {
                     if (trimmedLine.endsWith("*/")) {
                         inMultilineComment = false;
                     }
-                    noCommentLines.add("");
-                    continue;
+                    return "";
                 }
             }
 
-            noCommentLines.add(trimmedLine);
+            return trimmedLine;
         }
-
-        return noCommentLines;
     }
 
     /**
-     * Checks whether this line is in fact a directive disguised as a comment.
-     *
-     * @param line The line to analyse.
-     *
-     * @return {@code true} if it is a directive that should be processed by the database, {@code false} if not.
+     * Assembles statements from the (comment-free) lines of a script and hands each one to a callback as soon as it is
+     * complete. The statement being assembled is kept in a reusable buffer, and each line is scanned exactly once by
+     * the scanner of the statement, so that adding a line never requires copying or rescanning the lines before it.
      */
-    protected boolean isCommentDirective(String line) {
-        return false;
-    }
+    private class SqlStatementBuilder {
+        /**
+         * The callback to notify of each complete statement.
+         */
+        private final SqlStatementCallback callback;
+
+        /**
+         * The sql of the statement being assembled.
+         */
+        private final StringBuilder statementSql = new StringBuilder();
+
+        /**
+         * The scanner following the string literals and delimiter changes of the statement being assembled.
+         */
+        private SqlStatementScanner statementScanner = createStatementScanner();
+
+        /**
+         * The line number of the first line of the statement being assembled.
+         */
+        private int statementLineNumber;
+
+        /**
+         * The current statement delimiter.
+         */
+        private String delimiter = DEFAULT_STATEMENT_DELIMITER;
+
+        /**
+         * Creates a new statement builder.
+         *
+         * @param callback The callback to notify of each complete statement.
+         */
+        public SqlStatementBuilder(SqlStatementCallback callback) {
+            this.callback = callback;
+        }
 
-    /**
-     * Trims these lines of leading and trailing whitespace.
-     *
-     * @param lines The input lines.
-     *
-     * @return The input lines, trimmed of leading and trailing whitespace.
-     */
-    private List<String> trimLines(List<String> lines) {
-        List<String> trimmedLines = new ArrayList<String>(lines.size());
+        /**
+         * Adds this line to the statement being assembled.
+         *
+         * @param lineNumber The line number of this line in the script.
+         * @param line       The line to add.
+         */
+        public void addLine(int lineNumber, String line) {
+            if (!StringUtils.hasText(line)) {
+                return;
+            }
 
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-            trimmedLines.add(trimmedLine);
+            if (statementSql.length() == 0) {
+                statementLineNumber = lineNumber;
+            } else {
+                statementSql.append("\n");
+            }
+            statementSql.append(line);
+
+            statementScanner.scanLine(line.replace('\n', ' ').replace('\r', ' '));
+            if (statementScanner.endsWithOpenMultilineStringLiteral()) {
+                return;
+            }
+
+            String oldDelimiter = delimiter;
+            delimiter = statementScanner.changeDelimiterIfNecessary(line, delimiter);
+            if (!ObjectUtils.nullSafeEquals(delimiter, oldDelimiter)) {
+                if (isDelimiterChangeExplicit()) {
+                    reset();
+                    return;
+                }
+            }
+
+            if ((delimiter != null) && line.toUpperCase().endsWith(delimiter.toUpperCase())) {
+                String noDelimiterStatementSql = statementSql.substring(0, statementSql.length() - delimiter.length());
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Found statement at line " + statementLineNumber + ": " + statementSql);
+                }
+                callback.doWithStatement(new SqlStatement(statementLineNumber, noDelimiterStatementSql));
+
+                if (!isDelimiterChangeExplicit()) {
+                    delimiter = DEFAULT_STATEMENT_DELIMITER;
+                }
+                reset();
+            }
+        }
+
+        /**
+         * Completes the parsing, handing any remaining statement not followed by a delimiter to the callback.
+         */
+        public void finish() {
+            if (StringUtils.hasText(statementSql.toString())) {
+                callback.doWithStatement(new SqlStatement(statementLineNumber, statementSql.toString()));
+            }
+            reset();
         }
 
-        return trimmedLines;
+        /**
+         * Clears the statement being assembled.
+         */
+        private void reset() {
+            statementSql.setLength(0);
+            statementScanner = createStatementScanner();
+        }
     }
 
     /**
-     * Parses the textual data provided by this reader into a list of lines.
-     *
-     * @param reader The reader for the textual data.
-     *
-     * @return The list of lines (in order).
-     *
-     * @throws IllegalStateException Thrown when the textual data parsing failed.
+     * Executes the statements it is handed, grouping runs of consecutive batchable statements into JDBC batches.
      */
-    private List<String> readLines(Reader reader) {
-        List<String> lines = new ArrayList<String>();
+    private class SqlStatementExecutor implements SqlStatementCallback {
+        /**
+         * The jdbc template to use to execute the statements.
+         */
+        private final JdbcTemplate jdbcTemplate;
+
+        /**
+         * The maximum number of statements per batch.
+         */
+        private final int batchSize;
+
+        /**
+         * The listener to notify of the execution of each statement.
+         */
+        private final MigrationListener migrationListener;
+
+        /**
+         * The batchable statements waiting to be executed.
+         */
+        private final List<SqlStatement> batch = new ArrayList<SqlStatement>();
+
+        /**
+         * Creates a new statement executor.
+         *
+         * @param jdbcTemplate      The jdbc template to use to execute the statements.
+         * @param batchSize         The maximum number of statements per batch. 1 or less disables batching.
+         * @param migrationListener The listener to notify of the execution of each statement.
+         */
+        public SqlStatementExecutor(JdbcTemplate jdbcTemplate, int batchSize, MigrationListener migrationListener) {
+            this.jdbcTemplate = jdbcTemplate;
+            this.batchSize = batchSize;
+            this.migrationListener = migrationListener;
+        }
 
-        BufferedReader bufferedReader = new BufferedReader(reader);
-        String line;
+        public void doWithStatement(SqlStatement sqlStatement) {
+            if ((batchSize > 1) && isBatchable(sqlStatement)) {
+                batch.add(sqlStatement);
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+                return;
+            }
 
-        try {
-            while ((line = bufferedReader.readLine()) != null) {
-                lines.add(line);
+            flush();
+            execute(sqlStatement);
+        }
+
+        /**
+         * Executes this single statement and notifies the listener.
+         *
+         * @param sqlStatement The statement to execute.
+         */
+        private void execute(SqlStatement sqlStatement) {
+            migrationListener.beforeStatement(sqlStatement);
+            long start = System.nanoTime();
+            int rowCount;
+            try {
+                rowCount = sqlStatement.execute(jdbcTemplate);
+            } catch (RuntimeException e) {
+                migrationListener.afterStatementFailed(sqlStatement, System.nanoTime() - start);
+                throw e;
             }
-        } catch (IOException e) {
-            throw new IllegalStateException("Cannot parse lines", e);
+            migrationListener.afterStatement(sqlStatement, System.nanoTime() - start, rowCount);
         }
 
-        return lines;
-    }
+        /**
+         * Executes the statements waiting in the current batch, if any.
+         */
+        public void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
 
-    /**
-     * Replaces the placeholders in these lines with their values.
-     *
-     * @param lines               The input lines.
-     * @param placeholderReplacer The placeholder replacer to apply to sql migration scripts.
-     *
-     * @return The lines with placeholders replaced.
-     */
-    private List<String> replacePlaceholders(List<String> lines, PlaceholderReplacer placeholderReplacer) {
-        List<String> noPlaceholderLines = new ArrayList<String>(lines.size());
+            if (batch.size() == 1) {
+                execute(batch.get(0));
+                batch.clear();
+                return;
+            }
 
-        for (String line : lines) {
-            noPlaceholderLines.add(placeholderReplacer.replacePlaceholders(line));
+            List<String> sqls = new ArrayList<String>(batch.size());
+            for (SqlStatement sqlStatement : batch) {
+                sqls.add(sqlStatement.getSql());
+            }
+
+            LOG.debug("Executing batch of " + batch.size() + " statements starting at line "
+                    + batch.get(0).getLineNumber());
+            for (SqlStatement sqlStatement : batch) {
+                migrationListener.beforeStatement(sqlStatement);
+            }
+            long start = System.nanoTime();
+            try {
+                int[] updateCounts = jdbcTemplate.executeBatch(sqls);
+                afterBatch(updateCounts, System.nanoTime() - start, false);
+            } catch (BatchUpdateException e) {
+                afterBatch(e.getUpdateCounts(), System.nanoTime() - start, true);
+                SqlStatement failedStatement = findFailedStatement(e.getUpdateCounts());
+                if (failedStatement != null) {
+                    throw new FlywayException("Error executing statement at line " + failedStatement.getLineNumber()
+                            + ": " + failedStatement.getSql(), e);
+                }
+                throw createBatchException(e);
+            } catch (SQLException e) {
+                afterBatch(null, System.nanoTime() - start, true);
+                throw createBatchException(e);
+            } finally {
+                batch.clear();
+            }
         }
 
-        return noPlaceholderLines;
-    }
+        /**
+         * Notifies the listener of the outcome of each statement of the current batch. Each statement gets an equal
+         * share of the duration, so the durations still add up to the time spent in the batch.
+         *
+         * @param updateCounts  The update counts reported by the driver. May be {@code null} or cover only part of the
+         *                      batch.
+         * @param durationNanos The time spent executing the batch, in nanoseconds.
+         * @param failed        Whether the batch failed. The statements marked as failed or without update count are
+         *                      then reported as failed, as they failed or were never executed.
+         */
+        private void afterBatch(int[] updateCounts, long durationNanos, boolean failed) {
+            long shareNanos = durationNanos / batch.size();
+            long remainderNanos = durationNanos % batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                long statementNanos = shareNanos + ((i < remainderNanos) ? 1 : 0);
+                boolean updateCountReported = (updateCounts != null) && (i < updateCounts.length);
+                int rowCount = updateCountReported ? updateCounts[i] : -1;
+                if (failed && (!updateCountReported || (rowCount == Statement.EXECUTE_FAILED))) {
+                    migrationListener.afterStatementFailed(batch.get(i), statementNanos);
+                } else {
+                    migrationListener.afterStatement(batch.get(i), statementNanos, (rowCount < 0) ? -1 : rowCount);
+                }
+            }
+        }
 
-    /**
-     * Checks whether the statement we have assembled so far ends with an open multi-line string literal (which will be
-     * continued on the next line).
-     *
-     * @param statement The current statement, assembled from the lines we have parsed so far. May not yet be complete.
-     *
-     * @return {@code true} if the statement is unfinished and the end is currently in the middle of a multi-line string
-     *         literal. {@code false} if not.
-     */
-    protected boolean endsWithOpenMultilineStringLiteral(String statement) {
-        return false;
+        /**
+         * Determines which statement of the current batch failed, based on the update counts reported by the driver.
+         * Drivers either stop at the first failure (and only report counts for the statements before it) or continue
+         * and mark the failed statements with {@link Statement#EXECUTE_FAILED}.
+         *
+         * @param updateCounts The update counts reported by the driver. May be {@code null}.
+         *
+         * @return The failed statement or {@code null} if it could not be determined.
+         */
+        private SqlStatement findFailedStatement(int[] updateCounts) {
+            if (updateCounts == null) {
+                return null;
+            }
+
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                    return batch.get(i);
+                }
+            }
+
+            if (updateCounts.length < batch.size()) {
+                return batch.get(updateCounts.length);
+            }
+
+            return null;
+        }
+
+        /**
+         * Creates the exception to report a failed batch for which the failed statement could not be determined.
+         *
+         * @param cause The cause of the failure.
+         *
+         * @return The exception to throw.
+         */
+        private FlywayException createBatchException(SQLException cause) {
+            return new FlywayException("Error executing batch of statements at lines " + batch.get(0).getLineNumber()
+                    + " to " + batch.get(batch.size() - 1).getLineNumber(), cause);
+        }
     }
 }
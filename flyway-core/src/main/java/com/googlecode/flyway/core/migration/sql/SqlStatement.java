@@ -70,11 +70,12 @@ public class SqlStatement {
      * Executes this statement against the database.
      *
      * @param jdbcTemplate The jdbc template to use to execute this statement.
+     * @return The number of rows affected by this statement, as reported by the driver. -1 if unknown.
      */
-    public void execute(JdbcTemplate jdbcTemplate) {
+    public int execute(JdbcTemplate jdbcTemplate) {
         LOG.debug("Executing SQL: " + this.sql);
         try {
-            jdbcTemplate.executeStatement(sql);
+            return jdbcTemplate.executeStatement(sql);
         } catch (SQLException e) {
             throw new FlywayException("Error executing statement at line " + lineNumber
                     + ": " + sql, e);
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.sql;
+
+/**
+ * Follows a single statement while its lines are being assembled, one line at a time, so that a line never needs to
+ * be scanned again once the next one has been added. Dialects with string literals or delimiter changes of their own
+ * extend it to recognize them.
+ */
+public class SqlStatementScanner {
+    /**
+     * Scans this line, which has just been added to the statement, and updates the state of the scanner accordingly.
+     *
+     * @param line The line to scan, with all linebreaks replaced by spaces.
+     */
+    public void scanLine(String line) {
+        // No state to track by default
+    }
+
+    /**
+     * Checks whether the lines scanned so far end with an open multi-line string literal (which will be continued on
+     * the next line).
+     *
+     * @return {@code true} if the statement is unfinished and the end is currently in the middle of a multi-line string
+     *         literal. {@code false} if not.
+     */
+    public boolean endsWithOpenMultilineStringLiteral() {
+        return false;
+    }
+
+    /**
+     * Checks whether the line just scanned indicates that the statement delimiter will be different from the current
+     * one. Useful for database-specific stored procedures and block constructs.
+     *
+     * @param line      The line to analyse.
+     * @param delimiter The current delimiter.
+     *
+     * @return The new delimiter to use (can be the same as the current one) or {@code null} for no delimiter.
+     */
+    public String changeDelimiterIfNecessary(String line, String delimiter) {
+        return delimiter;
+    }
+}
@@ -19,9 +19,10 @@ import com.googlecode.flyway.core.dbsupport.DbSupport;
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.Migration;
 import com.googlecode.flyway.core.migration.MigrationInfoHelper;
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.migration.MigrationType;
+import com.googlecode.flyway.core.migration.SchemaVersion;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
-import com.googlecode.flyway.core.migration.sql.SqlScript;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
 
 import java.io.BufferedReader;
@@ -30,7 +31,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.zip.CRC32;
 
 /**
  * Database migration based on a sql file.
@@ -54,9 +54,14 @@ public class SqlfsMigration extends Migration {
     private final String encoding;
 
     /**
-     * SQL script source
+     * The versions this migration depends on. Only valid if {@code dependenciesRead} is {@code true}.
      */
-    private String sqlScriptSource;
+    private SchemaVersion[] dependencies;
+
+    /**
+     * Whether the dependencies have been read from the script yet.
+     */
+    private boolean dependenciesRead;
 
     /**
      * Creates a new sql script migration based on this sql script.
@@ -77,8 +82,6 @@ public class SqlfsMigration extends Migration {
         schemaVersion = MigrationInfoHelper.extractSchemaVersion(versionString);
         description = MigrationInfoHelper.extractDescription(versionString);
 
-        calculateChecksum(getString());
-
         this.script = scriptName;
         this.placeholderReplacer = placeholderReplacer;
     }
@@ -88,45 +91,84 @@ public class SqlfsMigration extends Migration {
         return sqlScriptResource.getAbsolutePath();
     }
 
-    public String getString() {
-        if (sqlScriptSource == null) {
+    @Override
+    public SchemaVersion[] getDependencies() {
+        if (!dependenciesRead) {
+            Reader reader = openReader();
             try {
-                FileInputStream file = new FileInputStream(sqlScriptResource);
-                InputStreamReader streamReader = new InputStreamReader(file, encoding);
-                Reader reader = new BufferedReader(streamReader);
-                StringBuffer sqlScriptSourceBuffer = new StringBuffer();
-
-                int ch;
-                while ((ch = reader.read()) > -1) {
-                    sqlScriptSourceBuffer.append((char) ch);
-                }
-
-                reader.close();
-                sqlScriptSource = sqlScriptSourceBuffer.toString();
-            } catch (IOException e) {
-                throw new FlywayException("Unable to load resource: " + getLocation() + " (encoding: " + encoding + ")", e);
+                dependencies = MigrationInfoHelper.extractDependencies(reader);
+            } finally {
+                closeReader(reader);
             }
+            dependenciesRead = true;
         }
+        return dependencies;
+    }
+
+    /**
+     * Loads the contents of this sql script. The contents are not cached, so that they do not stay reachable after
+     * the migration has been applied.
+     *
+     * @return The sql script source.
+     */
+    public String getString() {
+        Reader reader = openReader();
+        try {
+            StringBuilder sqlScriptSourceBuilder = new StringBuilder();
+
+            char[] buffer = new char[4096];
+            int charsRead;
+            while ((charsRead = reader.read(buffer)) != -1) {
+                sqlScriptSourceBuilder.append(buffer, 0, charsRead);
+            }
 
-        return sqlScriptSource;
+            return sqlScriptSourceBuilder.toString();
+        } catch (IOException e) {
+            throw new FlywayException("Unable to load resource: " + getLocation() + " (encoding: " + encoding + ")", e);
+        } finally {
+            closeReader(reader);
+        }
     }
 
     @Override
     public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
-        SqlScript sqlScript = dbSupport.createSqlScript(sqlScriptSource, placeholderReplacer);
-        sqlScript.execute(jdbcTemplate);
+        migrate(jdbcTemplate, dbSupport, new MigrationSettings());
+    }
+
+    @Override
+    public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport, MigrationSettings migrationSettings) {
+        Reader reader = openReader();
+        try {
+            dbSupport.executeSqlScript(jdbcTemplate, reader, placeholderReplacer, migrationSettings);
+        } finally {
+            closeReader(reader);
+        }
+    }
+
+    /**
+     * Opens this sql script for reading.
+     *
+     * @return A buffered reader for the script. The caller is responsible for closing it.
+     */
+    private Reader openReader() {
+        try {
+            return new BufferedReader(new InputStreamReader(new FileInputStream(sqlScriptResource), encoding));
+        } catch (IOException e) {
+            throw new FlywayException("Unable to load resource: " + getLocation() + " (encoding: " + encoding + ")", e);
+        }
     }
 
     /**
-     * Calculates the checksum of this sql script.
+     * Safely closes this reader. This method never fails.
      *
-     * @param sql The sql to calculate the checksum for.
-     * @return The crc-32 checksum of the script.
+     * @param reader The reader to close.
      */
-    private int calculateChecksum(String sql) {
-        final CRC32 crc32 = new CRC32();
-        crc32.update(sql.getBytes());
-        return (int) crc32.getValue();
+    private static void closeReader(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            //Ignore
+        }
     }
 
     @Override
@@ -0,0 +1,301 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.snapshot;
+
+import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.SchemaVersion;
+import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import com.googlecode.flyway.core.util.jdbc.TransactionCallback;
+import com.googlecode.flyway.core.util.jdbc.TransactionException;
+import com.googlecode.flyway.core.util.jdbc.TransactionTemplate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the migrated schemas, taken after all migrations have been applied to clean schemas. When the same
+ * migrations are applied to clean schemas again (typically by a test suite calling clean and migrate over and over),
+ * the snapshot is restored instead of replaying all migrations.
+ * <p/>
+ * Snapshots are stored in a directory, one file per migration set. The name of the file is derived from everything that
+ * influences the result of the migration: the database, the schemas, the metadata table, the target version, the
+ * placeholders and the version, type, script and checksum of every migration. Changing any migration with a checksum
+ * therefore leads to a new snapshot. Java migrations without a checksum are only identified by their version and class.
+ */
+public class DbSnapshot {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(DbSnapshot.class);
+
+    /**
+     * Marker at the start of every snapshot file, identifying the format.
+     */
+    private static final int FORMAT = 0x46570002;
+
+    /**
+     * The file in which the snapshot is stored.
+     */
+    private final File snapshotFile;
+
+    /**
+     * Creates a new snapshot stored in this directory.
+     *
+     * @param snapshotDir The directory in which snapshots are stored.
+     * @param key         The key of the migration set this snapshot is for. See {@link #createKey}.
+     */
+    public DbSnapshot(File snapshotDir, String key) {
+        this.snapshotFile = new File(snapshotDir, key + ".snapshot");
+    }
+
+    /**
+     * @return The file in which the snapshot is stored.
+     */
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Creates the key identifying the outcome of applying these migrations to clean schemas.
+     *
+     * @param dbSupport    Database-specific functionality.
+     * @param schemas      The schemas managed by Flyway.
+     * @param table        The name of the metadata table.
+     * @param target       The target version up to which migrations are applied.
+     * @param migrations   The available migrations.
+     * @param placeholders The placeholders replaced in sql migrations.
+     * @return The key.
+     */
+    public static String createKey(DbSupport dbSupport, String[] schemas, String table, SchemaVersion target,
+                                   List<Migration> migrations, Map<String, String> placeholders) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(dbSupport.getClass().getName()).append('\n');
+        for (String schema : schemas) {
+            fingerprint.append(schema).append(',');
+        }
+        fingerprint.append('\n').append(table).append('\n').append(target).append('\n');
+        for (Map.Entry<String, String> placeholder : new TreeMap<String, String>(placeholders).entrySet()) {
+            fingerprint.append(placeholder.getKey()).append('=').append(placeholder.getValue()).append('\n');
+        }
+        for (Migration migration : migrations) {
+            fingerprint.append(migration.getVersion()).append('|').append(migration.getMigrationType()).append('|')
+                    .append(migration.getScript()).append('|').append(migration.getChecksum()).append('\n');
+        }
+
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(fingerprint.toString().getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new FlywayException("Unable to calculate snapshot key", e);
+        } catch (IOException e) {
+            throw new FlywayException("Unable to calculate snapshot key", e);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Restores the clean schemas from this snapshot, if it exists. The objects of the schemas are restored in a
+     * transaction of their own, the rows of the metadata table in the current transaction of the metadata table
+     * connection. This is meant to be called while holding the migration lock, with the metadata table already
+     * created but still empty.
+     *
+     * @param transactionTemplate       The transaction template for the objects of the schemas.
+     * @param jdbcTemplate              JdbcTemplate with ddl manipulation access to the database.
+     * @param metaDataTableJdbcTemplate JdbcTemplate for the metadata table connection.
+     * @return The number of migrations contained in the restored snapshot. {@code null} if there is no usable snapshot.
+     * @throws FlywayException when the snapshot could not be restored.
+     */
+    public Integer restore(TransactionTemplate transactionTemplate, final JdbcTemplate jdbcTemplate,
+                           JdbcTemplate metaDataTableJdbcTemplate) throws FlywayException {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+
+        final List<String> statements = new ArrayList<String>();
+        List<String> metaDataTableStatements = new ArrayList<String>();
+        int migrationCount;
+        DataInputStream inputStream = null;
+        try {
+            inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+            if (inputStream.readInt() != FORMAT) {
+                LOG.warn("Ignoring snapshot in unknown format: " + snapshotFile);
+                return null;
+            }
+            migrationCount = inputStream.readInt();
+            readStatements(inputStream, statements);
+            readStatements(inputStream, metaDataTableStatements);
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable snapshot " + snapshotFile + ": " + e.getMessage());
+            return null;
+        } finally {
+            close(inputStream);
+        }
+
+        LOG.info("Restoring schema from snapshot " + snapshotFile);
+        try {
+            transactionTemplate.execute(new TransactionCallback<Void>() {
+                public Void doInTransaction() {
+                    for (String statement : statements) {
+                        try {
+                            jdbcTemplate.executeStatement(statement);
+                        } catch (SQLException e) {
+                            throw new FlywayException("Error executing snapshot statement: " + statement, e);
+                        }
+                    }
+                    return null;
+                }
+            });
+        } catch (TransactionException e) {
+            throw new FlywayException("Unable to restore snapshot " + snapshotFile, e);
+        }
+
+        for (String statement : metaDataTableStatements) {
+            try {
+                metaDataTableJdbcTemplate.executeStatement(statement);
+            } catch (SQLException e) {
+                throw new FlywayException("Error executing snapshot statement: " + statement, e);
+            }
+        }
+        return migrationCount;
+    }
+
+    /**
+     * Reads a list of statements, preceded by their count, from this snapshot file stream.
+     *
+     * @param inputStream The stream to read from.
+     * @param statements  The list to add the statements to.
+     * @throws IOException when the statements could not be read.
+     */
+    private static void readStatements(DataInputStream inputStream, List<String> statements) throws IOException {
+        int statementCount = inputStream.readInt();
+        for (int i = 0; i < statementCount; i++) {
+            byte[] statement = new byte[inputStream.readInt()];
+            inputStream.readFully(statement);
+            statements.add(new String(statement, "UTF-8"));
+        }
+    }
+
+    /**
+     * Writes this list of statements, preceded by their count, to this snapshot file stream.
+     *
+     * @param outputStream The stream to write to.
+     * @param statements   The statements to write.
+     * @throws IOException when the statements could not be written.
+     */
+    private static void writeStatements(DataOutputStream outputStream, List<String> statements) throws IOException {
+        outputStream.writeInt(statements.size());
+        for (String statement : statements) {
+            byte[] bytes = statement.getBytes("UTF-8");
+            outputStream.writeInt(bytes.length);
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * Takes this snapshot of the schemas. Nothing is done if the database doesn't support snapshots. The snapshot is
+     * written to a temporary file first and then renamed, so that concurrent readers never see a partially written
+     * snapshot.
+     *
+     * @param dbSupport      Database-specific functionality.
+     * @param schemas        The schemas to capture. The first one contains the metadata table.
+     * @param table          The metadata table.
+     * @param migrationCount The number of migrations applied to the clean schemas.
+     * @throws FlywayException when the schemas could not be captured.
+     */
+    public void take(DbSupport dbSupport, String[] schemas, String table, int migrationCount) throws FlywayException {
+        List<String> statements;
+        List<String> metaDataTableStatements = null;
+        try {
+            statements = dbSupport.createSnapshotStatements(schemas, table);
+            if (statements != null) {
+                metaDataTableStatements = dbSupport.createMetaDataTableSnapshotStatements(schemas[0], table);
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to take snapshot of the schemas", e);
+        }
+        if ((statements == null) || (metaDataTableStatements == null)) {
+            LOG.debug("Snapshots are not supported for this database or these schemas");
+            return;
+        }
+
+        File snapshotDir = snapshotFile.getAbsoluteFile().getParentFile();
+        if (!snapshotDir.isDirectory() && !snapshotDir.mkdirs()) {
+            LOG.warn("Unable to create snapshot directory " + snapshotDir);
+            return;
+        }
+
+        File tempFile = new File(snapshotDir, snapshotFile.getName() + ".tmp");
+        DataOutputStream outputStream = null;
+        try {
+            outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            outputStream.writeInt(FORMAT);
+            outputStream.writeInt(migrationCount);
+            writeStatements(outputStream, statements);
+            writeStatements(outputStream, metaDataTableStatements);
+        } catch (IOException e) {
+            LOG.warn("Unable to write snapshot " + snapshotFile + ": " + e.getMessage());
+            return;
+        } finally {
+            close(outputStream);
+        }
+
+        if ((snapshotFile.exists() && !snapshotFile.delete()) || !tempFile.renameTo(snapshotFile)) {
+            LOG.warn("Unable to replace snapshot " + snapshotFile);
+            return;
+        }
+        LOG.info("Snapshot of the migrated schemas written to " + snapshotFile);
+    }
+
+    /**
+     * Safely closes this stream. This method never fails.
+     *
+     * @param closeable The stream to close. May be {@code null}.
+     */
+    private static void close(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            //Ignore
+        }
+    }
+}
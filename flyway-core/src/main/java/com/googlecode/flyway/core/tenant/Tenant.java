@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.tenant;
+
+import javax.sql.DataSource;
+
+/**
+ * A tenant to migrate: a set of schemas with their own metadata table, reached through a datasource. Tenants can be
+ * different schemas of the same database, sharing the same datasource, or entirely different databases. While a tenant
+ * is migrated, its first schema is the current schema, so objects without explicit schema are created in it.
+ */
+public class Tenant {
+    /**
+     * The name of the tenant, used in logs and results.
+     */
+    private final String name;
+
+    /**
+     * The datasource to use to access the database of the tenant. {@code null} to use the datasource of Flyway.
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The schemas of the tenant. The first one contains the metadata table.
+     */
+    private final String[] schemas;
+
+    /**
+     * Creates a new tenant.
+     *
+     * @param name       The name of the tenant, used in logs and results.
+     * @param dataSource The datasource to use to access the database of the tenant. {@code null} to use the datasource
+     *                   Flyway has when migrating the tenants.
+     * @param schemas    The schemas of the tenant. The first one contains the metadata table. None to use the default
+     *                   schema of the datasource connection.
+     */
+    public Tenant(String name, DataSource dataSource, String... schemas) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.schemas = schemas;
+    }
+
+    /**
+     * @return The name of the tenant, used in logs and results.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The datasource to use to access the database of the tenant. {@code null} to use the datasource of Flyway.
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * @return The schemas of the tenant. The first one contains the metadata table. Empty to use the default schema of
+     *         the datasource connection.
+     */
+    public String[] getSchemas() {
+        return schemas;
+    }
+}
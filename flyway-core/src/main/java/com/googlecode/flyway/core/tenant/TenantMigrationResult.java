@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.tenant;
+
+/**
+ * The outcome of the migration of a single tenant.
+ */
+public class TenantMigrationResult {
+    /**
+     * The name of the tenant.
+     */
+    private final String tenantName;
+
+    /**
+     * The number of successfully applied migrations.
+     */
+    private final int migrationCount;
+
+    /**
+     * The number of attempts it took, including the retries.
+     */
+    private final int attempts;
+
+    /**
+     * The time it took to migrate the tenant, including all attempts (in ms).
+     */
+    private final long executionTime;
+
+    /**
+     * The failure of the last attempt. {@code null} if the migration succeeded.
+     */
+    private final Exception failure;
+
+    /**
+     * Creates a new tenant migration result.
+     *
+     * @param tenantName     The name of the tenant.
+     * @param migrationCount The number of successfully applied migrations.
+     * @param attempts       The number of attempts it took, including the retries.
+     * @param executionTime  The time it took to migrate the tenant, including all attempts (in ms).
+     * @param failure        The failure of the last attempt. {@code null} if the migration succeeded.
+     */
+    public TenantMigrationResult(String tenantName, int migrationCount, int attempts, long executionTime,
+                                 Exception failure) {
+        this.tenantName = tenantName;
+        this.migrationCount = migrationCount;
+        this.attempts = attempts;
+        this.executionTime = executionTime;
+        this.failure = failure;
+    }
+
+    /**
+     * @return The name of the tenant.
+     */
+    public String getTenantName() {
+        return tenantName;
+    }
+
+    /**
+     * @return The number of successfully applied migrations.
+     */
+    public int getMigrationCount() {
+        return migrationCount;
+    }
+
+    /**
+     * @return The number of attempts it took, including the retries.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return The time it took to migrate the tenant, including all attempts (in ms).
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * @return The failure of the last attempt. {@code null} if the migration succeeded.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return {@code true} if the tenant was migrated successfully, {@code false} if all attempts failed.
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.tenant;
+
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.util.StopWatch;
+import com.googlecode.flyway.core.util.TimeFormat;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Main workflow for migrating many tenants. The tenants are migrated on a bounded pool of threads, each tenant on its
+ * own connections. A failed tenant is retried a number of times before giving up on it, without affecting the other
+ * tenants.
+ */
+public class TenantMigrator {
+    private static final Log LOG = LogFactory.getLog(TenantMigrator.class);
+
+    /**
+     * The maximum number of tenants to migrate at the same time.
+     */
+    private final int threads;
+
+    /**
+     * The number of times to retry the migration of a tenant after it failed.
+     */
+    private final int retries;
+
+    /**
+     * The delay before the first retry (in ms). It grows linearly with every further attempt.
+     */
+    private final long retryDelay;
+
+    /**
+     * Creates a new tenant migrator.
+     *
+     * @param threads    The maximum number of tenants to migrate at the same time.
+     * @param retries    The number of times to retry the migration of a tenant after it failed.
+     * @param retryDelay The delay before the first retry (in ms). It grows linearly with every further attempt.
+     */
+    public TenantMigrator(int threads, int retries, long retryDelay) {
+        this.threads = threads;
+        this.retries = retries;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Migrates these tenants. Failed tenants do not stop the migration of the others: the failures are reported in the
+     * results instead.
+     *
+     * @param tenants   The tenants to migrate.
+     * @param migration The migration to run for each tenant.
+     * @return The result for each tenant, in the same order as the tenants.
+     * @throws FlywayException when the migration was interrupted.
+     */
+    public List<TenantMigrationResult> migrate(List<Tenant> tenants, final TenantMigration migration)
+            throws FlywayException {
+        List<TenantMigrationResult> results = new ArrayList<TenantMigrationResult>();
+        if (tenants.isEmpty()) {
+            LOG.info("No tenants to migrate");
+            return results;
+        }
+
+        int threadCount = Math.max(1, Math.min(threads, tenants.size()));
+        LOG.info("Migrating " + tenants.size() + " tenants using " + threadCount + " threads");
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, new TenantThreadFactory());
+        try {
+            List<Future<TenantMigrationResult>> futures = new ArrayList<Future<TenantMigrationResult>>();
+            for (final Tenant tenant : tenants) {
+                futures.add(executorService.submit(new Callable<TenantMigrationResult>() {
+                    public TenantMigrationResult call() {
+                        return migrateTenant(tenant, migration);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < tenants.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FlywayException("Interrupted while migrating tenant '" + tenants.get(i).getName() + "'", e);
+                } catch (ExecutionException e) {
+                    // Only errors escape migrateTenant, everything else is reported in the result
+                    String tenantName = tenants.get(i).getName();
+                    results.add(new TenantMigrationResult(tenantName, 0, 1, 0,
+                            new FlywayException("Unexpected error while migrating tenant '" + tenantName + "'", e.getCause())));
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        stopWatch.stop();
+        logSummary(results, stopWatch.getTotalTimeMillis());
+        return results;
+    }
+
+    /**
+     * Migrates this tenant, retrying it as often as configured if it fails.
+     *
+     * @param tenant    The tenant to migrate.
+     * @param migration The migration to run for the tenant.
+     * @return The result of the migration of the tenant.
+     */
+    private TenantMigrationResult migrateTenant(Tenant tenant, TenantMigration migration) {
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start();
+
+        Exception failure = null;
+        int attempt = 0;
+        while (attempt <= retries) {
+            attempt++;
+            try {
+                int migrationCount = migration.migrate(tenant);
+                stopWatch.stop();
+                LOG.debug("Tenant '" + tenant.getName() + "' migrated (" + migrationCount + " migrations, "
+                        + TimeFormat.format(stopWatch.getTotalTimeMillis()) + ")");
+                return new TenantMigrationResult(tenant.getName(), migrationCount, attempt,
+                        stopWatch.getTotalTimeMillis(), null);
+            } catch (RuntimeException e) {
+                failure = e;
+                LOG.warn("Migration of tenant '" + tenant.getName() + "' failed (attempt " + attempt + " of "
+                        + (retries + 1) + "): " + e.getMessage());
+            }
+
+            if ((attempt <= retries) && !sleepBeforeRetry(attempt)) {
+                break;
+            }
+        }
+
+        stopWatch.stop();
+        return new TenantMigrationResult(tenant.getName(), 0, attempt, stopWatch.getTotalTimeMillis(), failure);
+    }
+
+    /**
+     * Waits before retrying a failed tenant.
+     *
+     * @param attempt The number of the attempt that just failed.
+     * @return {@code true} if it is time to retry, {@code false} if the thread was interrupted while waiting.
+     */
+    private boolean sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(retryDelay * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Logs a summary of this migration run, including the error of every failed tenant.
+     *
+     * @param results       The results of all tenants.
+     * @param executionTime The time the whole run took (in ms).
+     */
+    private void logSummary(List<TenantMigrationResult> results, long executionTime) {
+        int failureCount = 0;
+        int migrationCount = 0;
+        for (TenantMigrationResult result : results) {
+            if (result.isSuccess()) {
+                migrationCount += result.getMigrationCount();
+            } else {
+                failureCount++;
+                LOG.error("Migration of tenant '" + result.getTenantName() + "' failed after " + result.getAttempts()
+                        + " attempts: " + result.getFailure().getMessage());
+            }
+        }
+
+        String summary = "Migrated " + (results.size() - failureCount) + " of " + results.size() + " tenants ("
+                + migrationCount + " migrations applied, " + failureCount + " tenants failed, execution time "
+                + TimeFormat.format(executionTime) + ")";
+        if (failureCount == 0) {
+            LOG.info(summary);
+        } else {
+            LOG.error(summary);
+        }
+    }
+
+    /**
+     * The migration to run for each tenant.
+     */
+    public interface TenantMigration {
+        /**
+         * Migrates this tenant.
+         *
+         * @param tenant The tenant to migrate.
+         * @return The number of successfully applied migrations.
+         * @throws FlywayException when the migration failed.
+         */
+        int migrate(Tenant tenant) throws FlywayException;
+    }
+
+    /**
+     * Creates the daemon threads used to migrate tenants in parallel, so a migration can never prevent the JVM from
+     * exiting.
+     */
+    private static class TenantThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "flyway-tenant-migrator");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -60,9 +60,9 @@ public class ClassPathResource implements Comparable<ClassPathResource> {
     }
 
     /**
-     * @return The url of this resource.
+     * @return The url of this resource. {@code null} if it could not be found.
      */
-    private URL getUrl() {
+    public URL getUrl() {
         return getClassLoader().getResource(location);
     }
 
@@ -81,17 +81,26 @@ public class ClassPathResource implements Comparable<ClassPathResource> {
      */
     public String loadAsString(String encoding) {
         try {
-            InputStream inputStream = getClassLoader().getResourceAsStream(location);
-            if (inputStream == null) {
-                throw new FlywayException("Unable to obtain inputstream for resource: " + location);
-            }
-            Reader reader = new InputStreamReader(inputStream, Charset.forName(encoding));
-            return copyToString(reader);
+            return copyToString(loadAsReader(encoding));
         } catch (IOException e) {
             throw new FlywayException("Unable to load resource: " + location + " (encoding: " + encoding + ")", e);
         }
     }
 
+    /**
+     * Opens this resource for reading. The caller is responsible for closing the reader.
+     *
+     * @param encoding The encoding to use.
+     * @return A buffered reader for the contents of the resource.
+     */
+    public Reader loadAsReader(String encoding) {
+        InputStream inputStream = getClassLoader().getResourceAsStream(location);
+        if (inputStream == null) {
+            throw new FlywayException("Unable to obtain inputstream for resource: " + location);
+        }
+        return new BufferedReader(new InputStreamReader(inputStream, Charset.forName(encoding)));
+    }
+
     /**
      * Copy the contents of the given Reader into a String.
      * Closes the reader when done.
@@ -20,12 +20,12 @@ package com.googlecode.flyway.core.util;
  */
 public class StopWatch {
     /**
-     * The timestamp at which the stopwatch was started.
+     * The value of the high-resolution timer (in nanos) at which the stopwatch was started.
      */
     private long start;
 
     /**
-     * The timestamp at which the stopwatch was stopped.
+     * The value of the high-resolution timer (in nanos) at which the stopwatch was stopped.
      */
     private long stop;
 
@@ -33,20 +33,27 @@ public class StopWatch {
      * Starts the stop watch.
      */
     public void start() {
-        start = System.currentTimeMillis();
+        start = System.nanoTime();
     }
 
     /**
      * Stops the stop watch.
      */
     public void stop() {
-        stop = System.currentTimeMillis();
+        stop = System.nanoTime();
     }
 
     /**
      * @return The total run time in millis of the stop watch between start and stop calls.
      */
     public long getTotalTimeMillis() {
+        return getTotalTimeNanos() / 1000000;
+    }
+
+    /**
+     * @return The total run time in nanos of the stop watch between start and stop calls.
+     */
+    public long getTotalTimeNanos() {
         return stop - start;
     }
 }
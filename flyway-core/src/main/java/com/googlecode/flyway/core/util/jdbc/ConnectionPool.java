@@ -0,0 +1,422 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.util.jdbc;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Small bounded pool of physical connections for a DriverDataSource. Closing a connection obtained from the pool hands
+ * it back for reuse instead of closing it, so repeated commands don't pay the cost of connecting each time.
+ * <p/>
+ * Idle connections are validated before they are handed out again and closed once they have been idle for longer
+ * than the idle timeout. When all connections are in use, callers wait for one to be handed back. Connections are
+ * rolled back and set back to auto-commit when they are handed back. Other session state (like the current schema)
+ * is not reset.
+ */
+class ConnectionPool {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(ConnectionPool.class);
+
+    /**
+     * The number of seconds to wait for an idle connection to be validated.
+     */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /**
+     * The number of milliseconds to wait for a connection when all connections are in use.
+     */
+    private static final long WAIT_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * The timer closing expired idle connections in the background, shared by all pools. Created on first use.
+     */
+    private static Timer evictionTimer;
+
+    /**
+     * The datasource creating the physical connections.
+     */
+    private final DriverDataSource dataSource;
+
+    /**
+     * The maximum number of physical connections open at the same time. Guarded by {@code idleConnections}.
+     */
+    private int maxSize;
+
+    /**
+     * The number of milliseconds after which an idle connection is closed.
+     */
+    private final long idleTimeoutMillis;
+
+    /**
+     * The idle connections, least recently used first. Also used as lock for the state of the pool.
+     */
+    private final LinkedList<IdleConnection> idleConnections = new LinkedList<IdleConnection>();
+
+    /**
+     * The task closing expired idle connections in the background.
+     */
+    private final TimerTask evictionTask;
+
+    /**
+     * The number of physical connections currently open, idle or in use.
+     */
+    private int openCount;
+
+    /**
+     * Whether this pool has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new connection pool.
+     *
+     * @param dataSource        The datasource creating the physical connections.
+     * @param maxSize           The maximum number of physical connections open at the same time.
+     * @param idleTimeoutMillis The number of milliseconds after which an idle connection is closed.
+     */
+    ConnectionPool(DriverDataSource dataSource, int maxSize, long idleTimeoutMillis) {
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+
+        evictionTask = new TimerTask() {
+            @Override
+            public void run() {
+                closeAll(removeExpiredIdleConnections());
+            }
+        };
+        getEvictionTimer().schedule(evictionTask, idleTimeoutMillis, idleTimeoutMillis);
+    }
+
+    /**
+     * @return The timer closing expired idle connections in the background.
+     */
+    private static synchronized Timer getEvictionTimer() {
+        if (evictionTimer == null) {
+            evictionTimer = new Timer("flyway-connection-pool-evictor", true);
+        }
+        return evictionTimer;
+    }
+
+    /**
+     * Retrieves a connection from the pool. An idle connection is reused if a valid one is available, otherwise a new
+     * one is opened, unless the maximum number of connections is already open. In that case this waits for a
+     * connection to be handed back.
+     *
+     * @return The connection. Closing it hands it back to the pool.
+     * @throws SQLException when no connection could be obtained.
+     */
+    Connection getConnection() throws SQLException {
+        while (true) {
+            Connection physicalConnection = null;
+            List<Connection> expiredConnections;
+            synchronized (idleConnections) {
+                expiredConnections = removeExpiredIdleConnections();
+                long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool has been closed");
+                    }
+                    if (!idleConnections.isEmpty()) {
+                        // Most recently used first: it is the least likely to have been dropped by the server
+                        physicalConnection = idleConnections.removeLast().connection;
+                        break;
+                    }
+                    if (openCount < maxSize) {
+                        openCount++;
+                        break;
+                    }
+
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + WAIT_TIMEOUT_MILLIS
+                                + " ms waiting for a connection (all " + maxSize + " connections of the pool are in use)");
+                    }
+                    try {
+                        idleConnections.wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection");
+                    }
+                }
+            }
+            closeAll(expiredConnections);
+
+            if (physicalConnection == null) {
+                try {
+                    physicalConnection = dataSource.getConnectionFromDriver(dataSource.getUser(), dataSource.getPassword());
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                } catch (RuntimeException e) {
+                    discard(null);
+                    throw e;
+                }
+                return createPooledConnection(physicalConnection);
+            }
+
+            if (isValid(physicalConnection)) {
+                return createPooledConnection(physicalConnection);
+            }
+            LOG.debug("Discarding invalid pooled connection");
+            discard(physicalConnection);
+        }
+    }
+
+    /**
+     * Raises the maximum number of physical connections open at the same time to at least this size. Callers waiting
+     * for a connection can then open a new one right away.
+     *
+     * @param size The minimum maximum size.
+     */
+    void ensureMaxSize(int size) {
+        synchronized (idleConnections) {
+            if (size > maxSize) {
+                maxSize = size;
+                idleConnections.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks whether this idle connection can still be used.
+     *
+     * @param physicalConnection The connection to check.
+     * @return {@code true} if it can, {@code false} if not.
+     */
+    private boolean isValid(Connection physicalConnection) {
+        try {
+            return physicalConnection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (AbstractMethodError e) {
+            // Pre-JDBC 4 driver
+            try {
+                return !physicalConnection.isClosed();
+            } catch (SQLException se) {
+                return false;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hands this connection back to the pool, after resetting its transaction state. Connections that can't be reset
+     * are closed instead.
+     *
+     * @param physicalConnection The connection to hand back.
+     */
+    private void release(Connection physicalConnection) {
+        boolean reusable;
+        try {
+            reusable = !physicalConnection.isClosed();
+            if (reusable && !physicalConnection.getAutoCommit()) {
+                physicalConnection.rollback();
+                physicalConnection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            LOG.debug("Discarding pooled connection that could not be reset: " + e.getMessage());
+            reusable = false;
+        }
+
+        if (reusable) {
+            synchronized (idleConnections) {
+                if (!closed) {
+                    idleConnections.addLast(new IdleConnection(physicalConnection));
+                    idleConnections.notifyAll();
+                    return;
+                }
+            }
+        }
+        discard(physicalConnection);
+    }
+
+    /**
+     * Closes this physical connection and frees up its slot in the pool.
+     *
+     * @param physicalConnection The connection to close. {@code null} if it could not be opened.
+     */
+    private void discard(Connection physicalConnection) {
+        synchronized (idleConnections) {
+            openCount--;
+            idleConnections.notifyAll();
+        }
+        JdbcUtils.closeConnection(physicalConnection);
+    }
+
+    /**
+     * Removes the connections that have been idle for longer than the idle timeout from the pool and frees up their
+     * slots. They must then be closed by the caller, outside of the lock.
+     *
+     * @return The expired connections.
+     */
+    private List<Connection> removeExpiredIdleConnections() {
+        List<Connection> expiredConnections = new ArrayList<Connection>();
+        synchronized (idleConnections) {
+            long expiry = System.currentTimeMillis() - idleTimeoutMillis;
+            Iterator<IdleConnection> iterator = idleConnections.iterator();
+            while (iterator.hasNext()) {
+                IdleConnection idleConnection = iterator.next();
+                if (idleConnection.idleSince > expiry) {
+                    // The following ones have been idle for an even shorter time
+                    break;
+                }
+                iterator.remove();
+                openCount--;
+                expiredConnections.add(idleConnection.connection);
+            }
+            if (!expiredConnections.isEmpty()) {
+                idleConnections.notifyAll();
+            }
+        }
+        return expiredConnections;
+    }
+
+    /**
+     * Closes these connections.
+     *
+     * @param connections The connections to close.
+     */
+    private static void closeAll(List<Connection> connections) {
+        for (Connection connection : connections) {
+            JdbcUtils.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Closes this pool and all its idle connections. Connections still in use are closed when they are handed back.
+     */
+    void close() {
+        evictionTask.cancel();
+
+        List<Connection> connections = new ArrayList<Connection>();
+        synchronized (idleConnections) {
+            closed = true;
+            for (IdleConnection idleConnection : idleConnections) {
+                connections.add(idleConnection.connection);
+            }
+            openCount -= idleConnections.size();
+            idleConnections.clear();
+            idleConnections.notifyAll();
+        }
+        closeAll(connections);
+    }
+
+    /**
+     * @return The number of physical connections currently open, idle or in use.
+     */
+    int getOpenCount() {
+        synchronized (idleConnections) {
+            return openCount;
+        }
+    }
+
+    /**
+     * @return The number of idle connections.
+     */
+    int getIdleCount() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    /**
+     * Wraps this physical connection, so that closing it hands it back to the pool.
+     *
+     * @param physicalConnection The physical connection.
+     * @return The pooled connection.
+     */
+    private Connection createPooledConnection(final Connection physicalConnection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new InvocationHandler() {
+                    /**
+                     * Whether this connection has been handed back to the pool.
+                     */
+                    private boolean released;
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String methodName = method.getName();
+                        if ("close".equals(methodName)) {
+                            if (!released) {
+                                released = true;
+                                release(physicalConnection);
+                            }
+                            return null;
+                        }
+                        if ("isClosed".equals(methodName)) {
+                            return released || physicalConnection.isClosed();
+                        }
+                        if ("equals".equals(methodName)) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(methodName)) {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("toString".equals(methodName)) {
+                            return "Pooled " + physicalConnection;
+                        }
+                        if (released) {
+                            throw new SQLException("Connection has been closed");
+                        }
+
+                        try {
+                            return method.invoke(physicalConnection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * A connection waiting in the pool.
+     */
+    private static class IdleConnection {
+        /**
+         * The physical connection.
+         */
+        private final Connection connection;
+
+        /**
+         * The timestamp (in millis) at which the connection was handed back to the pool.
+         */
+        private final long idleSince = System.currentTimeMillis();
+
+        /**
+         * Creates a new idle connection.
+         *
+         * @param connection The physical connection.
+         */
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+}
@@ -17,16 +17,36 @@ package com.googlecode.flyway.core.util.jdbc;
 
 import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.util.ClassUtils;
+import com.googlecode.flyway.core.util.ObjectUtils;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
 import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 /**
  * YAGNI: The simplest DataSource implementation that works for Flyway.
+ * <p/>
+ * By default every connection is a new physical connection. When a maximum pool size is set, connections are kept in
+ * a small built-in pool instead and reused across commands (see {@link #getPooledDataSource}).
  */
 public class DriverDataSource implements DataSource {
+    /**
+     * The maximum pool size of the pooled datasources shared by the front ends.
+     */
+    public static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+    /**
+     * The idle timeout (in millis) of the pooled datasources shared by the front ends.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    /**
+     * The pooled datasources shared within this JVM. Key: driver class, url and user. Value: the datasource.
+     */
+    private static final Map<String, DriverDataSource> POOLED_DATA_SOURCES = new HashMap<String, DriverDataSource>();
     /**
      * The JDBC Driver instance to use.
      */
@@ -52,6 +72,21 @@ public class DriverDataSource implements DataSource {
      */
     private String[] initSqls = new String[0];
 
+    /**
+     * The maximum number of physical connections to keep open. 0 or less disables pooling. (default: 0)
+     */
+    private int maxPoolSize;
+
+    /**
+     * The number of milliseconds after which an idle pooled connection is closed. (default: 60000)
+     */
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * The connection pool. {@code null} if pooling is disabled or no connection has been requested yet.
+     */
+    private ConnectionPool connectionPool;
+
     /**
      * Creates a new DriverDataSource.
      */
@@ -155,13 +190,130 @@ public class DriverDataSource implements DataSource {
     }
 
     /**
-     * This implementation delegates to {@code getConnectionFromDriver},
-     * using the default user and password of this DataSource.
+     * @return The maximum number of physical connections to keep open. 0 or less if pooling is disabled. (default: 0)
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Enables connection pooling. Must be called before the first connection is requested. Pooled datasources should
+     * be closed with {@link #close()} once they are no longer needed.
+     *
+     * @param maxPoolSize The maximum number of physical connections to keep open. When they are all in use, requests
+     *                    for a connection wait for one to be closed. 0 or less disables pooling. (default: 0)
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * Raises the maximum pool size to at least this size, also when the pool is already in use. Does nothing if
+     * pooling is disabled.
+     *
+     * @param poolSize The number of connections that must be available at the same time.
+     */
+    public synchronized void ensureMaxPoolSize(int poolSize) {
+        if ((maxPoolSize <= 0) || (poolSize <= maxPoolSize)) {
+            return;
+        }
+
+        maxPoolSize = poolSize;
+        if (connectionPool != null) {
+            connectionPool.ensureMaxSize(poolSize);
+        }
+    }
+
+    /**
+     * @return The number of milliseconds after which an idle pooled connection is closed. (default: 60000)
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @param idleTimeout The number of milliseconds after which an idle pooled connection is closed. (default: 60000)
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Retrieves the pooled datasource for these connection settings shared within this JVM, creating it if necessary.
+     * Used by the front ends, so that running several commands against the same database in one JVM reuses the same
+     * physical connections.
+     *
+     * @param driverClass The name of the JDBC Driver class to use.
+     * @param url The JDBC URL to use for connecting through the Driver.
+     * @param user The JDBC user to use for connecting through the Driver.
+     * @param password The JDBC password to use for connecting through the Driver.
+     * @return The pooled datasource.
+     *
+     * @throws FlywayException when the datasource could not be created.
+     */
+    public static DriverDataSource getPooledDataSource(String driverClass, String url, String user, String password)
+            throws FlywayException {
+        String key = driverClass + "|" + url + "|" + user;
+        synchronized (POOLED_DATA_SOURCES) {
+            DriverDataSource dataSource = POOLED_DATA_SOURCES.get(key);
+            if ((dataSource == null) || !ObjectUtils.nullSafeEquals(password, dataSource.getPassword())) {
+                if (dataSource != null) {
+                    dataSource.close();
+                }
+                dataSource = new DriverDataSource(driverClass, url, user, password);
+                dataSource.setMaxPoolSize(DEFAULT_MAX_POOL_SIZE);
+                POOLED_DATA_SOURCES.put(key, dataSource);
+            }
+            return dataSource;
+        }
+    }
+
+    /**
+     * Closes all pooled datasources shared within this JVM. Meant to be called by the front ends once they have run
+     * their last command. Later calls to {@link #getPooledDataSource} create new ones.
+     */
+    public static void closePooledDataSources() {
+        synchronized (POOLED_DATA_SOURCES) {
+            for (DriverDataSource dataSource : POOLED_DATA_SOURCES.values()) {
+                dataSource.close();
+            }
+            POOLED_DATA_SOURCES.clear();
+        }
+    }
+
+    /**
+     * Obtains a connection using the default user and password of this DataSource. It comes from the connection pool
+     * if pooling is enabled. Otherwise this delegates to {@code getConnectionFromDriver}.
      *
      * @see #getConnectionFromDriver(String, String)
      */
     public Connection getConnection() throws SQLException {
-        return getConnectionFromDriver(getUser(), getPassword());
+        if (maxPoolSize <= 0) {
+            return getConnectionFromDriver(getUser(), getPassword());
+        }
+        return getConnectionPool().getConnection();
+    }
+
+    /**
+     * @return The connection pool, created on first use.
+     */
+    /* private -> for testing */
+    synchronized ConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(this, maxPoolSize, idleTimeout);
+        }
+        return connectionPool;
+    }
+
+    /**
+     * Closes the connection pool of this datasource and all its idle connections. Connections still in use are closed
+     * as soon as they are closed by their users. Does nothing if pooling is disabled.
+     */
+    public synchronized void close() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
+        }
     }
 
     /**
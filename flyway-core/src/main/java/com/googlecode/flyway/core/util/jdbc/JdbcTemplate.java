@@ -234,13 +234,38 @@ public abstract class JdbcTemplate {
      * Executes this sql statement using an ordinary Statement.
      *
      * @param sql    The statement to execute.
+     * @return The number of rows affected by the statement, as reported by the driver. -1 if the statement produced a
+     *         result set or there is no update count.
      * @throws SQLException when the execution failed.
      */
-    public void executeStatement(String sql) throws SQLException {
+    public int executeStatement(String sql) throws SQLException {
         Statement statement = null;
         try {
             statement = connection.createStatement();
-            statement.execute(sql);
+            if (statement.execute(sql)) {
+                return -1;
+            }
+            return statement.getUpdateCount();
+        } finally {
+            JdbcUtils.closeStatement(statement);
+        }
+    }
+
+    /**
+     * Executes these sql statements as a single batch using an ordinary Statement.
+     *
+     * @param sqls The statements to execute.
+     * @return The update counts of the statements, as reported by the driver.
+     * @throws SQLException when the execution failed.
+     */
+    public int[] executeBatch(List<String> sqls) throws SQLException {
+        Statement statement = null;
+        try {
+            statement = connection.createStatement();
+            for (String sql : sqls) {
+                statement.addBatch(sql);
+            }
+            return statement.executeBatch();
         } finally {
             JdbcUtils.closeStatement(statement);
         }
@@ -323,4 +348,34 @@ public abstract class JdbcTemplate {
 
         return results;
     }
+
+    /**
+     * Executes this query and map the first row of the results using this row mapper. No further rows are fetched.
+     *
+     * @param query     The query to execute.
+     * @param rowMapper The row mapper to use.
+     * @param <T>       The type of the result object.
+     * @return The result of the first row. {@code null} if the query returned no rows.
+     * @throws SQLException when the query failed to execute.
+     */
+    public <T> T queryForFirst(String query, RowMapper<T> rowMapper) throws SQLException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        T result = null;
+        try {
+            statement = connection.createStatement();
+            statement.setMaxRows(1);
+            resultSet = statement.executeQuery(query);
+
+            if (resultSet.next()) {
+                result = rowMapper.mapRow(resultSet);
+            }
+        } finally {
+            JdbcUtils.closeResultSet(resultSet);
+            JdbcUtils.closeStatement(statement);
+        }
+
+        return result;
+    }
 }
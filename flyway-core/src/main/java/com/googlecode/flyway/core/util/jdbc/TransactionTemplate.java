@@ -32,13 +32,29 @@ public class TransactionTemplate {
      */
     private final Connection connection;
 
+    /**
+     * Whether to roll the transaction back once the callback completes instead of committing it.
+     */
+    private final boolean rollback;
+
     /**
      * Creates a new transaction template for this connection.
      *
      * @param connection The connection for the transaction.
      */
     public TransactionTemplate(Connection connection) {
+        this(connection, false);
+    }
+
+    /**
+     * Creates a new transaction template for this connection.
+     *
+     * @param connection The connection for the transaction.
+     * @param rollback   Whether to roll the transaction back once the callback completes instead of committing it.
+     */
+    public TransactionTemplate(Connection connection, boolean rollback) {
         this.connection = connection;
+        this.rollback = rollback;
     }
 
     /**
@@ -52,7 +68,11 @@ public class TransactionTemplate {
         try {
             connection.setAutoCommit(false);
             T result = transactionCallback.doInTransaction();
-            connection.commit();
+            if (rollback) {
+                connection.rollback();
+            } else {
+                connection.commit();
+            }
             return result;
         } catch (SQLException e) {
             try {
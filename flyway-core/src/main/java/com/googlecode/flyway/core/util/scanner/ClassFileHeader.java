@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.util.scanner;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The header of a class file: its name, the name of its super class and the names of the interfaces it directly
+ * implements. This is read straight from the class file bytes, without loading the class.
+ */
+public class ClassFileHeader {
+    /**
+     * The magic number at the start of every class file.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * The internal name (with slashes) of the class.
+     */
+    private final String name;
+
+    /**
+     * The internal name (with slashes) of the super class. {@code null} for java.lang.Object.
+     */
+    private final String superName;
+
+    /**
+     * The internal names (with slashes) of the interfaces the class directly implements.
+     */
+    private final String[] interfaceNames;
+
+    /**
+     * Creates a new class file header.
+     *
+     * @param name           The internal name (with slashes) of the class.
+     * @param superName      The internal name (with slashes) of the super class. {@code null} for java.lang.Object.
+     * @param interfaceNames The internal names (with slashes) of the interfaces the class directly implements.
+     */
+    private ClassFileHeader(String name, String superName, String[] interfaceNames) {
+        this.name = name;
+        this.superName = superName;
+        this.interfaceNames = interfaceNames;
+    }
+
+    /**
+     * @return The internal name (with slashes) of the class.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The internal name (with slashes) of the super class. {@code null} for java.lang.Object.
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * @return The internal names (with slashes) of the interfaces the class directly implements.
+     */
+    public String[] getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * Reads the header of the class file in this stream. Only the start of the file, up to the list of interfaces, is
+     * read. The stream is not closed.
+     *
+     * @param inputStream The stream containing the class file.
+     * @return The header.
+     * @throws IOException when the stream could not be read or doesn't contain a valid class file.
+     */
+    public static ClassFileHeader read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8Constants = new String[constantPoolCount];
+        int[] classNameIndexes = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8Constants[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNameIndexes[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    // These take up two slots in the constant pool
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag: " + tag);
+            }
+        }
+
+        in.readUnsignedShort(); // access flags
+        String name = utf8Constants[classNameIndexes[in.readUnsignedShort()]];
+        int superClassIndex = in.readUnsignedShort();
+        String superName = (superClassIndex == 0) ? null : utf8Constants[classNameIndexes[superClassIndex]];
+
+        int interfacesCount = in.readUnsignedShort();
+        String[] interfaceNames = new String[interfacesCount];
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames[i] = utf8Constants[classNameIndexes[in.readUnsignedShort()]];
+        }
+
+        return new ClassFileHeader(name, superName, interfaceNames);
+    }
+}
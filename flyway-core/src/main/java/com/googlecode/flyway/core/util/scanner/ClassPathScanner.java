@@ -19,10 +19,18 @@ import com.googlecode.flyway.core.util.ClassPathResource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * ClassPath scanner.
@@ -30,6 +38,29 @@ import java.util.*;
 public class ClassPathScanner {
     private static final Log LOG = LogFactory.getLog(ClassPathScanner.class);
 
+    /**
+     * The maximum number of threads to use to scan the locations (directories and jar files) on the classpath in
+     * parallel. 1 or less means the locations are scanned one after the other.
+     */
+    private final int scanThreads;
+
+    /**
+     * Creates a new ClassPathScanner that scans the locations on the classpath one after the other.
+     */
+    public ClassPathScanner() {
+        this(1);
+    }
+
+    /**
+     * Creates a new ClassPathScanner.
+     *
+     * @param scanThreads The maximum number of threads to use to scan the locations (directories and jar files) on the
+     *                    classpath in parallel. 1 or less means the locations are scanned one after the other.
+     */
+    public ClassPathScanner(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
     /**
      * Scans the classpath for resources under the specified location, starting with the specified prefix and ending with
      * the specified suffix.
@@ -64,22 +95,146 @@ public class ClassPathScanner {
     public Class<?>[] scanForClasses(String location, Class<?>... implementedInterfaces) throws Exception {
         List<Class<?>> classes = new ArrayList<Class<?>>();
 
+        for (String className : scanForClassNames(location, implementedInterfaces)) {
+            classes.add(getClassLoader().loadClass(className));
+        }
+
+        return classes.toArray(new Class<?>[classes.size()]);
+    }
+
+    /**
+     * Scans the classpath for the names of the classes under the specified package implementing any of these
+     * interfaces. The classes are not loaded: the hierarchy of each candidate is determined by reading the headers of
+     * the class files. Only classes outside the scanned location whose class file can not be read (typically JDK
+     * classes) are loaded, without being initialized.
+     *
+     * @param location              The location (package) in the classpath to start scanning.
+     *                              Subpackages are also scanned.
+     * @param implementedInterfaces The interfaces the matching classes should implement..
+     * @return The fully qualified names of the classes that were found.
+     * @throws Exception when the location could not be scanned.
+     */
+    public String[] scanForClassNames(String location, Class<?>... implementedInterfaces) throws Exception {
+        List<String> classNames = new ArrayList<String>();
+        Map<String, Boolean> assignableCache = new HashMap<String, Boolean>();
+
         Set<String> resourceNames = findResourceNames(location, "", ".class");
         for (String resourceName : resourceNames) {
-            String className = toClassName(resourceName);
-            Class<?> clazz = getClassLoader().loadClass(className);
-            if (implementedInterfaces.length == 0) {
-                classes.add(clazz);
-            } else {
-                for (Class<?> implementedInterface : implementedInterfaces) {
-                    if (implementedInterface.isAssignableFrom(clazz)) {
-                        classes.add(clazz);
-                    }
-                }
+            String internalName = resourceName.substring(0, resourceName.length() - ".class".length());
+            if ((implementedInterfaces.length == 0)
+                    || isAssignable(internalName, implementedInterfaces, assignableCache)) {
+                classNames.add(toClassName(resourceName));
             }
         }
 
-        return classes.toArray(new Class<?>[classes.size()]);
+        return classNames.toArray(new String[classNames.size()]);
+    }
+
+    /**
+     * Checks whether the class with this internal name is, extends or implements any of these interfaces.
+     *
+     * @param internalName          The internal name (with slashes) of the class to check.
+     * @param implementedInterfaces The interfaces to check against.
+     * @param assignableCache       The results of the classes already checked. Key: internal name. Value: result.
+     * @return {@code true} if it is, {@code false} if not.
+     */
+    private boolean isAssignable(String internalName, Class<?>[] implementedInterfaces, Map<String, Boolean> assignableCache) {
+        Boolean cached = assignableCache.get(internalName);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean assignable = checkAssignable(internalName, implementedInterfaces, assignableCache);
+        assignableCache.put(internalName, assignable);
+        return assignable;
+    }
+
+    /**
+     * Checks whether the class with this internal name is, extends or implements any of these interfaces, by walking
+     * up its hierarchy through the headers of the class files.
+     *
+     * @param internalName          The internal name (with slashes) of the class to check.
+     * @param implementedInterfaces The interfaces to check against.
+     * @param assignableCache       The results of the classes already checked. Key: internal name. Value: result.
+     * @return {@code true} if it is, {@code false} if not.
+     */
+    private boolean checkAssignable(String internalName, Class<?>[] implementedInterfaces, Map<String, Boolean> assignableCache) {
+        String className = internalName.replace("/", ".");
+        for (Class<?> implementedInterface : implementedInterfaces) {
+            if (implementedInterface.getName().equals(className)) {
+                return true;
+            }
+        }
+
+        ClassFileHeader classFileHeader = readClassFileHeader(internalName);
+        if (classFileHeader == null) {
+            return checkAssignableByLoading(className, implementedInterfaces);
+        }
+
+        String superName = classFileHeader.getSuperName();
+        if ((superName != null) && isAssignable(superName, implementedInterfaces, assignableCache)) {
+            return true;
+        }
+        for (String interfaceName : classFileHeader.getInterfaceNames()) {
+            if (isAssignable(interfaceName, implementedInterfaces, assignableCache)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this class is, extends or implements any of these interfaces by loading it, without initializing
+     * it. This is the fallback for classes whose class file can not be read.
+     *
+     * @param className             The fully qualified name of the class to check.
+     * @param implementedInterfaces The interfaces to check against.
+     * @return {@code true} if it is, {@code false} if not or if it could not be loaded.
+     */
+    private boolean checkAssignableByLoading(String className, Class<?>[] implementedInterfaces) {
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className, false, getClassLoader());
+        } catch (ClassNotFoundException e) {
+            LOG.debug("Unable to load class: " + className);
+            return false;
+        } catch (LinkageError e) {
+            LOG.debug("Unable to load class: " + className + " (" + e.getMessage() + ")");
+            return false;
+        }
+
+        for (Class<?> implementedInterface : implementedInterfaces) {
+            if (implementedInterface.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the header of the class file of this class.
+     *
+     * @param internalName The internal name (with slashes) of the class.
+     * @return The header or {@code null} if the class file could not be read.
+     */
+    private ClassFileHeader readClassFileHeader(String internalName) {
+        InputStream inputStream = getClassLoader().getResourceAsStream(internalName + ".class");
+        if (inputStream == null) {
+            return null;
+        }
+
+        try {
+            return ClassFileHeader.read(new BufferedInputStream(inputStream));
+        } catch (IOException e) {
+            LOG.debug("Unable to read class file header of " + internalName + " (" + e.getMessage() + ")");
+            return null;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                //Ignore
+            }
+        }
     }
 
     /**
@@ -104,34 +259,110 @@ public class ClassPathScanner {
      * @throws IOException when scanning this location failed.
      */
     private Set<String> findResourceNames(String location, String prefix, String suffix) throws IOException {
-        Set<String> resourceNames = new TreeSet<String>();
-
         String normalizedLocation = normalizeLocation(location);
 
-        Enumeration<URL> locationsUrls = getClassLoader().getResources(normalizedLocation);
-        if (!locationsUrls.hasMoreElements()) {
+        List<URL> locationUrls = Collections.list(getClassLoader().getResources(normalizedLocation));
+        if (locationUrls.isEmpty()) {
             LOG.debug("Unable to determine URL for classpath location: " + normalizedLocation + " (ClassLoader: " + getClassLoader() + ")");
         }
-        while (locationsUrls.hasMoreElements()) {
-            URL locationUrl = locationsUrls.nextElement();
-            LOG.debug("Scanning URL: " + locationUrl.toExternalForm());
 
-            String scanRoot = URLDecoder.decode(locationUrl.getFile(), "UTF-8");
-            if (scanRoot.endsWith("/")) {
-                scanRoot = scanRoot.substring(0, scanRoot.length() - 1);
+        Set<String> resourceNames;
+        if ((scanThreads > 1) && (locationUrls.size() > 1)) {
+            resourceNames = scanLocationUrlsInParallel(normalizedLocation, locationUrls);
+        } else {
+            resourceNames = new TreeSet<String>();
+            for (URL locationUrl : locationUrls) {
+                resourceNames.addAll(scanLocationUrl(normalizedLocation, locationUrl));
             }
+        }
 
-            String protocol = locationUrl.getProtocol();
-            LocationScanner locationScanner = createLocationScanner(protocol);
-            if (locationScanner == null) {
-                LOG.warn("Unable to scan location: " + scanRoot + " (unsupported protocol: " + protocol + ")");
-            } else {
-                resourceNames.addAll(locationScanner.findResourceNames(normalizedLocation, scanRoot));
+        return filterResourceNames(resourceNames, prefix, suffix);
+    }
+
+    /**
+     * Scans these location urls in parallel, using at most scanThreads threads. The results are merged in the order
+     * of the urls, so the outcome is exactly the same as when scanning them one after the other.
+     *
+     * @param normalizedLocation The normalized location on the classpath to scan.
+     * @param locationUrls       The urls at which this location can be found.
+     * @return The resource names.
+     * @throws IOException when scanning one of the urls failed.
+     */
+    private Set<String> scanLocationUrlsInParallel(final String normalizedLocation, List<URL> locationUrls) throws IOException {
+        ExecutorService executorService =
+                Executors.newFixedThreadPool(Math.min(scanThreads, locationUrls.size()), new ScanThreadFactory());
+        try {
+            List<Future<Set<String>>> futures = new ArrayList<Future<Set<String>>>();
+            for (final URL locationUrl : locationUrls) {
+                futures.add(executorService.submit(new Callable<Set<String>>() {
+                    public Set<String> call() throws IOException {
+                        return scanLocationUrl(normalizedLocation, locationUrl);
+                    }
+                }));
             }
 
+            Set<String> resourceNames = new TreeSet<String>();
+            for (Future<Set<String>> future : futures) {
+                resourceNames.addAll(getScanResult(future));
+            }
+            return resourceNames;
+        } finally {
+            executorService.shutdownNow();
         }
+    }
 
-        return filterResourceNames(resourceNames, prefix, suffix);
+    /**
+     * Waits for the result of this parallel scan.
+     *
+     * @param future The future result of the scan.
+     * @return The resource names found by the scan.
+     * @throws IOException when the scan failed.
+     */
+    private Set<String> getScanResult(Future<Set<String>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning the classpath");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Unexpected error while scanning the classpath", cause);
+        }
+    }
+
+    /**
+     * Finds the resources names present at this location url.
+     *
+     * @param normalizedLocation The normalized location on the classpath to scan.
+     * @param locationUrl        The url at which this location can be found.
+     * @return The resource names.
+     * @throws IOException when scanning this url failed.
+     */
+    private Set<String> scanLocationUrl(String normalizedLocation, URL locationUrl) throws IOException {
+        LOG.debug("Scanning URL: " + locationUrl.toExternalForm());
+
+        String scanRoot = URLDecoder.decode(locationUrl.getFile(), "UTF-8");
+        if (scanRoot.endsWith("/")) {
+            scanRoot = scanRoot.substring(0, scanRoot.length() - 1);
+        }
+
+        String protocol = locationUrl.getProtocol();
+        LocationScanner locationScanner = createLocationScanner(protocol);
+        if (locationScanner == null) {
+            LOG.warn("Unable to scan location: " + scanRoot + " (unsupported protocol: " + protocol + ")");
+            return new TreeSet<String>();
+        }
+
+        return locationScanner.findResourceNames(normalizedLocation, scanRoot);
     }
 
     /**
@@ -199,4 +430,16 @@ public class ClassPathScanner {
         }
         return filteredResourceNames;
     }
+
+    /**
+     * Creates the daemon threads used to scan the classpath in parallel, so a scan can never prevent the JVM from
+     * exiting.
+     */
+    private static class ScanThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "flyway-classpath-scanner");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
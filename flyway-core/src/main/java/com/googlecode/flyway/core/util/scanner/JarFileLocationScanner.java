@@ -56,11 +56,19 @@ public class JarFileLocationScanner implements LocationScanner {
         Set<String> resourceNames = new TreeSet<String>();
 
         JarFile jarFile = new JarFile(jarFileName);
-        Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
-            String entryName = entries.nextElement().getName();
-            if (entryName.startsWith(directory)) {
-                resourceNames.add(entryName);
+        try {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.startsWith(directory)) {
+                    resourceNames.add(entryName);
+                }
+            }
+        } finally {
+            try {
+                jarFile.close();
+            } catch (IOException e) {
+                //Ignore
             }
         }
 
@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INT NOT NULL,
     version VARCHAR(20) NOT NULL,
     description VARCHAR(100),
     type VARCHAR(10) NOT NULL,
@@ -25,8 +26,6 @@ CREATE TABLE ${schema}.${table} (
     installed_on TIMESTAMP DEFAULT CURRENT TIMESTAMP NOT NULL,
     execution_time INT,
     state VARCHAR(15) NOT NULL,
-    current_version SMALLINT NOT NULL,
-    CONSTRAINT ${table}_currversion CHECK (current_version in(0,1)),
     PRIMARY KEY (version)
 );
-CREATE INDEX ${schema}.${table}_cv_idx ON ${schema}.${table} (current_version);
\ No newline at end of file
+CREATE INDEX ${schema}.${table}_ir_idx ON ${schema}.${table} (installed_rank);
\ No newline at end of file
@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INT NOT NULL,
     version VARCHAR(20) PRIMARY KEY,
     description VARCHAR(100),
     type VARCHAR(10) NOT NULL,
@@ -24,7 +25,6 @@ CREATE TABLE ${schema}.${table} (
     installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     execution_time INT,
     state VARCHAR(15) NOT NULL,
-    current_version BIT NOT NULL,
     CONSTRAINT ${schema}.${table}_script_unique UNIQUE (script)
 );
- CREATE INDEX ${schema}.${table}_current_version_index ON ${schema}.${table} (current_version);
\ No newline at end of file
+CREATE INDEX ${schema}.${table}_installed_rank_index ON ${schema}.${table} (installed_rank);
\ No newline at end of file
@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INT NOT NULL,
     version VARCHAR(20) NOT NULL UNIQUE,
     description VARCHAR(100),
     type VARCHAR(10) NOT NULL,
@@ -24,7 +25,6 @@ CREATE TABLE ${schema}.${table} (
     installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     execution_time INT,
     state VARCHAR(15) NOT NULL,
-    current_version BOOL NOT NULL,
     PRIMARY KEY(version)
 ) ENGINE=InnoDB;
-ALTER TABLE ${schema}.${table} ADD INDEX ${table}_current_version_index (current_version);
\ No newline at end of file
+ALTER TABLE ${schema}.${table} ADD INDEX ${table}_installed_rank_index (installed_rank);
\ No newline at end of file
@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INT NOT NULL,
     version VARCHAR2(20) NOT NULL PRIMARY KEY,
     description VARCHAR2(100),
     type VARCHAR2(10) NOT NULL,
@@ -23,7 +24,6 @@ CREATE TABLE ${schema}.${table} (
     installed_by VARCHAR2(30) NOT NULL,
     installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     execution_time INT,
-    state VARCHAR2(15) NOT NULL,
-    current_version NUMBER(1) NOT NULL
+    state VARCHAR2(15) NOT NULL
 );
-CREATE INDEX ${schema}.${table}_cv_idx ON ${schema}.${table} (current_version);
\ No newline at end of file
+CREATE INDEX ${schema}.${table}_ir_idx ON ${schema}.${table} (installed_rank);
\ No newline at end of file
@@ -0,0 +1,20 @@
+--
+-- Copyright (C) 2010-2012 the original author or authors.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--         http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+
+-- First step of the upgrade of the metadata table of a previous Flyway version, which flagged the current
+-- version on each row: adds the installed rank. The ranks are filled in afterwards.
+ALTER TABLE ${schema}.${table} ADD COLUMN installed_rank INTEGER NOT NULL DEFAULT 0;
+CREATE INDEX ${table}_installed_rank_index ON ${schema}.${table} (installed_rank);
\ No newline at end of file
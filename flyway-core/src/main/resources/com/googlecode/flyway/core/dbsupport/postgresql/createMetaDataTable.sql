@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INTEGER NOT NULL,
     "version" VARCHAR(20) NOT NULL,
     description VARCHAR(100),
     "type" VARCHAR(10) NOT NULL,
@@ -24,10 +25,9 @@ CREATE TABLE ${schema}.${table} (
     installed_on TIMESTAMP DEFAULT now(),
     execution_time INTEGER,
     state VARCHAR(15) NOT NULL,
-    current_version BOOLEAN NOT NULL,
     CONSTRAINT ${table}_primary_key PRIMARY KEY (version),
     CONSTRAINT ${table}_script_unique UNIQUE (script)
 ) WITH (
   OIDS=FALSE
 );
-CREATE INDEX ${table}_current_version_index ON ${schema}.${table} (current_version);
\ No newline at end of file
+CREATE INDEX ${table}_installed_rank_index ON ${schema}.${table} (installed_rank);
\ No newline at end of file
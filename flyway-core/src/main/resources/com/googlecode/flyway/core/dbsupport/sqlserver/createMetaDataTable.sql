@@ -15,6 +15,7 @@
 --
 
 CREATE TABLE ${schema}.${table} (
+    installed_rank INT NOT NULL,
     [version] NVARCHAR(20) NOT NULL PRIMARY KEY,
     [description] NVARCHAR(100),
     [type] NVARCHAR(10) NOT NULL,
@@ -23,7 +24,6 @@ CREATE TABLE ${schema}.${table} (
     installed_by NVARCHAR(30) NOT NULL,
     installed_on DATETIME DEFAULT GETDATE(),
     execution_time INT,
-    [state] NVARCHAR(15) NOT NULL,
-    current_version BIT NOT NULL
+    [state] NVARCHAR(15) NOT NULL
 );
-CREATE INDEX ${table}_cv_idx ON ${schema}.${table} (current_version);
\ No newline at end of file
+CREATE INDEX ${table}_ir_idx ON ${schema}.${table} (installed_rank);
\ No newline at end of file
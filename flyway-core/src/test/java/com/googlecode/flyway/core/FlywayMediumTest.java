@@ -22,10 +22,14 @@ import org.h2.Driver;
 import org.junit.Test;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -98,6 +102,28 @@ public class FlywayMediumTest {
         assertEquals(0, dataSource.getOpenConnectionCount());
     }
 
+    @Test
+    public void upToDateSingleQuery() {
+        OpenConnectionCountDriverDataSource dataSource = createDataSource();
+
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setBaseDir("migration/sql");
+        flyway.clean();
+        assertEquals(4, flyway.migrate());
+
+        // Already up to date: only the current row of the metadata table is read
+        dataSource.getExecutedSql().clear();
+        assertEquals(0, flyway.migrate());
+        int metaDataTableQueryCount = 0;
+        for (String sql : dataSource.getExecutedSql()) {
+            if (sql.toLowerCase().contains(flyway.getTable().toLowerCase())) {
+                metaDataTableQueryCount++;
+            }
+        }
+        assertEquals(1, metaDataTableQueryCount);
+    }
+
     /**
      * Tests the functionality of the OpenConnectionCountDriverDataSource.
      */
@@ -134,6 +160,11 @@ public class FlywayMediumTest {
          */
         private int openConnectionCount = 0;
 
+        /**
+         * The sql of all statements executed so far.
+         */
+        private final List<String> executedSql = new ArrayList<String>();
+
         public OpenConnectionCountDriverDataSource(Driver driver, String url, String user, String password) throws FlywayException {
             super(driver, url, user, password);
         }
@@ -145,6 +176,13 @@ public class FlywayMediumTest {
             return openConnectionCount;
         }
 
+        /**
+         * @return The sql of all statements executed so far.
+         */
+        public List<String> getExecutedSql() {
+            return executedSql;
+        }
+
         @Override
         protected Connection getConnectionFromDriver(String username, String password) throws SQLException {
             final Connection connection = super.getConnectionFromDriver(username, password);
@@ -156,7 +194,35 @@ public class FlywayMediumTest {
                     if ("close".equals(method.getName())) {
                         openConnectionCount--;
                     }
-                    return method.invoke(connection, args);
+                    if (method.getName().startsWith("prepare")) {
+                        executedSql.add((String) args[0]);
+                    }
+                    Object result = method.invoke(connection, args);
+                    if ("createStatement".equals(method.getName())) {
+                        return recordExecutedSql((Statement) result);
+                    }
+                    return result;
+                }
+            });
+        }
+
+        /**
+         * Wraps this statement so the sql it executes gets recorded.
+         *
+         * @param statement The statement to wrap.
+         * @return The wrapped statement.
+         */
+        private Statement recordExecutedSql(final Statement statement) {
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().startsWith("execute") && (args != null) && (args[0] instanceof String)) {
+                        executedSql.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
                 }
             });
         }
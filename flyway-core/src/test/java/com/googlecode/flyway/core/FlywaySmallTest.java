@@ -16,6 +16,8 @@
 package com.googlecode.flyway.core;
 
 import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.migration.MigrationSettings;
 import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import com.googlecode.flyway.core.validation.ValidationMode;
 import org.junit.Test;
@@ -26,6 +28,7 @@ import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /**
  * Test for the main Flyway class.
@@ -44,8 +47,9 @@ public class FlywaySmallTest {
 
         assertNotNull(flyway.getDataSource());
 
-        flyway.execute(new Flyway.Command<Void>() {
-            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects, DbSupport dbSupport) {
+        flyway.execute("configure", new Flyway.Command<Void>() {
+            public Void execute(Connection connectionMetaDataTable, Connection connectionUserObjects,
+                                DbSupport dbSupport, MigrationSettings migrationSettings) {
                 assertEquals("PUBLIC", flyway.getSchemas()[0]);
                 return null;
             }
@@ -114,4 +118,26 @@ public class FlywaySmallTest {
 
         assertEquals(dataSource, flyway.getDataSource());
     }
+
+    @Test
+    public void configureTenantSchemasBeforeDataSource() {
+        Properties properties = new Properties();
+        properties.setProperty("flyway.tenantSchemas", "tenant1,tenant2");
+
+        Flyway flyway = new Flyway();
+        flyway.configure(properties);
+
+        // Resolved against the datasource of Flyway when migrating the tenants
+        assertEquals(2, flyway.getTenants().size());
+        assertEquals("tenant1", flyway.getTenants().get(0).getSchemas()[0]);
+        assertNull(flyway.getTenants().get(0).getDataSource());
+    }
+
+    @Test(expected = FlywayException.class)
+    public void configureTenantUrlsWithoutDriver() {
+        Properties properties = new Properties();
+        properties.setProperty("flyway.tenantUrls", "jdbc:h2:mem:flyway_tenant;DB_CLOSE_DELAY=-1");
+
+        new Flyway().configure(properties);
+    }
 }
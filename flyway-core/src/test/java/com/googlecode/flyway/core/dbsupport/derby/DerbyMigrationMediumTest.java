@@ -16,12 +16,21 @@
 package com.googlecode.flyway.core.dbsupport.derby;
 
 import com.googlecode.flyway.core.migration.MigrationTestCase;
+import com.googlecode.flyway.core.tenant.Tenant;
+import com.googlecode.flyway.core.tenant.TenantMigrationResult;
 import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import org.apache.derby.jdbc.EmbeddedDriver;
+import org.junit.Test;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Test to demonstrate the migration functionality using Derby.
  */
@@ -39,4 +48,32 @@ public class DerbyMigrationMediumTest extends MigrationTestCase {
     protected String getQuoteBaseDir() {
         return "migration/quote";
     }
+
+    @Test
+    public void migrateTenantsGroup() throws Exception {
+        List<Tenant> tenants = new ArrayList<Tenant>();
+        for (String schema : new String[]{"FLYWAY_1", "FLYWAY_2"}) {
+            try {
+                jdbcTemplate.executeStatement("CREATE SCHEMA " + schema);
+            } catch (SQLException e) {
+                // Already exists
+            }
+            tenants.add(new Tenant(schema, flyway.getDataSource(), schema));
+        }
+        flyway.setBaseDir(BASEDIR);
+        flyway.setGroup(true);
+
+        List<TenantMigrationResult> results = flyway.migrateTenants(tenants);
+
+        // Grouped migrations run on the connection of the metadata table, which must use the schema of the tenant too
+        for (int i = 0; i < 2; i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(2, jdbcTemplate.queryForInt("select count(*) from FLYWAY_" + (i + 1) + ".test_user"));
+        }
+        assertEquals(0, jdbcTemplate.queryForInt("select count(*) from sys.systables t, sys.sysschemas s"
+                + " where t.schemaid = s.schemaid and s.schemaname = 'FLYWAY' and t.tablename = 'TEST_USER'"));
+
+        flyway.setSchemas("FLYWAY_1", "FLYWAY_2");
+        flyway.clean();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.dbsupport.h2;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for H2DbSupport
+ */
+public class H2DbSupportSmallTest {
+    @Test
+    public void getQualifyingSchema() {
+        List<String> schemas = Arrays.asList("PUBLIC", "My \"Schema\"", "FLYWAY_1", "flyway_2", "a.b");
+        assertEquals("PUBLIC", H2DbSupport.getQualifyingSchema("CREATE CACHED TABLE PUBLIC.TEST_USER(ID INT)", schemas));
+        assertEquals("My \"Schema\"", H2DbSupport.getQualifyingSchema("CREATE VIEW \"My \"\"Schema\"\"\".\"V\" AS SELECT 1", schemas));
+        assertEquals("FLYWAY_1", H2DbSupport.getQualifyingSchema("INSERT INTO FLYWAY_1.\"schema_version\" VALUES(1)", schemas));
+        assertEquals("a.b", H2DbSupport.getQualifyingSchema("CREATE CACHED TABLE \"a.b\".\"c\"(ID INT)", schemas));
+        assertEquals("flyway_2", H2DbSupport.getQualifyingSchema("CREATE INDEX \"flyway_2\".IDX ON \"flyway_2\".T(D)", schemas));
+        assertNull(H2DbSupport.getQualifyingSchema("CREATE USER IF NOT EXISTS SA PASSWORD '' ADMIN", schemas));
+        assertNull(H2DbSupport.getQualifyingSchema("CREATE DOMAIN D AS VARCHAR DEFAULT 'FLYWAY_1.X'", schemas));
+        assertNull(H2DbSupport.getQualifyingSchema("CREATE ALIAS UNKNOWN.F FOR \"FLYWAY_1.Functions.f\"", schemas));
+    }
+}
@@ -15,16 +15,32 @@
  */
 package com.googlecode.flyway.core.dbsupport.h2;
 
+import com.googlecode.flyway.core.Flyway;
+import com.googlecode.flyway.core.exception.FlywayException;
 import com.googlecode.flyway.core.migration.MigrationTestCase;
 import com.googlecode.flyway.core.migration.SchemaVersion;
+import com.googlecode.flyway.core.tenant.Tenant;
+import com.googlecode.flyway.core.tenant.TenantMigrationResult;
 import com.googlecode.flyway.core.util.jdbc.DriverDataSource;
 import org.h2.Driver;
 import org.junit.Test;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test to demonstrate the migration functionality using H2.
@@ -85,4 +101,282 @@ public class H2MigrationMediumTest extends MigrationTestCase {
         flyway.clean();
         flyway.migrate();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void cleanMultipleSchemasInParallel() throws Exception {
+        flyway.setSchemas("FLYWAY_1", "FLYWAY_2", "FLYWAY_3");
+        flyway.setCleanThreads(3);
+        flyway.clean();
+
+        flyway.setBaseDir("migration/multi");
+        assertEquals(3, flyway.migrate());
+        assertEquals(2, jdbcTemplate.queryForInt("select count(*) from flyway_2.test_user2"));
+
+        flyway.clean();
+
+        assertNull(flyway.status());
+        assertEquals(0, jdbcTemplate.queryForInt(
+                "select count(*) from information_schema.tables where table_schema like 'FLYWAY_%'"));
+        assertEquals(3, flyway.migrate());
+
+        flyway.clean();
+    }
+
+    @Test
+    public void fastClean() throws Exception {
+        flyway.setSchemas("FLYWAY_1", "FLYWAY_2", "FLYWAY_3");
+        flyway.setFastClean(true);
+
+        flyway.setBaseDir("migration/multi");
+        assertEquals(3, flyway.migrate());
+
+        flyway.clean();
+
+        assertNull(flyway.status());
+        assertEquals(0, jdbcTemplate.queryForInt(
+                "select count(*) from information_schema.tables where table_schema like 'FLYWAY_%'"));
+        assertEquals(3, jdbcTemplate.queryForInt(
+                "select count(*) from information_schema.schemata where schema_name like 'FLYWAY_%'"));
+        assertEquals(3, flyway.migrate());
+
+        flyway.clean();
+    }
+
+    @Test
+    public void snapshot() throws Exception {
+        File snapshotDir = new File(System.getProperty("java.io.tmpdir"), "flyway-snapshot-" + System.nanoTime());
+        try {
+            flyway.setSnapshotDir(snapshotDir.getAbsolutePath());
+            flyway.setBaseDir(BASEDIR);
+            assertEquals(4, flyway.migrate());
+            assertEquals(1, snapshotDir.listFiles().length);
+            String installedOn = jdbcTemplate.queryForString("select installed_on from schema_version where version = '2.0'");
+
+            Thread.sleep(100);
+            flyway.clean();
+            assertEquals(4, flyway.migrate());
+
+            // Restored from the snapshot instead of applied again
+            assertEquals(installedOn, jdbcTemplate.queryForString("select installed_on from schema_version where version = '2.0'"));
+            assertEquals(4, flyway.history().size());
+            assertEquals("2.0", flyway.status().getVersion().toString());
+            assertEquals(2, jdbcTemplate.queryForInt("select count(*) from all_misters"));
+            flyway.validate();
+            assertEquals(0, flyway.migrate());
+
+            Map<String, String> placeholders = new HashMap<String, String>();
+            placeholders.put("unused", "value");
+            flyway.setPlaceholders(placeholders);
+            flyway.clean();
+            assertEquals(4, flyway.migrate());
+            assertEquals(2, snapshotDir.listFiles().length);
+        } finally {
+            File[] snapshots = snapshotDir.listFiles();
+            if (snapshots != null) {
+                for (File snapshot : snapshots) {
+                    snapshot.delete();
+                }
+            }
+            snapshotDir.delete();
+        }
+    }
+
+    @Test
+    public void migrationReport() throws Exception {
+        File reportFile = File.createTempFile("flyway-report", ".json");
+        try {
+            flyway.setReportFile(reportFile.getAbsolutePath());
+            flyway.setReportSlowStatements(3);
+            flyway.setBaseDir(BASEDIR);
+            assertEquals(4, flyway.migrate());
+
+            StringBuilder report = new StringBuilder();
+            Reader reader = new InputStreamReader(new FileInputStream(reportFile), "UTF-8");
+            try {
+                char[] buffer = new char[4096];
+                int count;
+                while ((count = reader.read(buffer)) != -1) {
+                    report.append(buffer, 0, count);
+                }
+            } finally {
+                reader.close();
+            }
+
+            String json = report.toString();
+            assertTrue(json, json.contains("\"migrationCount\": 4,"));
+            assertTrue(json, json.contains("\"script\": \"V1_2__Populate_table.sql\", \"state\": \"SUCCESS\""));
+            assertTrue(json, json.contains("\"statementCount\": 2"));
+            assertEquals(json, 3, json.split("\"lineNumber\"").length - 1);
+        } finally {
+            reportFile.delete();
+        }
+    }
+
+    @Test
+    public void awaitWhileMigrating() throws Exception {
+        final Flyway follower = new Flyway();
+        follower.setDataSource(flyway.getDataSource());
+        follower.setBaseDir(BASEDIR);
+        follower.setAwaitTimeout(30);
+        final List<Object> awaited = new ArrayList<Object>();
+        Thread followerThread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    awaited.add(follower.await().getVersion());
+                } catch (Exception e) {
+                    awaited.add(e);
+                }
+            }
+        };
+        followerThread.start();
+
+        flyway.setBaseDir(BASEDIR);
+        assertEquals(4, flyway.migrate());
+
+        followerThread.join(30000);
+        assertEquals(1, awaited.size());
+        assertEquals(new SchemaVersion("2.0"), awaited.get(0));
+    }
+
+    @Test
+    public void migrateTenants() throws Exception {
+        List<Tenant> tenants = new ArrayList<Tenant>();
+        for (String schema : new String[]{"FLYWAY_1", "FLYWAY_2", "FLYWAY_3"}) {
+            tenants.add(new Tenant(schema, flyway.getDataSource(), schema));
+        }
+        tenants.add(new Tenant("MISSING", flyway.getDataSource(), "MISSING"));
+        flyway.setBaseDir(BASEDIR);
+        flyway.setTenantThreads(2);
+
+        List<TenantMigrationResult> results = flyway.migrateTenants(tenants);
+
+        assertEquals(4, results.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("FLYWAY_" + (i + 1), results.get(i).getTenantName());
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(4, results.get(i).getMigrationCount());
+            assertEquals(2, jdbcTemplate.queryForInt("select count(*) from FLYWAY_" + (i + 1) + ".test_user"));
+        }
+        assertFalse(results.get(3).isSuccess());
+        assertEquals(0, jdbcTemplate.queryForInt(
+                "select count(*) from information_schema.tables where table_schema = 'PUBLIC'"));
+
+        flyway.setSchemas("FLYWAY_2");
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        flyway.setSchemas("FLYWAY_1", "FLYWAY_2", "FLYWAY_3");
+        flyway.clean();
+    }
+
+    @Test
+    public void fastCleanCurrentSchema() throws Exception {
+        flyway.setFastClean(true);
+        flyway.setBaseDir("migration/sql");
+        flyway.migrate();
+
+        flyway.clean();
+
+        assertNull(flyway.status());
+        assertEquals(0, jdbcTemplate.queryForInt(
+                "select count(*) from information_schema.tables where table_schema = 'PUBLIC'"));
+    }
+
+    @Test
+    public void upgradeMetaDataTable() throws Exception {
+        flyway.setBaseDir("migration/sql");
+        flyway.setTarget(new SchemaVersion("1.2"));
+        flyway.migrate();
+        downgradeMetaDataTable();
+
+        // Read-only commands read the previous format without upgrading it
+        flyway.setTarget(SchemaVersion.LATEST);
+        assertEquals("1.2", flyway.status().getVersion().toString());
+        assertEquals(3, flyway.history().size());
+        flyway.validate();
+        assertEquals(1, countCurrentVersionColumns());
+
+        flyway.migrate();
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertUpgraded();
+    }
+
+    @Test
+    public void rehearseMetaDataTableUpgradeNecessary() throws Exception {
+        flyway.setBaseDir("migration/sql");
+        flyway.setTarget(new SchemaVersion("1.2"));
+        flyway.migrate();
+        downgradeMetaDataTable();
+
+        flyway.setTarget(SchemaVersion.LATEST);
+        try {
+            flyway.rehearse();
+            fail();
+        } catch (FlywayException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Run migrate or init first to upgrade it"));
+        }
+        assertEquals(1, countCurrentVersionColumns());
+        assertEquals("1.2", flyway.status().getVersion().toString());
+    }
+
+    @Test
+    public void upgradeMetaDataTableInterrupted() throws Exception {
+        flyway.setBaseDir("migration/sql");
+        flyway.setTarget(new SchemaVersion("1.2"));
+        flyway.migrate();
+
+        // Installed rank added, but interrupted before any rank was filled in and the flag was dropped
+        jdbcTemplate.update("UPDATE schema_version SET installed_rank = 0");
+        jdbcTemplate.executeStatement("ALTER TABLE schema_version ADD COLUMN current_version BOOLEAN DEFAULT FALSE NOT NULL");
+        jdbcTemplate.executeStatement("CREATE INDEX schema_version_current_version_index ON schema_version (current_version)");
+
+        flyway.setTarget(SchemaVersion.LATEST);
+        assertEquals("1.2", flyway.status().getVersion().toString());
+        flyway.migrate();
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertUpgraded();
+    }
+
+    @Test
+    public void upgradeMetaDataTableRanksMissing() throws Exception {
+        flyway.setBaseDir("migration/sql");
+        flyway.setTarget(new SchemaVersion("1.2"));
+        flyway.migrate();
+        jdbcTemplate.update("UPDATE schema_version SET installed_rank = 0");
+
+        flyway.setTarget(SchemaVersion.LATEST);
+        assertEquals("1.2", flyway.status().getVersion().toString());
+        flyway.migrate();
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertUpgraded();
+    }
+
+    /**
+     * Turns the metadata table back into the format of previous versions, with 1.2 flagged as current.
+     */
+    private void downgradeMetaDataTable() throws Exception {
+        jdbcTemplate.executeStatement("DROP INDEX schema_version_installed_rank_index");
+        jdbcTemplate.executeStatement("ALTER TABLE schema_version DROP COLUMN installed_rank");
+        jdbcTemplate.executeStatement("ALTER TABLE schema_version ADD COLUMN current_version BOOLEAN DEFAULT FALSE NOT NULL");
+        jdbcTemplate.executeStatement("CREATE INDEX schema_version_current_version_index ON schema_version (current_version)");
+        jdbcTemplate.update("UPDATE schema_version SET current_version = TRUE where version = '1.2'");
+    }
+
+    /**
+     * @return The number of current_version columns in the metadata table.
+     */
+    private int countCurrentVersionColumns() throws Exception {
+        return jdbcTemplate.queryForInt("select count(*) from information_schema.columns"
+                + " where table_name = 'SCHEMA_VERSION' and column_name = 'CURRENT_VERSION'");
+    }
+
+    /**
+     * Checks that the metadata table has been upgraded to the current format, with the ranks in version order.
+     */
+    private void assertUpgraded() throws Exception {
+        assertEquals(0, countCurrentVersionColumns());
+        assertEquals(1, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1'"));
+        assertEquals(2, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1.1'"));
+        assertEquals(3, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1.2'"));
+        assertEquals(4, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '2.0'"));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.googlecode.flyway.core.dbsupport.h2;
 
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
+
 import org.junit.Test;
 
 import static org.junit.Assert.assertFalse;
@@ -27,27 +29,43 @@ public class H2SqlScriptSmallTest {
     @Test
     public void endsWithOpenMultilineStringLiteral() {
         H2SqlScript script = new H2SqlScript();
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t;"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='xyz';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a= 'xyz';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='xyz'"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='$$';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='xy''z';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='xyz' and b like 'abc%';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a=' xyz ';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a=';';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='$$''$$';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='$$' || '$$';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select * from t where a='$$'||'$$';"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("INSERT INTO test_user (name) VALUES ('Mr. T');"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("INSERT INTO test_user (name) VALUES ('Mr. Semicolon;');"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("INSERT INTO test_user (id, name) VALUES (1, 'Mr. Semicolon;');"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("insert into TAB1 (GUID, UID, VAL) values (1, '0100', 100);"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select * from t where a='$$||''$$;"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select * from t where a='"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select * from t where a='abc"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select * from t where a='abc''"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select * from t where a='abc'''||'"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("INSERT INTO test_user (name) VALUES ('Mr. Semicolon+Linebreak;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='xyz';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a= 'xyz';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='xyz'"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='$$';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='xy''z';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='xyz' and b like 'abc%';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a=' xyz ';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a=';';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='$$''$$';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='$$' || '$$';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select * from t where a='$$'||'$$';"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "INSERT INTO test_user (name) VALUES ('Mr. T');"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "INSERT INTO test_user (name) VALUES ('Mr. Semicolon;');"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "INSERT INTO test_user (id, name) VALUES (1, 'Mr. Semicolon;');"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "insert into TAB1 (GUID, UID, VAL) values (1, '0100', 100);"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select * from t where a='$$||''$$;"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select * from t where a='"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select * from t where a='abc"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select * from t where a='abc''"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select * from t where a='abc'''||'"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "INSERT INTO test_user (name) VALUES ('Mr. Semicolon+Linebreak;"));
+    }
+
+    /**
+     * Scans this statement line by line with a new scanner of this script.
+     *
+     * @param script    The script whose scanner to use.
+     * @param statement The statement to scan.
+     *
+     * @return {@code true} if the statement ends with an open multi-line string literal, {@code false} if not.
+     */
+    private static boolean endsWithOpenMultilineStringLiteral(H2SqlScript script, String statement) {
+        SqlStatementScanner scanner = script.createStatementScanner();
+        for (String line : statement.split("\n")) {
+            scanner.scanLine(line);
+        }
+        return scanner.endsWithOpenMultilineStringLiteral();
     }
 }
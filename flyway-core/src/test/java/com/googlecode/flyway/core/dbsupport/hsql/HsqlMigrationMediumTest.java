@@ -26,6 +26,7 @@ import java.sql.SQLException;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Test to demonstrate the migration functionality using Hsql.
@@ -72,4 +73,22 @@ public class HsqlMigrationMediumTest extends MigrationTestCase {
         flyway.clean();
         flyway.migrate();
     }
+
+    @Test
+    public void fastClean() throws Exception {
+        flyway.setSchemas("FLYWAY_1", "FLYWAY_2", "FLYWAY_3");
+        flyway.setFastClean(true);
+
+        flyway.setBaseDir("migration/multi");
+        assertEquals(3, flyway.migrate());
+
+        flyway.clean();
+
+        assertNull(flyway.status());
+        assertEquals(0, jdbcTemplate.queryForInt(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_TABLES WHERE TABLE_SCHEM LIKE 'FLYWAY_%'"));
+        assertEquals(3, jdbcTemplate.queryForInt(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_SCHEMAS WHERE TABLE_SCHEM LIKE 'FLYWAY_%'"));
+        assertEquals(3, flyway.migrate());
+    }
 }
\ No newline at end of file
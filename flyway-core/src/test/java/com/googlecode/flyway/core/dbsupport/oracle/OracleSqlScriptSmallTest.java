@@ -17,6 +17,7 @@ package com.googlecode.flyway.core.dbsupport.oracle;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlStatement;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import org.junit.Test;
 
@@ -57,32 +58,46 @@ public class OracleSqlScriptSmallTest {
         assertEquals("COMMIT", sqlStatements.get(2).getSql());
     }
 
+    @Test
+    public void parseFunctionWithHeaderOnSeveralLines() {
+        String source = "CREATE OR REPLACE\n"
+                + "FUNCTION answer RETURN NUMBER AS LANGUAGE JAVA NAME 'Answer.get() return int';\n"
+                + "/\n"
+                + "COMMIT;";
+
+        OracleSqlScript sqlScript = new OracleSqlScript(source, PlaceholderReplacer.NO_PLACEHOLDERS);
+        List<SqlStatement> sqlStatements = sqlScript.getSqlStatements();
+        assertEquals(2, sqlStatements.size());
+        assertEquals(1, sqlStatements.get(0).getLineNumber());
+        assertEquals("COMMIT", sqlStatements.get(1).getSql());
+    }
+
     @Test
     public void changeDelimiterRegEx() {
         final OracleSqlScript script = new OracleSqlScript("", PlaceholderReplacer.NO_PLACEHOLDERS);
-        assertNull(script.changeDelimiterIfNecessary("begin_date", "begin_date", null));
-        assertEquals("/", script.changeDelimiterIfNecessary("begin date", "begin date", null));
-        assertNull(script.changeDelimiterIfNecessary(" begin date", " begin date", null));
-        assertEquals("/", script.changeDelimiterIfNecessary("begin\tdate", "begin\tdate", null));
-        assertEquals("/", script.changeDelimiterIfNecessary("begin", "begin", null));
+        assertNull(changeDelimiterIfNecessary(script, "begin_date"));
+        assertEquals("/", changeDelimiterIfNecessary(script, "begin date"));
+        assertNull(changeDelimiterIfNecessary(script, " begin date"));
+        assertEquals("/", changeDelimiterIfNecessary(script, "begin\tdate"));
+        assertEquals("/", changeDelimiterIfNecessary(script, "begin"));
     }
 
     @Test
     public void endsWithOpenMultilineStringLiteral() {
         final OracleSqlScript script = new OracleSqlScript("", PlaceholderReplacer.NO_PLACEHOLDERS);
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select q'[Hello 'quotes']' from dual;"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select q'(Hello 'quotes')' from dual;"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select q'{Hello 'quotes'}' from dual;"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select q'<Hello 'quotes'>' from dual;"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("select q'$Hello 'quotes'$' from dual;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select q'[Hello 'quotes']' from dual;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select q'(Hello 'quotes')' from dual;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select q'{Hello 'quotes'}' from dual;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select q'<Hello 'quotes'>' from dual;"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "select q'$Hello 'quotes'$' from dual;"));
 
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select q'[Hello 'quotes']"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select q'(Hello 'quotes')"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select q'{Hello 'quotes'}"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select q'<Hello 'quotes'>"));
-        assertTrue(script.endsWithOpenMultilineStringLiteral("select q'$Hello 'quotes'$"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select q'[Hello 'quotes']"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select q'(Hello 'quotes')"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select q'{Hello 'quotes'}"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select q'<Hello 'quotes'>"));
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "select q'$Hello 'quotes'$"));
 
-        assertFalse(script.endsWithOpenMultilineStringLiteral("INSERT INTO USER_SDO_GEOM_METADATA (TABLE_NAME, COLUMN_NAME, DIMINFO, SRID)\n" +
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "INSERT INTO USER_SDO_GEOM_METADATA (TABLE_NAME, COLUMN_NAME, DIMINFO, SRID)\n" +
                 "VALUES ('GEO_TEST', 'GEO',\n" +
                 "MDSYS.SDO_DIM_ARRAY\n" +
                 "(MDSYS.SDO_DIM_ELEMENT('LONG', -180.0, 180.0, 0.05),\n" +
@@ -90,4 +105,34 @@ public class OracleSqlScriptSmallTest {
                 "),\n" +
                 "8307);"));
     }
+
+    /**
+     * Scans this statement line by line with a new scanner of this script.
+     *
+     * @param script    The script whose scanner to use.
+     * @param statement The statement to scan.
+     *
+     * @return {@code true} if the statement ends with an open multi-line string literal, {@code false} if not.
+     */
+    private static boolean endsWithOpenMultilineStringLiteral(OracleSqlScript script, String statement) {
+        SqlStatementScanner scanner = script.createStatementScanner();
+        for (String line : statement.split("\n")) {
+            scanner.scanLine(line);
+        }
+        return scanner.endsWithOpenMultilineStringLiteral();
+    }
+
+    /**
+     * Scans this single-line statement with a new scanner of this script and checks for a delimiter change.
+     *
+     * @param script The script whose scanner to use.
+     * @param line   The line to scan.
+     *
+     * @return The new delimiter, starting from none.
+     */
+    private static String changeDelimiterIfNecessary(OracleSqlScript script, String line) {
+        SqlStatementScanner scanner = script.createStatementScanner();
+        scanner.scanLine(line);
+        return scanner.changeDelimiterIfNecessary(line, null);
+    }
 }
@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.dbsupport.postgresql;
+
+import com.googlecode.flyway.core.migration.sql.SqlScript;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for PostgreSQLDbSupport.
+ */
+public class PostgreSQLDbSupportSmallTest {
+    @Test
+    public void createCleanScript() {
+        PostgreSQLCatalogSnapshot snapshot = new PostgreSQLCatalogSnapshot();
+        snapshot.add(PostgreSQLCatalogSnapshot.DOMAIN, "address", null);
+        snapshot.add(PostgreSQLCatalogSnapshot.ROUTINE, "add", "integer, integer");
+        snapshot.add(PostgreSQLCatalogSnapshot.TABLE, "test_user", null);
+        snapshot.add(PostgreSQLCatalogSnapshot.BASE_TYPE, "complex", null);
+        snapshot.add(PostgreSQLCatalogSnapshot.ENUM, "mood", null);
+        snapshot.add(PostgreSQLCatalogSnapshot.SEQUENCE, "beast_seq", null);
+        snapshot.add(PostgreSQLCatalogSnapshot.ROUTINE, "now_plus", "");
+
+        SqlScript cleanScript = new PostgreSQLDbSupport(null).createCleanScript("s", snapshot);
+
+        List<SqlStatement> sqlStatements = cleanScript.getSqlStatements();
+        String[] expected = {
+                "DROP TABLE \"s\".\"test_user\" CASCADE",
+                "DROP SEQUENCE IF EXISTS \"s\".\"beast_seq\"",
+                "DROP TYPE IF EXISTS \"s\".\"complex\" CASCADE",
+                "CREATE TYPE \"s\".\"complex\"",
+                "DROP FUNCTION IF EXISTS \"s\".\"add\"(integer, integer) CASCADE",
+                "DROP FUNCTION IF EXISTS \"s\".\"now_plus\"() CASCADE",
+                "DROP TYPE \"s\".\"mood\"",
+                "DROP DOMAIN \"s\".\"address\"",
+                "DROP TYPE IF EXISTS \"s\".\"complex\" CASCADE"};
+        assertEquals(expected.length, sqlStatements.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], sqlStatements.get(i).getSql());
+            assertEquals(i + 1, sqlStatements.get(i).getLineNumber());
+        }
+    }
+
+    @Test
+    public void generateGrantStatements() {
+        List<String> statements = PostgreSQLDbSupport.generateGrantStatements("s", "owner",
+                "{owner=UC/owner,=U/owner,reader=U*/owner,\"\\\"my, user\\\"=UC/owner\",\"\\\"a\\\"\\\"b\\\"=C/owner\"}");
+
+        assertEquals(5, statements.size());
+        assertEquals("GRANT USAGE ON SCHEMA \"s\" TO PUBLIC", statements.get(0));
+        assertEquals("GRANT USAGE ON SCHEMA \"s\" TO \"reader\" WITH GRANT OPTION", statements.get(1));
+        assertEquals("GRANT USAGE ON SCHEMA \"s\" TO \"my, user\"", statements.get(2));
+        assertEquals("GRANT CREATE ON SCHEMA \"s\" TO \"my, user\"", statements.get(3));
+        assertEquals("GRANT CREATE ON SCHEMA \"s\" TO \"a\"\"b\"", statements.get(4));
+    }
+
+    @Test
+    public void generateGrantStatementsDefaultPrivileges() {
+        assertEquals(0, PostgreSQLDbSupport.generateGrantStatements("s", "owner", null).size());
+    }
+
+    @Test
+    public void createCleanScriptEmptySchema() {
+        SqlScript cleanScript = new PostgreSQLDbSupport(null).createCleanScript("s", new PostgreSQLCatalogSnapshot());
+
+        assertEquals(0, cleanScript.getSqlStatements().size());
+    }
+}
@@ -16,6 +16,7 @@
 package com.googlecode.flyway.core.dbsupport.postgresql;
 
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
+import com.googlecode.flyway.core.migration.sql.SqlStatementScanner;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -27,8 +28,8 @@ public class PostgreSQLSqlScriptSmallTest {
     @Test
     public void endsWithOpenMultilineStringLiteral() {
         final PostgreSQLSqlScript script = new PostgreSQLSqlScript("", PlaceholderReplacer.NO_PLACEHOLDERS);
-        assertTrue(script.endsWithOpenMultilineStringLiteral("INSERT INTO address VALUES (1, '1. first"));
-        assertFalse(script.endsWithOpenMultilineStringLiteral("INSERT INTO address VALUES (1, '1. first\n" +
+        assertTrue(endsWithOpenMultilineStringLiteral(script, "INSERT INTO address VALUES (1, '1. first"));
+        assertFalse(endsWithOpenMultilineStringLiteral(script, "INSERT INTO address VALUES (1, '1. first\n" +
                 "2. second');"));
     }
 
@@ -91,4 +92,20 @@ public class PostgreSQLSqlScriptSmallTest {
         assertTrue("$abcDEF123$".matches(PostgreSQLSqlScript.DOLLAR_QUOTE_REGEX));
         assertTrue("$abcDEF123$xxx".matches(PostgreSQLSqlScript.DOLLAR_QUOTE_REGEX));
     }
-}
\ No newline at end of file
+
+    /**
+     * Scans this statement line by line with a new scanner of this script.
+     *
+     * @param script    The script whose scanner to use.
+     * @param statement The statement to scan.
+     *
+     * @return {@code true} if the statement ends with an open multi-line string literal, {@code false} if not.
+     */
+    private static boolean endsWithOpenMultilineStringLiteral(PostgreSQLSqlScript script, String statement) {
+        SqlStatementScanner scanner = script.createStatementScanner();
+        for (String line : statement.split("\n")) {
+            scanner.scanLine(line);
+        }
+        return scanner.endsWithOpenMultilineStringLiteral();
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.metrics;
+
+import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.migration.Migration;
+import com.googlecode.flyway.core.migration.MigrationState;
+import com.googlecode.flyway.core.migration.MigrationType;
+import com.googlecode.flyway.core.migration.SchemaVersion;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
+import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for MigrationReport.
+ */
+public class MigrationReportSmallTest {
+    @Test
+    public void toJson() {
+        MigrationReport report = new MigrationReport(2);
+
+        Migration first = createMigration("1", "V1__First.sql");
+        report.beforeMigration(first);
+        report.afterStatement(new SqlStatement(3, "CREATE TABLE a (id INT)"), 300, -1);
+        report.afterStatement(new SqlStatement(5, "INSERT INTO a VALUES (1)"), 100, 1);
+        report.afterMigration(first, 500, MigrationState.SUCCESS);
+
+        Migration second = createMigration("2", "V2__\"Second\".sql");
+        report.beforeMigration(second);
+        report.afterStatement(new SqlStatement(1, "UPDATE a SET id = 2"), 400, 7);
+        report.afterMigration(second, 1500, MigrationState.FAILED);
+
+        assertEquals("{\n" +
+                "  \"migrationCount\": 2,\n" +
+                "  \"durationNanos\": 2000,\n" +
+                "  \"migrations\": [\n" +
+                "    {\"version\": \"1\", \"description\": \"Test\", \"script\": \"V1__First.sql\", \"state\": \"SUCCESS\", \"durationNanos\": 500, \"percentOfTotal\": 25.0, \"statementCount\": 2, \"statementDurationNanos\": 400},\n" +
+                "    {\"version\": \"2\", \"description\": \"Test\", \"script\": \"V2__\\\"Second\\\".sql\", \"state\": \"FAILED\", \"durationNanos\": 1500, \"percentOfTotal\": 75.0, \"statementCount\": 1, \"statementDurationNanos\": 400}\n" +
+                "  ],\n" +
+                "  \"slowestStatements\": [\n" +
+                "    {\"version\": \"2\", \"script\": \"V2__\\\"Second\\\".sql\", \"lineNumber\": 1, \"durationNanos\": 400, \"rowCount\": 7},\n" +
+                "    {\"version\": \"1\", \"script\": \"V1__First.sql\", \"lineNumber\": 3, \"durationNanos\": 300, \"rowCount\": -1}\n" +
+                "  ]\n" +
+                "}\n", report.toJson());
+    }
+
+    @Test
+    public void concurrentMigrations() throws Exception {
+        final MigrationReport report = new MigrationReport(10);
+
+        Migration first = createMigration("1", "V1__First.sql");
+        report.beforeMigration(first);
+
+        // Applied by another thread while the first one is still running
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                Migration second = createMigration("2", "V2__Second.sql");
+                report.beforeMigration(second);
+                report.afterStatement(new SqlStatement(1, "UPDATE a SET id = 2"), 400, 7);
+                report.afterStatement(new SqlStatement(2, "UPDATE a SET id = 3"), 200, 7);
+                report.afterMigration(second, 700, MigrationState.SUCCESS);
+            }
+        };
+        thread.start();
+        thread.join();
+
+        report.afterStatement(new SqlStatement(3, "CREATE TABLE a (id INT)"), 300, -1);
+        report.afterMigration(first, 500, MigrationState.SUCCESS);
+
+        String json = report.toJson();
+        assertTrue(json, json.contains("\"version\": \"2\", \"description\": \"Test\", \"script\": \"V2__Second.sql\", \"state\": \"SUCCESS\", \"durationNanos\": 700, \"percentOfTotal\": 58.3, \"statementCount\": 2, \"statementDurationNanos\": 600}"));
+        assertTrue(json, json.contains("\"version\": \"1\", \"description\": \"Test\", \"script\": \"V1__First.sql\", \"state\": \"SUCCESS\", \"durationNanos\": 500, \"percentOfTotal\": 41.7, \"statementCount\": 1, \"statementDurationNanos\": 300}"));
+        assertTrue(json, json.contains("{\"version\": \"1\", \"script\": \"V1__First.sql\", \"lineNumber\": 3"));
+    }
+
+    @Test
+    public void toJsonEmpty() {
+        assertEquals("{\n" +
+                "  \"migrationCount\": 0,\n" +
+                "  \"durationNanos\": 0,\n" +
+                "  \"migrations\": [],\n" +
+                "  \"slowestStatements\": []\n" +
+                "}\n", new MigrationReport(10).toJson());
+    }
+
+    @Test
+    public void quote() {
+        assertEquals("null", MigrationReport.quote(null));
+        assertEquals("\"abc\"", MigrationReport.quote("abc"));
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", MigrationReport.quote("a\"b\\c\nd\u0001"));
+    }
+
+    /**
+     * Creates a test migration.
+     *
+     * @param version    The version of the migration.
+     * @param scriptName The script of the migration.
+     * @return The migration.
+     */
+    private static Migration createMigration(final String version, final String scriptName) {
+        return new Migration() {
+            {
+                schemaVersion = new SchemaVersion(version);
+                description = "Test";
+                script = scriptName;
+            }
+
+            @Override
+            public MigrationType getMigrationType() {
+                return MigrationType.SQL;
+            }
+
+            @Override
+            public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
+            }
+
+            @Override
+            public String getLocation() {
+                return script;
+            }
+        };
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for MigrationGraph.
+ */
+public class MigrationGraphSmallTest {
+    @Test
+    public void undeclared() {
+        MigrationGraph graph = new MigrationGraph(
+                Arrays.asList(createMigration("1", null), createMigration("2", null), createMigration("3", null)),
+                SchemaVersion.EMPTY);
+
+        assertEquals(3, graph.size());
+        assertEquals(Arrays.asList(0), graph.getRoots());
+        assertEquals(Arrays.asList(1), graph.complete(0));
+        assertEquals(Arrays.asList(2), graph.complete(1));
+        assertTrue(graph.complete(2).isEmpty());
+    }
+
+    @Test
+    public void declared() {
+        MigrationGraph graph = new MigrationGraph(Arrays.asList(
+                createMigration("1", new String[0]),
+                createMigration("2", new String[]{"1"}),
+                createMigration("3", new String[]{"1"}),
+                createMigration("4", new String[]{"2", "3"})),
+                SchemaVersion.EMPTY);
+
+        assertEquals(Arrays.asList(0), graph.getRoots());
+        assertEquals(Arrays.asList(1, 2), graph.complete(0));
+        assertTrue(graph.complete(2).isEmpty());
+        assertEquals(Arrays.asList(3), graph.complete(1));
+    }
+
+    @Test
+    public void declaredIndependent() {
+        MigrationGraph graph = new MigrationGraph(Arrays.asList(
+                createMigration("1", new String[0]),
+                createMigration("2", new String[0]),
+                createMigration("3", new String[]{"1"})),
+                SchemaVersion.EMPTY);
+
+        assertEquals(Arrays.asList(0, 1), graph.getRoots());
+        assertEquals(Arrays.asList(2), graph.complete(0));
+    }
+
+    @Test
+    public void undeclaredAfterDeclared() {
+        MigrationGraph graph = new MigrationGraph(Arrays.asList(
+                createMigration("1", new String[0]),
+                createMigration("2", new String[0]),
+                createMigration("3", null)),
+                SchemaVersion.EMPTY);
+
+        assertEquals(Arrays.asList(0, 1), graph.getRoots());
+        assertTrue(graph.complete(1).isEmpty());
+        assertEquals(Arrays.asList(2), graph.complete(0));
+    }
+
+    @Test
+    public void declaredAfterUndeclared() {
+        MigrationGraph graph = new MigrationGraph(Arrays.asList(
+                createMigration("1", new String[0]),
+                createMigration("2", new String[0]),
+                createMigration("3", null),
+                createMigration("4", new String[]{"1"}),
+                createMigration("5", new String[0])),
+                SchemaVersion.EMPTY);
+
+        assertEquals(Arrays.asList(0, 1), graph.getRoots());
+        assertTrue(graph.complete(0).isEmpty());
+        assertEquals(Arrays.asList(2), graph.complete(1));
+        assertEquals(Arrays.asList(3, 4), graph.complete(2));
+        assertTrue(graph.complete(3).isEmpty());
+    }
+
+    @Test
+    public void dependencyAlreadyApplied() {
+        MigrationGraph graph = new MigrationGraph(Arrays.asList(
+                createMigration("2", new String[]{"1"}),
+                createMigration("3", new String[]{"1.5"})),
+                new SchemaVersion("1.5"));
+
+        assertEquals(Arrays.asList(0, 1), graph.getRoots());
+    }
+
+    @Test(expected = FlywayException.class)
+    public void dependencyNotOlder() {
+        new MigrationGraph(Arrays.asList(createMigration("1", new String[]{"2"}), createMigration("2", null)),
+                SchemaVersion.EMPTY);
+    }
+
+    @Test(expected = FlywayException.class)
+    public void dependencyMissing() {
+        new MigrationGraph(Arrays.asList(createMigration("1", null), createMigration("3", new String[]{"2"})),
+                SchemaVersion.EMPTY);
+    }
+
+    /**
+     * Creates a test migration with this version and these dependencies.
+     *
+     * @param version      The version of the migration.
+     * @param dependencies The versions it depends on. {@code null} if it doesn't declare its dependencies.
+     * @return The migration.
+     */
+    private static Migration createMigration(final String version, final String[] dependencies) {
+        return new Migration() {
+            {
+                schemaVersion = new SchemaVersion(version);
+                description = "Test";
+                script = "V" + version;
+            }
+
+            @Override
+            public MigrationType getMigrationType() {
+                return MigrationType.JAVA;
+            }
+
+            @Override
+            public SchemaVersion[] getDependencies() {
+                if (dependencies == null) {
+                    return null;
+                }
+                List<SchemaVersion> versions = new ArrayList<SchemaVersion>();
+                for (String dependency : dependencies) {
+                    versions.add(new SchemaVersion(dependency));
+                }
+                return versions.toArray(new SchemaVersion[versions.size()]);
+            }
+
+            @Override
+            public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
+            }
+
+            @Override
+            public String getLocation() {
+                return script;
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.Flyway;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for MigrationIndex.
+ */
+public class MigrationIndexSmallTest {
+    private static final String BASE_PACKAGE = "com.googlecode.flyway.core.migration.java.dummy";
+    private static final String BASE_DIR = "migration/semicolon";
+
+    /**
+     * The directory the index is written to.
+     */
+    private File outputDir;
+
+    /**
+     * The context classloader that was active before the test.
+     */
+    private ClassLoader originalClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDir = File.createTempFile("flyway-index", "");
+        outputDir.delete();
+        outputDir.mkdirs();
+
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+
+        File indexFile = new File(outputDir, MigrationIndex.LOCATION);
+        indexFile.delete();
+        indexFile.getParentFile().delete();
+        indexFile.getParentFile().getParentFile().delete();
+        outputDir.delete();
+    }
+
+    @Test
+    public void indexMatchesScan() throws Exception {
+        Flyway flyway = new Flyway();
+        flyway.setBasePackage(BASE_PACKAGE);
+        flyway.setBaseDir(BASE_DIR);
+        int indexedCount = flyway.index(outputDir);
+
+        Thread.currentThread().setContextClassLoader(
+                new URLClassLoader(new URL[]{outputDir.toURI().toURL()}, originalClassLoader));
+
+        assertNotNull(MigrationIndex.load(BASE_PACKAGE, BASE_DIR, "UTF-8", "V", ".sql"));
+        List<Migration> indexed = createMigrationProvider().findAvailableMigrations();
+        List<Migration> scanned = createMigrationProvider().scanAvailableMigrations();
+
+        assertEquals(4, scanned.size());
+        assertEquals(scanned.size(), indexedCount);
+        assertEquals(scanned.size(), indexed.size());
+        for (int i = 0; i < scanned.size(); i++) {
+            assertEquals(scanned.get(i).getVersion(), indexed.get(i).getVersion());
+            assertEquals(scanned.get(i).getMigrationType(), indexed.get(i).getMigrationType());
+            assertEquals(scanned.get(i).getScript(), indexed.get(i).getScript());
+            assertEquals(scanned.get(i).getChecksum(), indexed.get(i).getChecksum());
+        }
+    }
+
+    @Test
+    public void indexWithOtherConfigurationIgnored() throws Exception {
+        Flyway flyway = new Flyway();
+        flyway.setBasePackage(BASE_PACKAGE);
+        flyway.setBaseDir(BASE_DIR);
+        flyway.index(outputDir);
+
+        Thread.currentThread().setContextClassLoader(
+                new URLClassLoader(new URL[]{outputDir.toURI().toURL()}, originalClassLoader));
+
+        assertNotNull(MigrationIndex.load(BASE_PACKAGE, "/" + BASE_DIR + "/", "UTF-8", "V", ".sql"));
+        assertNull(MigrationIndex.load(BASE_PACKAGE, "migration/other", "UTF-8", "V", ".sql"));
+        assertNull(MigrationIndex.load(BASE_PACKAGE, BASE_DIR, "ISO-8859-1", "V", ".sql"));
+    }
+
+    /**
+     * @return A new migration provider for the test migrations.
+     */
+    private MigrationProvider createMigrationProvider() {
+        return new MigrationProvider(BASE_PACKAGE, BASE_DIR, "UTF-8", "V", ".sql", new HashMap<String, String>(),
+                "${", "}");
+    }
+}
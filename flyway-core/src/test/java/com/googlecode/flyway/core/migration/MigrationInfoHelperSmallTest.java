@@ -18,6 +18,8 @@ package com.googlecode.flyway.core.migration;
 import com.googlecode.flyway.core.exception.FlywayException;
 import org.junit.Test;
 
+import java.io.StringReader;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -73,4 +75,24 @@ public class MigrationInfoHelperSmallTest {
     public void extractSchemaVersionWithLeadingUnderscore() {
         MigrationInfoHelper.extractSchemaVersion("_8_0");
     }
+
+    @Test
+    public void extractDependencies() {
+        SchemaVersion[] dependencies = MigrationInfoHelper.extractDependencies(new StringReader(
+                "-- Adds the indexes\n-- flyway.dependsOn: 1.1, 2\nCREATE INDEX idx ON t (c);"));
+        assertEquals(2, dependencies.length);
+        assertEquals("1.1", dependencies[0].toString());
+        assertEquals("2", dependencies[1].toString());
+    }
+
+    @Test
+    public void extractDependenciesNone() {
+        assertEquals(0, MigrationInfoHelper.extractDependencies(new StringReader("-- flyway.dependsOn:\n")).length);
+    }
+
+    @Test
+    public void extractDependenciesUndeclared() {
+        assertNull(MigrationInfoHelper.extractDependencies(new StringReader(
+                "CREATE INDEX idx ON t (c);\n-- flyway.dependsOn: 1")));
+    }
 }
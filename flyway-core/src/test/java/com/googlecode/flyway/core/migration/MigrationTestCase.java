@@ -19,12 +19,16 @@ import com.googlecode.flyway.core.Flyway;
 import com.googlecode.flyway.core.dbsupport.DbSupport;
 import com.googlecode.flyway.core.dbsupport.DbSupportFactory;
 import com.googlecode.flyway.core.exception.FlywayException;
+import com.googlecode.flyway.core.metadatatable.MetaDataTable;
 import com.googlecode.flyway.core.metadatatable.MetaDataTableRow;
+import com.googlecode.flyway.core.metrics.BaseMigrationListener;
 import com.googlecode.flyway.core.migration.sql.PlaceholderReplacer;
 import com.googlecode.flyway.core.migration.sql.SqlMigration;
+import com.googlecode.flyway.core.migration.sql.SqlStatement;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
 import com.googlecode.flyway.core.validation.ValidationErrorMode;
+import com.googlecode.flyway.core.validation.ValidationException;
 import com.googlecode.flyway.core.validation.ValidationMode;
 import org.junit.After;
 import org.junit.Before;
@@ -33,8 +37,11 @@ import org.junit.Test;
 import javax.sql.DataSource;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.StringReader;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Properties;
 
 import static org.junit.Assert.assertEquals;
@@ -132,6 +139,256 @@ public abstract class MigrationTestCase {
         assertEquals("2.0", flyway.status().getVersion().toString());
     }
 
+    @Test
+    public void group() throws Exception {
+        flyway.setBaseDir(BASEDIR);
+        flyway.setGroup(true);
+        assertEquals(4, flyway.migrate());
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertEquals(4, flyway.history().size());
+        assertEquals(0, flyway.migrate());
+    }
+
+    @Test
+    public void groupFailed() throws Exception {
+        flyway.setBaseDir("migration/future_failed");
+        flyway.setGroup(true);
+
+        try {
+            flyway.migrate();
+            fail();
+        } catch (FlywayException e) {
+            //Expected
+        }
+
+        if (dbSupport.supportsDdlTransactions()) {
+            assertNull(flyway.status());
+        } else {
+            assertEquals("3", flyway.status().getVersion().toString());
+            assertEquals(MigrationState.FAILED, flyway.status().getState());
+        }
+    }
+
+    @Test
+    public void batch() throws Exception {
+        flyway.setBaseDir(BASEDIR);
+        flyway.setBatchSize(10);
+        assertEquals(4, flyway.migrate());
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertEquals(2, jdbcTemplate.queryForInt("select count(*) from test_user"));
+    }
+
+    @Test
+    public void migrationListener() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        flyway.setMigrationListeners(new BaseMigrationListener() {
+            @Override
+            public void beforeCommand(String command) {
+                events.add("beforeCommand " + command);
+            }
+
+            @Override
+            public void afterCommand(String command, long durationNanos, boolean success) {
+                assertTrue(durationNanos >= 0);
+                events.add("afterCommand " + command + " " + success);
+            }
+
+            @Override
+            public void afterMigration(Migration migration, long durationNanos, MigrationState state) {
+                assertTrue(durationNanos >= 0);
+                events.add("afterMigration " + migration.getVersion() + " " + state);
+            }
+
+            @Override
+            public void afterStatement(SqlStatement statement, long durationNanos, int rowCount) {
+                assertTrue(durationNanos >= 0);
+                assertTrue(statement.getLineNumber() > 0);
+                if (statement.getSql().startsWith("INSERT INTO test_user")) {
+                    assertEquals(1, rowCount);
+                }
+                events.add("afterStatement");
+            }
+        });
+        flyway.setBaseDir(BASEDIR);
+        assertEquals(4, flyway.migrate());
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("beforeCommand migrate");
+        expected.add("afterStatement");
+        expected.add("afterMigration 1 SUCCESS");
+        expected.add("afterStatement");
+        expected.add("afterMigration 1.1 SUCCESS");
+        expected.add("afterStatement");
+        expected.add("afterStatement");
+        expected.add("afterMigration 1.2 SUCCESS");
+        expected.add("afterStatement");
+        expected.add("afterStatement");
+        expected.add("afterMigration 2.0 SUCCESS");
+        expected.add("afterCommand migrate true");
+        assertEquals(expected, events);
+    }
+
+    @Test
+    public void migrationLock() throws Exception {
+        final List<String> locks = new ArrayList<String>();
+        flyway.setMigrationListeners(new BaseMigrationListener() {
+            @Override
+            public void afterLock(String table, long waitNanos) {
+                assertTrue(waitNanos >= 0);
+                locks.add(table);
+            }
+        });
+        flyway.setLockTimeout(10);
+        flyway.setBaseDir(BASEDIR);
+        assertEquals(4, flyway.migrate());
+
+        // Once per migration, and once more to find out there is nothing left to migrate
+        assertEquals(5, locks.size());
+        assertEquals(flyway.getSchemas()[0] + "." + flyway.getTable(), locks.get(0));
+
+        // Already up to date: no need to lock anything
+        locks.clear();
+        assertEquals(0, flyway.migrate());
+        assertEquals(0, locks.size());
+    }
+
+    @Test
+    public void await() throws Exception {
+        flyway.setBaseDir(BASEDIR);
+        flyway.setAwaitTimeout(1);
+        try {
+            flyway.await();
+            fail();
+        } catch (FlywayException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Schema did not reach version 2.0 within 1 seconds"));
+        }
+
+        flyway.setTarget(new SchemaVersion("1.1"));
+        flyway.migrate();
+        assertEquals("1.1", flyway.await().getVersion().toString());
+
+        flyway.setTarget(SchemaVersion.LATEST);
+        flyway.migrate();
+        assertEquals("2.0", flyway.await().getVersion().toString());
+    }
+
+    @Test
+    public void upToDateWithinTarget() throws Exception {
+        final List<String> locks = new ArrayList<String>();
+        flyway.setMigrationListeners(new BaseMigrationListener() {
+            @Override
+            public void afterLock(String table, long waitNanos) {
+                locks.add(table);
+            }
+        });
+        flyway.setBaseDir(BASEDIR);
+        flyway.setTarget(new SchemaVersion("1.1"));
+        assertEquals(2, flyway.migrate());
+
+        locks.clear();
+        assertEquals(0, flyway.migrate());
+        assertEquals(0, locks.size());
+
+        flyway.setTarget(SchemaVersion.LATEST);
+        assertEquals(2, flyway.migrate());
+        assertEquals("2.0", flyway.status().getVersion().toString());
+        assertEquals(3, locks.size());
+    }
+
+    @Test
+    public void rehearse() throws Exception {
+        flyway.setBaseDir(BASEDIR);
+        if (!dbSupport.supportsDdlTransactions()) {
+            try {
+                flyway.rehearse();
+                fail();
+            } catch (FlywayException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Unable to rehearse migrations"));
+            }
+            return;
+        }
+
+        final List<String> rehearsedVersions = new ArrayList<String>();
+        flyway.setMigrationListeners(new BaseMigrationListener() {
+            @Override
+            public void afterMigration(Migration migration, long durationNanos, MigrationState state) {
+                rehearsedVersions.add(migration.getVersion() + " " + state);
+            }
+        });
+        assertEquals(4, flyway.rehearse());
+        assertEquals("[1 SUCCESS, 1.1 SUCCESS, 1.2 SUCCESS, 2.0 SUCCESS]", rehearsedVersions.toString());
+
+        // Nothing has been committed
+        assertNull(flyway.status());
+        assertEquals(4, flyway.migrate());
+        assertEquals("2.0", flyway.status().getVersion().toString());
+    }
+
+    @Test
+    public void batchFailed() throws Exception {
+        jdbcTemplate.executeStatement("CREATE TABLE batch_test (id INT NOT NULL, PRIMARY KEY(id))");
+
+        String source = "INSERT INTO batch_test (id) VALUES (1);\n" +
+                "INSERT INTO batch_test (id) VALUES (2);\n" +
+                "INSERT INTO batch_test (id) VALUES (1);\n" +
+                "INSERT INTO batch_test (id) VALUES (3);";
+        final List<String> events = new ArrayList<String>();
+        BaseMigrationListener migrationListener = new BaseMigrationListener() {
+            @Override
+            public void beforeStatement(SqlStatement statement) {
+                events.add("before " + statement.getLineNumber());
+            }
+
+            @Override
+            public void afterStatement(SqlStatement statement, long durationNanos, int rowCount) {
+                events.add("after " + statement.getLineNumber());
+            }
+
+            @Override
+            public void afterStatementFailed(SqlStatement statement, long durationNanos) {
+                events.add("failed " + statement.getLineNumber());
+            }
+        };
+        try {
+            dbSupport.createSqlScript("", PlaceholderReplacer.NO_PLACEHOLDERS)
+                    .execute(jdbcTemplate, new StringReader(source), PlaceholderReplacer.NO_PLACEHOLDERS,
+                            new MigrationSettings(10, migrationListener, 0));
+            fail();
+        } catch (FlywayException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Error executing statement at line 3:"));
+        }
+
+        // Every statement that was started has been reported as either executed or failed
+        assertTrue(events.toString(), events.contains("after 1"));
+        assertTrue(events.toString(), events.contains("after 2"));
+        assertTrue(events.toString(), events.contains("failed 3"));
+        int startedCount = 0;
+        for (String event : events) {
+            if (event.startsWith("before ")) {
+                startedCount++;
+            }
+        }
+        assertEquals(events.toString(), startedCount * 2, events.size());
+    }
+
+    @Test
+    public void metaDataTableSnapshot() throws Exception {
+        flyway.setBaseDir(BASEDIR);
+        flyway.migrate();
+
+        MetaDataTable metaDataTable = new MetaDataTable(connection, dbSupport, flyway.getSchemas()[0], flyway.getTable());
+        assertEquals("2.0", metaDataTable.getCurrentSchemaVersion().toString());
+        assertEquals(4, metaDataTable.allAppliedMigrations().size());
+
+        flyway.clean();
+        assertEquals("2.0", metaDataTable.getCurrentSchemaVersion().toString());
+        assertEquals(4, metaDataTable.allAppliedMigrations().size());
+
+        metaDataTable.clearCache();
+        assertEquals(SchemaVersion.EMPTY, metaDataTable.getCurrentSchemaVersion());
+        assertTrue(metaDataTable.allAppliedMigrations().isEmpty());
+    }
+
     @Test
     public void customTableName() throws Exception {
         flyway.setBaseDir(BASEDIR);
@@ -193,6 +450,30 @@ public abstract class MigrationTestCase {
         assertEquals(1, flyway.migrate());
     }
 
+    @Test
+    public void validateCleanRehearse() throws Exception {
+        if (!dbSupport.supportsDdlTransactions()) {
+            return;
+        }
+
+        flyway.setBaseDir("migration/validate");
+        flyway.setSqlMigrationSuffix("First.sql");
+        flyway.migrate();
+
+        flyway.setValidationMode(ValidationMode.ALL);
+        flyway.setValidationErrorMode(ValidationErrorMode.CLEAN);
+        flyway.setSqlMigrationPrefix("CheckValidate");
+        try {
+            flyway.rehearse();
+            fail();
+        } catch (ValidationException e) {
+            //Expected
+        }
+
+        // The schema has not been cleaned
+        assertEquals("1", flyway.status().getVersion().toString());
+    }
+
     @Test
     public void failedMigration() throws Exception {
         flyway.setBaseDir("migration/failed");
@@ -290,16 +571,66 @@ public abstract class MigrationTestCase {
     }
 
     /**
-     * Check if meta table has no current migration (manually edited).
+     * Check that the rows of the metadata table are appended in order and that the current version is the one with the
+     * highest installed rank.
      */
-    @Test(expected = FlywayException.class)
-    public void checkForInvalidMetatable() throws Exception {
+    @Test
+    public void installedRank() throws Exception {
         flyway.setBaseDir(BASEDIR);
+        flyway.setTarget(new SchemaVersion("1.1"));
         flyway.migrate();
-
-        jdbcTemplate.update("UPDATE schema_version SET current_version = " + dbSupport.getBooleanFalse()
-                + " where current_version = " + dbSupport.getBooleanTrue());
+        flyway.setTarget(SchemaVersion.LATEST);
         flyway.migrate();
+
+        assertEquals(1, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1'"));
+        assertEquals(2, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1.1'"));
+        assertEquals(4, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '2.0'"));
+        assertEquals("2.0", flyway.status().getVersion().toString());
+
+        jdbcTemplate.update("UPDATE schema_version SET installed_rank = 5 where version = '1.1'");
+        assertEquals("1.1", flyway.status().getVersion().toString());
+    }
+
+    @Test
+    public void migrationThreads() throws Exception {
+        flyway.setBaseDir("migration/parallel");
+        flyway.setMigrationThreads(3);
+        assertEquals(4, flyway.migrate());
+        assertEquals("4", flyway.status().getVersion().toString());
+        assertEquals(4, flyway.history().size());
+        assertEquals(0, flyway.migrate());
+
+        assertEquals(1, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '1'"));
+        assertEquals(2, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '2'"));
+        assertEquals(3, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '3'"));
+        assertEquals(4, jdbcTemplate.queryForInt("select installed_rank from schema_version where version = '4'"));
+        assertEquals(1, jdbcTemplate.queryForInt("select count(*) from parallel_group"));
+    }
+
+    /**
+     * Check that a failed parallel migration never leaves a newer migration applied without its row.
+     */
+    @Test
+    public void migrationThreadsFailed() throws Exception {
+        flyway.setBaseDir("migration/parallel_failed");
+        flyway.setMigrationThreads(3);
+
+        try {
+            flyway.migrate();
+            fail();
+        } catch (FlywayException e) {
+            //Expected
+        }
+
+        assertFalse(dbSupport.tableExists(dbSupport.getCurrentSchema(), "PARALLEL_LATE"));
+        if (dbSupport.supportsDdlTransactions()) {
+            assertEquals("1", flyway.status().getVersion().toString());
+            assertEquals(1, flyway.history().size());
+        } else {
+            assertEquals("2", flyway.status().getVersion().toString());
+            assertEquals(MigrationState.FAILED, flyway.status().getState());
+            assertEquals(2, flyway.history().size());
+        }
     }
 
     /**
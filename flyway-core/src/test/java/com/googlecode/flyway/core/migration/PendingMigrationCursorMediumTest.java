@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Timing benchmark for resolving the pending migrations of large migration histories one by one, as done by
+ * DbMigrator when applying migrations in separate transactions.
+ */
+public class PendingMigrationCursorMediumTest {
+    private static final Log LOG = LogFactory.getLog(PendingMigrationCursorMediumTest.class);
+
+    /**
+     * The migration history sizes to benchmark.
+     */
+    private static final int[] SIZES = {2000, 4000, 8000, 16000};
+
+    @Test
+    public void resolveAllPending() {
+        for (int size : SIZES) {
+            String[] versions = new String[size];
+            for (int i = 0; i < size; i++) {
+                versions[i] = (i / 100) + "." + (i % 100);
+            }
+            List<Migration> migrations = PendingMigrationCursorSmallTest.createMigrations(versions);
+
+            long start = System.nanoTime();
+            PendingMigrationCursor cursor = new PendingMigrationCursor(migrations);
+            SchemaVersion currentVersion = SchemaVersion.EMPTY;
+            int count = 0;
+            Migration migration;
+            while ((migration = cursor.next(currentVersion, SchemaVersion.LATEST)) != null) {
+                currentVersion = migration.getVersion();
+                count++;
+            }
+            long cursorTime = (System.nanoTime() - start) / 1000;
+            assertEquals(size, count);
+
+            start = System.nanoTime();
+            currentVersion = SchemaVersion.EMPTY;
+            while ((migration = scanForNext(migrations, currentVersion)) != null) {
+                currentVersion = migration.getVersion();
+            }
+            long scanTime = (System.nanoTime() - start) / 1000;
+            assertNull(scanForNext(migrations, currentVersion));
+
+            LOG.info("Resolving " + size + " pending migrations: cursor " + cursorTime + " us, full scan per migration "
+                    + scanTime + " us");
+        }
+    }
+
+    /**
+     * Looks up the next migration by scanning the full newest-first list, for comparison.
+     *
+     * @param allMigrations  All available migrations, sorted by version, newest first.
+     * @param currentVersion The current version of the schema.
+     * @return The next migration to apply. {@code null} if there is none.
+     */
+    private Migration scanForNext(List<Migration> allMigrations, SchemaVersion currentVersion) {
+        Migration nextMigration = null;
+        for (Migration migration : allMigrations) {
+            if (migration.getVersion().compareTo(currentVersion) > 0) {
+                nextMigration = migration;
+            } else {
+                break;
+            }
+        }
+        return nextMigration;
+    }
+}
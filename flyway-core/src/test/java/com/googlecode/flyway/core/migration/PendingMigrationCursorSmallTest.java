@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import com.googlecode.flyway.core.dbsupport.DbSupport;
+import com.googlecode.flyway.core.util.jdbc.JdbcTemplate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for PendingMigrationCursor.
+ */
+public class PendingMigrationCursorSmallTest {
+    @Test
+    public void next() {
+        PendingMigrationCursor cursor = new PendingMigrationCursor(createMigrations("1", "1.1", "2", "3.5"));
+
+        assertEquals("1", cursor.next(SchemaVersion.EMPTY, SchemaVersion.LATEST).getVersion().toString());
+        assertEquals("1", cursor.next(SchemaVersion.EMPTY, SchemaVersion.LATEST).getVersion().toString());
+        assertEquals("1.1", cursor.next(new SchemaVersion("1"), SchemaVersion.LATEST).getVersion().toString());
+        assertEquals("2", cursor.next(new SchemaVersion("1.1"), SchemaVersion.LATEST).getVersion().toString());
+        assertEquals("3.5", cursor.next(new SchemaVersion("2"), SchemaVersion.LATEST).getVersion().toString());
+        assertNull(cursor.next(new SchemaVersion("3.5"), SchemaVersion.LATEST));
+    }
+
+    @Test
+    public void nextInitialized() {
+        PendingMigrationCursor cursor = new PendingMigrationCursor(createMigrations("1", "1.1", "2", "3.5"));
+
+        assertEquals("2", cursor.next(new SchemaVersion("1.5"), SchemaVersion.LATEST).getVersion().toString());
+        assertNull(cursor.next(new SchemaVersion("4"), SchemaVersion.LATEST));
+    }
+
+    @Test
+    public void nextTarget() {
+        PendingMigrationCursor cursor = new PendingMigrationCursor(createMigrations("1", "1.1", "2", "3.5"));
+
+        assertEquals("1.1", cursor.next(new SchemaVersion("1"), new SchemaVersion("1.1")).getVersion().toString());
+        assertNull(cursor.next(new SchemaVersion("1.1"), new SchemaVersion("1.1")));
+        assertNull(cursor.next(new SchemaVersion("1.1"), new SchemaVersion("1.9")));
+    }
+
+    @Test
+    public void nextVersionWentBackwards() {
+        PendingMigrationCursor cursor = new PendingMigrationCursor(createMigrations("1", "1.1", "2", "3.5"));
+
+        assertEquals("3.5", cursor.next(new SchemaVersion("2"), SchemaVersion.LATEST).getVersion().toString());
+        assertEquals("1.1", cursor.next(new SchemaVersion("1"), SchemaVersion.LATEST).getVersion().toString());
+    }
+
+    @Test
+    public void nextEmpty() {
+        PendingMigrationCursor cursor = new PendingMigrationCursor(new ArrayList<Migration>());
+
+        assertNull(cursor.next(SchemaVersion.EMPTY, SchemaVersion.LATEST));
+    }
+
+    /**
+     * Creates test migrations with these versions.
+     *
+     * @param versions The versions, oldest first.
+     * @return The migrations, newest first.
+     */
+    static List<Migration> createMigrations(String... versions) {
+        List<Migration> migrations = new ArrayList<Migration>();
+        for (final String version : versions) {
+            migrations.add(new Migration() {
+                {
+                    schemaVersion = new SchemaVersion(version);
+                    description = "Test";
+                    script = "V" + version;
+                }
+
+                @Override
+                public MigrationType getMigrationType() {
+                    return MigrationType.JAVA;
+                }
+
+                @Override
+                public void migrate(JdbcTemplate jdbcTemplate, DbSupport dbSupport) {
+                }
+
+                @Override
+                public String getLocation() {
+                    return script;
+                }
+            });
+        }
+        Collections.reverse(migrations);
+        return migrations;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Timing benchmark for sorting large numbers of SchemaVersions.
+ */
+public class SchemaVersionMediumTest {
+    private static final Log LOG = LogFactory.getLog(SchemaVersionMediumTest.class);
+
+    /**
+     * The number of versions to sort.
+     */
+    private static final int VERSIONS = 100000;
+
+    /**
+     * The number of times the sort is repeated.
+     */
+    private static final int RUNS = 5;
+
+    @Test
+    public void sort() {
+        Random random = new Random(42);
+        List<SchemaVersion> versions = new ArrayList<SchemaVersion>(VERSIONS);
+        for (int i = 0; i < VERSIONS; i++) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    versions.add(new SchemaVersion(Integer.toString(random.nextInt(100000))));
+                    break;
+                case 1:
+                    versions.add(new SchemaVersion(random.nextInt(100) + "." + random.nextInt(100) + "." + random.nextInt(100)));
+                    break;
+                default:
+                    versions.add(new SchemaVersion("2012" + (1000000 + random.nextInt(8999999))));
+            }
+        }
+
+        // Warm up
+        List<SchemaVersion> sorted = new ArrayList<SchemaVersion>(versions);
+        Collections.sort(sorted);
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue(sorted.get(i - 1).compareTo(sorted.get(i)) <= 0);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            Collections.sort(new ArrayList<SchemaVersion>(versions));
+        }
+        long time = (System.nanoTime() - start) / RUNS / 1000000;
+
+        LOG.info("Sorting " + VERSIONS + " versions: " + time + " ms (average of " + RUNS + " runs)");
+    }
+}
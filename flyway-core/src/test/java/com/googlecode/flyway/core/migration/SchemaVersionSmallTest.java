@@ -17,6 +17,8 @@ package com.googlecode.flyway.core.migration;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -95,5 +97,35 @@ public class SchemaVersionSmallTest {
         assertTrue(v1.compareTo(v2) == 0);
         assertTrue(v1.equals(v2));
     }
-}
 
+    @Test
+    public void hashCodeConsistentWithEquals() {
+        final SchemaVersion v1 = new SchemaVersion("1.1");
+        final SchemaVersion v2 = new SchemaVersion("001.1.0-0");
+        assertTrue(v1.equals(v2));
+        assertEquals(v1.hashCode(), v2.hashCode());
+
+        final SchemaVersion a1 = new SchemaVersion("1.2.1a");
+        final SchemaVersion a2 = new SchemaVersion("1-2-1a.0");
+        assertTrue(a1.equals(a2));
+        assertEquals(a1.hashCode(), a2.hashCode());
+
+        assertFalse(v1.equals(a1));
+    }
+
+    @Test
+    public void mixedNumericAndAlphaNumeric() {
+        final SchemaVersion a1 = new SchemaVersion("1.10");
+        final SchemaVersion a2 = new SchemaVersion("1.1a");
+        assertTrue(a1.compareTo(a2) < 0);
+        assertTrue(a2.compareTo(a1) > 0);
+    }
+
+    @Test
+    public void tooLargeForNumber() {
+        final SchemaVersion a1 = new SchemaVersion("1.99999999999999999999");
+        final SchemaVersion a2 = new SchemaVersion("1.99999999999999999998");
+        assertTrue(a1.compareTo(a2) > 0);
+        assertTrue(a2.compareTo(a1) < 0);
+    }
+}
@@ -17,9 +17,11 @@ package com.googlecode.flyway.core.migration.java;
 
 import com.googlecode.flyway.core.migration.java.dummy.V2__InterfaceBasedMigration;
 import com.googlecode.flyway.core.migration.java.dummy.Version3dot5;
+import com.googlecode.flyway.core.migration.java.lazy.LazyMigrationState;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 
 /**
@@ -41,4 +43,23 @@ public class JavaMigrationExecutorSmallTest {
         assertEquals("Three Dot Five", javaMigrationExecutor.getDescription());
         assertEquals(35, javaMigrationExecutor.getChecksum().intValue());
     }
+
+    @Test
+    public void lazy() {
+        JavaMigrationExecutor javaMigrationExecutor =
+                new JavaMigrationExecutor("com.googlecode.flyway.core.migration.java.lazy.V1__Lazy");
+        assertEquals("1", javaMigrationExecutor.getVersion().toString());
+        assertEquals("Lazy", javaMigrationExecutor.getDescription());
+        assertNull(javaMigrationExecutor.getChecksum());
+        assertFalse(LazyMigrationState.initialized);
+    }
+
+    @Test
+    public void lazyExplicitInfo() {
+        JavaMigrationExecutor javaMigrationExecutor =
+                new JavaMigrationExecutor("com.googlecode.flyway.core.migration.java.dummy.Version3dot5");
+        assertEquals("3.5", javaMigrationExecutor.getVersion().toString());
+        assertEquals("Three Dot Five", javaMigrationExecutor.getDescription());
+        assertEquals(35, javaMigrationExecutor.getChecksum().intValue());
+    }
 }
@@ -0,0 +1,27 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.java.lazy;
+
+/**
+ * Records whether V1__Lazy has been initialized. Kept in a separate class, as reading a static field of V1__Lazy
+ * would initialize it.
+ */
+public class LazyMigrationState {
+    /**
+     * Whether V1__Lazy has been initialized.
+     */
+    public static boolean initialized;
+}
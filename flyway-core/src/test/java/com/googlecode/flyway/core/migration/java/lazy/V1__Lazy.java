@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.java.lazy;
+
+import com.googlecode.flyway.core.migration.java.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test migration that records when it is initialized.
+ */
+public class V1__Lazy implements JavaMigration {
+    static {
+        LazyMigrationState.initialized = true;
+    }
+
+    public void migrate(JdbcTemplate jdbcTemplate) throws Exception {
+        //Do nothing.
+    }
+}
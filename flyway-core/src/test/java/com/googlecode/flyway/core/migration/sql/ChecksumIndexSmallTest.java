@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.sql;
+
+import com.googlecode.flyway.core.util.ClassPathResource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for ChecksumIndex.
+ */
+public class ChecksumIndexSmallTest {
+    /**
+     * The file in which the index is stored.
+     */
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        indexFile = File.createTempFile("flyway-checksums", ".properties");
+        indexFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        indexFile.delete();
+    }
+
+    @Test
+    public void saveAndLoad() {
+        ChecksumIndex checksumIndex = new ChecksumIndex(indexFile);
+        assertNull(checksumIndex.getChecksum("db/V1__First.sql", "file;1;2;UTF-8"));
+
+        checksumIndex.putChecksum("db/V1__First.sql", "file;1;2;UTF-8", -1234);
+        checksumIndex.save();
+
+        ChecksumIndex reloaded = new ChecksumIndex(indexFile);
+        assertEquals(Integer.valueOf(-1234), reloaded.getChecksum("db/V1__First.sql", "file;1;2;UTF-8"));
+        assertNull(reloaded.getChecksum("db/V1__First.sql", "file;1;3;UTF-8"));
+        assertNull(reloaded.getChecksum("db/V2__Second.sql", "file;1;2;UTF-8"));
+    }
+
+    @Test
+    public void saveUnmodified() {
+        new ChecksumIndex(indexFile).save();
+        assertFalse(indexFile.exists());
+    }
+
+    @Test
+    public void fingerprint() {
+        URL url = new ClassPathResource("migration/sql/V1__First.sql").getUrl();
+        String fingerprint = ChecksumIndex.fingerprint(url, "UTF-8");
+        assertNotNull(fingerprint);
+        assertEquals(fingerprint, ChecksumIndex.fingerprint(url, "UTF-8"));
+        assertFalse(fingerprint.equals(ChecksumIndex.fingerprint(url, "ISO-8859-1")));
+    }
+
+    @Test
+    public void sqlMigrationUsesIndex() {
+        String location = "migration/sql/V1__First.sql";
+        ClassPathResource resource = new ClassPathResource(location);
+
+        ChecksumIndex checksumIndex = new ChecksumIndex(indexFile);
+        SqlMigration sqlMigration = new SqlMigration(resource, PlaceholderReplacer.NO_PLACEHOLDERS, "UTF-8",
+                "1__First", "V1__First.sql", checksumIndex);
+        Integer checksum = sqlMigration.getChecksum();
+        assertEquals(new SqlMigration(resource, PlaceholderReplacer.NO_PLACEHOLDERS, "UTF-8",
+                "1__First", "V1__First.sql").getChecksum(), checksum);
+
+        String fingerprint = ChecksumIndex.fingerprint(resource.getUrl(), "UTF-8");
+        assertEquals(checksum, checksumIndex.getChecksum(location, fingerprint));
+
+        checksumIndex.putChecksum(location, fingerprint, 42);
+        SqlMigration indexedMigration = new SqlMigration(resource, PlaceholderReplacer.NO_PLACEHOLDERS, "UTF-8",
+                "1__First", "V1__First.sql", checksumIndex);
+        assertEquals(Integer.valueOf(42), indexedMigration.getChecksum());
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.migration.sql;
+
+import com.googlecode.flyway.core.util.ClassPathResource;
+import org.junit.Test;
+
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for SqlMigration.
+ */
+public class SqlMigrationSmallTest {
+    @Test
+    public void checksum() {
+        String location = "migration/sql/V1_2__Populate_table.sql";
+
+        SqlMigration sqlMigration = new SqlMigration(new ClassPathResource(location),
+                PlaceholderReplacer.NO_PLACEHOLDERS, "UTF-8", "1_2__Populate_table", "V1_2__Populate_table.sql");
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(new ClassPathResource(location).loadAsString("UTF-8").getBytes());
+        assertEquals(Integer.valueOf((int) crc32.getValue()), sqlMigration.getChecksum());
+    }
+}
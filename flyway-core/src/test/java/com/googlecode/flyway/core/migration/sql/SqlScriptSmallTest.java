@@ -17,13 +17,16 @@ package com.googlecode.flyway.core.migration.sql;
 
 import org.junit.Test;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test for SqlScript.
@@ -103,4 +106,39 @@ public class SqlScriptSmallTest {
         assertEquals(2, sqlStatement.getLineNumber());
         assertEquals("CREATE OR REPLACE VIEW \"SOME_VIEW\"", sqlStatement.getSql());
     }
+
+    @Test
+    public void parseReaderStreamsStatements() {
+        String source = "/* header\n comment */\n" +
+                "insert into t values (1);\n" +
+                "\n" +
+                "insert into t\n" +
+                "  values (2);\n" +
+                "update t set c = 3";
+
+        final List<SqlStatement> sqlStatements = new ArrayList<SqlStatement>();
+        sqlScript.parse(new StringReader(source), PlaceholderReplacer.NO_PLACEHOLDERS, new SqlStatementCallback() {
+            public void doWithStatement(SqlStatement sqlStatement) {
+                sqlStatements.add(sqlStatement);
+            }
+        });
+
+        assertEquals(3, sqlStatements.size());
+        assertEquals(3, sqlStatements.get(0).getLineNumber());
+        assertEquals("insert into t values (1)", sqlStatements.get(0).getSql());
+        assertEquals(5, sqlStatements.get(1).getLineNumber());
+        assertEquals("insert into t\nvalues (2)", sqlStatements.get(1).getSql());
+        assertEquals(7, sqlStatements.get(2).getLineNumber());
+        assertEquals("update t set c = 3", sqlStatements.get(2).getSql());
+    }
+
+    @Test
+    public void isBatchable() {
+        assertTrue(sqlScript.isBatchable(new SqlStatement(1, "INSERT INTO t VALUES (1)")));
+        assertTrue(sqlScript.isBatchable(new SqlStatement(1, "update t\nset c = 1")));
+        assertTrue(sqlScript.isBatchable(new SqlStatement(1, "Delete from t")));
+        assertFalse(sqlScript.isBatchable(new SqlStatement(1, "CREATE TABLE t (c INT)")));
+        assertFalse(sqlScript.isBatchable(new SqlStatement(1, "BEGIN INSERT INTO t VALUES (1); END")));
+        assertFalse(sqlScript.isBatchable(new SqlStatement(1, "INSERTED")));
+    }
 }
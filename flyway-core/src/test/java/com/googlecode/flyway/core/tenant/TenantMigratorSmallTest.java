@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.tenant;
+
+import com.googlecode.flyway.core.exception.FlywayException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for TenantMigrator.
+ */
+public class TenantMigratorSmallTest {
+    @Test
+    public void resultsInTenantOrder() {
+        List<Tenant> tenants = new ArrayList<Tenant>();
+        for (int i = 0; i < 20; i++) {
+            tenants.add(new Tenant("tenant" + i, null));
+        }
+
+        List<TenantMigrationResult> results = new TenantMigrator(4, 0, 0).migrate(tenants,
+                new TenantMigrator.TenantMigration() {
+                    public int migrate(Tenant tenant) {
+                        return Integer.parseInt(tenant.getName().substring("tenant".length()));
+                    }
+                });
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            TenantMigrationResult result = results.get(i);
+            assertEquals("tenant" + i, result.getTenantName());
+            assertEquals(i, result.getMigrationCount());
+            assertEquals(1, result.getAttempts());
+            assertTrue(result.isSuccess());
+            assertNull(result.getFailure());
+        }
+    }
+
+    @Test
+    public void retry() {
+        final AtomicInteger attempts = new AtomicInteger();
+        List<TenantMigrationResult> results = new TenantMigrator(1, 2, 1).migrate(
+                Arrays.asList(new Tenant("flaky", null)),
+                new TenantMigrator.TenantMigration() {
+                    public int migrate(Tenant tenant) {
+                        if (attempts.incrementAndGet() < 3) {
+                            throw new FlywayException("Connection refused");
+                        }
+                        return 5;
+                    }
+                });
+
+        TenantMigrationResult result = results.get(0);
+        assertTrue(result.isSuccess());
+        assertEquals(5, result.getMigrationCount());
+        assertEquals(3, result.getAttempts());
+    }
+
+    @Test
+    public void failureDoesNotStopOtherTenants() {
+        List<TenantMigrationResult> results = new TenantMigrator(2, 1, 1).migrate(
+                Arrays.asList(new Tenant("good", null), new Tenant("bad", null), new Tenant("other", null)),
+                new TenantMigrator.TenantMigration() {
+                    public int migrate(Tenant tenant) {
+                        if ("bad".equals(tenant.getName())) {
+                            throw new FlywayException("Validate failed");
+                        }
+                        return 1;
+                    }
+                });
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(2, results.get(1).getAttempts());
+        assertEquals("Validate failed", results.get(1).getFailure().getMessage());
+        assertTrue(results.get(2).isSuccess());
+    }
+}
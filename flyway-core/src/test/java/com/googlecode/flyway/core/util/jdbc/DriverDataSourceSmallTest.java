@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.util.jdbc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the connection pool of DriverDataSource.
+ */
+public class DriverDataSourceSmallTest {
+    private DriverDataSource dataSource;
+
+    @Before
+    public void setUp() {
+        dataSource = new DriverDataSource("org.h2.Driver", "jdbc:h2:mem:flyway_pool_test;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setMaxPoolSize(2);
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertEquals(1, dataSource.getConnectionPool().getOpenCount());
+        assertEquals(1, dataSource.getConnectionPool().getIdleCount());
+
+        Connection reused = dataSource.getConnection();
+        assertNotSame(connection, reused);
+        assertTrue(reused.getAutoCommit());
+        assertEquals(1, dataSource.getConnectionPool().getOpenCount());
+        assertEquals(0, dataSource.getConnectionPool().getIdleCount());
+        reused.close();
+    }
+
+    @Test
+    public void closedConnectionUnusable() throws Exception {
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+        try {
+            connection.createStatement();
+            fail();
+        } catch (SQLException e) {
+            // Expected
+        }
+        assertEquals(1, dataSource.getConnectionPool().getIdleCount());
+    }
+
+    @Test
+    public void waitWhenExhausted() throws Exception {
+        final Connection connection1 = dataSource.getConnection();
+        Connection connection2 = dataSource.getConnection();
+
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                    connection1.close();
+                } catch (Exception e) {
+                    // Ignore
+                }
+            }
+        };
+        releaser.start();
+
+        Connection connection3 = dataSource.getConnection();
+        assertTrue(connection1.isClosed());
+        assertFalse(connection3.isClosed());
+        assertEquals(2, dataSource.getConnectionPool().getOpenCount());
+
+        connection2.close();
+        connection3.close();
+        releaser.join();
+    }
+
+    @Test
+    public void idleEviction() throws Exception {
+        dataSource.setIdleTimeout(10);
+
+        dataSource.getConnection().close();
+        Thread.sleep(50);
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.getConnectionPool().getOpenCount());
+        connection.close();
+    }
+
+    @Test
+    public void idleConnectionCountsTowardsLimit() throws Exception {
+        Connection connection1 = dataSource.getConnection();
+        Connection connection2 = dataSource.getConnection();
+        connection1.close();
+        connection2.close();
+        assertEquals(2, dataSource.getConnectionPool().getIdleCount());
+
+        dataSource.getConnection().close();
+        assertEquals(2, dataSource.getConnectionPool().getOpenCount());
+    }
+
+    @Test
+    public void pooledDataSourceShared() {
+        DriverDataSource shared = DriverDataSource.getPooledDataSource("org.h2.Driver", "jdbc:h2:mem:flyway_pool_shared", "sa", "");
+        assertSame(shared, DriverDataSource.getPooledDataSource("org.h2.Driver", "jdbc:h2:mem:flyway_pool_shared", "sa", ""));
+        assertEquals(DriverDataSource.DEFAULT_MAX_POOL_SIZE, shared.getMaxPoolSize());
+
+        DriverDataSource.closePooledDataSources();
+        assertNotSame(shared, DriverDataSource.getPooledDataSource("org.h2.Driver", "jdbc:h2:mem:flyway_pool_shared", "sa", ""));
+        DriverDataSource.closePooledDataSources();
+    }
+
+    @Test
+    public void ensureMaxPoolSize() throws Exception {
+        Connection connection1 = dataSource.getConnection();
+        Connection connection2 = dataSource.getConnection();
+
+        dataSource.ensureMaxPoolSize(3);
+        assertEquals(3, dataSource.getMaxPoolSize());
+        Connection connection3 = dataSource.getConnection();
+        assertEquals(3, dataSource.getConnectionPool().getOpenCount());
+
+        dataSource.ensureMaxPoolSize(1);
+        assertEquals(3, dataSource.getMaxPoolSize());
+
+        connection1.close();
+        connection2.close();
+        connection3.close();
+    }
+
+    @Test
+    public void ensureMaxPoolSizeWithoutPooling() {
+        DriverDataSource unpooled = new DriverDataSource("org.h2.Driver", "jdbc:h2:mem:flyway_pool_test", "sa", "");
+        unpooled.ensureMaxPoolSize(5);
+        assertEquals(0, unpooled.getMaxPoolSize());
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.core.util.scanner;
+
+import com.googlecode.flyway.core.util.ClassPathResource;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Timing benchmark comparing sequential and parallel scanning of a synthetic classpath made of many jars with
+ * thousands of entries.
+ */
+public class ClassPathScannerMediumTest {
+    private static final Log LOG = LogFactory.getLog(ClassPathScannerMediumTest.class);
+
+    /**
+     * The number of jars on the synthetic classpath.
+     */
+    private static final int JARS = 40;
+
+    /**
+     * The number of migrations in each jar.
+     */
+    private static final int MIGRATIONS_PER_JAR = 50;
+
+    /**
+     * The number of unrelated entries in each jar.
+     */
+    private static final int OTHER_ENTRIES_PER_JAR = 500;
+
+    /**
+     * The number of times each scan is repeated.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * The directory containing the jars of the synthetic classpath.
+     */
+    private File jarDir;
+
+    /**
+     * The context classloader that was active before the test.
+     */
+    private ClassLoader originalClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        jarDir = File.createTempFile("flyway-scanner", "");
+        jarDir.delete();
+        jarDir.mkdirs();
+
+        URL[] urls = new URL[JARS];
+        for (int i = 0; i < JARS; i++) {
+            File jar = new File(jarDir, "lib" + i + ".jar");
+            createJar(jar, i);
+            urls[i] = jar.toURI().toURL();
+        }
+
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new URLClassLoader(urls, null));
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+
+        File[] files = jarDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        jarDir.delete();
+    }
+
+    /**
+     * Creates a jar containing migrations under db/migration and lots of unrelated entries.
+     *
+     * @param jar   The jar file to create.
+     * @param index The index of the jar.
+     * @throws IOException when the jar could not be written.
+     */
+    private void createJar(File jar, int index) throws IOException {
+        JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            jarOutputStream.putNextEntry(new JarEntry("db/migration/"));
+            jarOutputStream.closeEntry();
+            for (int i = 0; i < MIGRATIONS_PER_JAR; i++) {
+                jarOutputStream.putNextEntry(new JarEntry("db/migration/V" + index + "_" + i + "__Migration.sql"));
+                jarOutputStream.write(("CREATE TABLE t_" + index + "_" + i + " (id INT);").getBytes("UTF-8"));
+                jarOutputStream.closeEntry();
+            }
+            for (int i = 0; i < OTHER_ENTRIES_PER_JAR; i++) {
+                jarOutputStream.putNextEntry(new JarEntry("com/example/lib" + index + "/Class" + i + ".class"));
+                jarOutputStream.closeEntry();
+            }
+        } finally {
+            jarOutputStream.close();
+        }
+    }
+
+    @Test
+    public void sequentialVsParallel() throws Exception {
+        ClassPathScanner sequentialScanner = new ClassPathScanner();
+        ClassPathScanner parallelScanner = new ClassPathScanner(Runtime.getRuntime().availableProcessors() * 2);
+
+        // Warm up
+        ClassPathResource[] expected = sequentialScanner.scanForResources("db/migration", "V", ".sql");
+        ClassPathResource[] actual = parallelScanner.scanForResources("db/migration", "V", ".sql");
+
+        assertEquals(JARS * MIGRATIONS_PER_JAR, expected.length);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getLocation(), actual[i].getLocation());
+        }
+
+        long sequentialTime = time(sequentialScanner);
+        long parallelTime = time(parallelScanner);
+
+        LOG.info("Scanning " + JARS + " jars with " + (JARS * (MIGRATIONS_PER_JAR + OTHER_ENTRIES_PER_JAR))
+                + " entries: sequential " + sequentialTime + " ms, parallel " + parallelTime + " ms (average of "
+                + RUNS + " runs)");
+    }
+
+    /**
+     * Measures the average time this scanner takes to scan the synthetic classpath.
+     *
+     * @param classPathScanner The scanner to measure.
+     * @return The average time in ms.
+     * @throws Exception when the scan failed.
+     */
+    private long time(ClassPathScanner classPathScanner) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            classPathScanner.scanForResources("db/migration", "V", ".sql");
+        }
+        return (System.nanoTime() - start) / RUNS / 1000000;
+    }
+}
@@ -21,6 +21,7 @@ import com.googlecode.flyway.core.migration.MigrationTestCase;
 import com.googlecode.flyway.core.migration.java.JavaMigration;
 import com.googlecode.flyway.core.migration.java.dummy.V2__InterfaceBasedMigration;
 import com.googlecode.flyway.core.migration.java.dummy.Version3dot5;
+import com.googlecode.flyway.core.migration.java.lazy.LazyMigrationState;
 import com.googlecode.flyway.core.util.ClassPathResource;
 import com.googlecode.flyway.core.util.scanner.ClassPathScanner;
 import org.hamcrest.Matcher;
@@ -34,6 +35,7 @@ import java.net.URLDecoder;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -192,4 +194,33 @@ public class ClassPathScannerSmallTest {
         assertEquals(AnyOf.class, classes[1]);
         assertEquals(DescribedAs.class, classes[2]);
     }
+
+    @Test
+    public void scanForResourcesInParallel() throws Exception {
+        ClassPathResource[] sequential = new ClassPathScanner().scanForResources("org", "", ".class");
+        ClassPathResource[] parallel = new ClassPathScanner(4).scanForResources("org", "", ".class");
+
+        assertTrue(sequential.length > 0);
+        assertEquals(sequential.length, parallel.length);
+        for (int i = 0; i < sequential.length; i++) {
+            assertEquals(sequential[i].getLocation(), parallel[i].getLocation());
+        }
+    }
+
+    @Test
+    public void scanForClassNamesWithoutLoading() throws Exception {
+        String[] classNames = new ClassPathScanner().scanForClassNames("com.googlecode.flyway.core.migration.java.lazy", JavaMigration.class);
+
+        assertEquals(1, classNames.length);
+        assertEquals("com.googlecode.flyway.core.migration.java.lazy.V1__Lazy", classNames[0]);
+        assertFalse(LazyMigrationState.initialized);
+    }
+
+    @Test
+    public void scanForClassNamesJarFile() throws Exception {
+        String[] classNames = new ClassPathScanner().scanForClassNames("org.hamcrest.core", Matcher.class);
+
+        assertEquals(10, classNames.length);
+        assertEquals(AllOf.class.getName(), classNames[0]);
+    }
 }
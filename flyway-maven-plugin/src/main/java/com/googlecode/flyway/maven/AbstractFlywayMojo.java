@@ -95,6 +95,22 @@ abstract class AbstractFlywayMojo extends AbstractMojo {
      */
     private String table;
 
+    /**
+     * The maximum number of schemas to clean concurrently, each on its own connection. (default: 1, sequential)<br>
+     * default property: ${flyway.cleanThreads}
+     *
+     * @parameter expression="${flyway.cleanThreads}"
+     */
+    private int cleanThreads = 1;
+
+    /**
+     * Whether to clean schemas by dropping and recreating them where possible, instead of dropping all their objects one
+     * by one. (default: false)<br> default property: ${flyway.fastClean}
+     *
+     * @parameter expression="${flyway.fastClean}"
+     */
+    private boolean fastClean;
+
 
     /**
      * The link to the settings.xml
@@ -154,6 +170,8 @@ abstract class AbstractFlywayMojo extends AbstractMojo {
             if (table != null) {
                 flyway.setTable(table);
             }
+            flyway.setCleanThreads(cleanThreads);
+            flyway.setFastClean(fastClean);
 
             doExecute(flyway);
         } catch (Exception e) {
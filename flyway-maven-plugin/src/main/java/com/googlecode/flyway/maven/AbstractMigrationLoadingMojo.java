@@ -66,6 +66,22 @@ abstract class AbstractMigrationLoadingMojo extends AbstractFlywayMojo {
      */
     private String sqlMigrationSuffix;
 
+    /**
+     * The file in which to persist the checksums of the Sql migrations, so unchanged scripts don't have to be read again
+     * on every run. (default: none)<br> Also configurable with Maven or System Property: ${flyway.checksumIndexFile}
+     *
+     * @parameter expression="${flyway.checksumIndexFile}"
+     */
+    private String checksumIndexFile;
+
+    /**
+     * The maximum number of threads to use to scan the classpath for migrations in parallel. (default: 1, sequential)<br>
+     * Also configurable with Maven or System Property: ${flyway.scanThreads}
+     *
+     * @parameter expression="${flyway.scanThreads}"
+     */
+    private int scanThreads = 1;
+
     /**
      * The action to take when validation fails.<br/> <br/> Possible values are:<br/> <br/> <b>FAIL</b> (default)<br/>
      * Throw an exception and fail.<br/> <br/> <b>CLEAN (Warning ! Do not use in produktion !)</b><br/> Cleans the
@@ -97,6 +113,10 @@ abstract class AbstractMigrationLoadingMojo extends AbstractFlywayMojo {
         if (sqlMigrationSuffix != null) {
             flyway.setSqlMigrationSuffix(sqlMigrationSuffix);
         }
+        if (checksumIndexFile != null) {
+            flyway.setChecksumIndexFile(checksumIndexFile);
+        }
+        flyway.setScanThreads(scanThreads);
         if (validationErrorMode != null) {
             flyway.setValidationErrorMode(ValidationErrorMode.valueOf(validationErrorMode.toUpperCase()));
         }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2010-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.googlecode.flyway.maven;
+
+import com.googlecode.flyway.core.Flyway;
+import com.googlecode.flyway.core.util.ExceptionUtils;
+import com.pyx4j.log4j.MavenLogAppender;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.File;
+
+/**
+ * Maven goal to write an index of the available migrations to the build output, so Flyway doesn't have to scan the
+ * classpath for them at runtime. Doesn't need a connection to the database.
+ *
+ * @goal index
+ * @phase process-classes
+ * @requiresDependencyResolution compile
+ * @configurator include-project-dependencies
+ * @since 1.7
+ */
+@SuppressWarnings({"UnusedDeclaration", "JavaDoc"})
+public class IndexMojo extends AbstractMojo {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IndexMojo.class);
+
+    /**
+     * The base package where the Java migrations are located. (default: db.migration) <br> Also configurable with Maven
+     * or System Property: ${flyway.basePackage}
+     *
+     * @parameter expression="${flyway.basePackage}"
+     */
+    private String basePackage;
+
+    /**
+     * The base directory on the classpath where the Sql migrations are located. (default: db/migration)<br> Also
+     * configurable with Maven or System Property: ${flyway.baseDir}
+     *
+     * @parameter expression="${flyway.baseDir}"
+     */
+    private String baseDir;
+
+    /**
+     * The encoding of Sql migrations. (default: UTF-8)<br> Also configurable with Maven or System Property:
+     * ${flyway.encoding}
+     *
+     * @parameter expression="${flyway.encoding}"
+     */
+    private String encoding;
+
+    /**
+     * The file name prefix for Sql migrations (default: V) Also configurable with Maven or System Property:
+     * ${flyway.sqlMigrationPrefix}
+     *
+     * @parameter expression="${flyway.sqlMigrationPrefix}"
+     */
+    private String sqlMigrationPrefix;
+
+    /**
+     * The file name suffix for Sql migrations (default: .sql) Also configurable with Maven or System Property:
+     * ${flyway.sqlMigrationSuffix}
+     *
+     * @parameter expression="${flyway.sqlMigrationSuffix}"
+     */
+    private String sqlMigrationSuffix;
+
+    /**
+     * The directory to write the index to. (default: the directory the classes are compiled to)
+     *
+     * @parameter default-value="${project.build.outputDirectory}"
+     * @required
+     */
+    private File outputDirectory;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        MavenLogAppender.startPluginLog(this);
+        try {
+            Flyway flyway = new Flyway();
+            if (basePackage != null) {
+                flyway.setBasePackage(basePackage);
+            }
+            if (baseDir != null) {
+                flyway.setBaseDir(baseDir);
+            }
+            if (encoding != null) {
+                flyway.setEncoding(encoding);
+            }
+            if (sqlMigrationPrefix != null) {
+                flyway.setSqlMigrationPrefix(sqlMigrationPrefix);
+            }
+            if (sqlMigrationSuffix != null) {
+                flyway.setSqlMigrationSuffix(sqlMigrationSuffix);
+            }
+
+            flyway.index(outputDirectory);
+        } catch (Exception e) {
+            LOG.error(e.toString());
+
+            Throwable rootCause = ExceptionUtils.getRootCause(e);
+            if (rootCause != null) {
+                LOG.error("Caused by " + rootCause.toString());
+            }
+            throw new MojoExecutionException("Flyway Error: " + e.toString(), e);
+        } finally {
+            MavenLogAppender.endPluginLog(this);
+        }
+    }
+}
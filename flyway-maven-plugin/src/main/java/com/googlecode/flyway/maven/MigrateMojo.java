@@ -113,6 +113,68 @@ public class MigrateMojo extends AbstractMigrationLoadingMojo {
      */
     private String validationMode;
 
+    /**
+     * Whether to group all pending migrations together in the same transaction when applying them. Only honored for
+     * databases that support ddl transactions. If any migration fails, all of them are rolled back. (default: false)<br/>
+     * Also configurable with Maven or System Property: ${flyway.group}
+     *
+     * @parameter expression="${flyway.group}"
+     */
+    private boolean group;
+
+    /**
+     * The maximum number of consecutive DML statements of a sql migration to send to the database as a single JDBC
+     * batch. All other statements are always executed on their own. (default: 1, no batching)<br/>
+     * Also configurable with Maven or System Property: ${flyway.batchSize}
+     *
+     * @parameter expression="${flyway.batchSize}"
+     */
+    private int batchSize = 1;
+
+    /**
+     * The directory in which to store snapshots of the migrated schemas, restored instead of applying the same
+     * migrations to clean schemas again. Only supported for H2. (default: none)<br/>
+     * Also configurable with Maven or System Property: ${flyway.snapshotDir}
+     *
+     * @parameter expression="${flyway.snapshotDir}"
+     */
+    private String snapshotDir;
+
+    /**
+     * The file to which to write a JSON report of the time spent on each applied migration and of the slowest
+     * statements. (default: none)<br/>
+     * Also configurable with Maven or System Property: ${flyway.reportFile}
+     *
+     * @parameter expression="${flyway.reportFile}"
+     */
+    private String reportFile;
+
+    /**
+     * The maximum number of slowest statements to include in the migration report. (default: 10)<br/>
+     * Also configurable with Maven or System Property: ${flyway.reportSlowStatements}
+     *
+     * @parameter expression="${flyway.reportSlowStatements}"
+     */
+    private int reportSlowStatements = 10;
+
+    /**
+     * The maximum time to wait for the migration lock, in seconds. 0 or less to wait as long as necessary. (default:
+     * 0)<br/>
+     * Also configurable with Maven or System Property: ${flyway.lockTimeout}
+     *
+     * @parameter expression="${flyway.lockTimeout}"
+     */
+    private int lockTimeout;
+
+    /**
+     * The maximum number of migrations to apply concurrently. Migrations that don't declare their dependencies wait for
+     * all older migrations. (default: 1, one after the other)<br/>
+     * Also configurable with Maven or System Property: ${flyway.migrationThreads}
+     *
+     * @parameter expression="${flyway.migrationThreads}"
+     */
+    private int migrationThreads = 1;
+
     /**
      * Reference to the current project that includes the Flyway Maven plugin.
      *
@@ -147,6 +209,17 @@ public class MigrateMojo extends AbstractMigrationLoadingMojo {
         if (validationMode != null) {
             flyway.setValidationMode(ValidationMode.valueOf(validationMode.toUpperCase()));
         }
+        flyway.setGroup(group);
+        flyway.setBatchSize(batchSize);
+        if (snapshotDir != null) {
+            flyway.setSnapshotDir(snapshotDir);
+        }
+        if (reportFile != null) {
+            flyway.setReportFile(reportFile);
+        }
+        flyway.setReportSlowStatements(reportSlowStatements);
+        flyway.setLockTimeout(lockTimeout);
+        flyway.setMigrationThreads(migrationThreads);
 
         MigrationProvider migrationProvider =
                 new MigrationProvider(flyway.getBasePackage(), flyway.getBaseDir(), flyway.getEncoding(),